@@ -85,6 +85,31 @@ public class CompensationController {
 
     }
 
+    @Permission
+    @PostMapping(value = "/listParkedPage")
+    public AjaxResponse listParkedPage(@RequestBody final CompensationQuery recoverQuery) {
+        recoverQuery.setParked(Boolean.TRUE);
+        final CommonPager<CatCompensationVO> pager =
+                compensationService.listByPage(recoverQuery);
+        return AjaxResponse.success(pager);
+    }
+
+    @PostMapping(value = "/replay")
+    @Permission
+    public AjaxResponse replay(@RequestBody final CompensationDTO compensationDTO) {
+        final Boolean success = compensationService.replay(compensationDTO.getIds(),
+                compensationDTO.getApplicationName());
+        return AjaxResponse.success(success);
+    }
+
+    @PostMapping(value = "/purge")
+    @Permission
+    public AjaxResponse purge(@RequestBody final CompensationDTO compensationDTO) {
+        final Boolean success = compensationService.purge(compensationDTO.getIds(),
+                compensationDTO.getApplicationName());
+        return AjaxResponse.success(success);
+    }
+
     @PostMapping(value = "/listAppName")
     @Permission
     public AjaxResponse listAppName() {
@@ -47,6 +47,11 @@ public class CompensationQuery implements Serializable {
      */
     private Integer retry;
 
+    /**
+     * list the dead letter store instead of the log.
+     */
+    private Boolean parked;
+
     /**
      * pageParameter.
      */
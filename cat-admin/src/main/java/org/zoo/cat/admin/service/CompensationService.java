@@ -57,4 +57,22 @@ public interface CompensationService {
      * @return true success
      */
     Boolean updateRetry(String id, Integer retry, String appName);
+
+    /**
+     * move the parked transactions back to the log with their retries reset.
+     *
+     * @param ids     transIds
+     * @param appName app name
+     * @return true success
+     */
+    Boolean replay(List<String> ids, String appName);
+
+    /**
+     * delete the parked transactions.
+     *
+     * @param ids     transIds
+     * @param appName app name
+     * @return true success
+     */
+    Boolean purge(List<String> ids, String appName);
 }
@@ -17,6 +17,10 @@
 
 package org.zoo.cat.admin.service.compensate;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.exception.CatRuntimeException;
+import org.zoo.cat.common.journal.CatSegmentLog;
 import org.zoo.cat.common.utils.CollectionUtils;
 import org.zoo.cat.common.utils.StringUtils;
 import org.zoo.cat.admin.helper.ConvertHelper;
@@ -27,27 +31,31 @@ import org.zoo.cat.admin.query.CompensationQuery;
 import org.zoo.cat.admin.service.CompensationService;
 import org.zoo.cat.admin.vo.CatCompensationVO;
 import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
-import org.zoo.cat.common.exception.CatException;
 import org.zoo.cat.common.serializer.ObjectSerializer;
 import org.zoo.cat.common.utils.DateUtils;
-import org.zoo.cat.common.utils.FileUtils;
+import org.zoo.cat.common.utils.RepositoryConvertUtils;
 import org.zoo.cat.common.utils.RepositoryPathUtils;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * file impl.
+ * the application holds the lock of the segment log while running,
+ * so remove and update are submitted to the inbox of the log and applied by the application.
  *
  * @author dzc
  */
 @SuppressWarnings("all")
 public class FileCompensationServiceImpl implements CompensationService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileCompensationServiceImpl.class);
+
     private final ObjectSerializer objectSerializer;
 
     public FileCompensationServiceImpl(final ObjectSerializer objectSerializer) {
@@ -56,52 +64,49 @@ public class FileCompensationServiceImpl implements CompensationService {
 
     @Override
     public CommonPager<CatCompensationVO> listByPage(final CompensationQuery query) {
-        final String filePath = RepositoryPathUtils.buildFilePath(query.getApplicationName());
+        final String filePath = RepositoryPathUtils.buildFilePath(query.getApplicationName())
+                + (Boolean.TRUE.equals(query.getParked()) ? "_dead" : "");
         final PageParameter pageParameter = query.getPageParameter();
         final int currentPage = pageParameter.getCurrentPage();
         final int pageSize = pageParameter.getPageSize();
         int start = (currentPage - 1) * pageSize;
         CommonPager<CatCompensationVO> voCommonPager = new CommonPager<>();
-        File path;
-        File[] files;
         int totalCount;
         List<CatCompensationVO> voList;
-        //如果只查 重试条件的
-        if (StringUtils.isBlank(query.getTransId()) && Objects.nonNull(query.getRetry())) {
-            path = new File(filePath);
-            files = path.listFiles();
-            final List<CatCompensationVO> all = findAll(files);
-            if (CollectionUtils.isNotEmpty(all)) {
-                final List<CatCompensationVO> collect =
-                        all.stream().filter(Objects::nonNull)
-                                .filter(vo -> vo.getRetriedCount() < query.getRetry())
-                                .collect(Collectors.toList());
-                totalCount = collect.size();
-                voList = collect.stream().skip(start).limit(pageSize).collect(Collectors.toList());
+        if (!new File(filePath).exists()) {
+            voCommonPager.setPage(PageHelper.buildPage(query.getPageParameter(), 0));
+            return voCommonPager;
+        }
+        try (CatSegmentLog segmentLog = CatSegmentLog.openReadOnly(filePath)) {
+            //如果只查 重试条件的
+            if (StringUtils.isBlank(query.getTransId()) && Objects.nonNull(query.getRetry())) {
+                final List<CatCompensationVO> all = findAll(segmentLog);
+                if (CollectionUtils.isNotEmpty(all)) {
+                    final List<CatCompensationVO> collect =
+                            all.stream().filter(Objects::nonNull)
+                                    .filter(vo -> vo.getRetriedCount() < query.getRetry())
+                                    .collect(Collectors.toList());
+                    totalCount = collect.size();
+                    voList = collect.stream().skip(start).limit(pageSize).collect(Collectors.toList());
+                } else {
+                    totalCount = 0;
+                    voList = null;
+                }
+            } else if (StringUtils.isNoneBlank(query.getTransId()) && Objects.isNull(query.getRetry())) {
+                voList = findById(segmentLog, query.getTransId());
+                totalCount = voList.size();
+            } else if (StringUtils.isNoneBlank(query.getTransId()) && Objects.nonNull(query.getRetry())) {
+                voList = findById(segmentLog, query.getTransId())
+                        .stream().filter(Objects::nonNull)
+                        .filter(vo -> vo.getRetriedCount() < query.getRetry())
+                        .collect(Collectors.toList());
+                totalCount = voList.size();
             } else {
-                totalCount = 0;
-                voList = null;
+                totalCount = segmentLog.size();
+                voList = segmentLog.keys().stream().skip(start).limit(pageSize)
+                        .map(id -> readTransaction(segmentLog.get(id)))
+                        .collect(Collectors.toList());
             }
-        } else if (StringUtils.isNoneBlank(query.getTransId()) && Objects.isNull(query.getRetry())) {
-            final String fullFileName = RepositoryPathUtils.getFullFileName(filePath, query.getTransId());
-            final File file = new File(fullFileName);
-            files = new File[]{file};
-            totalCount = files.length;
-            voList = findAll(files);
-        } else if (StringUtils.isNoneBlank(query.getTransId()) && Objects.nonNull(query.getRetry())) {
-            final String fullFileName = RepositoryPathUtils.getFullFileName(filePath, query.getTransId());
-            final File file = new File(fullFileName);
-            files = new File[]{file};
-            totalCount = files.length;
-            voList = findAll(files)
-                    .stream().filter(Objects::nonNull)
-                    .filter(vo -> vo.getRetriedCount() < query.getRetry())
-                    .collect(Collectors.toList());
-        } else {
-            path = new File(filePath);
-            files = path.listFiles();
-            totalCount = Objects.requireNonNull(files).length;
-            voList = findByPage(files, start, pageSize);
         }
         voCommonPager.setPage(PageHelper.buildPage(query.getPageParameter(), totalCount));
         voCommonPager.setDataList(voList);
@@ -113,11 +118,9 @@ public class FileCompensationServiceImpl implements CompensationService {
         if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(applicationName)) {
             return Boolean.FALSE;
         }
-        final String filePath = RepositoryPathUtils.buildFilePath(applicationName);
-        ids.stream().map(id ->
-                new File(RepositoryPathUtils.getFullFileName(filePath, id)))
-                .forEach(File::delete);
-        return Boolean.TRUE;
+        final CatSegmentLog.Batch batch = new CatSegmentLog.Batch();
+        ids.forEach(batch::remove);
+        return submit(applicationName, batch);
     }
 
     @Override
@@ -127,72 +130,117 @@ public class FileCompensationServiceImpl implements CompensationService {
                 || Objects.isNull(retry)) {
             return false;
         }
-        final String filePath = RepositoryPathUtils.buildFilePath(applicationName);
-        final String fullFileName = RepositoryPathUtils.getFullFileName(filePath, id);
-        final File file = new File(fullFileName);
-        final CoordinatorRepositoryAdapter adapter = readRecover(file);
-        if (Objects.nonNull(adapter)) {
-            try {
-                adapter.setLastTime(DateUtils.getDateYYYY());
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            adapter.setRetriedCount(retry);
-            try {
-                FileUtils.writeFile(fullFileName, objectSerializer.serialize(adapter));
-            } catch (CatException e) {
-                e.printStackTrace();
-                return false;
-            }
-            return true;
+        final byte[] content = readLog(applicationName, segmentLog -> segmentLog.get(id));
+        if (Objects.isNull(content)) {
+            return Boolean.FALSE;
         }
-        return false;
-    }
-
-    private CoordinatorRepositoryAdapter readRecover(final File file) {
         try {
-            try (FileInputStream fis = new FileInputStream(file)) {
-                byte[] content = new byte[(int) file.length()];
-                fis.read(content);
-                return objectSerializer.deSerialize(content, CoordinatorRepositoryAdapter.class);
-            }
+            final Date lastTime = DateUtils.getDateYYYY();
+            return submit(applicationName, new CatSegmentLog.Batch()
+                    .put(id, RepositoryConvertUtils.updateHeader(content, objectSerializer, transaction -> {
+                        transaction.setLastTime(lastTime);
+                        transaction.setRetriedCount(retry);
+                        transaction.setNextRetryTime(null);
+                    })));
         } catch (Exception e) {
             e.printStackTrace();
+            return Boolean.FALSE;
+        }
+    }
+
+    @Override
+    public Boolean replay(final List<String> ids, final String applicationName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(applicationName)) {
+            return Boolean.FALSE;
+        }
+        final CatSegmentLog.Batch replayed = new CatSegmentLog.Batch();
+        final CatSegmentLog.Batch parked = new CatSegmentLog.Batch();
+        final Boolean success = readLog(applicationName + "_dead", deadLog -> {
+            for (String id : ids) {
+                final byte[] content = deadLog.get(id);
+                if (Objects.isNull(content)) {
+                    continue;
+                }
+                try {
+                    replayed.put(id, RepositoryConvertUtils.updateHeader(content, objectSerializer, transaction -> {
+                        transaction.setRetriedCount(0);
+                        transaction.setNextRetryTime(null);
+                    }));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    return Boolean.FALSE;
+                }
+                parked.remove(id);
+            }
+            return Boolean.TRUE;
+        });
+        if (!Boolean.TRUE.equals(success)) {
+            return Boolean.FALSE;
+        }
+        if (replayed.isEmpty()) {
+            return Boolean.TRUE;
+        }
+        return submit(applicationName, replayed) && submit(applicationName + "_dead", parked);
+    }
+
+    @Override
+    public Boolean purge(final List<String> ids, final String applicationName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(applicationName)) {
+            return Boolean.FALSE;
+        }
+        final CatSegmentLog.Batch batch = new CatSegmentLog.Batch();
+        ids.forEach(batch::remove);
+        return submit(applicationName + "_dead", batch);
+    }
+
+    private <T> T readLog(final String applicationName, final Function<CatSegmentLog, T> function) {
+        final String filePath = RepositoryPathUtils.buildFilePath(applicationName);
+        if (!CatSegmentLog.exists(filePath)) {
             return null;
         }
+        try (CatSegmentLog segmentLog = CatSegmentLog.openReadOnly(filePath)) {
+            return function.apply(segmentLog);
+        }
     }
 
-    private CatCompensationVO readTransaction(final File file) {
+    private Boolean submit(final String applicationName, final CatSegmentLog.Batch batch) {
         try {
-            try (FileInputStream fis = new FileInputStream(file)) {
-                byte[] content = new byte[(int) file.length()];
-                fis.read(content);
-                final CoordinatorRepositoryAdapter adapter =
-                        objectSerializer.deSerialize(content, CoordinatorRepositoryAdapter.class);
-                return ConvertHelper.buildVO(adapter);
-            }
+            return CatSegmentLog.submit(RepositoryPathUtils.buildFilePath(applicationName), batch);
+        } catch (CatRuntimeException e) {
+            LOGGER.warn("submit to file log exception: {}", e.getMessage());
+            return Boolean.FALSE;
+        }
+    }
+
+    private CoordinatorRepositoryAdapter readRecover(final byte[] content) {
+        if (Objects.isNull(content)) {
+            return null;
+        }
+        try {
+            return RepositoryConvertUtils.transformAdapter(content, objectSerializer);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
         }
     }
 
-    private List<CatCompensationVO> findAll(final File[] files) {
-        if (files != null && files.length > 0) {
-            return Arrays.stream(files)
-                    .map(this::readTransaction)
-                    .collect(Collectors.toList());
-        }
-        return null;
+    private CatCompensationVO readTransaction(final byte[] content) {
+        final CoordinatorRepositoryAdapter adapter = readRecover(content);
+        return Objects.isNull(adapter) ? null : ConvertHelper.buildVO(adapter);
     }
 
-    private List<CatCompensationVO> findByPage(final File[] files, final int start, final int pageSize) {
-        if (files != null && files.length > 0) {
-            return Arrays.stream(files).skip(start).limit(pageSize)
-                    .map(this::readTransaction)
-                    .collect(Collectors.toList());
+    private List<CatCompensationVO> findById(final CatSegmentLog segmentLog, final String id) {
+        final byte[] content = segmentLog.get(id);
+        if (Objects.isNull(content)) {
+            return Collections.emptyList();
         }
-        return null;
+        return Collections.singletonList(readTransaction(content));
+    }
+
+    private List<CatCompensationVO> findAll(final CatSegmentLog segmentLog) {
+        return segmentLog.keys().stream()
+                .map(id -> readTransaction(segmentLog.get(id)))
+                .collect(Collectors.toList());
     }
 
 }
@@ -25,6 +25,7 @@ import org.zoo.cat.common.utils.DateUtils;
 import org.zoo.cat.common.utils.DbTypeUtils;
 import org.zoo.cat.common.utils.RepositoryPathUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.zoo.cat.admin.helper.PageHelper;
 import org.zoo.cat.admin.page.CommonPager;
@@ -33,6 +34,8 @@ import org.zoo.cat.admin.query.CompensationQuery;
 import org.zoo.cat.admin.service.CompensationService;
 import org.zoo.cat.admin.vo.CatCompensationVO;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -46,6 +49,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class JdbcCompensationServiceImpl implements CompensationService {
 
+    private static final String COLUMNS = "id,app_name,trans_id,trans_type,target_class,target_method,retry_max,retried_count,"
+            + "create_time,last_time,version,status,invocation,role,pattern,confirm_method,cancel_method,shard_key,next_retry_time";
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -53,7 +59,8 @@ public class JdbcCompensationServiceImpl implements CompensationService {
 
     @Override
     public CommonPager<CatCompensationVO> listByPage(final CompensationQuery query) {
-        final String tableName = RepositoryPathUtils.buildDbTableName(query.getApplicationName());
+        final String tableName = RepositoryPathUtils.buildDbTableName(query.getApplicationName())
+                + (Boolean.TRUE.equals(query.getParked()) ? "_dead" : "");
         final PageParameter pageParameter = query.getPageParameter();
         StringBuilder sqlBuilder = new StringBuilder();
         sqlBuilder.append("select trans_id,target_class,target_method,confirm_method,cancel_method,"
@@ -98,12 +105,59 @@ public class JdbcCompensationServiceImpl implements CompensationService {
         }
         final String tableName = RepositoryPathUtils.buildDbTableName(appName);
         String sqlBuilder =
-                String.format("update %s  set retried_count = %d,last_time= '%s' where trans_id =%s",
+                String.format("update %s  set retried_count = %d,last_time= '%s',next_retry_time = null where trans_id =%s",
                         tableName, retry, DateUtils.getCurrentDateTime(), id);
         jdbcTemplate.execute(sqlBuilder);
         return Boolean.TRUE;
     }
 
+    @Override
+    public Boolean replay(final List<String> ids, final String appName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(appName)) {
+            return Boolean.FALSE;
+        }
+        final String tableName = RepositoryPathUtils.buildDbTableName(appName);
+        final String deadTableName = tableName + "_dead";
+        final String[] sqls = {
+            "insert into " + tableName + "(" + COLUMNS + ") select " + COLUMNS + " from " + deadTableName + " where trans_id=?",
+            "update " + tableName + " set retried_count=0,next_retry_time=null where trans_id=?",
+            "delete from " + deadTableName + " where trans_id=?"
+        };
+        ids.forEach(id -> jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (String sql : sqls) {
+                    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                        ps.setString(1, id);
+                        if (ps.executeUpdate() <= 0) {
+                            connection.rollback();
+                            return Boolean.FALSE;
+                        }
+                    }
+                }
+                connection.commit();
+                return Boolean.TRUE;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }));
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public Boolean purge(final List<String> ids, final String appName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(appName)) {
+            return Boolean.FALSE;
+        }
+        final String deadTableName = RepositoryPathUtils.buildDbTableName(appName) + "_dead";
+        ids.forEach(id -> jdbcTemplate.update("delete from " + deadTableName + " where trans_id=?", id));
+        return Boolean.TRUE;
+    }
+
     private CatCompensationVO buildByMap(final Map<String, Object> map) {
         CatCompensationVO vo = new CatCompensationVO();
         vo.setTransId((String) map.get("trans_id"));
@@ -53,7 +53,8 @@ public class MongoCompensationServiceImpl implements CompensationService {
     @Override
     public CommonPager<CatCompensationVO> listByPage(final CompensationQuery query) {
         CommonPager<CatCompensationVO> voCommonPager = new CommonPager<>();
-        final String mongoTableName = RepositoryPathUtils.buildMongoTableName(query.getApplicationName());
+        final String mongoTableName = RepositoryPathUtils.buildMongoTableName(query.getApplicationName())
+                + (Boolean.TRUE.equals(query.getParked()) ? "_dead" : "");
         final PageParameter pageParameter = query.getPageParameter();
         final int pageSize = pageParameter.getPageSize();
         Query baseQuery = new Query();
@@ -109,6 +110,7 @@ public class MongoCompensationServiceImpl implements CompensationService {
         Update update = new Update();
         update.set("lastTime", DateUtils.getCurrentDateTime());
         update.set("retriedCount", retry);
+        update.unset("nextRetryTime");
         final UpdateResult updateResult = mongoTemplate.updateFirst(query, update,
                 MongoAdapter.class, mongoTableName);
         if (updateResult.getModifiedCount() <= 0) {
@@ -117,4 +119,39 @@ public class MongoCompensationServiceImpl implements CompensationService {
         return Boolean.TRUE;
     }
 
+    @Override
+    public Boolean replay(final List<String> ids, final String appName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(appName)) {
+            return Boolean.FALSE;
+        }
+        final String mongoTableName = RepositoryPathUtils.buildMongoTableName(appName);
+        final String deadTableName = mongoTableName + "_dead";
+        ids.forEach(id -> {
+            Query query = new Query();
+            query.addCriteria(new Criteria("transId").is(id));
+            final MongoAdapter mongoAdapter = mongoTemplate.findOne(query, MongoAdapter.class, deadTableName);
+            if (Objects.nonNull(mongoAdapter)) {
+                mongoAdapter.setRetriedCount(0);
+                mongoAdapter.setNextRetryTime(null);
+                mongoTemplate.save(mongoAdapter, mongoTableName);
+                mongoTemplate.remove(query, deadTableName);
+            }
+        });
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public Boolean purge(final List<String> ids, final String appName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(appName)) {
+            return Boolean.FALSE;
+        }
+        final String deadTableName = RepositoryPathUtils.buildMongoTableName(appName) + "_dead";
+        ids.forEach(id -> {
+            Query query = new Query();
+            query.addCriteria(new Criteria("transId").is(id));
+            mongoTemplate.remove(query, deadTableName);
+        });
+        return Boolean.TRUE;
+    }
+
 }
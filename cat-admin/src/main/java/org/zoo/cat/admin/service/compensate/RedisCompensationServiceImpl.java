@@ -21,9 +21,11 @@ import com.google.common.collect.Sets;
 
 import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
 import org.zoo.cat.common.exception.CatException;
+import org.zoo.cat.common.constant.CommonConstant;
 import org.zoo.cat.common.jedis.JedisClient;
 import org.zoo.cat.common.serializer.ObjectSerializer;
 import org.zoo.cat.common.utils.DateUtils;
+import org.zoo.cat.common.utils.RepositoryConvertUtils;
 import org.zoo.cat.common.utils.RepositoryPathUtils;
 import lombok.RequiredArgsConstructor;
 import org.zoo.cat.common.utils.CollectionUtils;
@@ -35,6 +37,7 @@ import org.zoo.cat.admin.query.CompensationQuery;
 import org.zoo.cat.admin.service.CompensationService;
 import org.zoo.cat.admin.vo.CatCompensationVO;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -55,7 +58,9 @@ public class RedisCompensationServiceImpl implements CompensationService {
     @Override
     public CommonPager<CatCompensationVO> listByPage(final CompensationQuery query) {
         CommonPager<CatCompensationVO> commonPager = new CommonPager<>();
-        final String redisKeyPrefix = RepositoryPathUtils.buildRedisKeyPrefix(query.getApplicationName());
+        final String redisKeyPrefix = Boolean.TRUE.equals(query.getParked())
+                ? String.format(CommonConstant.DEAD_REDIS_KEY_PRE, query.getApplicationName())
+                : RepositoryPathUtils.buildRedisKeyPrefix(query.getApplicationName());
         final int currentPage = query.getPageParameter().getCurrentPage();
         final int pageSize = query.getPageParameter().getPageSize();
         int start = (currentPage - 1) * pageSize;
@@ -103,7 +108,7 @@ public class RedisCompensationServiceImpl implements CompensationService {
         final byte[] bytes = jedisClient.get(key);
         try {
             final CoordinatorRepositoryAdapter adapter =
-                    objectSerializer.deSerialize(bytes, CoordinatorRepositoryAdapter.class);
+                    RepositoryConvertUtils.transformAdapter(bytes, objectSerializer);
             return ConvertHelper.buildVO(adapter);
         } catch (CatException e) {
             e.printStackTrace();
@@ -132,11 +137,12 @@ public class RedisCompensationServiceImpl implements CompensationService {
         final String key = RepositoryPathUtils.buildRedisKey(keyPrefix, id);
         final byte[] bytes = jedisClient.get(key.getBytes());
         try {
-            final CoordinatorRepositoryAdapter adapter =
-                    objectSerializer.deSerialize(bytes, CoordinatorRepositoryAdapter.class);
-            adapter.setRetriedCount(retry);
-            adapter.setLastTime(DateUtils.getDateYYYY());
-            jedisClient.set(key, objectSerializer.serialize(adapter));
+            final Date lastTime = DateUtils.getDateYYYY();
+            jedisClient.set(key, RepositoryConvertUtils.updateHeader(bytes, objectSerializer, transaction -> {
+                transaction.setRetriedCount(retry);
+                transaction.setNextRetryTime(null);
+                transaction.setLastTime(lastTime);
+            }));
             return Boolean.TRUE;
         } catch (Exception e) {
             e.printStackTrace();
@@ -144,6 +150,46 @@ public class RedisCompensationServiceImpl implements CompensationService {
         }
     }
 
+    @Override
+    public Boolean replay(final List<String> ids, final String appName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(appName)) {
+            return Boolean.FALSE;
+        }
+        final String keyPrefix = RepositoryPathUtils.buildRedisKeyPrefix(appName);
+        final String deadKeyPrefix = String.format(CommonConstant.DEAD_REDIS_KEY_PRE, appName);
+        final String retryKey = String.format(CommonConstant.RETRY_REDIS_KEY_PRE, appName);
+        for (String id : ids) {
+            final String deadKey = RepositoryPathUtils.buildRedisKey(deadKeyPrefix, id);
+            final byte[] bytes = jedisClient.get(deadKey.getBytes());
+            if (Objects.isNull(bytes)) {
+                continue;
+            }
+            try {
+                jedisClient.set(RepositoryPathUtils.buildRedisKey(keyPrefix, id),
+                        RepositoryConvertUtils.updateHeader(bytes, objectSerializer, transaction -> {
+                            transaction.setRetriedCount(0);
+                            transaction.setNextRetryTime(null);
+                        }));
+                jedisClient.zadd(retryKey, System.currentTimeMillis(), id);
+                jedisClient.del(deadKey);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return Boolean.FALSE;
+            }
+        }
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public Boolean purge(final List<String> ids, final String appName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(appName)) {
+            return Boolean.FALSE;
+        }
+        final String deadKeyPrefix = String.format(CommonConstant.DEAD_REDIS_KEY_PRE, appName);
+        jedisClient.del(ids.stream().map(id -> RepositoryPathUtils.buildRedisKey(deadKeyPrefix, id)).toArray(String[]::new));
+        return Boolean.TRUE;
+    }
+
     private List<CatCompensationVO> findAll(final Set<byte[]> keys) {
         return keys.parallelStream()
                 .map(this::buildVOByKey)
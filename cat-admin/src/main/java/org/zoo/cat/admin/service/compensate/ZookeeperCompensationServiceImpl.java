@@ -23,6 +23,7 @@ import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
 import org.zoo.cat.common.exception.CatException;
 import org.zoo.cat.common.serializer.ObjectSerializer;
 import org.zoo.cat.common.utils.DateUtils;
+import org.zoo.cat.common.utils.RepositoryConvertUtils;
 import org.zoo.cat.common.utils.RepositoryPathUtils;
 import lombok.RequiredArgsConstructor;
 import org.zoo.cat.common.utils.CollectionUtils;
@@ -35,10 +36,13 @@ import org.zoo.cat.admin.service.CompensationService;
 import org.zoo.cat.admin.vo.CatCompensationVO;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
 import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
 import org.apache.zookeeper.data.Stat;
 
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -62,7 +66,8 @@ public class ZookeeperCompensationServiceImpl implements CompensationService {
         final int currentPage = query.getPageParameter().getCurrentPage();
         final int pageSize = query.getPageParameter().getPageSize();
         int start = (currentPage - 1) * pageSize;
-        final String rootPath = RepositoryPathUtils.buildZookeeperPathPrefix(query.getApplicationName());
+        final String rootPath = RepositoryPathUtils.buildZookeeperPathPrefix(query.getApplicationName())
+                + (Boolean.TRUE.equals(query.getParked()) ? "_dead" : "");
         List<String> zNodePaths;
         List<CatCompensationVO> voList;
         int totalCount;
@@ -113,7 +118,7 @@ public class ZookeeperCompensationServiceImpl implements CompensationService {
                 byte[] content = zooKeeper.getData(path,
                         false, new Stat());
                 final CoordinatorRepositoryAdapter adapter =
-                        objectSerializer.deSerialize(content, CoordinatorRepositoryAdapter.class);
+                        RepositoryConvertUtils.transformAdapter(content, objectSerializer);
                 zooKeeper.delete(path, adapter.getVersion());
                 return 1;
             } catch (Exception e) {
@@ -134,13 +139,12 @@ public class ZookeeperCompensationServiceImpl implements CompensationService {
         try {
             byte[] content = zooKeeper.getData(path,
                     false, new Stat());
-            final CoordinatorRepositoryAdapter adapter =
-                    objectSerializer.deSerialize(content, CoordinatorRepositoryAdapter.class);
-            adapter.setLastTime(DateUtils.getDateYYYY());
-            adapter.setRetriedCount(retry);
-            zooKeeper.create(path,
-                    objectSerializer.serialize(adapter),
-                    ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            final Date lastTime = DateUtils.getDateYYYY();
+            zooKeeper.setData(path, RepositoryConvertUtils.updateHeader(content, objectSerializer, transaction -> {
+                transaction.setLastTime(lastTime);
+                transaction.setRetriedCount(retry);
+                transaction.setNextRetryTime(null);
+            }), -1);
             return Boolean.TRUE;
         } catch (Exception e) {
             e.printStackTrace();
@@ -148,6 +152,51 @@ public class ZookeeperCompensationServiceImpl implements CompensationService {
         return Boolean.FALSE;
     }
 
+    @Override
+    public Boolean replay(final List<String> ids, final String appName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(appName)) {
+            return Boolean.FALSE;
+        }
+        final String rootPathPrefix = RepositoryPathUtils.buildZookeeperPathPrefix(appName);
+        for (String id : ids) {
+            final String deadPath = RepositoryPathUtils.buildZookeeperRootPath(rootPathPrefix + "_dead", id);
+            try {
+                final Stat stat = new Stat();
+                byte[] content = zooKeeper.getData(deadPath, false, stat);
+                zooKeeper.multi(Arrays.asList(
+                        Op.create(RepositoryPathUtils.buildZookeeperRootPath(rootPathPrefix, id),
+                                RepositoryConvertUtils.updateHeader(content, objectSerializer, transaction -> {
+                                    transaction.setRetriedCount(0);
+                                    transaction.setNextRetryTime(null);
+                                }), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT),
+                        Op.delete(deadPath, stat.getVersion())));
+            } catch (Exception e) {
+                e.printStackTrace();
+                return Boolean.FALSE;
+            }
+        }
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public Boolean purge(final List<String> ids, final String appName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(appName)) {
+            return Boolean.FALSE;
+        }
+        final String deadPathPrefix = RepositoryPathUtils.buildZookeeperPathPrefix(appName) + "_dead";
+        for (String id : ids) {
+            try {
+                zooKeeper.delete(RepositoryPathUtils.buildZookeeperRootPath(deadPathPrefix, id), -1);
+            } catch (KeeperException.NoNodeException e) {
+                continue;
+            } catch (Exception e) {
+                e.printStackTrace();
+                return Boolean.FALSE;
+            }
+        }
+        return Boolean.TRUE;
+    }
+
     private List<CatCompensationVO> findAll(final List<String> zNodePaths, final String rootPath) {
         return zNodePaths.stream()
                 .filter(StringUtils::isNoneBlank)
@@ -170,7 +219,7 @@ public class ZookeeperCompensationServiceImpl implements CompensationService {
             byte[] content = zooKeeper.getData(RepositoryPathUtils.buildZookeeperRootPath(rootPath, zNodePath),
                     false, new Stat());
             final CoordinatorRepositoryAdapter adapter =
-                    objectSerializer.deSerialize(content, CoordinatorRepositoryAdapter.class);
+                    RepositoryConvertUtils.transformAdapter(content, objectSerializer);
             return ConvertHelper.buildVO(adapter);
         } catch (KeeperException | InterruptedException | CatException e) {
             e.printStackTrace();
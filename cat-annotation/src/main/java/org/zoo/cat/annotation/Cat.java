@@ -52,6 +52,27 @@ public @interface Cat {
      * @return retryMax 
      */
     int retryMax() default 10;
+
+    /**
+     * EN：delay before the first recovery, it grows exponentially after each failed recovery, 0 uses the config.
+     * CN：首次补偿间隔毫秒, 之后指数退避, 0 使用全局配置
+     * @return retryDelayMills
+     */
+    long retryDelayMills() default 0;
+
+    /**
+     * EN：upper bound of the delay before a recovery, 0 uses the config.
+     * CN：补偿最大间隔毫秒, 0 使用全局配置
+     * @return retryMaxDelayMills
+     */
+    long retryMaxDelayMills() default 0;
+
+    /**
+     * EN：priority of the confirm, cancel, notice and recovery work of the transaction, higher runs first in its lane.
+     * CN：异步执行与补偿的优先级, 越大越先执行
+     * @return priority
+     */
+    int priority() default 0;
     
     /**
      * EN：Confirm method string.
@@ -17,29 +17,27 @@
 
 package org.zoo.cat.dubbo.filter;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AsyncRpcResult;
 import org.apache.dubbo.rpc.Filter;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.RpcException;
-import org.zoo.cat.annotation.Cat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zoo.cat.common.bean.context.CatTransactionContext;
-import org.zoo.cat.common.bean.entity.CatInvocation;
 import org.zoo.cat.common.bean.entity.CatParticipant;
 import org.zoo.cat.common.enums.CatActionEnum;
 import org.zoo.cat.common.enums.CatRoleEnum;
 import org.zoo.cat.common.exception.CatRuntimeException;
 import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
 import org.zoo.cat.core.mediator.RpcMediator;
+import org.zoo.cat.core.reflect.CatMethodMetadata;
 import org.zoo.cat.core.service.executor.CatTransactionExecutor;
 
-import java.lang.reflect.Method;
 import java.util.Objects;
 
 /**
@@ -67,82 +65,60 @@ public class DubboCatTransactionFilter implements Filter {
 
     @Override
     public Result invoke(final Invoker<?> invoker, final Invocation invocation) throws RpcException {
-        String methodName = invocation.getMethodName();
-        Class clazz = invoker.getInterface();
-        Class[] args = invocation.getParameterTypes();
-        final Object[] arguments = invocation.getArguments();
-        Method method = null;
-        Cat cat = null;
-        try {
-            converterParamsClass(args, arguments);
-            method = clazz.getMethod(methodName, args);
-            cat = method.getAnnotation(Cat.class);
-        } catch (Exception ex) {
-            LOGGER.error("cat find method error {} ", ex);
+        final CatMethodMetadata metadata = CatMethodMetadata.of(invoker.getInterface(),
+                invocation.getMethodName(), invocation.getParameterTypes());
+        if (Objects.isNull(metadata)) {
+            return invoker.invoke(invocation);
         }
-        if (Objects.nonNull(cat)) {
-            try {
-                final CatTransactionContext catTransactionContext = CatTransactionContextLocal.getInstance().get();
-                if (Objects.nonNull(catTransactionContext)) {
-                    RpcMediator.getInstance().transmit(RpcContext.getContext()::setAttachment, catTransactionContext);
-                    final Result result = invoker.invoke(invocation);
-                    //if result has not exception
-                    if (!result.hasException()) {
-                        final CatParticipant catParticipant = buildParticipant(catTransactionContext, cat, method, clazz, arguments, args);
-                        if (catTransactionContext.getRole() == CatRoleEnum.INLINE.getCode()) {
-                            catTransactionExecutor.registerByNested(catTransactionContext.getTransId(),
-                                    catParticipant);
-                        } else {
-                            catTransactionExecutor.enlistParticipant(catParticipant);
-                        }
+        try {
+            final CatTransactionContext catTransactionContext = CatTransactionContextLocal.getInstance().get();
+            if (Objects.nonNull(catTransactionContext)) {
+                RpcMediator.getInstance().transmit(RpcContext.getContext()::setAttachment, catTransactionContext);
+                final Result result = invoker.invoke(invocation);
+                //async call, the participant is added when the remote try completes
+                if (result instanceof AsyncRpcResult) {
+                    final CatParticipant catParticipant = buildParticipant(catTransactionContext, metadata, invocation.getArguments());
+                    catTransactionExecutor.enlistAsync(catTransactionContext, catParticipant,
+                            ((AsyncRpcResult) result).getResultFuture().thenApply(this::tried));
+                    return result;
+                }
+                //if result has not exception
+                if (!result.hasException()) {
+                    final CatParticipant catParticipant = buildParticipant(catTransactionContext, metadata, invocation.getArguments());
+                    if (catTransactionContext.getRole() == CatRoleEnum.INLINE.getCode()) {
+                        catTransactionExecutor.registerByNested(catTransactionContext.getTransId(),
+                                catParticipant);
                     } else {
-                        throw new CatRuntimeException("rpc invoke exception{}", result.getException());
+                        catTransactionExecutor.enlistParticipant(catParticipant);
                     }
-                    return result;
+                } else {
+                    throw new CatRuntimeException("rpc invoke exception{}", result.getException());
                 }
-                return invoker.invoke(invocation);
-            } catch (RpcException e) {
-                e.printStackTrace();
-                throw e;
+                return result;
             }
-        } else {
             return invoker.invoke(invocation);
+        } catch (RpcException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    private Result tried(final Result result) {
+        if (result.hasException()) {
+            throw new CatRuntimeException("rpc invoke exception{}", result.getException());
         }
+        return result;
     }
 
-    @SuppressWarnings("unchecked")
     private CatParticipant buildParticipant(final CatTransactionContext catTransactionContext,
-                                              final Cat cat,
-                                              final Method method, final Class clazz,
-                                              final Object[] arguments, final Class... args) throws CatRuntimeException {
+                                              final CatMethodMetadata metadata,
+                                              final Object[] arguments) throws CatRuntimeException {
 
         if (Objects.isNull(catTransactionContext)
                 || (CatActionEnum.TRYING.getCode() != catTransactionContext.getAction())) {
             return null;
         }
-        //获取协调方法
-        String confirmMethodName = cat.confirmMethod();
-        if (StringUtils.isBlank(confirmMethodName)) {
-            confirmMethodName = method.getName();
-        }
-        String cancelMethodName = cat.cancelMethod();
-        if (StringUtils.isBlank(cancelMethodName)) {
-            cancelMethodName = method.getName();
-        }
-        CatInvocation confirmInvocation = new CatInvocation(clazz, confirmMethodName, args, arguments);
-        CatInvocation cancelInvocation = new CatInvocation(clazz, cancelMethodName, args, arguments);
         //封装调用点
-        return new CatParticipant(catTransactionContext.getTransId(), confirmInvocation, cancelInvocation);
-    }
-
-    private void converterParamsClass(final Class[] args, final Object[] arguments) {
-        if (arguments == null || arguments.length < 1) {
-            return;
-        }
-        for (int i = 0; i < arguments.length; i++) {
-            if (arguments[i] != null) {
-                args[i] = arguments[i].getClass();
-            }
-        }
+        return metadata.participant(catTransactionContext.getTransId(), arguments);
     }
 }
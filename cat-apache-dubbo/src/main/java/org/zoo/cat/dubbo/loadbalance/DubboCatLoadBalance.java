@@ -21,26 +21,26 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.cluster.loadbalance.AbstractLoadBalance;
-import com.google.common.collect.Maps;
 
 import org.zoo.cat.common.bean.context.CatTransactionContext;
 import org.zoo.cat.common.enums.CatActionEnum;
+import org.zoo.cat.core.cache.CatRouteAffinity;
 import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 
 /**
  * The type Dubbo cat load balance.
+ * the confirm and cancel of a transaction go to the provider of its try, known by its address.
  *
  * @author dzc
  */
 @SuppressWarnings("all")
 public class DubboCatLoadBalance extends AbstractLoadBalance {
 
-    private static final Map<String, URL> URL_MAP = Maps.newConcurrentMap();
+    private static final CatRouteAffinity<Invoker<?>> AFFINITY = new CatRouteAffinity<>(invoker -> invoker.getUrl().getAddress());
 
     private final Random random = new Random();
 
@@ -57,23 +57,18 @@ public class DubboCatLoadBalance extends AbstractLoadBalance {
 
         final String transId = catTransactionContext.getTransId();
         //if try
-        if (catTransactionContext.getAction() == CatActionEnum.TRYING.getCode() 
-        		|| catTransactionContext.getAction() == CatActionEnum.NOTICEING.getCode()) {
-            URL_MAP.put(transId, invoker.getUrl());
+        if (catTransactionContext.getAction() == CatActionEnum.TRYING.getCode()) {
+            AFFINITY.bind(transId, invoker);
             return invoker;
         }
 
-        final URL orlUrl = URL_MAP.get(transId);
+        //notice has no second phase
+        if (catTransactionContext.getAction() == CatActionEnum.NOTICEING.getCode()) {
+            return invoker;
+        }
 
-        URL_MAP.remove(transId);
+        final Invoker<T> origin = (Invoker<T>) AFFINITY.take(transId, invokers);
 
-        if (Objects.nonNull(orlUrl)) {
-            for (Invoker<T> inv : invokers) {
-                if (Objects.equals(inv.getUrl(), orlUrl)) {
-                    return inv;
-                }
-            }
-        }
-        return invoker;
+        return Objects.nonNull(origin) ? origin : invoker;
     }
 }
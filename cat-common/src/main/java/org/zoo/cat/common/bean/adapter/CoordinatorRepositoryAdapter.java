@@ -20,6 +20,7 @@ package org.zoo.cat.common.bean.adapter;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
 import java.util.Date;
 
 import org.zoo.cat.common.enums.CatActionEnum;
@@ -31,7 +32,9 @@ import org.zoo.cat.common.enums.CatRoleEnum;
  */
 @Data
 @NoArgsConstructor
-public class CoordinatorRepositoryAdapter {
+public class CoordinatorRepositoryAdapter implements Serializable {
+
+    private static final long serialVersionUID = -4578136478522379254L;
 
     /**
      * 事务id.
@@ -22,6 +22,7 @@ import lombok.EqualsAndHashCode;
 import org.bson.types.ObjectId;
 
 import java.io.Serializable;
+import java.util.Date;
 
 /**
  * Mongo adapter.
@@ -35,4 +36,14 @@ public class MongoAdapter extends CoordinatorRepositoryAdapter implements Serial
 
     private ObjectId id;
 
+    /**
+     * recovery shard slot of the transId, absent in documents of older versions.
+     */
+    private Integer shardKey;
+
+    /**
+     * time of the next recovery, absent in documents of older versions.
+     */
+    private Date nextRetryTime;
+
 }
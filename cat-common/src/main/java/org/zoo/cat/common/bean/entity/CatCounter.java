@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.bean.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+
+/**
+ * CatCounter 计数桶增量.
+ * the count of a method in a time bucket, the bucket is the time divided by the unit.
+ * @author dzc
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CatCounter implements Serializable {
+
+    private static final long serialVersionUID = 2851794235519442163L;
+
+    private String key;
+
+    private String timeUnit;
+
+    private long bucket;
+
+    private long delta;
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.bean.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * EN: query of the recovery scan.
+ * a transaction is due when its next retry time is reached, the transactions of older versions without it
+ * are due when their last time is before the delay time.
+ * the transId hash space is split into {@link #SLOTS} slots and a node scans the slots [shardFrom, shardTo).
+ * CN: 补偿扫描条件, 按事务ID哈希槽分片.
+ *
+ * @author dzc
+ */
+@Data
+@NoArgsConstructor
+public class CatRecoveryQuery {
+
+    /**
+     * slots of the transId hash space.
+     */
+    public static final int SLOTS = 1024;
+
+    /**
+     * last time before it, for the transactions without next retry time.
+     */
+    private Date delayTime;
+
+    /**
+     * next retry time not after it.
+     */
+    private Date dueTime;
+
+    /**
+     * first slot, inclusive.
+     */
+    private int shardFrom = 0;
+
+    /**
+     * last slot, exclusive.
+     */
+    private int shardTo = SLOTS;
+
+    /**
+     * role of the transactions, null for all roles.
+     */
+    private Integer role;
+
+    /**
+     * Instantiates a new query of all slots.
+     *
+     * @param delayTime last time before it, for the transactions without next retry time
+     * @param dueTime   next retry time not after it
+     */
+    public CatRecoveryQuery(final Date delayTime, final Date dueTime) {
+        this.delayTime = delayTime;
+        this.dueTime = dueTime;
+    }
+
+    /**
+     * slot of the transId.
+     *
+     * @param transId transId
+     * @return slot
+     */
+    public static int slotOf(final String transId) {
+        return (Objects.hashCode(transId) & Integer.MAX_VALUE) % SLOTS;
+    }
+
+    /**
+     * is all slots.
+     *
+     * @return true if not sharded
+     */
+    public boolean isAllShards() {
+        return shardFrom <= 0 && shardTo >= SLOTS;
+    }
+
+    /**
+     * split the slots of the query into parts with the same times, to read them in parallel.
+     *
+     * @param parts parts
+     * @return the queries of the parts
+     */
+    public List<CatRecoveryQuery> split(final int parts) {
+        final int from = Math.max(0, shardFrom);
+        final int to = Math.min(SLOTS, shardTo);
+        final int count = Math.max(1, Math.min(parts, to - from));
+        final List<CatRecoveryQuery> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final CatRecoveryQuery query = new CatRecoveryQuery(delayTime, dueTime);
+            query.setShardFrom(from + (to - from) * i / count);
+            query.setShardTo(from + (to - from) * (i + 1) / count);
+            query.setRole(role);
+            queries.add(query);
+        }
+        return queries;
+    }
+
+    /**
+     * match the transaction.
+     *
+     * @param catTransaction the cat transaction
+     * @return true if it is in the query
+     */
+    public boolean matches(final CatTransaction catTransaction) {
+        if (Objects.nonNull(catTransaction.getNextRetryTime())) {
+            if (Objects.nonNull(dueTime) && catTransaction.getNextRetryTime().compareTo(dueTime) > 0) {
+                return false;
+            }
+        } else if (Objects.nonNull(delayTime) && Objects.nonNull(catTransaction.getLastTime())
+                && catTransaction.getLastTime().compareTo(delayTime) >= 0) {
+            return false;
+        }
+        if (Objects.nonNull(role) && catTransaction.getRole() != role) {
+            return false;
+        }
+        final int slot = slotOf(catTransaction.getTransId());
+        return slot >= shardFrom && slot < shardTo;
+    }
+}
@@ -90,6 +90,11 @@ public class CatTransaction implements Serializable {
      */
     private volatile int timeoutMills;
 
+    /**
+     * priority, taken from the annotation and not stored.
+     */
+    private transient int priority;
+
     /**
      * createTime.
      */
@@ -100,6 +105,11 @@ public class CatTransaction implements Serializable {
      */
     private Date lastTime;
 
+    /**
+     * time of the next recovery, null for the transactions of older versions.
+     */
+    private Date nextRetryTime;
+
     /**
      * version number mysql optimistic lock control.
      */
@@ -19,18 +19,32 @@ package org.zoo.cat.common.bean.variate;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.zoo.cat.common.bean.entity.CatNoticeSafe;
+import org.zoo.cat.common.bean.entity.CatCounter;
 import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.config.CatNoticeSafeConfig;
 
 
 /**
  * EN：CatDegradation .
+ * the notice logs of every method are counted in sliding windows of a second, a minute and an hour when they are
+ * written, and taken back when they are deleted, so the check is a lookup of the method on every repository.
+ * with a counter store the counts are also drained in batches to the store and the cluster totals read back,
+ * the check takes the larger of the local and the cluster counts.
  * CN：系统降级判断
  * @author dzc
  */
@@ -42,11 +56,104 @@ public class CatDegradation implements Serializable {
      * logger.
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(CatDegradation.class);
-    
 
-    public static volatile List<CatNoticeSafe>  catNoticeSafe;
-    
-    
+    private static final Map<String, Windows> WINDOWS = new ConcurrentHashMap<>();
+
+    private static final TimeUnit[] UNITS = {TimeUnit.SECONDS, TimeUnit.MINUTES, TimeUnit.HOURS};
+
+    private static final Map<Pending, AtomicLong> PENDING = new ConcurrentHashMap<>();
+
+    /**
+     * a removed pending count is left at this value, a record that still holds it adds to the new one.
+     */
+    private static final long DRAINED = Long.MIN_VALUE;
+
+    private static volatile Map<String, long[]> cluster = Collections.emptyMap();
+
+    private static volatile boolean shared;
+
+    /**
+     * EN: count a notice log of the method, delta 1 when it is written and -1 when it is deleted.
+     * CN: 通知日志计数
+     */
+    public static void record(String className, String methodName, Date createTime, long delta) {
+        if (Objects.isNull(className) || Objects.isNull(methodName)) {
+            return;
+        }
+        final long time = Objects.isNull(createTime) ? System.currentTimeMillis() : createTime.getTime();
+        final Windows windows = delta > 0
+                ? WINDOWS.computeIfAbsent(key(className, methodName), key -> new Windows())
+                : WINDOWS.get(key(className, methodName));
+        if (Objects.nonNull(windows)) {
+            windows.seconds.add(time, delta);
+            windows.minutes.add(time, delta);
+        }
+        if (shared && System.currentTimeMillis() - time < TimeUnit.HOURS.toMillis(1)) {
+            final Pending pending = new Pending(key(className, methodName), TimeUnit.MILLISECONDS.toSeconds(time));
+            while (true) {
+                final AtomicLong count = PENDING.computeIfAbsent(pending, key -> new AtomicLong());
+                final long current = count.get();
+                if (current != DRAINED && count.compareAndSet(current, current + delta)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * EN: keep the counts not added to the counter store yet.
+     * CN: 开启集群计数
+     */
+    public static void share() {
+        shared = true;
+    }
+
+    /**
+     * EN: take the counts not added to the counter store yet, by second, minute and hour bucket.
+     * CN: 取出待刷新的计数
+     */
+    public static List<CatCounter> drain() {
+        final long stale = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - 2;
+        final Map<Pending, Long> counts = new HashMap<>();
+        for (Map.Entry<Pending, AtomicLong> entry : PENDING.entrySet()) {
+            final Pending pending = entry.getKey();
+            final long delta;
+            if (pending.bucket >= stale) {
+                delta = entry.getValue().getAndSet(0);
+            } else if (PENDING.remove(pending, entry.getValue())) {
+                //removed first, so a record after it goes to a new count instead of the drained one
+                delta = entry.getValue().getAndSet(DRAINED);
+            } else {
+                continue;
+            }
+            if (delta == 0) {
+                continue;
+            }
+            for (TimeUnit unit : UNITS) {
+                counts.merge(new Pending(pending.key, unit, unit.convert(pending.bucket, TimeUnit.SECONDS)), delta, Long::sum);
+            }
+        }
+        final List<CatCounter> counters = new ArrayList<>(counts.size());
+        counts.forEach((pending, delta) -> counters.add(new CatCounter(pending.key, pending.unit.name(), pending.bucket, delta)));
+        return counters;
+    }
+
+    /**
+     * EN: the methods counted by this node.
+     * CN: 本节点计数的方法
+     */
+    public static Set<String> keys() {
+        return new HashSet<>(WINDOWS.keySet());
+    }
+
+    /**
+     * EN: the cluster counts of the methods in the last second, minute and hour.
+     * CN: 集群计数
+     */
+    public static void cluster(Map<String, long[]> totals) {
+        cluster = totals;
+    }
+
     /**
      * EN: is start degradation.
      * CN: 是否开启降级
@@ -54,41 +161,77 @@ public class CatDegradation implements Serializable {
     public static Boolean isStartDegradation(CatConfig catConfig,String className,String methodName) {
     	    if(catConfig.getStarted()==false) {
     	    	  return false;
-    	    }else {
-        	    Integer timesSecond = catConfig.getCatNoticeSafeConfig().getTimesSecond();
-        	    Integer timesMinute = catConfig.getCatNoticeSafeConfig().getTimesMinute();
-        	    Integer timesHour = catConfig.getCatNoticeSafeConfig().getTimesHour();
-        	    
-        	    if(Objects.nonNull(catNoticeSafe)) {
-        	    	   for (CatNoticeSafe cns : catNoticeSafe) {
-        	    		   
-				   if(TimeUnit.SECONDS.name().equals(cns.getTimeUnit())
-						   && className.equals(cns.getTargetClass()) 
-						      && methodName.equals(cns.getTargetMethod())
-						         && cns.getNum() >= timesSecond) {
-					                 LOGGER.info("notice close by seconds degradation");
-					                 return false;
-				   }	
-				   
-				   if(TimeUnit.MINUTES.name().equals(cns.getTimeUnit())
-						   && className.equals(cns.getTargetClass()) 
-						      && methodName.equals(cns.getTargetMethod())
-						         && cns.getNum() >= timesMinute) {
-					                 LOGGER.info("notice close by minutes degradation");
-					                 return false;
-				   }	
-				   
-				   if(TimeUnit.HOURS.name().equals(cns.getTimeUnit())
-						   && className.equals(cns.getTargetClass()) 
-						      && methodName.equals(cns.getTargetMethod())
-						         && cns.getNum() >= timesHour) {
-					                 LOGGER.info("notice close by hours degradation");
-					                 return false;
-				   }	
-			   }
-        	    }
+    	    }
+    	    final CatNoticeSafeConfig config = catConfig.getCatNoticeSafeConfig();
+    	    final Windows windows = WINDOWS.get(key(className, methodName));
+    	    if (Objects.isNull(config) || Objects.isNull(windows)) {
+    	    	  return true;
+    	    }
+    	    final long now = System.currentTimeMillis();
+    	    final long[] totals = cluster.getOrDefault(key(className, methodName), new long[UNITS.length]);
+    	    if (Objects.nonNull(config.getTimesSecond())
+    	    		    && Math.max(windows.seconds.sum(now, 1), totals[0]) >= config.getTimesSecond()) {
+    	    	  LOGGER.info("notice close by seconds degradation");
+    	    	  return false;
+    	    }
+    	    if (Objects.nonNull(config.getTimesMinute())
+    	    		    && Math.max(windows.seconds.sum(now, 60), totals[1]) >= config.getTimesMinute()) {
+    	    	  LOGGER.info("notice close by minutes degradation");
+    	    	  return false;
+    	    }
+    	    if (Objects.nonNull(config.getTimesHour())
+    	    		    && Math.max(windows.minutes.sum(now, 60), totals[2]) >= config.getTimesHour()) {
+    	    	  LOGGER.info("notice close by hours degradation");
+    	    	  return false;
     	    }
 		return true;
     }
+
+    private static String key(String className, String methodName) {
+        return className + "#" + methodName;
+    }
+
+    private static final class Windows {
+
+        private final CatSlidingWindow seconds = new CatSlidingWindow(TimeUnit.SECONDS.toMillis(1), 60);
+
+        private final CatSlidingWindow minutes = new CatSlidingWindow(TimeUnit.MINUTES.toMillis(1), 60);
+    }
+
+    private static final class Pending {
+
+        private final String key;
+
+        private final TimeUnit unit;
+
+        private final long bucket;
+
+        private Pending(final String key, final long bucket) {
+            this(key, TimeUnit.SECONDS, bucket);
+        }
+
+        private Pending(final String key, final TimeUnit unit, final long bucket) {
+            this.key = key;
+            this.unit = unit;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Pending)) {
+                return false;
+            }
+            final Pending pending = (Pending) o;
+            return bucket == pending.bucket && unit == pending.unit && key.equals(pending.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, unit, bucket);
+        }
+    }
     
 }
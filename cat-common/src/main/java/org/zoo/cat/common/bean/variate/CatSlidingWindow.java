@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.bean.variate;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EN: lock free counter over a sliding window of time buckets.
+ * every bucket is a {@link LongAdder} stamped with the bucket time it counts, a bucket is reset when the ring comes
+ * round to it again, counts that race with the reset may be lost, so the sums are close but not exact.
+ * CN: 无锁滑动窗口计数.
+ *
+ * @author dzc
+ */
+public final class CatSlidingWindow {
+
+    private final long bucketMills;
+
+    private final LongAdder[] counts;
+
+    private final AtomicLongArray stamps;
+
+    /**
+     * Instantiates a new sliding window.
+     *
+     * @param bucketMills time of a bucket
+     * @param buckets     buckets, the longest window that can be summed
+     */
+    public CatSlidingWindow(final long bucketMills, final int buckets) {
+        this.bucketMills = Math.max(1, bucketMills);
+        this.counts = new LongAdder[Math.max(1, buckets)];
+        this.stamps = new AtomicLongArray(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+            stamps.set(i, -1);
+        }
+    }
+
+    /**
+     * add to the bucket of the time, a negative delta only takes back from a bucket still in the window.
+     *
+     * @param timeMills time of the count
+     * @param delta     delta
+     */
+    public void add(final long timeMills, final long delta) {
+        final long bucket = timeMills / bucketMills;
+        final int index = (int) (bucket % counts.length);
+        long stamp = stamps.get(index);
+        while (stamp != bucket) {
+            if (stamp > bucket || delta < 0) {
+                return;
+            }
+            if (stamps.compareAndSet(index, stamp, bucket)) {
+                counts[index].reset();
+                break;
+            }
+            stamp = stamps.get(index);
+        }
+        counts[index].add(delta);
+    }
+
+    /**
+     * sum of the last buckets up to the time.
+     *
+     * @param nowMills now
+     * @param buckets  buckets of the window, the current included
+     * @return sum
+     */
+    public long sum(final long nowMills, final int buckets) {
+        final long current = nowMills / bucketMills;
+        long sum = 0;
+        for (int i = 0; i < Math.min(buckets, counts.length); i++) {
+            final long bucket = current - i;
+            if (bucket < 0) {
+                break;
+            }
+            final int index = (int) (bucket % counts.length);
+            if (stamps.get(index) == bucket) {
+                sum += counts[index].sum();
+            }
+        }
+        return Math.max(0, sum);
+    }
+}
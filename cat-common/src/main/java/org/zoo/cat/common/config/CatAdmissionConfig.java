@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.config;
+
+import lombok.Data;
+
+/**
+ * EN：The CatAdmissionConfig.
+ * admission of the calls of the {@code @Cat} methods, every method has a concurrency limit that grows while its
+ * calls are fast and shrinks when they slow down, and the app has a cap of the log writes waiting for the repository.
+ * CN：准入控制配置
+ * @author dzc
+ */
+@Data
+public class CatAdmissionConfig {
+
+    /**
+     * EN：admission control of the calls.
+     * CN：是否开启准入控制
+     */
+    private boolean enabled;
+
+    /**
+     * EN：concurrency limit of a method at start.
+     * CN：方法初始并发限制
+     */
+    private int initialLimit = 20;
+
+    /**
+     * EN：lower bound of the concurrency limit of a method.
+     * CN：方法最小并发限制
+     */
+    private int minLimit = 1;
+
+    /**
+     * EN：upper bound of the concurrency limit of a method.
+     * CN：方法最大并发限制
+     */
+    private int maxLimit = 200;
+
+    /**
+     * EN：the limit is multiplied by it when a call is slow.
+     * CN：慢调用时的限制缩减比例
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * EN：a call slower than the usual latency of its method times it is slow.
+     * CN：慢调用倍数
+     */
+    private double latencyTolerance = 2.0;
+
+    /**
+     * EN：log writes of the app waiting for the repository, more calls are not admitted.
+     * CN：待持久化日志上限
+     */
+    private int maxPending = 10000;
+
+    /**
+     * EN：run a call that is not admitted without the transaction instead of failing it.
+     * CN：超限时降级为非事务执行
+     */
+    private boolean degrade;
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.config;
+
+import lombok.Data;
+
+/**
+ * EN：The CatCompressConfig.
+ * CN：参与者日志压缩配置
+ * @author dzc
+ */
+@Data
+public class CatCompressConfig {
+
+    /**
+     * EN：compress the participants of the log.
+     * CN：是否开启压缩
+     */
+    private boolean enabled = true;
+
+    /**
+     * EN：compress when the serialized participants reach this size, unit BYTES.
+     * CN：超过该大小才压缩
+     */
+    private int threshold = 4096;
+
+    /**
+     * EN：deflate level 1-9.
+     * CN：压缩级别
+     */
+    private int level = 1;
+
+}
@@ -55,6 +55,25 @@ public class CatConfig {
      */
     private int scheduledThreadMax = Runtime.getRuntime().availableProcessors() << 1;
 
+    /**
+     * EN：recovery queue capacity of each transaction pattern.
+     * CN：每种事务模式的补偿队列大小
+     */
+    private int recoveryQueueSize = 10000;
+
+    /**
+     * EN：split the recovery scan among the live nodes of the app by the lease in the repository.
+     * CN：集群节点按租约分片扫描补偿日志
+     */
+    private boolean recoverySharding = true;
+
+    /**
+     * EN：threads of the recovery on start, which reads the pending transactions in parallel, warms the cache
+     * before the app is ready and drains the due ones oldest first. 0 leaves them to the scheduled recovery.
+     * CN：启动补偿线程数, 0为不开启
+     */
+    private int startupRecoveryThreads = Runtime.getRuntime().availableProcessors();
+
     /**
      * EN：scheduledPool scheduledDelay unit SECONDS.
      * CN：定时器执行时间间隔
@@ -86,6 +105,24 @@ public class CatConfig {
      */
     private int loadFactor = 2;
 
+    /**
+     * EN：the delay before a recovery grows by this multiplier after each failed recovery.
+     * CN：补偿退避倍数
+     */
+    private double retryBackoffMultiplier = 2;
+
+    /**
+     * EN：upper bound of the delay before a recovery, unit seconds.
+     * CN：补偿退避最大间隔(秒)
+     */
+    private int retryMaxDelayTime = 3600;
+
+    /**
+     * EN：random part of the delay before a recovery, 0.2 spreads it over plus or minus 20 percent.
+     * CN：补偿间隔随机抖动比例
+     */
+    private double retryJitter = 0.2;
+
     /**
      * EN:repositorySupport.{@linkplain RepositorySupportEnum}
      * CN:选择模式db，redis，zk，mongo，file
@@ -105,11 +142,23 @@ public class CatConfig {
     private int consumerThreads = Runtime.getRuntime().availableProcessors() << 1;
 
     /**
-     * EN：this is cat async execute cancel or confirm or notice thread size.
+     * EN：this is cat async execute cancel or confirm or notice thread size, shared by the lanes of {@link CatLaneConfig}.
      * CN： cancel or confirm or notice执行线程池
      */
     private int asyncThreads = Runtime.getRuntime().availableProcessors() << 1;
 
+    /**
+     * EN：threads of the scheduler shared by the log cleaning, the notice counts and the recovery scan.
+     * CN： 共享调度线程数
+     */
+    private int schedulerThreads = 2;
+
+    /**
+     * EN：run the blocking confirm, cancel, notice and recovery calls on virtual threads, needs jdk 21+.
+     * CN： 使用虚拟线程执行阻塞调用, 需要jdk 21+
+     */
+    private boolean virtualThreads;
+
     /**
      * EN：when start this set true  actor set false.
      * CN：框架开关
@@ -158,4 +207,40 @@ public class CatConfig {
      */
     private CatFileConfig catFileConfig;
 
+    /**
+     * EN：local journal config.
+     * CN：本地日志配置
+     */
+    private CatJournalConfig catJournalConfig = new CatJournalConfig();
+
+    /**
+     * EN：participants compress config.
+     * CN：压缩配置
+     */
+    private CatCompressConfig catCompressConfig = new CatCompressConfig();
+
+    /**
+     * EN：in memory fast retry config.
+     * CN：快速重试配置
+     */
+    private CatFastRetryConfig catFastRetryConfig = new CatFastRetryConfig();
+
+    /**
+     * EN：recovery circuit breaker config.
+     * CN：补偿熔断配置
+     */
+    private CatRecoveryBreakerConfig catRecoveryBreakerConfig = new CatRecoveryBreakerConfig();
+
+    /**
+     * EN：lanes of the async execute config.
+     * CN：异步执行分道配置
+     */
+    private CatLaneConfig catLaneConfig = new CatLaneConfig();
+
+    /**
+     * EN：admission control config.
+     * CN：准入控制配置
+     */
+    private CatAdmissionConfig catAdmissionConfig = new CatAdmissionConfig();
+
 }
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.config;
+
+import lombok.Data;
+
+/**
+ * EN：The CatFastRetryConfig.
+ * the in memory retries of a failed confirm, cancel or notice before the scheduled recovery takes over.
+ * the retries run in the recovery lane of {@link CatLaneConfig}.
+ * CN：内存快速重试配置
+ * @author dzc
+ */
+@Data
+public class CatFastRetryConfig {
+
+    /**
+     * EN：retry failed participants in memory first.
+     * CN：是否开启快速重试
+     */
+    private boolean enabled = true;
+
+    /**
+     * EN：retries in memory.
+     * CN：快速重试次数
+     */
+    private int attempts = 3;
+
+    /**
+     * EN：delay before the first retry, doubled after each retry, unit MILLISECONDS.
+     * CN：首次重试延时(毫秒), 之后翻倍
+     */
+    private long delayMills = 100;
+
+    /**
+     * EN：tick of the timing wheel, unit MILLISECONDS.
+     * CN：时间轮刻度(毫秒)
+     */
+    private long tickMills = 20;
+
+    /**
+     * EN：buckets of the timing wheel.
+     * CN：时间轮槽数
+     */
+    private int wheelSize = 512;
+
+}
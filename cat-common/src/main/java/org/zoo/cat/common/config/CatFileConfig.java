@@ -36,4 +36,34 @@ public class CatFileConfig {
      */
     private String prefix;
 
+    /**
+     * EN: segment file size of the file log, unit bytes.
+     * CN: 日志分段文件大小
+     */
+    private int segmentSize = 64 * 1024 * 1024;
+
+    /**
+     * EN: max interval of the group fsync, unit MILLISECONDS.
+     * CN: 组提交刷盘最大间隔
+     */
+    private long flushInterval = 10;
+
+    /**
+     * EN: when true write returns after the record is fsync to disk.
+     * CN: 是否同步刷盘后返回
+     */
+    private boolean syncWrite = true;
+
+    /**
+     * EN: a sealed segment is compacted when its garbage ratio reach this value.
+     * CN: 分段垃圾占比达到该值时压缩
+     */
+    private double compactRatio = 0.5;
+
+    /**
+     * EN: compact check interval, unit SECONDS.
+     * CN: 压缩检查间隔
+     */
+    private int compactInterval = 60;
+
 }
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.config;
+
+import lombok.Data;
+
+/**
+ * EN：The CatJournalConfig.
+ * CN：本地日志前置于远程存储的配置
+ * @author dzc
+ */
+@Data
+public class CatJournalConfig {
+
+    /**
+     * EN：write to the local journal first, then drain to the remote repository.
+     * CN：是否开启本地日志
+     */
+    private boolean enabled;
+
+    /**
+     * EN：max transactions of one drain batch.
+     * CN：每批同步到远程存储的最大条数
+     */
+    private int batchSize = 256;
+
+    /**
+     * EN：drain interval, unit MILLISECONDS.
+     * CN：同步到远程存储的时间间隔
+     */
+    private long drainInterval = 50;
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.config;
+
+import lombok.Data;
+
+/**
+ * EN：The CatLaneConfig.
+ * the lanes of the async confirm, cancel, notice and recovery work, the threads serve the lanes by their weights
+ * and a lane that is full runs the work on the calling thread.
+ * CN：异步执行分道配置
+ * @author dzc
+ */
+@Data
+public class CatLaneConfig {
+
+    /**
+     * EN：share of the threads for confirm.
+     * CN：confirm权重
+     */
+    private int confirmWeight = 8;
+
+    /**
+     * EN：confirm work waiting for a thread.
+     * CN：confirm队列大小
+     */
+    private int confirmCapacity = 4096;
+
+    /**
+     * EN：share of the threads for cancel.
+     * CN：cancel权重
+     */
+    private int cancelWeight = 4;
+
+    /**
+     * EN：cancel work waiting for a thread.
+     * CN：cancel队列大小
+     */
+    private int cancelCapacity = 4096;
+
+    /**
+     * EN：share of the threads for notice.
+     * CN：notice权重
+     */
+    private int noticeWeight = 2;
+
+    /**
+     * EN：notice work waiting for a thread.
+     * CN：notice队列大小
+     */
+    private int noticeCapacity = 4096;
+
+    /**
+     * EN：share of the threads for the in memory recovery.
+     * CN：补偿权重
+     */
+    private int recoveryWeight = 1;
+
+    /**
+     * EN：recovery work waiting for a thread, more is left to the scheduled recovery.
+     * CN：补偿队列大小
+     */
+    private int recoveryCapacity = 1024;
+
+}
@@ -28,11 +28,18 @@ import lombok.Data;
 public class CatNoticeSafeConfig {
 	
     /**
-     * EN：
+     * EN：interval of the flush of the counts to the counter store and of the read of the cluster counts, unit SECONDS.
      * CN：定时器执行时间间隔
      */
 	private Integer noticeScheduledDelay=3;
 
+    /**
+     * EN：counter store spi of the cluster counts, blank uses the repository when it keeps counters (db, redis),
+     * the counts stay in the node when there is none.
+     * CN：集群计数存储, 为空时使用支持计数的日志存储
+     */
+    private String counterStore;
+
     /**
      * EN：
      * CN：当每秒补偿日志超过N条关闭补偿
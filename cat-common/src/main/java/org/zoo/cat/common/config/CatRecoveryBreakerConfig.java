@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.config;
+
+import lombok.Data;
+
+/**
+ * EN：The CatRecoveryBreakerConfig.
+ * the circuit breaker and the retry budget of every participant target in the recovery.
+ * CN：补偿熔断与重试限流配置
+ * @author dzc
+ */
+@Data
+public class CatRecoveryBreakerConfig {
+
+    /**
+     * EN：guard the recovery calls of every target.
+     * CN：是否开启补偿熔断
+     */
+    private boolean enabled = true;
+
+    /**
+     * EN：consecutive failures of a target that open its breaker.
+     * CN：连续失败多少次熔断
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * EN：time the breaker stays open before it lets trial calls through, unit MILLISECONDS.
+     * CN：熔断时长(毫秒)
+     */
+    private long openMills = 30000;
+
+    /**
+     * EN：trial calls at the same time while the breaker is half open.
+     * CN：半开状态并发试探数
+     */
+    private int halfOpenPermits = 1;
+
+    /**
+     * EN：successful trial calls that close the breaker.
+     * CN：半开状态成功多少次恢复
+     */
+    private int successThreshold = 2;
+
+    /**
+     * EN：recovery calls of a target per second.
+     * CN：每个目标每秒补偿次数
+     */
+    private double permitsPerSecond = 50;
+
+    /**
+     * EN：recovery calls of a target in a burst.
+     * CN：每个目标突发补偿次数
+     */
+    private int burst = 100;
+
+}
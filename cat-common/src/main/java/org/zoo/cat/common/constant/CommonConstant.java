@@ -62,6 +62,31 @@ public final class CommonConstant {
      */
     public final static String RECOVER_REDIS_KEY_PRE = "cat:transaction:%s";
 
+    /**
+     * The constant METHOD_REDIS_KEY_PRE.
+     */
+    public final static String METHOD_REDIS_KEY_PRE = "cat:method:%s";
+
+    /**
+     * The constant NODE_REDIS_KEY_PRE.
+     */
+    public final static String NODE_REDIS_KEY_PRE = "cat:node:%s";
+
+    /**
+     * The constant RETRY_REDIS_KEY_PRE.
+     */
+    public final static String RETRY_REDIS_KEY_PRE = "cat:retry:%s";
+
+    /**
+     * The constant DEAD_REDIS_KEY_PRE.
+     */
+    public final static String DEAD_REDIS_KEY_PRE = "cat:dead:%s";
+
+    /**
+     * The constant COUNTER_REDIS_KEY_PRE.
+     */
+    public final static String COUNTER_REDIS_KEY_PRE = "cat:counter:%s";
+
     /**
      * The constant CAT_TRANSACTION_CONTEXT.
      */
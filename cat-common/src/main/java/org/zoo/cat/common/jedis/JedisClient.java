@@ -17,6 +17,8 @@
 
 package org.zoo.cat.common.jedis;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -103,6 +105,24 @@ public interface JedisClient {
      */
     String hget(String key, String item);
 
+    /**
+     * Hsetnx long.
+     *
+     * @param key   the key
+     * @param item  the item
+     * @param value the value
+     * @return 1 if the item is set, 0 if it exists
+     */
+    Long hsetnx(String key, String item, String value);
+
+    /**
+     * Hget all.
+     *
+     * @param key the key
+     * @return the map
+     */
+    Map<String, String> hgetAll(String key);
+
     /**
      * Hdel long.
      *
@@ -112,6 +132,24 @@ public interface JedisClient {
      */
     Long hdel(String key, String item);
 
+    /**
+     * Hincr by every item of the hash and expire it, in one round trip.
+     *
+     * @param key    the key
+     * @param items  the items and their increments
+     * @param second the second
+     */
+    void hincrBy(String key, Map<String, Long> items, int second);
+
+    /**
+     * Hmget list.
+     *
+     * @param key   the key
+     * @param items the items
+     * @return the values in the order of the items, null for a missing item
+     */
+    List<String> hmget(String key, String... items);
+
     /**
      * Incr long.
      *
@@ -120,6 +158,15 @@ public interface JedisClient {
      */
     Long incr(String key);
 
+    /**
+     * Incr by long.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the long
+     */
+    Long incrBy(String key, long value);
+
     /**
      * Decr long.
      *
@@ -147,4 +194,78 @@ public interface JedisClient {
      */
     Set<String> zrange(String key, long start, long end);
 
+    /**
+     * Zadd long.
+     *
+     * @param key    the key
+     * @param score  the score
+     * @param member the member
+     * @return the long
+     */
+    Long zadd(String key, double score, String member);
+
+    /**
+     * Zrange by score set.
+     *
+     * @param key the key
+     * @param min the min
+     * @param max the max
+     * @return the set
+     */
+    Set<String> zrangeByScore(String key, double min, double max);
+
+    /**
+     * Zscore double.
+     *
+     * @param key    the key
+     * @param member the member
+     * @return the score, null if the member does not exist
+     */
+    Double zscore(String key, String member);
+
+    /**
+     * Zrem long.
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the long
+     */
+    Long zrem(String key, String... members);
+
+    /**
+     * Set the value with an expire of milliseconds, same as SET key value PX milliseconds.
+     *
+     * @param key          the key
+     * @param milliseconds the milliseconds
+     * @param value        the value
+     * @return the string
+     */
+    String psetex(String key, long milliseconds, String value);
+
+    /**
+     * Sadd long.
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the long
+     */
+    Long sadd(String key, String... members);
+
+    /**
+     * Smembers set.
+     *
+     * @param key the key
+     * @return the set
+     */
+    Set<String> smembers(String key);
+
+    /**
+     * Srem long.
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the long
+     */
+    Long srem(String key, String... members);
+
 }
@@ -19,6 +19,10 @@ package org.zoo.cat.common.jedis;
 
 import redis.clients.jedis.JedisCluster;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -27,6 +31,12 @@ import java.util.Set;
  */
 public class JedisClientCluster implements JedisClient {
 
+    /**
+     * the cluster has no pipeline, the items of one hash share its slot so a script increments them at once.
+     */
+    private static final String HINCRBY_SCRIPT = "for i = 2, #ARGV, 2 do redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[1])";
+
     private JedisCluster jedisCluster;
 
     public JedisClientCluster(final JedisCluster jedisCluster) {
@@ -78,16 +88,47 @@ public class JedisClientCluster implements JedisClient {
         return jedisCluster.hget(key, item);
     }
 
+    @Override
+    public Long hsetnx(final String key, final String item, final String value) {
+        return jedisCluster.hsetnx(key, item, value);
+    }
+
+    @Override
+    public Map<String, String> hgetAll(final String key) {
+        return jedisCluster.hgetAll(key);
+    }
+
     @Override
     public Long hdel(final String key, final String item) {
         return jedisCluster.hdel(key, item);
     }
 
+    @Override
+    public void hincrBy(final String key, final Map<String, Long> items, final int second) {
+        final List<String> args = new ArrayList<>(items.size() * 2 + 1);
+        args.add(String.valueOf(second));
+        items.forEach((item, value) -> {
+            args.add(item);
+            args.add(String.valueOf(value));
+        });
+        jedisCluster.eval(HINCRBY_SCRIPT, Collections.singletonList(key), args);
+    }
+
+    @Override
+    public List<String> hmget(final String key, final String... items) {
+        return jedisCluster.hmget(key, items);
+    }
+
     @Override
     public Long incr(final String key) {
         return jedisCluster.incr(key);
     }
 
+    @Override
+    public Long incrBy(final String key, final long value) {
+        return jedisCluster.incrBy(key, value);
+    }
+
     @Override
     public Long decr(final String key) {
         return jedisCluster.decr(key);
@@ -103,4 +144,44 @@ public class JedisClientCluster implements JedisClient {
         return jedisCluster.zrange(key, start, end);
     }
 
+    @Override
+    public Long zadd(final String key, final double score, final String member) {
+        return jedisCluster.zadd(key, score, member);
+    }
+
+    @Override
+    public Set<String> zrangeByScore(final String key, final double min, final double max) {
+        return jedisCluster.zrangeByScore(key, min, max);
+    }
+
+    @Override
+    public Double zscore(final String key, final String member) {
+        return jedisCluster.zscore(key, member);
+    }
+
+    @Override
+    public Long zrem(final String key, final String... members) {
+        return jedisCluster.zrem(key, members);
+    }
+
+    @Override
+    public String psetex(final String key, final long milliseconds, final String value) {
+        return jedisCluster.psetex(key, milliseconds, value);
+    }
+
+    @Override
+    public Long sadd(final String key, final String... members) {
+        return jedisCluster.sadd(key, members);
+    }
+
+    @Override
+    public Set<String> smembers(final String key) {
+        return jedisCluster.smembers(key);
+    }
+
+    @Override
+    public Long srem(final String key, final String... members) {
+        return jedisCluster.srem(key, members);
+    }
+
 }
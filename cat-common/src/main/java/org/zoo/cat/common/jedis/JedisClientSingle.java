@@ -19,7 +19,10 @@ package org.zoo.cat.common.jedis;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -97,6 +100,20 @@ public class JedisClientSingle implements JedisClient {
         }
     }
 
+    @Override
+    public Long hsetnx(final String key, final String item, final String value) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.hsetnx(key, item, value);
+        }
+    }
+
+    @Override
+    public Map<String, String> hgetAll(final String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.hgetAll(key);
+        }
+    }
+
     @Override
     public Long hdel(final String key, final String item) {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -104,6 +121,23 @@ public class JedisClientSingle implements JedisClient {
         }
     }
 
+    @Override
+    public void hincrBy(final String key, final Map<String, Long> items, final int second) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            final Pipeline pipeline = jedis.pipelined();
+            items.forEach((item, value) -> pipeline.hincrBy(key, item, value));
+            pipeline.expire(key, second);
+            pipeline.sync();
+        }
+    }
+
+    @Override
+    public List<String> hmget(final String key, final String... items) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.hmget(key, items);
+        }
+    }
+
     @Override
     public Long incr(final String key) {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -111,6 +145,13 @@ public class JedisClientSingle implements JedisClient {
         }
     }
 
+    @Override
+    public Long incrBy(final String key, final long value) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.incrBy(key, value);
+        }
+    }
+
     @Override
     public Long decr(final String key) {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -132,4 +173,60 @@ public class JedisClientSingle implements JedisClient {
         }
     }
 
+    @Override
+    public Long zadd(final String key, final double score, final String member) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.zadd(key, score, member);
+        }
+    }
+
+    @Override
+    public Set<String> zrangeByScore(final String key, final double min, final double max) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.zrangeByScore(key, min, max);
+        }
+    }
+
+    @Override
+    public Double zscore(final String key, final String member) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.zscore(key, member);
+        }
+    }
+
+    @Override
+    public Long zrem(final String key, final String... members) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.zrem(key, members);
+        }
+    }
+
+    @Override
+    public String psetex(final String key, final long milliseconds, final String value) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.psetex(key, milliseconds, value);
+        }
+    }
+
+    @Override
+    public Long sadd(final String key, final String... members) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.sadd(key, members);
+        }
+    }
+
+    @Override
+    public Set<String> smembers(final String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.smembers(key);
+        }
+    }
+
+    @Override
+    public Long srem(final String key, final String... members) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.srem(key, members);
+        }
+    }
+
 }
@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.exception.CatRuntimeException;
+import org.zoo.cat.common.utils.LogUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * EN: one segment of {@link CatSegmentLog}.
+ * a writable segment is memory mapped and unmapped on {@link #close()}, so the disk space of a compacted segment
+ * is freed at once and not when the buffer is collected. a read only segment is read through its file channel.
+ * frame layout : length(4) crc(4) type(1) keyLength(2) key value.
+ * CN: 日志分段文件, 每条记录带长度与crc校验.
+ *
+ * @author dzc
+ */
+final class CatLogSegment {
+
+    static final String PREFIX = "segment-";
+
+    static final String SUFFIX = ".log";
+
+    static final byte TYPE_PUT = 1;
+
+    static final byte TYPE_DELETE = 2;
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final int BODY_HEADER_SIZE = 3;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatLogSegment.class);
+
+    private static final Consumer<MappedByteBuffer> UNMAPPER = unmapper();
+
+    private final long id;
+
+    private final File file;
+
+    private final MappedByteBuffer buffer;
+
+    private final ByteBuffer writer;
+
+    private final FileChannel channel;
+
+    private final int capacity;
+
+    private final AtomicLong garbageBytes = new AtomicLong();
+
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private volatile int writePosition;
+
+    private boolean closed;
+
+    private CatLogSegment(final long id, final File file, final MappedByteBuffer buffer) {
+        this.id = id;
+        this.file = file;
+        this.buffer = buffer;
+        this.channel = null;
+        this.capacity = buffer.capacity();
+        this.writer = buffer.duplicate();
+    }
+
+    private CatLogSegment(final long id, final File file, final FileChannel channel) throws IOException {
+        this.id = id;
+        this.file = file;
+        this.buffer = null;
+        this.channel = channel;
+        this.capacity = (int) channel.size();
+        this.writer = null;
+    }
+
+    /**
+     * create a new segment file.
+     *
+     * @param directory log directory
+     * @param id        segment id
+     * @param capacity  segment capacity
+     * @return segment
+     * @throws IOException io exception
+     */
+    static CatLogSegment create(final File directory, final long id, final int capacity) throws IOException {
+        final File file = new File(directory, fileName(id));
+        return new CatLogSegment(id, file, map(file, capacity));
+    }
+
+    /**
+     * open an exist segment file.
+     *
+     * @param file     segment file
+     * @param readOnly read only
+     * @return segment
+     * @throws IOException io exception
+     */
+    static CatLogSegment open(final File file, final boolean readOnly) throws IOException {
+        final String name = file.getName();
+        final long id = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        if (readOnly) {
+            return new CatLogSegment(id, file, new RandomAccessFile(file, "r").getChannel());
+        }
+        return new CatLogSegment(id, file, map(file, (int) file.length()));
+    }
+
+    static boolean isSegmentFile(final String name) {
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static int frameLength(final byte[] key, final int valueLength) {
+        return HEADER_SIZE + BODY_HEADER_SIZE + key.length + valueLength;
+    }
+
+    private static String fileName(final long id) {
+        return String.format("%s%020d%s", PREFIX, id, SUFFIX);
+    }
+
+    private static MappedByteBuffer map(final File file, final int capacity) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            if (raf.length() < capacity) {
+                raf.setLength(capacity);
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    /**
+     * {@code Unsafe.invokeCleaner} on jdk 9+, the cleaner of the direct buffer on jdk 8, both through reflection.
+     */
+    private static Consumer<MappedByteBuffer> unmapper() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            return buffer -> invoke(() -> invokeCleaner.invoke(unsafe, buffer));
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            LogUtil.debug(LOGGER, "Unsafe.invokeCleaner is absent, the cleaner of the buffer is used:{}",
+                    () -> System.getProperty("java.version"));
+        }
+        return buffer -> invoke(() -> {
+            final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            final Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+            return null;
+        });
+    }
+
+    private static void invoke(final Unmap unmap) {
+        try {
+            unmap.run();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LogUtil.warn(LOGGER, "segment unmap exception, the buffer is freed by gc:{}", e::toString);
+        }
+    }
+
+    /**
+     * append one frame, caller must hold the log write lock.
+     *
+     * @param type  frame type
+     * @param key   key bytes
+     * @param value value bytes,may be null for tombstone
+     * @return frame offset, -1 when the segment is full
+     */
+    int append(final byte type, final byte[] key, final ByteBuffer value) {
+        final int valueLength = value == null ? 0 : value.remaining();
+        final int frameLength = frameLength(key, valueLength);
+        final int offset = writePosition;
+        if (offset + frameLength > capacity) {
+            return -1;
+        }
+        writer.clear();
+        writer.position(offset + HEADER_SIZE);
+        writer.put(type);
+        writer.putShort((short) key.length);
+        writer.put(key);
+        if (value != null) {
+            writer.put(value.duplicate());
+        }
+        final CRC32 crc = new CRC32();
+        final ByteBuffer body = writer.duplicate();
+        body.limit(offset + frameLength).position(offset + HEADER_SIZE);
+        crc.update(body);
+        writer.putInt(offset + 4, (int) crc.getValue());
+        writer.putInt(offset, frameLength - HEADER_SIZE);
+        writePosition = offset + frameLength;
+        return offset;
+    }
+
+    /**
+     * read the value of the frame at offset.
+     *
+     * @param offset frame offset
+     * @return value bytes
+     */
+    byte[] readValue(final int offset) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                return null;
+            }
+            final ByteBuffer header = read(offset, HEADER_SIZE + BODY_HEADER_SIZE);
+            final int keyLength = header.getShort(HEADER_SIZE + 1) & 0xFFFF;
+            final int valueLength = header.getInt(0) - BODY_HEADER_SIZE - keyLength;
+            final byte[] value = new byte[valueLength];
+            read(offset + HEADER_SIZE + BODY_HEADER_SIZE + keyLength, valueLength).get(value);
+            return value;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * scan all valid frames from the head,stop at the first empty or broken frame or when the segment is closed.
+     *
+     * @param visitor frame visitor
+     * @return end position of the last valid frame
+     */
+    int scan(final FrameVisitor visitor) {
+        int offset = 0;
+        while (offset + HEADER_SIZE + BODY_HEADER_SIZE <= capacity) {
+            final byte type;
+            final String key;
+            final int bodyLength;
+            closeLock.readLock().lock();
+            try {
+                if (closed) {
+                    break;
+                }
+                final ByteBuffer header = read(offset, HEADER_SIZE);
+                bodyLength = header.getInt(0);
+                if (bodyLength < BODY_HEADER_SIZE || offset + HEADER_SIZE + bodyLength > capacity) {
+                    break;
+                }
+                final ByteBuffer body = read(offset + HEADER_SIZE, bodyLength);
+                final CRC32 crc = new CRC32();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != header.getInt(4)) {
+                    break;
+                }
+                type = body.get(0);
+                final byte[] keyBytes = new byte[body.getShort(1) & 0xFFFF];
+                body.position(BODY_HEADER_SIZE);
+                body.get(keyBytes);
+                key = new String(keyBytes, StandardCharsets.UTF_8);
+            } finally {
+                closeLock.readLock().unlock();
+            }
+            visitor.visit(type, key, offset, HEADER_SIZE + bodyLength);
+            offset += HEADER_SIZE + bodyLength;
+        }
+        return offset;
+    }
+
+    /**
+     * a view of the mapped bytes, or the bytes read from the channel, caller must hold the read lock.
+     */
+    private ByteBuffer read(final int offset, final int length) {
+        if (channel == null) {
+            final ByteBuffer view = buffer.duplicate();
+            view.limit(offset + length).position(offset);
+            return view.slice();
+        }
+        final ByteBuffer bytes = ByteBuffer.allocate(length);
+        try {
+            int read = 0;
+            while (bytes.hasRemaining() && read >= 0) {
+                read = channel.read(bytes, offset + bytes.position());
+            }
+        } catch (IOException e) {
+            throw new CatRuntimeException("read segment exception, file:" + file, e);
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    /**
+     * reset write position after recover, the broken tail will be erased.
+     * the frames behind the position are walked by their length until the first zero header,
+     * so an old frame can not be read again when new frames end at its offset.
+     *
+     * @param position end of the last valid frame
+     */
+    void recoverPosition(final int position) {
+        this.writePosition = position;
+        if (writer == null) {
+            return;
+        }
+        int dirtyEnd = position;
+        while (dirtyEnd + HEADER_SIZE <= capacity) {
+            final int bodyLength = writer.getInt(dirtyEnd);
+            if (bodyLength == 0 && writer.getInt(dirtyEnd + 4) == 0) {
+                break;
+            }
+            if (bodyLength < BODY_HEADER_SIZE || dirtyEnd + HEADER_SIZE + bodyLength > capacity) {
+                dirtyEnd += HEADER_SIZE;
+                break;
+            }
+            dirtyEnd += HEADER_SIZE + bodyLength;
+        }
+        if (dirtyEnd > position) {
+            final byte[] zero = new byte[Math.min(8192, dirtyEnd - position)];
+            writer.clear();
+            writer.position(position);
+            while (writer.position() < dirtyEnd) {
+                writer.put(zero, 0, Math.min(zero.length, dirtyEnd - writer.position()));
+            }
+            buffer.force();
+        }
+    }
+
+    void force() {
+        if (writer == null) {
+            return;
+        }
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                buffer.force();
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * unmap the buffer or close the channel, the reads after it find nothing.
+     */
+    void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (channel != null) {
+                channel.close();
+            } else {
+                UNMAPPER.accept(buffer);
+            }
+        } catch (IOException e) {
+            LogUtil.warn(LOGGER, "segment close exception:{}", e::getMessage);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * close the segment and delete its file.
+     *
+     * @return true if deleted
+     */
+    boolean delete() {
+        close();
+        return file.delete();
+    }
+
+    void addGarbage(final int bytes) {
+        garbageBytes.addAndGet(bytes);
+    }
+
+    double garbageRatio() {
+        final int position = writePosition;
+        return position == 0 ? 0 : (double) garbageBytes.get() / position;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    @FunctionalInterface
+    private interface Unmap {
+
+        Object run() throws ReflectiveOperationException;
+    }
+
+    /**
+     * frame visitor.
+     */
+    @FunctionalInterface
+    interface FrameVisitor {
+
+        /**
+         * visit one frame.
+         *
+         * @param type        frame type
+         * @param key         key
+         * @param offset      frame offset
+         * @param frameLength frame length
+         */
+        void visit(byte type, String key, int offset, int frameLength);
+    }
+}
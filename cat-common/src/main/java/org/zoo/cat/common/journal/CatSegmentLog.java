@@ -0,0 +1,689 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.config.CatFileConfig;
+import org.zoo.cat.common.exception.CatRuntimeException;
+import org.zoo.cat.common.utils.LogUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * EN: append-only segmented log engine.
+ * every write is appended to a memory mapped segment and indexed by key in memory,
+ * the index is rebuilt by replaying the segments on startup.
+ * writers are made durable by a group fsync thread, deletes are tombstones,
+ * and segments which are mostly garbage are compacted by another background thread.
+ * other processes such as the admin {@link #submit} their writes into the inbox of the directory,
+ * the owner of the lock applies them.
+ * CN: 追加写分段日志, 内存索引, 组提交刷盘, 墓碑删除, 后台压缩, 其他进程通过 inbox 提交写入.
+ *
+ * @author dzc
+ */
+public class CatSegmentLog implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatSegmentLog.class);
+
+    private static final String LOCK_FILE = ".lock";
+
+    private static final String INBOX = "inbox";
+
+    private static final String INBOX_SUFFIX = ".req";
+
+    private static final long INBOX_INTERVAL = 1000;
+
+    private final File directory;
+
+    private final CatFileConfig fileConfig;
+
+    private final boolean readOnly;
+
+    private final Map<String, Position> index = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListMap<Long, CatLogSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final Set<CatLogSegment> dirtySegments = new LinkedHashSet<>();
+
+    private final Object flushMonitor = new Object();
+
+    private volatile CatLogSegment activeSegment;
+
+    private volatile long writeSequence;
+
+    private volatile long flushedSequence;
+
+    private volatile boolean closed;
+
+    private FileChannel lockChannel;
+
+    private FileLock fileLock;
+
+    private Thread flusher;
+
+    private Thread compactor;
+
+    private CatSegmentLog(final File directory, final CatFileConfig fileConfig, final boolean readOnly) {
+        this.directory = directory;
+        this.fileConfig = fileConfig;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * open the log for write, the directory will be locked by this process.
+     *
+     * @param path       log directory
+     * @param fileConfig file config
+     * @return the log
+     */
+    public static CatSegmentLog open(final String path, final CatFileConfig fileConfig) {
+        final CatSegmentLog log = new CatSegmentLog(new File(path), fileConfig, false);
+        log.start();
+        return log;
+    }
+
+    /**
+     * open the log for read,the snapshot is taken at open time.
+     * the segments are read through their file channels, nothing is mapped.
+     *
+     * @param path log directory
+     * @return the log
+     */
+    public static CatSegmentLog openReadOnly(final String path) {
+        final CatSegmentLog log = new CatSegmentLog(new File(path), new CatFileConfig(), true);
+        log.start();
+        return log;
+    }
+
+    private void start() {
+        try {
+            if (!readOnly) {
+                if (!directory.exists() && !directory.mkdirs()) {
+                    throw new CatRuntimeException("cannot create log path, the path to create is:" + directory);
+                }
+                lock();
+            }
+            recover();
+            if (!readOnly) {
+                if (activeSegment == null) {
+                    roll(0);
+                }
+                flusher = new Thread(this::maintain, "cat-segment-log-" + directory.getName());
+                flusher.setDaemon(true);
+                flusher.start();
+                compactor = new Thread(this::compactLoop, "cat-segment-compact-" + directory.getName());
+                compactor.setDaemon(true);
+                compactor.start();
+            }
+        } catch (IOException e) {
+            close();
+            throw new CatRuntimeException("open segment log exception, path:" + directory, e);
+        }
+    }
+
+    /**
+     * the log has been created by {@link #open}.
+     *
+     * @param path log directory
+     * @return true if any segment exist
+     */
+    public static boolean exists(final String path) {
+        final String[] names = new File(path).list((dir, name) -> CatLogSegment.isSegmentFile(name));
+        return names != null && names.length > 0;
+    }
+
+    /**
+     * apply the writes of the batch to an exist log.
+     * when the log is locked by the application the batch is dropped into its inbox,
+     * and the application applies it within a second.
+     *
+     * @param path  log directory
+     * @param batch writes
+     * @return false if the log does not exist
+     */
+    public static boolean submit(final String path, final Batch batch) {
+        if (!exists(path)) {
+            return false;
+        }
+        final File directory = new File(path);
+        if (!isLocked(directory)) {
+            try (CatSegmentLog log = open(path, new CatFileConfig())) {
+                batch.applyTo(log);
+                return true;
+            } catch (CatRuntimeException e) {
+                LogUtil.debug(LOGGER, "segment log is opened by another process, submit to inbox:{}", e::getMessage);
+            }
+        }
+        final File inbox = new File(directory, INBOX);
+        if (!inbox.exists() && !inbox.mkdirs()) {
+            throw new CatRuntimeException("cannot create inbox, the path to create is:" + inbox);
+        }
+        final String name = String.format("%020d-%s", System.currentTimeMillis(), UUID.randomUUID());
+        final File temp = new File(inbox, name + ".tmp");
+        try {
+            Files.write(temp.toPath(), batch.toBytes());
+            Files.move(temp.toPath(), new File(inbox, name + INBOX_SUFFIX).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new CatRuntimeException("submit to segment log inbox exception, path:" + directory, e);
+        }
+        return true;
+    }
+
+    private static boolean isLocked(final File directory) {
+        try (FileChannel channel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel()) {
+            final FileLock lock = channel.tryLock();
+            if (lock == null) {
+                return true;
+            }
+            lock.release();
+            return false;
+        } catch (OverlappingFileLockException e) {
+            return true;
+        } catch (IOException e) {
+            throw new CatRuntimeException("check segment log lock exception, path:" + directory, e);
+        }
+    }
+
+    private void lock() throws IOException {
+        lockChannel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new CatRuntimeException("segment log is locked by another process, path:" + directory);
+        }
+    }
+
+    private void recover() throws IOException {
+        final File[] files = directory.listFiles((dir, name) -> CatLogSegment.isSegmentFile(name));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        Arrays.sort(files);
+        CatLogSegment last = null;
+        for (File file : files) {
+            final CatLogSegment segment = CatLogSegment.open(file, readOnly);
+            final int position = segment.scan((type, key, offset, frameLength) ->
+                    apply(segment, type, key, offset, frameLength));
+            segment.recoverPosition(position);
+            segments.put(segment.getId(), segment);
+            last = segment;
+        }
+        activeSegment = last;
+        LogUtil.info(LOGGER, "segment log recover finished,path:{}", () -> directory + " segments:" + segments.size() + " keys:" + index.size());
+    }
+
+    /**
+     * put value of the key.
+     *
+     * @param key   key
+     * @param value value
+     */
+    public void put(final String key, final byte[] value) {
+        put(key, ByteBuffer.wrap(value));
+    }
+
+    /**
+     * put value of the key.
+     *
+     * @param key   key
+     * @param value value,the remaining bytes will be appended
+     */
+    public void put(final String key, final ByteBuffer value) {
+        awaitFlushed(append(CatLogSegment.TYPE_PUT, key, value));
+    }
+
+    /**
+     * remove the key by a tombstone.
+     *
+     * @param key key
+     * @return true if the key exist
+     */
+    public boolean remove(final String key) {
+        if (!index.containsKey(key)) {
+            return false;
+        }
+        awaitFlushed(append(CatLogSegment.TYPE_DELETE, key, null));
+        return true;
+    }
+
+    /**
+     * get value of the key.
+     *
+     * @param key key
+     * @return value or null
+     */
+    public byte[] get(final String key) {
+        Position position = index.get(key);
+        while (position != null) {
+            final byte[] value = position.segment.readValue(position.offset);
+            if (value != null) {
+                return value;
+            }
+            final Position moved = index.get(key);
+            position = moved == position ? null : moved;
+        }
+        return null;
+    }
+
+    /**
+     * contains key.
+     *
+     * @param key key
+     * @return true if contains
+     */
+    public boolean contains(final String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * live keys.
+     *
+     * @return keys
+     */
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * live key size.
+     *
+     * @return size
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * visit all live values.
+     *
+     * @param consumer consumer
+     */
+    public void forEach(final BiConsumer<String, byte[]> consumer) {
+        index.forEach((key, position) -> {
+            byte[] value = position.segment.readValue(position.offset);
+            if (value == null) {
+                value = get(key);
+            }
+            if (value != null) {
+                consumer.accept(key, value);
+            }
+        });
+    }
+
+    private long append(final byte type, final String key, final ByteBuffer value) {
+        if (readOnly || closed) {
+            throw new CatRuntimeException("segment log is not writable, path:" + directory);
+        }
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        writeLock.lock();
+        try {
+            if (closed) {
+                throw new CatRuntimeException("segment log is not writable, path:" + directory);
+            }
+            write(type, key, keyBytes, value);
+            return ++writeSequence;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(final byte type, final String key, final byte[] keyBytes, final ByteBuffer value) {
+        int offset = activeSegment.append(type, keyBytes, value);
+        if (offset < 0) {
+            roll(CatLogSegment.frameLength(keyBytes, value == null ? 0 : value.remaining()));
+            offset = activeSegment.append(type, keyBytes, value);
+        }
+        final CatLogSegment segment = activeSegment;
+        dirtySegments.add(segment);
+        apply(segment, type, key, offset, segment.getWritePosition() - offset);
+    }
+
+    private void apply(final CatLogSegment segment, final byte type, final String key,
+                       final int offset, final int frameLength) {
+        final Position previous;
+        if (type == CatLogSegment.TYPE_PUT) {
+            previous = index.put(key, new Position(segment, offset, frameLength));
+        } else {
+            previous = index.remove(key);
+            segment.addGarbage(frameLength);
+        }
+        if (previous != null) {
+            previous.segment.addGarbage(previous.frameLength);
+        }
+    }
+
+    private void roll(final int minCapacity) {
+        final long id = activeSegment == null ? 0 : activeSegment.getId() + 1;
+        try {
+            activeSegment = CatLogSegment.create(directory, id, Math.max(fileConfig.getSegmentSize(), minCapacity));
+            segments.put(id, activeSegment);
+        } catch (IOException e) {
+            throw new CatRuntimeException("create segment exception, path:" + directory, e);
+        }
+    }
+
+    private void awaitFlushed(final long sequence) {
+        if (!fileConfig.isSyncWrite()) {
+            return;
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+            while (flushedSequence < sequence && !closed) {
+                try {
+                    flushMonitor.wait(fileConfig.getFlushInterval());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void maintain() {
+        while (!closed) {
+            try {
+                synchronized (flushMonitor) {
+                    if (flushedSequence >= writeSequence) {
+                        flushMonitor.wait(fileConfig.getFlushInterval());
+                    }
+                }
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LogUtil.error(LOGGER, "segment log flush exception:{}", e::getMessage);
+            }
+        }
+    }
+
+    private void compactLoop() {
+        long lastCompact = System.currentTimeMillis();
+        while (!closed) {
+            try {
+                Thread.sleep(INBOX_INTERVAL);
+                applyInbox();
+                final long now = System.currentTimeMillis();
+                if (now - lastCompact >= TimeUnit.SECONDS.toMillis(fileConfig.getCompactInterval())) {
+                    lastCompact = now;
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LogUtil.error(LOGGER, "segment log compact exception:{}", e::getMessage);
+            }
+        }
+    }
+
+    private void applyInbox() throws IOException {
+        final File[] files = new File(directory, INBOX).listFiles((dir, name) -> name.endsWith(INBOX_SUFFIX));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            Batch.fromBytes(Files.readAllBytes(file.toPath())).applyTo(this);
+            if (!file.delete()) {
+                LogUtil.warn(LOGGER, "segment log cannot delete inbox file:{}", file::getName);
+            }
+        }
+    }
+
+    /**
+     * force all dirty segments to disk and wake up the writers.
+     */
+    public void flush() {
+        final long sequence;
+        final List<CatLogSegment> dirty;
+        writeLock.lock();
+        try {
+            sequence = writeSequence;
+            dirty = new ArrayList<>(dirtySegments);
+            dirtySegments.clear();
+        } finally {
+            writeLock.unlock();
+        }
+        dirty.forEach(CatLogSegment::force);
+        synchronized (flushMonitor) {
+            if (sequence > flushedSequence) {
+                flushedSequence = sequence;
+            }
+            flushMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * compact sealed segments whose garbage ratio reach the config.
+     * live records are moved to the active segment,then the old segment file is deleted.
+     */
+    public void compact() {
+        if (readOnly) {
+            return;
+        }
+        for (CatLogSegment segment : new ArrayList<>(segments.values())) {
+            if (closed || segment == activeSegment) {
+                return;
+            }
+            if (segment.garbageRatio() >= fileConfig.getCompactRatio()) {
+                compact(segment);
+            }
+        }
+    }
+
+    private void compact(final CatLogSegment segment) {
+        final boolean oldest = Objects.equals(segments.firstKey(), segment.getId());
+        segment.scan((type, key, offset, frameLength) -> {
+            writeLock.lock();
+            try {
+                if (type == CatLogSegment.TYPE_PUT) {
+                    final Position position = index.get(key);
+                    if (position != null && position.segment == segment && position.offset == offset) {
+                        write(type, key, key.getBytes(StandardCharsets.UTF_8),
+                                ByteBuffer.wrap(segment.readValue(offset)));
+                    }
+                } else if (!oldest && !index.containsKey(key)) {
+                    write(type, key, key.getBytes(StandardCharsets.UTF_8), null);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        });
+        if (closed) {
+            return;
+        }
+        flush();
+        segments.remove(segment.getId());
+        if (!segment.delete()) {
+            LogUtil.warn(LOGGER, "segment log compact cannot delete file:{}", segment::getId);
+        }
+        LogUtil.debug(LOGGER, "segment log compact finished, segment:{}", segment::getId);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (!readOnly && activeSegment != null) {
+            flush();
+        }
+        closed = true;
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        if (compactor != null) {
+            compactor.interrupt();
+        }
+        writeLock.lock();
+        try {
+            segments.values().forEach(CatLogSegment::close);
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            if (fileLock != null) {
+                fileLock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            LogUtil.warn(LOGGER, "segment log release lock exception:{}", e::getMessage);
+        }
+    }
+
+    private static final class Position {
+
+        private final CatLogSegment segment;
+
+        private final int offset;
+
+        private final int frameLength;
+
+        private Position(final CatLogSegment segment, final int offset, final int frameLength) {
+            this.segment = segment;
+            this.offset = offset;
+            this.frameLength = frameLength;
+        }
+    }
+
+    /**
+     * writes submitted by another process.
+     */
+    public static final class Batch {
+
+        private final List<Map.Entry<String, byte[]>> writes = new ArrayList<>();
+
+        /**
+         * put value of the key.
+         *
+         * @param key   key
+         * @param value value
+         * @return this
+         */
+        public Batch put(final String key, final byte[] value) {
+            writes.add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+            return this;
+        }
+
+        /**
+         * remove the key.
+         *
+         * @param key key
+         * @return this
+         */
+        public Batch remove(final String key) {
+            writes.add(new AbstractMap.SimpleImmutableEntry<>(key, null));
+            return this;
+        }
+
+        /**
+         * is empty.
+         *
+         * @return true if no write
+         */
+        public boolean isEmpty() {
+            return writes.isEmpty();
+        }
+
+        private void applyTo(final CatSegmentLog log) {
+            for (Map.Entry<String, byte[]> write : writes) {
+                if (write.getValue() == null) {
+                    log.remove(write.getKey());
+                } else {
+                    log.put(write.getKey(), write.getValue());
+                }
+            }
+        }
+
+        private byte[] toBytes() throws IOException {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes)) {
+                output.writeInt(writes.size());
+                for (Map.Entry<String, byte[]> write : writes) {
+                    output.writeUTF(write.getKey());
+                    final byte[] value = write.getValue();
+                    output.writeInt(value == null ? -1 : value.length);
+                    if (value != null) {
+                        output.write(value);
+                    }
+                }
+            }
+            return bytes.toByteArray();
+        }
+
+        private static Batch fromBytes(final byte[] contents) throws IOException {
+            final Batch batch = new Batch();
+            try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(contents))) {
+                final int count = input.readInt();
+                for (int i = 0; i < count; i++) {
+                    final String key = input.readUTF();
+                    final int length = input.readInt();
+                    if (length < 0) {
+                        batch.remove(key);
+                    } else {
+                        final byte[] value = new byte[length];
+                        input.readFully(value);
+                        batch.put(key, value);
+                    }
+                }
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * EN: a growable byte buffer leased from the current thread.
+ * serializers append into it and the repositories read it as a {@link ByteBuffer} without copy.
+ * it must be closed after use, a nested acquire in the same thread gets a temporary buffer.
+ * CN: 线程复用的序列化缓冲区.
+ *
+ * @author dzc
+ */
+public final class BufferLease extends OutputStream {
+
+    private static final int INITIAL_SIZE = 4096;
+
+    private static final int MAX_RETAIN_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<BufferLease> POOL = ThreadLocal.withInitial(() -> new BufferLease(true));
+
+    private final boolean pooled;
+
+    private byte[] buf = new byte[INITIAL_SIZE];
+
+    private int count;
+
+    private boolean leased;
+
+    private BufferLease(final boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /**
+     * acquire the buffer of current thread.
+     *
+     * @return lease
+     */
+    public static BufferLease acquire() {
+        final BufferLease lease = POOL.get();
+        if (lease.leased) {
+            return new BufferLease(false);
+        }
+        lease.leased = true;
+        return lease;
+    }
+
+    @Override
+    public void write(final int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    /**
+     * append the remaining bytes of the buffer.
+     *
+     * @param buffer buffer
+     */
+    public void write(final ByteBuffer buffer) {
+        final int len = buffer.remaining();
+        ensureCapacity(count + len);
+        buffer.duplicate().get(buf, count, len);
+        count += len;
+    }
+
+    /**
+     * overwrite 4 bytes at the index, used to patch a reserved length.
+     *
+     * @param index index
+     * @param value value
+     */
+    public void putInt(final int index, final int value) {
+        buf[index] = (byte) (value >>> 24);
+        buf[index + 1] = (byte) (value >>> 16);
+        buf[index + 2] = (byte) (value >>> 8);
+        buf[index + 3] = (byte) value;
+    }
+
+    /**
+     * overwrite 1 byte at the index.
+     *
+     * @param index index
+     * @param value value
+     */
+    public void put(final int index, final int value) {
+        buf[index] = (byte) value;
+    }
+
+    /**
+     * discard the bytes written after the size.
+     *
+     * @param size size to keep
+     */
+    public void truncate(final int size) {
+        count = Math.min(count, size);
+    }
+
+    /**
+     * view of the written bytes, valid until the lease is closed.
+     *
+     * @return buffer
+     */
+    public ByteBuffer buffer() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    /**
+     * copy of the written bytes.
+     *
+     * @return bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    /**
+     * written size.
+     *
+     * @return size
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * discard the written bytes.
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    @Override
+    public void close() {
+        count = 0;
+        if (pooled) {
+            leased = false;
+            if (buf.length > MAX_RETAIN_SIZE) {
+                buf = new byte[INITIAL_SIZE];
+            }
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, capacity));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import org.zoo.cat.common.config.CatCompressConfig;
+import org.zoo.cat.common.exception.CatException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * EN: deflate of the serialized participants above a size threshold, with thread local deflaters.
+ * the counters are cumulative since start, bind them to your metrics registry.
+ * CN: 参与者日志压缩及压缩率, 耗时统计.
+ *
+ * @author dzc
+ */
+public final class CatCompressor {
+
+    private static final int MAX_RETAIN_SIZE = 1024 * 1024;
+
+    private final ThreadLocal<DeflaterHolder> deflaters = ThreadLocal.withInitial(DeflaterHolder::new);
+
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    private final LongAdder compressedCount = new LongAdder();
+
+    private final LongAdder rawBytes = new LongAdder();
+
+    private final LongAdder compressedBytes = new LongAdder();
+
+    private final LongAdder compressNanos = new LongAdder();
+
+    private final LongAdder decompressedCount = new LongAdder();
+
+    private final LongAdder decompressNanos = new LongAdder();
+
+    private volatile CatCompressConfig config = new CatCompressConfig();
+
+    private CatCompressor() {
+    }
+
+    /**
+     * Gets instance.
+     *
+     * @return the instance
+     */
+    public static CatCompressor getInstance() {
+        return CatCompressorHolder.INSTANCE;
+    }
+
+    /**
+     * apply the config.
+     *
+     * @param catCompressConfig config
+     */
+    public void configure(final CatCompressConfig catCompressConfig) {
+        if (catCompressConfig != null) {
+            this.config = catCompressConfig;
+        }
+    }
+
+    /**
+     * should the content of the length be compressed.
+     *
+     * @param length length
+     * @return true if compress
+     */
+    public boolean accept(final int length) {
+        final CatCompressConfig current = config;
+        return current.isEnabled() && length >= current.getThreshold();
+    }
+
+    /**
+     * deflate the bytes.
+     *
+     * @param src    src
+     * @param offset offset
+     * @param length length
+     * @return view of a thread local buffer, valid until the next deflate of the thread
+     */
+    public ByteBuffer deflate(final byte[] src, final int offset, final int length) {
+        final long start = System.nanoTime();
+        final DeflaterHolder holder = deflaters.get();
+        final Deflater deflater = holder.deflater(config.getLevel());
+        try {
+            deflater.setInput(src, offset, length);
+            deflater.finish();
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == holder.scratch.length) {
+                    holder.scratch = Arrays.copyOf(holder.scratch, size << 1);
+                }
+                size += deflater.deflate(holder.scratch, size, holder.scratch.length - size);
+            }
+            compressedCount.increment();
+            rawBytes.add(length);
+            compressedBytes.add(size);
+            return ByteBuffer.wrap(holder.scratch, 0, size);
+        } finally {
+            deflater.reset();
+            if (holder.scratch.length > MAX_RETAIN_SIZE) {
+                holder.release();
+            }
+            compressNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * inflate the bytes.
+     *
+     * @param src       src
+     * @param offset    offset
+     * @param length    length
+     * @param rawLength length before deflate
+     * @return raw bytes
+     * @throws CatException the cat exception
+     */
+    public byte[] inflate(final byte[] src, final int offset, final int length, final int rawLength) throws CatException {
+        final long start = System.nanoTime();
+        final Inflater inflater = inflaters.get();
+        try {
+            inflater.setInput(src, offset, length);
+            final byte[] raw = new byte[rawLength];
+            int size = 0;
+            while (size < rawLength && !inflater.finished()) {
+                final int n = inflater.inflate(raw, size, rawLength - size);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                size += n;
+            }
+            if (size != rawLength) {
+                throw new CatException("inflate error, expect " + rawLength + " bytes but " + size);
+            }
+            decompressedCount.increment();
+            return raw;
+        } catch (DataFormatException e) {
+            throw new CatException(e.getMessage(), e);
+        } finally {
+            inflater.reset();
+            decompressNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * compressed contents count.
+     *
+     * @return count
+     */
+    public long getCompressedCount() {
+        return compressedCount.sum();
+    }
+
+    /**
+     * bytes before compress.
+     *
+     * @return bytes
+     */
+    public long getRawBytes() {
+        return rawBytes.sum();
+    }
+
+    /**
+     * bytes after compress.
+     *
+     * @return bytes
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * compressed bytes / raw bytes.
+     *
+     * @return ratio, 1 if nothing compressed
+     */
+    public double getRatio() {
+        final long raw = rawBytes.sum();
+        return raw == 0 ? 1D : (double) compressedBytes.sum() / raw;
+    }
+
+    /**
+     * cpu time of compress.
+     *
+     * @return nanos
+     */
+    public long getCompressNanos() {
+        return compressNanos.sum();
+    }
+
+    /**
+     * decompressed contents count.
+     *
+     * @return count
+     */
+    public long getDecompressedCount() {
+        return decompressedCount.sum();
+    }
+
+    /**
+     * cpu time of decompress.
+     *
+     * @return nanos
+     */
+    public long getDecompressNanos() {
+        return decompressNanos.sum();
+    }
+
+    private static final class DeflaterHolder {
+
+        private static final int INITIAL_SIZE = 4096;
+
+        private Deflater deflater;
+
+        private int level;
+
+        private byte[] scratch = new byte[INITIAL_SIZE];
+
+        private Deflater deflater(final int level) {
+            if (deflater == null || this.level != level) {
+                if (deflater != null) {
+                    deflater.end();
+                }
+                deflater = new Deflater(level);
+                this.level = level;
+            }
+            return deflater;
+        }
+
+        private void release() {
+            scratch = new byte[INITIAL_SIZE];
+        }
+    }
+
+    private static class CatCompressorHolder {
+        private static final CatCompressor INSTANCE = new CatCompressor();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.utils.LogUtil;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * EN: per app dictionary of the invoked methods, signature {@code class#method(paramTypes)} to a small id.
+ * the ids are dense and given out through the repository: a node saves the next free id if absent,
+ * and when another node got that id first it loads the dictionary and tries the next one.
+ * an entry is saved into the repository once and loaded back on start.
+ * a signature is written inline when the dictionary is not bound or the repository refuses it,
+ * a refused signature is not tried again for a minute and unknown ids reload the dictionary at most once a second.
+ * CN: 方法字典, 每个应用的方法签名只持久化一次, id 连续分配.
+ *
+ * @author dzc
+ */
+public final class CatMethodDictionary {
+
+    /**
+     * id of a signature that is not in the dictionary.
+     */
+    public static final int NONE = -1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatMethodDictionary.class);
+
+    private static final int MAX_ATTEMPTS = 8;
+
+    private static final long RELOAD_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+    private static final long REFUSED_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final Map<Integer, String> signatures = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> refused = new ConcurrentHashMap<>();
+
+    private volatile Supplier<Map<Integer, String>> loader;
+
+    private volatile ToIntBiFunction<Integer, String> store;
+
+    private volatile long loadTime;
+
+    private int next = 1;
+
+    private CatMethodDictionary() {
+    }
+
+    /**
+     * Gets instance.
+     *
+     * @return the instance
+     */
+    public static CatMethodDictionary getInstance() {
+        return CatMethodDictionaryHolder.INSTANCE;
+    }
+
+    /**
+     * bind the repository that persists the dictionary and load its entries.
+     *
+     * @param loader load all entries of the app
+     * @param store  save one entry if absent, returns 1 when saved
+     */
+    public synchronized void bind(final Supplier<Map<Integer, String>> loader,
+                                  final ToIntBiFunction<Integer, String> store) {
+        this.loader = loader;
+        this.store = store;
+        signatures.clear();
+        ids.clear();
+        refused.clear();
+        next = 1;
+        load();
+    }
+
+    /**
+     * id of the signature, it is saved when seen the first time.
+     *
+     * @param signature signature
+     * @return id or {@link #NONE}
+     */
+    public int idOf(final String signature) {
+        final Integer id = ids.get(signature);
+        if (Objects.nonNull(id)) {
+            return id;
+        }
+        if (Objects.isNull(store)) {
+            return NONE;
+        }
+        final Long retryTime = refused.get(signature);
+        if (Objects.nonNull(retryTime) && System.currentTimeMillis() < retryTime) {
+            return NONE;
+        }
+        return register(signature);
+    }
+
+    /**
+     * signature of the id.
+     *
+     * @param id id
+     * @return signature or null
+     */
+    public String signatureOf(final int id) {
+        String signature = signatures.get(id);
+        if (Objects.isNull(signature) && Objects.nonNull(loader)
+                && System.currentTimeMillis() - loadTime >= RELOAD_INTERVAL) {
+            synchronized (this) {
+                signature = signatures.get(id);
+                if (Objects.isNull(signature) && System.currentTimeMillis() - loadTime >= RELOAD_INTERVAL) {
+                    load();
+                    signature = signatures.get(id);
+                }
+            }
+        }
+        return signature;
+    }
+
+    private synchronized int register(final String signature) {
+        final Integer known = ids.get(signature);
+        if (Objects.nonNull(known)) {
+            return known;
+        }
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            while (signatures.containsKey(next)) {
+                next++;
+            }
+            final int id = next;
+            try {
+                if (store.applyAsInt(id, signature) > 0) {
+                    put(id, signature);
+                    refused.remove(signature);
+                    return id;
+                }
+            } catch (Exception e) {
+                LogUtil.error(LOGGER, "save method dictionary error:{}", e::getMessage);
+                break;
+            }
+            //another node saved the id first, or the repository keeps no dictionary
+            load();
+            final Integer loaded = ids.get(signature);
+            if (Objects.nonNull(loaded)) {
+                return loaded;
+            }
+            if (!signatures.containsKey(id)) {
+                break;
+            }
+        }
+        refused.put(signature, System.currentTimeMillis() + REFUSED_INTERVAL);
+        return NONE;
+    }
+
+    private void load() {
+        loadTime = System.currentTimeMillis();
+        try {
+            final Map<Integer, String> loaded = loader.get();
+            if (Objects.nonNull(loaded)) {
+                loaded.forEach(this::put);
+            }
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "load method dictionary error:{}", e::getMessage);
+        }
+    }
+
+    private void put(final Integer id, final String signature) {
+        signatures.put(id, signature);
+        ids.put(signature, id);
+    }
+
+    private static class CatMethodDictionaryHolder {
+        private static final CatMethodDictionary INSTANCE = new CatMethodDictionary();
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import org.zoo.cat.common.bean.entity.CatInvocation;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.exception.CatException;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * EN: compact binary form of the participants.
+ * layout : magic(2) version(1) codec(1) body, the body is count then per participant transId status args invocations.
+ * a body above the threshold of {@link CatCompressor} is deflated, the codec marks it and rawLength compressedLength
+ * are written before it. version 1 has no codec byte.
+ * since version 3 the argument arrays are serialized inside {@link Arguments}, a serializer
+ * such as protostuff can not take an array as the root object.
+ * an invocation is a method of the {@link CatMethodDictionary} or an inline signature,
+ * plus a reference into the argument arrays of its participant,
+ * so the arguments shared by confirm and cancel are serialized once.
+ * the list serialized by the {@link ObjectSerializer} is still readable.
+ * CN: 参与者紧凑格式, 方法字典编码, confirm 和 cancel 共享参数.
+ *
+ * @author dzc
+ */
+public final class CatParticipantCodec {
+
+    private static final byte MAGIC_0 = (byte) 0xCA;
+
+    private static final byte MAGIC_1 = (byte) 0x7B;
+
+    private static final byte VERSION_1 = 1;
+
+    private static final byte VERSION_2 = 2;
+
+    private static final byte VERSION_3 = 3;
+
+    private static final int PREFIX_SIZE = 3;
+
+    private static final int CODEC_NONE = 0;
+
+    private static final int CODEC_DEFLATE = 1;
+
+    private static final int TAG_NULL = 0;
+
+    private static final int TAG_DICTIONARY = 1;
+
+    private static final int TAG_INLINE = 2;
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+    private static final Map<String, ResolvedMethod> RESOLVED = new ConcurrentHashMap<>();
+
+    static {
+        for (Class<?> cls : new Class<?>[]{boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class, void.class}) {
+            PRIMITIVES.put(cls.getName(), cls);
+        }
+    }
+
+    private CatParticipantCodec() {
+    }
+
+    /**
+     * is written by this codec.
+     *
+     * @param contents contents
+     * @return true if current format
+     */
+    public static boolean isParticipants(final byte[] contents) {
+        return contents != null && contents.length >= PREFIX_SIZE
+                && contents[0] == MAGIC_0 && contents[1] == MAGIC_1
+                && contents[2] >= VERSION_1 && contents[2] <= VERSION_3;
+    }
+
+    /**
+     * encode participants into the lease, null is written as an empty list.
+     *
+     * @param catParticipants participants
+     * @param serializer      serializer of the arguments
+     * @param lease           lease
+     * @throws CatException the cat exception
+     */
+    public static void encode(final List<CatParticipant> catParticipants, final ObjectSerializer serializer,
+                              final BufferLease lease) throws CatException {
+        lease.write(MAGIC_0);
+        lease.write(MAGIC_1);
+        lease.write(VERSION_3);
+        final int codecIndex = lease.size();
+        lease.write(CODEC_NONE);
+        final int bodyIndex = lease.size();
+        if (Objects.isNull(catParticipants)) {
+            CodecUtils.writeVarInt(lease, 0);
+            return;
+        }
+        CodecUtils.writeVarInt(lease, catParticipants.size());
+        for (CatParticipant catParticipant : catParticipants) {
+            writeParticipant(catParticipant, serializer, lease);
+        }
+        final int bodyLength = lease.size() - bodyIndex;
+        final CatCompressor compressor = CatCompressor.getInstance();
+        if (compressor.accept(bodyLength)) {
+            final ByteBuffer deflated = compressor.deflate(lease.buffer().array(), bodyIndex, bodyLength);
+            if (deflated.remaining() + 10 < bodyLength) {
+                lease.truncate(bodyIndex);
+                lease.put(codecIndex, CODEC_DEFLATE);
+                CodecUtils.writeVarInt(lease, bodyLength);
+                CodecUtils.writeVarInt(lease, deflated.remaining());
+                lease.write(deflated);
+            }
+        }
+    }
+
+    /**
+     * encode participants.
+     *
+     * @param catParticipants participants
+     * @param serializer      serializer of the arguments
+     * @return bytes
+     * @throws CatException the cat exception
+     */
+    public static byte[] encode(final List<CatParticipant> catParticipants, final ObjectSerializer serializer) throws CatException {
+        try (BufferLease lease = BufferLease.acquire()) {
+            encode(catParticipants, serializer, lease);
+            return lease.toByteArray();
+        }
+    }
+
+    /**
+     * decode participants, the list serialized by the serializer is accepted too.
+     *
+     * @param contents   contents
+     * @param serializer serializer
+     * @return participants
+     * @throws CatException the cat exception
+     */
+    @SuppressWarnings("unchecked")
+    public static List<CatParticipant> decode(final byte[] contents, final ObjectSerializer serializer) throws CatException {
+        if (isParticipants(contents)) {
+            return decode(ByteBuffer.wrap(contents), serializer);
+        }
+        final List<CatParticipant> catParticipants = serializer.deSerialize(contents, ArrayList.class);
+        return catParticipants == null ? null : new CopyOnWriteArrayList<>(catParticipants);
+    }
+
+    /**
+     * decode participants from the position of the buffer.
+     *
+     * @param buffer     buffer backed by an array
+     * @param serializer serializer of the arguments
+     * @return participants
+     * @throws CatException the cat exception
+     */
+    public static List<CatParticipant> decode(final ByteBuffer buffer, final ObjectSerializer serializer) throws CatException {
+        if (buffer.get() != MAGIC_0 || buffer.get() != MAGIC_1) {
+            throw new CatException("unknown participant format");
+        }
+        final byte version = buffer.get();
+        if (version == VERSION_2 || version == VERSION_3) {
+            final int codec = buffer.get();
+            if (codec == CODEC_DEFLATE) {
+                final int rawLength = CodecUtils.readVarInt(buffer);
+                final int length = CodecUtils.readVarInt(buffer);
+                final byte[] body = CatCompressor.getInstance().inflate(buffer.array(),
+                        buffer.arrayOffset() + buffer.position(), length, rawLength);
+                buffer.position(buffer.position() + length);
+                return readBody(ByteBuffer.wrap(body), serializer, version);
+            } else if (codec != CODEC_NONE) {
+                throw new CatException("unknown participant codec " + codec);
+            }
+        } else if (version != VERSION_1) {
+            throw new CatException("unknown participant version " + version);
+        }
+        return readBody(buffer, serializer, version);
+    }
+
+    private static List<CatParticipant> readBody(final ByteBuffer buffer, final ObjectSerializer serializer,
+                                                 final byte version) throws CatException {
+        final int count = CodecUtils.readVarInt(buffer);
+        final List<CatParticipant> catParticipants = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            catParticipants.add(readParticipant(buffer, serializer, version));
+        }
+        return new CopyOnWriteArrayList<>(catParticipants);
+    }
+
+    private static void writeParticipant(final CatParticipant catParticipant, final ObjectSerializer serializer,
+                                         final BufferLease lease) throws CatException {
+        CodecUtils.writeString(lease, catParticipant.getTransId());
+        CodecUtils.writeNullableInt(lease, catParticipant.getStatus());
+        final CatInvocation[] invocations = {catParticipant.getConfirmCatInvocation(),
+                catParticipant.getCancelCatInvocation(), catParticipant.getNoticeCatInvocation()};
+        final List<Object[]> args = new ArrayList<>(invocations.length);
+        final int[] refs = new int[invocations.length];
+        for (int i = 0; i < invocations.length; i++) {
+            refs[i] = argsRef(invocations[i], args);
+        }
+        CodecUtils.writeVarInt(lease, args.size());
+        for (Object[] arg : args) {
+            final int lengthIndex = lease.size();
+            lease.write(new byte[4], 0, 4);
+            serializer.serialize(new Arguments(arg), lease);
+            lease.putInt(lengthIndex, lease.size() - lengthIndex - 4);
+        }
+        for (int i = 0; i < invocations.length; i++) {
+            writeInvocation(invocations[i], refs[i], lease);
+        }
+    }
+
+    private static int argsRef(final CatInvocation invocation, final List<Object[]> args) {
+        if (Objects.isNull(invocation) || Objects.isNull(invocation.getArgs())) {
+            return 0;
+        }
+        for (int i = 0; i < args.size(); i++) {
+            final Object[] arg = args.get(i);
+            if (arg == invocation.getArgs() || Arrays.equals(arg, invocation.getArgs())) {
+                return i + 1;
+            }
+        }
+        args.add(invocation.getArgs());
+        return args.size();
+    }
+
+    private static void writeInvocation(final CatInvocation invocation, final int argsRef, final BufferLease lease) {
+        if (Objects.isNull(invocation)) {
+            lease.write(TAG_NULL);
+            return;
+        }
+        final String signature = signature(invocation);
+        final int id = CatMethodDictionary.getInstance().idOf(signature);
+        if (id == CatMethodDictionary.NONE) {
+            lease.write(TAG_INLINE);
+            CodecUtils.writeString(lease, signature);
+        } else {
+            lease.write(TAG_DICTIONARY);
+            CodecUtils.writeVarInt(lease, id);
+        }
+        CodecUtils.writeVarInt(lease, argsRef);
+    }
+
+    private static CatParticipant readParticipant(final ByteBuffer buffer, final ObjectSerializer serializer,
+                                                  final byte version) throws CatException {
+        final CatParticipant catParticipant = new CatParticipant();
+        catParticipant.setTransId(CodecUtils.readString(buffer));
+        catParticipant.setStatus(CodecUtils.readNullableInt(buffer));
+        final Object[][] args = new Object[CodecUtils.readVarInt(buffer)][];
+        for (int i = 0; i < args.length; i++) {
+            final byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            args[i] = version >= VERSION_3 ? serializer.deSerialize(bytes, Arguments.class).values
+                    : serializer.deSerialize(bytes, Object[].class);
+        }
+        catParticipant.setConfirmCatInvocation(readInvocation(buffer, args));
+        catParticipant.setCancelCatInvocation(readInvocation(buffer, args));
+        catParticipant.setNoticeCatInvocation(readInvocation(buffer, args));
+        return catParticipant;
+    }
+
+    private static CatInvocation readInvocation(final ByteBuffer buffer, final Object[][] args) throws CatException {
+        final int tag = buffer.get();
+        if (tag == TAG_NULL) {
+            return null;
+        }
+        final String signature;
+        if (tag == TAG_DICTIONARY) {
+            final int id = CodecUtils.readVarInt(buffer);
+            signature = CatMethodDictionary.getInstance().signatureOf(id);
+            if (Objects.isNull(signature)) {
+                throw new CatException("unknown method id " + id);
+            }
+        } else {
+            signature = CodecUtils.readString(buffer);
+        }
+        final int argsRef = CodecUtils.readVarInt(buffer);
+        final ResolvedMethod method = resolve(signature);
+        return new CatInvocation(method.targetClass, method.methodName,
+                method.parameterTypes, argsRef == 0 ? null : args[argsRef - 1]);
+    }
+
+    private static String signature(final CatInvocation invocation) {
+        final StringBuilder builder = new StringBuilder(128)
+                .append(invocation.getTargetClass() == null ? "" : invocation.getTargetClass().getName())
+                .append('#').append(invocation.getMethodName()).append('(');
+        final Class[] parameterTypes = invocation.getParameterTypes();
+        if (parameterTypes != null) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(parameterTypes[i].getName());
+            }
+        } else {
+            builder.append('-');
+        }
+        return builder.append(')').toString();
+    }
+
+    private static ResolvedMethod resolve(final String signature) throws CatException {
+        final ResolvedMethod cached = RESOLVED.get(signature);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+        try {
+            final int hash = signature.indexOf('#');
+            final int open = signature.indexOf('(', hash);
+            final String className = signature.substring(0, hash);
+            final String params = signature.substring(open + 1, signature.length() - 1);
+            Class[] parameterTypes = null;
+            if (!"-".equals(params)) {
+                final String[] names = params.isEmpty() ? new String[0] : params.split(",");
+                parameterTypes = new Class[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    parameterTypes[i] = forName(names[i]);
+                }
+            }
+            final ResolvedMethod method = new ResolvedMethod(className.isEmpty() ? null : forName(className),
+                    signature.substring(hash + 1, open), parameterTypes);
+            RESOLVED.put(signature, method);
+            return method;
+        } catch (ClassNotFoundException e) {
+            throw new CatException(e.getMessage(), e);
+        }
+    }
+
+    private static Class<?> forName(final String name) throws ClassNotFoundException {
+        final Class<?> primitive = PRIMITIVES.get(name);
+        if (Objects.nonNull(primitive)) {
+            return primitive;
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (Objects.isNull(classLoader)) {
+            classLoader = CatParticipantCodec.class.getClassLoader();
+        }
+        return Class.forName(name, false, classLoader);
+    }
+
+    private static final class ResolvedMethod {
+
+        private final Class targetClass;
+
+        private final String methodName;
+
+        private final Class[] parameterTypes;
+
+        private ResolvedMethod(final Class targetClass, final String methodName, final Class[] parameterTypes) {
+            this.targetClass = targetClass;
+            this.methodName = methodName;
+            this.parameterTypes = parameterTypes;
+        }
+    }
+
+    /**
+     * concrete holder of the shared arguments.
+     */
+    static final class Arguments implements Serializable {
+
+        private static final long serialVersionUID = 4460394421525466624L;
+
+        private Object[] values;
+
+        Arguments() {
+        }
+
+        Arguments(final Object[] values) {
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
+import org.zoo.cat.common.bean.entity.CatInvocation;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.exception.CatException;
+import org.zoo.cat.common.utils.CollectionUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * EN: versioned binary record of {@link CatTransaction}, written in one pass.
+ * layout : magic(2) version(1) flags(1) header participantLength(4) participants.
+ * since version 2 the participants are written by {@link CatParticipantCodec}, version 3 adds the next retry time.
+ * the header fields are varints,timestamps are epoch millis,
+ * the participant section is length prefixed so it can be skipped without decoding.
+ * the legacy {@link CoordinatorRepositoryAdapter} blobs are still readable.
+ * CN: 事务日志二进制格式, 一次写入, 兼容旧的适配器格式.
+ *
+ * @author dzc
+ */
+public final class CatRecordCodec {
+
+    private static final byte MAGIC_0 = (byte) 0xCA;
+
+    private static final byte MAGIC_1 = (byte) 0x7A;
+
+    private static final byte VERSION_1 = 1;
+
+    private static final byte VERSION_2 = 2;
+
+    private static final byte VERSION_3 = 3;
+
+    private static final int PREFIX_SIZE = 4;
+
+    private CatRecordCodec() {
+    }
+
+    /**
+     * is record written by this codec.
+     *
+     * @param record record
+     * @return true if current format
+     */
+    public static boolean isRecord(final byte[] record) {
+        return record != null && record.length > PREFIX_SIZE
+                && record[0] == MAGIC_0 && record[1] == MAGIC_1 && record[2] >= VERSION_1 && record[2] <= VERSION_3;
+    }
+
+    /**
+     * encode transaction into the lease.
+     *
+     * @param catTransaction transaction
+     * @param serializer     serializer of the participants
+     * @param lease          lease
+     * @return view of the lease content
+     * @throws CatException the cat exception
+     */
+    public static ByteBuffer encode(final CatTransaction catTransaction, final ObjectSerializer serializer,
+                                    final BufferLease lease) throws CatException {
+        writeHeader(catTransaction, VERSION_3, lease);
+        final int lengthIndex = lease.size();
+        lease.write(new byte[4], 0, 4);
+        if (Objects.isNull(catTransaction.getCatParticipants())) {
+            lease.putInt(lengthIndex, -1);
+        } else {
+            CatParticipantCodec.encode(catTransaction.getCatParticipants(), serializer, lease);
+            lease.putInt(lengthIndex, lease.size() - lengthIndex - 4);
+        }
+        return lease.buffer();
+    }
+
+    /**
+     * encode transaction.
+     *
+     * @param catTransaction transaction
+     * @param serializer     serializer of the participants
+     * @return record
+     * @throws CatException the cat exception
+     */
+    public static byte[] encode(final CatTransaction catTransaction, final ObjectSerializer serializer) throws CatException {
+        try (BufferLease lease = BufferLease.acquire()) {
+            encode(catTransaction, serializer, lease);
+            return lease.toByteArray();
+        }
+    }
+
+    /**
+     * decode record or legacy adapter blob.
+     *
+     * @param record     record
+     * @param serializer serializer
+     * @return transaction
+     * @throws CatException the cat exception
+     */
+    public static CatTransaction decode(final byte[] record, final ObjectSerializer serializer) throws CatException {
+        if (isRecord(record)) {
+            try {
+                final ByteBuffer buffer = ByteBuffer.wrap(record, PREFIX_SIZE, record.length - PREFIX_SIZE);
+                final CatTransaction catTransaction = readHeader(buffer, record[2]);
+                catTransaction.setCatParticipants(readParticipants(buffer, record[2], serializer));
+                return catTransaction;
+            } catch (RuntimeException e) {
+                return decodeLegacyOrThrow(record, serializer, e);
+            }
+        }
+        return decodeLegacy(record, serializer);
+    }
+
+    /**
+     * decode header only,the participant section is skipped.
+     *
+     * @param record     record
+     * @param serializer serializer for the legacy blob
+     * @return adapter without contents
+     * @throws CatException the cat exception
+     */
+    public static CoordinatorRepositoryAdapter decodeAdapter(final byte[] record, final ObjectSerializer serializer) throws CatException {
+        if (isRecord(record)) {
+            try {
+                return toAdapter(readHeader(ByteBuffer.wrap(record, PREFIX_SIZE, record.length - PREFIX_SIZE), record[2]));
+            } catch (RuntimeException e) {
+                if (!isLegacy(record, serializer)) {
+                    throw new CatException("decode record error " + e.getMessage(), e);
+                }
+            }
+        }
+        return serializer.deSerialize(record, CoordinatorRepositoryAdapter.class);
+    }
+
+    /**
+     * decode header only into a transaction without participants.
+     *
+     * @param record     record
+     * @param serializer serializer for the legacy blob
+     * @return transaction without participants
+     * @throws CatException the cat exception
+     */
+    public static CatTransaction decodeHeader(final byte[] record, final ObjectSerializer serializer) throws CatException {
+        if (isRecord(record)) {
+            try {
+                final CatTransaction catTransaction = readHeader(ByteBuffer.wrap(record, PREFIX_SIZE, record.length - PREFIX_SIZE), record[2]);
+                catTransaction.setCatParticipants(null);
+                return catTransaction;
+            } catch (RuntimeException e) {
+                return decodeLegacyOrThrow(record, serializer, e);
+            }
+        }
+        return decodeLegacy(record, serializer);
+    }
+
+    /**
+     * change the header fields,the participant section is copied as it is.
+     * a legacy blob is rewritten in the current format.
+     *
+     * @param record     record
+     * @param serializer serializer
+     * @param mutator    header mutator,the participants of the given transaction must not be used
+     * @return new record
+     * @throws CatException the cat exception
+     */
+    public static byte[] rewriteHeader(final byte[] record, final ObjectSerializer serializer,
+                                       final Consumer<CatTransaction> mutator) throws CatException {
+        if (!isRecord(record)) {
+            final CatTransaction catTransaction = decodeLegacy(record, serializer);
+            mutator.accept(catTransaction);
+            return encode(catTransaction, serializer);
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(record, PREFIX_SIZE, record.length - PREFIX_SIZE);
+        final CatTransaction catTransaction = readHeader(buffer, record[2]);
+        mutator.accept(catTransaction);
+        try (BufferLease lease = BufferLease.acquire()) {
+            // the participant section of version 2 and 3 is the same, so the header is upgraded
+            writeHeader(catTransaction, record[2] == VERSION_1 ? VERSION_1 : VERSION_3, lease);
+            lease.write(buffer);
+            return lease.toByteArray();
+        }
+    }
+
+    /**
+     * replace the participant section, the header is kept.
+     *
+     * @param record          record
+     * @param serializer      serializer
+     * @param catParticipants participants
+     * @return new record
+     * @throws CatException the cat exception
+     */
+    public static byte[] rewriteParticipants(final byte[] record, final ObjectSerializer serializer,
+                                             final List<CatParticipant> catParticipants) throws CatException {
+        final CatTransaction catTransaction = isRecord(record)
+                ? readHeader(ByteBuffer.wrap(record, PREFIX_SIZE, record.length - PREFIX_SIZE), record[2])
+                : decodeLegacy(record, serializer);
+        catTransaction.setCatParticipants(catParticipants);
+        return encode(catTransaction, serializer);
+    }
+
+    private static void writeHeader(final CatTransaction catTransaction, final byte version, final BufferLease lease) {
+        lease.write(MAGIC_0);
+        lease.write(MAGIC_1);
+        lease.write(version);
+        lease.write(0);
+        CodecUtils.writeString(lease, catTransaction.getTransId());
+        CodecUtils.writeZigZag(lease, catTransaction.getStatus());
+        CodecUtils.writeZigZag(lease, catTransaction.getRole());
+        CodecUtils.writeNullableInt(lease, catTransaction.getPattern());
+        CodecUtils.writeNullableInt(lease, catTransaction.getVersion());
+        CodecUtils.writeZigZag(lease, catTransaction.getRetriedCount());
+        CodecUtils.writeZigZag(lease, catTransaction.getRetryMax());
+        CodecUtils.writeZigZag(lease, catTransaction.getTimeoutMills());
+        CodecUtils.writeDate(lease, catTransaction.getCreateTime());
+        CodecUtils.writeDate(lease, catTransaction.getLastTime());
+        CodecUtils.writeString(lease, catTransaction.getAppName());
+        CodecUtils.writeString(lease, catTransaction.getTransType());
+        CodecUtils.writeString(lease, catTransaction.getNodeTransId());
+        CodecUtils.writeString(lease, catTransaction.getTargetClass());
+        CodecUtils.writeString(lease, catTransaction.getTargetMethod());
+        CodecUtils.writeString(lease, confirmMethod(catTransaction));
+        CodecUtils.writeString(lease, cancelMethod(catTransaction));
+        if (version >= VERSION_3) {
+            CodecUtils.writeDate(lease, catTransaction.getNextRetryTime());
+        }
+    }
+
+    private static CatTransaction readHeader(final ByteBuffer buffer, final byte version) {
+        final CatTransaction catTransaction = new CatTransaction(CodecUtils.readString(buffer));
+        catTransaction.setStatus(CodecUtils.readZigZag(buffer));
+        catTransaction.setRole(CodecUtils.readZigZag(buffer));
+        catTransaction.setPattern(CodecUtils.readNullableInt(buffer));
+        catTransaction.setVersion(CodecUtils.readNullableInt(buffer));
+        catTransaction.setRetriedCount(CodecUtils.readZigZag(buffer));
+        catTransaction.setRetryMax(CodecUtils.readZigZag(buffer));
+        catTransaction.setTimeoutMills(CodecUtils.readZigZag(buffer));
+        catTransaction.setCreateTime(CodecUtils.readDate(buffer));
+        catTransaction.setLastTime(CodecUtils.readDate(buffer));
+        catTransaction.setAppName(CodecUtils.readString(buffer));
+        catTransaction.setTransType(CodecUtils.readString(buffer));
+        catTransaction.setNodeTransId(CodecUtils.readString(buffer));
+        catTransaction.setTargetClass(CodecUtils.readString(buffer));
+        catTransaction.setTargetMethod(CodecUtils.readString(buffer));
+        catTransaction.setConfirmMethod(CodecUtils.readString(buffer));
+        catTransaction.setCancelMethod(CodecUtils.readString(buffer));
+        if (version >= VERSION_3) {
+            catTransaction.setNextRetryTime(CodecUtils.readDate(buffer));
+        }
+        return catTransaction;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<CatParticipant> readParticipants(final ByteBuffer buffer, final byte version,
+                                                         final ObjectSerializer serializer) throws CatException {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (version != VERSION_1) {
+            return CatParticipantCodec.decode(buffer, serializer);
+        }
+        final byte[] contents = new byte[length];
+        buffer.get(contents);
+        final List<CatParticipant> catParticipants = serializer.deSerialize(contents, ArrayList.class);
+        return catParticipants == null ? null : new CopyOnWriteArrayList<>(catParticipants);
+    }
+
+    private static String confirmMethod(final CatTransaction catTransaction) {
+        if (Objects.nonNull(catTransaction.getConfirmMethod())) {
+            return catTransaction.getConfirmMethod();
+        }
+        final CatInvocation invocation = CollectionUtils.isEmpty(catTransaction.getCatParticipants())
+                ? null : catTransaction.getCatParticipants().get(0).getConfirmCatInvocation();
+        return invocation == null ? null : invocation.getMethodName();
+    }
+
+    private static String cancelMethod(final CatTransaction catTransaction) {
+        if (Objects.nonNull(catTransaction.getCancelMethod())) {
+            return catTransaction.getCancelMethod();
+        }
+        final CatInvocation invocation = CollectionUtils.isEmpty(catTransaction.getCatParticipants())
+                ? null : catTransaction.getCatParticipants().get(0).getCancelCatInvocation();
+        return invocation == null ? null : invocation.getMethodName();
+    }
+
+    private static CoordinatorRepositoryAdapter toAdapter(final CatTransaction catTransaction) {
+        CoordinatorRepositoryAdapter adapter = new CoordinatorRepositoryAdapter();
+        adapter.setTransId(catTransaction.getTransId());
+        adapter.setLastTime(catTransaction.getLastTime());
+        adapter.setCreateTime(catTransaction.getCreateTime());
+        adapter.setRetriedCount(catTransaction.getRetriedCount());
+        adapter.setStatus(catTransaction.getStatus());
+        adapter.setTargetClass(catTransaction.getTargetClass());
+        adapter.setTargetMethod(catTransaction.getTargetMethod());
+        adapter.setPattern(catTransaction.getPattern());
+        adapter.setRole(catTransaction.getRole());
+        adapter.setVersion(catTransaction.getVersion());
+        adapter.setConfirmMethod(catTransaction.getConfirmMethod());
+        adapter.setCancelMethod(catTransaction.getCancelMethod());
+        return adapter;
+    }
+
+    private static boolean isLegacy(final byte[] record, final ObjectSerializer serializer) {
+        try {
+            return Objects.nonNull(serializer.deSerialize(record, CoordinatorRepositoryAdapter.class));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static CatTransaction decodeLegacyOrThrow(final byte[] record, final ObjectSerializer serializer,
+                                                      final RuntimeException cause) throws CatException {
+        try {
+            return decodeLegacy(record, serializer);
+        } catch (Exception e) {
+            throw new CatException("decode record error " + cause.getMessage(), cause);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CatTransaction decodeLegacy(final byte[] contents, final ObjectSerializer serializer) throws CatException {
+        final CoordinatorRepositoryAdapter adapter = serializer.deSerialize(contents, CoordinatorRepositoryAdapter.class);
+        CatTransaction catTransaction = new CatTransaction(adapter.getTransId());
+        List<CatParticipant> catParticipants = serializer.deSerialize(adapter.getContents(), ArrayList.class);
+        catTransaction.setLastTime(adapter.getLastTime());
+        catTransaction.setRetriedCount(adapter.getRetriedCount());
+        catTransaction.setCreateTime(adapter.getCreateTime());
+        catTransaction.setStatus(adapter.getStatus());
+        catTransaction.setCatParticipants(catParticipants);
+        catTransaction.setRole(adapter.getRole());
+        catTransaction.setPattern(adapter.getPattern());
+        catTransaction.setTargetClass(adapter.getTargetClass());
+        catTransaction.setTargetMethod(adapter.getTargetMethod());
+        catTransaction.setConfirmMethod(adapter.getConfirmMethod());
+        catTransaction.setCancelMethod(adapter.getCancelMethod());
+        catTransaction.setVersion(adapter.getVersion());
+        return catTransaction;
+    }
+}
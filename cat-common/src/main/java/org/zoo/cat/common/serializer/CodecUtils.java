@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * varint and string helpers of the binary record codecs.
+ * nullable values are written as value + 1, so 0 means null.
+ *
+ * @author dzc
+ */
+final class CodecUtils {
+
+    private CodecUtils() {
+    }
+
+    static void writeVarInt(final BufferLease lease, final int value) {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            lease.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        lease.write(v);
+    }
+
+    static void writeVarLong(final BufferLease lease, final long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            lease.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        lease.write((int) v);
+    }
+
+    static void writeZigZag(final BufferLease lease, final int value) {
+        writeVarInt(lease, (value << 1) ^ (value >> 31));
+    }
+
+    static void writeNullableInt(final BufferLease lease, final Integer value) {
+        writeVarLong(lease, value == null ? 0 : (((long) value << 1) ^ (value >> 31)) + 1);
+    }
+
+    static void writeDate(final BufferLease lease, final Date date) {
+        writeVarLong(lease, date == null ? 0 : date.getTime() + 1);
+    }
+
+    static void writeString(final BufferLease lease, final String value) {
+        if (value == null) {
+            writeVarInt(lease, 0);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(lease, bytes.length + 1);
+        lease.write(bytes, 0, bytes.length);
+    }
+
+    static int readVarInt(final ByteBuffer buffer) {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+
+    static long readVarLong(final ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            final byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("malformed varlong");
+    }
+
+    static int readZigZag(final ByteBuffer buffer) {
+        final int v = readVarInt(buffer);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    static Integer readNullableInt(final ByteBuffer buffer) {
+        final long v = readVarLong(buffer);
+        if (v == 0) {
+            return null;
+        }
+        final long zigzag = v - 1;
+        return (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+    }
+
+    static Date readDate(final ByteBuffer buffer) {
+        final long v = readVarLong(buffer);
+        return v == 0 ? null : new Date(v - 1);
+    }
+
+    static String readString(final ByteBuffer buffer) {
+        final int length = readVarInt(buffer);
+        if (length == 0) {
+            return null;
+        }
+        final String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                length - 1, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length - 1);
+        return value;
+    }
+}
@@ -24,8 +24,8 @@ import org.zoo.cat.common.enums.SerializeEnum;
 import org.zoo.cat.common.exception.CatException;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * HessianSerializer.
@@ -36,16 +36,28 @@ import java.io.IOException;
 @CatSPI("hessian")
 public class HessianSerializer implements ObjectSerializer {
 
+    private static final ThreadLocal<Hessian2Output> OUTPUT = ThreadLocal.withInitial(() -> new Hessian2Output(null));
+
     @Override
     public byte[] serialize(final Object obj) throws CatException {
-        Hessian2Output hos;
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-            hos = new Hessian2Output(bos);
+        try (BufferLease lease = BufferLease.acquire()) {
+            serialize(obj, lease);
+            return lease.toByteArray();
+        }
+    }
+
+    @Override
+    public ByteBuffer serialize(final Object obj, final BufferLease lease) throws CatException {
+        final Hessian2Output hos = OUTPUT.get();
+        try {
+            hos.init(lease);
             hos.writeObject(obj);
             hos.flush();
-            return bos.toByteArray();
+            return lease.buffer();
         } catch (IOException ex) {
             throw new CatException("Hessian serialize error " + ex.getMessage());
+        } finally {
+            hos.init(null);
         }
     }
 
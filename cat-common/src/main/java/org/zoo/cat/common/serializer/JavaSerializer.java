@@ -21,6 +21,7 @@ import org.zoo.cat.annotation.CatSPI;
 import org.zoo.cat.common.exception.CatException;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * JavaSerializer.
@@ -32,10 +33,19 @@ public class JavaSerializer implements ObjectSerializer {
 
     @Override
     public byte[] serialize(final Object obj) throws CatException {
-        try (ByteArrayOutputStream arrayOutputStream = new ByteArrayOutputStream(); ObjectOutput objectOutput = new ObjectOutputStream(arrayOutputStream)) {
+        try (BufferLease lease = BufferLease.acquire()) {
+            serialize(obj, lease);
+            return lease.toByteArray();
+        }
+    }
+
+    @Override
+    public ByteBuffer serialize(final Object obj, final BufferLease lease) throws CatException {
+        try {
+            ObjectOutput objectOutput = new ObjectOutputStream(lease);
             objectOutput.writeObject(obj);
             objectOutput.flush();
-            return arrayOutputStream.toByteArray();
+            return lease.buffer();
         } catch (IOException e) {
             throw new CatException("java serialize error " + e.getMessage());
         }
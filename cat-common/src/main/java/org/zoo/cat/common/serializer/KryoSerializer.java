@@ -18,50 +18,121 @@
 package org.zoo.cat.common.serializer;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import org.zoo.cat.annotation.CatSPI;
+import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
+import org.zoo.cat.common.bean.context.CatTransactionContext;
+import org.zoo.cat.common.bean.entity.CatInvocation;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.exception.CatException;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * KryoSerializer.
+ * the kryo instance and the output/input buffers are reused per thread,
+ * the common classes are registered with fixed ids so the class names are not written.
+ * the registration order must not be changed,or the exist records can not be read.
  *
  * @author dzc
  */
 @CatSPI("kryo")
 public class KryoSerializer implements ObjectSerializer {
 
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int MAX_RETAIN_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int REGISTRATION_ID_START = 20;
+
+    private static final Class<?>[] REGISTRATIONS = {
+            Object[].class, Class.class, Class[].class, String[].class, byte[].class,
+            ArrayList.class, LinkedList.class, CopyOnWriteArrayList.class,
+            HashMap.class, LinkedHashMap.class, ConcurrentHashMap.class, HashSet.class,
+            Date.class, Timestamp.class, BigDecimal.class, BigInteger.class,
+            CatTransaction.class, CatParticipant.class, CatInvocation.class,
+            CoordinatorRepositoryAdapter.class, CatTransactionContext.class,
+            CatParticipantCodec.Arguments.class
+    };
+
+    private static final ThreadLocal<KryoHolder> HOLDER = ThreadLocal.withInitial(KryoHolder::new);
+
     @Override
     public byte[] serialize(final Object obj) throws CatException {
-        byte[] bytes;
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(); Output output = new Output(outputStream)) {
-            //获取kryo对象
-            Kryo kryo = new Kryo();
-            kryo.writeObject(output, obj);
-            bytes = output.toBytes();
+        final KryoHolder holder = HOLDER.get();
+        final Output output = holder.output;
+        try {
+            output.clear();
+            holder.kryo.writeObject(output, obj);
+            return output.toBytes();
+        } catch (KryoException ex) {
+            throw new CatException("kryo serialize error" + ex.getMessage());
+        } finally {
+            if (output.getBuffer().length > MAX_RETAIN_BUFFER_SIZE) {
+                output.setBuffer(new byte[BUFFER_SIZE], -1);
+            }
+        }
+    }
+
+    @Override
+    public ByteBuffer serialize(final Object obj, final BufferLease lease) throws CatException {
+        final KryoHolder holder = HOLDER.get();
+        final Output output = holder.output;
+        try {
+            output.setOutputStream(lease);
+            holder.kryo.writeObject(output, obj);
             output.flush();
-        } catch (IOException ex) {
+            return lease.buffer();
+        } catch (KryoException ex) {
             throw new CatException("kryo serialize error" + ex.getMessage());
+        } finally {
+            output.setOutputStream(null);
         }
-        return bytes;
     }
 
     @Override
     public <T> T deSerialize(final byte[] param, final Class<T> clazz) throws CatException {
-        T object;
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(param)) {
-            Kryo kryo = new Kryo();
-            Input input = new Input(inputStream);
-            object = kryo.readObject(input, clazz);
-            input.close();
-        } catch (IOException e) {
+        final KryoHolder holder = HOLDER.get();
+        final Input input = holder.input;
+        try {
+            input.setBuffer(param);
+            return holder.kryo.readObject(input, clazz);
+        } catch (KryoException e) {
             throw new CatException("kryo deSerialize error" + e.getMessage());
+        } finally {
+            input.setBuffer(KryoHolder.EMPTY);
+        }
+    }
+
+    private static final class KryoHolder {
+
+        private static final byte[] EMPTY = new byte[0];
+
+        private final Kryo kryo = new Kryo();
+
+        private final Output output = new Output(BUFFER_SIZE, -1);
+
+        private final Input input = new Input();
+
+        private KryoHolder() {
+            for (int i = 0; i < REGISTRATIONS.length; i++) {
+                kryo.register(REGISTRATIONS[i], REGISTRATION_ID_START + i);
+            }
         }
-        return object;
     }
 
 }
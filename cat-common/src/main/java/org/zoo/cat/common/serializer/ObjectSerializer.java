@@ -20,6 +20,8 @@ package org.zoo.cat.common.serializer;
 import org.zoo.cat.annotation.CatSPI;
 import org.zoo.cat.common.exception.CatException;
 
+import java.nio.ByteBuffer;
+
 /**
  * ObjectSerializer.
  *
@@ -37,6 +39,19 @@ public interface ObjectSerializer {
      */
     byte[] serialize(Object obj) throws CatException;
 
+    /**
+     * Serialize into the lease, the bytes are appended after the exist content.
+     *
+     * @param obj   the obj
+     * @param lease the lease
+     * @return view of the whole content of the lease
+     * @throws CatException the cat exception
+     */
+    default ByteBuffer serialize(Object obj, BufferLease lease) throws CatException {
+        lease.write(ByteBuffer.wrap(serialize(obj)));
+        return lease.buffer();
+    }
+
 
     /**
      * De serialize t.
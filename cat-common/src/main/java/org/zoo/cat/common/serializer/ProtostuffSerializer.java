@@ -26,8 +26,8 @@ import org.objenesis.ObjenesisStd;
 import org.zoo.cat.common.exception.CatException;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * ProtostuffSerializer.
@@ -46,14 +46,25 @@ public class ProtostuffSerializer implements ObjectSerializer {
         return (Schema<T>) CACHED_SCHEMA.get(cls);
     }
 
+    private static final ThreadLocal<LinkedBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE));
+
     @Override
     public byte[] serialize(final Object obj) throws CatException {
+        try (BufferLease lease = BufferLease.acquire()) {
+            serialize(obj, lease);
+            return lease.toByteArray();
+        }
+    }
+
+    @Override
+    public ByteBuffer serialize(final Object obj, final BufferLease lease) throws CatException {
         Class cls = obj.getClass();
-        LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+        LinkedBuffer buffer = BUFFER.get();
+        try {
             Schema schema = getSchema(cls);
-            ProtostuffIOUtil.writeTo(outputStream, obj, schema, buffer);
-            return outputStream.toByteArray();
+            ProtostuffIOUtil.writeTo(lease, obj, schema, buffer);
+            return lease.buffer();
         } catch (IOException e) {
             throw new CatException(e.getMessage(), e);
         } finally {
@@ -36,12 +36,11 @@ public class FileUtils {
      * @param contents     the contents
      */
     public static void writeFile(final String fullFileName, final byte[] contents) {
+        final ByteBuffer buffer = ByteBuffer.wrap(contents);
         try {
             RandomAccessFile raf = new RandomAccessFile(fullFileName, "rw");
             try (FileChannel channel = raf.getChannel()) {
-                ByteBuffer buffer = ByteBuffer.allocate(contents.length);
-                buffer.put(contents);
-                buffer.flip();
+                channel.truncate(buffer.remaining());
                 while (buffer.hasRemaining()) {
                     channel.write(buffer);
                 }
@@ -21,14 +21,17 @@ import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
 import org.zoo.cat.common.bean.entity.CatParticipant;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.exception.CatException;
+import org.zoo.cat.common.serializer.BufferLease;
+import org.zoo.cat.common.serializer.CatRecordCodec;
 import org.zoo.cat.common.serializer.ObjectSerializer;
-import org.zoo.cat.common.utils.CollectionUtils;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * RepositoryConvertUtils.
+ * records are written in the {@link CatRecordCodec} format, legacy adapter blobs are still readable.
  *
  * @author dzc
  */
@@ -43,24 +46,21 @@ public class RepositoryConvertUtils {
      * @throws CatException the tcc exception
      */
     public static byte[] convert(final CatTransaction catTransaction, final ObjectSerializer objectSerializer) throws CatException {
-        CoordinatorRepositoryAdapter adapter = new CoordinatorRepositoryAdapter();
-        adapter.setTransId(catTransaction.getTransId());
-        adapter.setLastTime(catTransaction.getLastTime());
-        adapter.setCreateTime(catTransaction.getCreateTime());
-        adapter.setRetriedCount(catTransaction.getRetriedCount());
-        adapter.setStatus(catTransaction.getStatus());
-        adapter.setTargetClass(catTransaction.getTargetClass());
-        adapter.setTargetMethod(catTransaction.getTargetMethod());
-        adapter.setPattern(catTransaction.getPattern());
-        adapter.setRole(catTransaction.getRole());
-        adapter.setVersion(catTransaction.getVersion());
-        if (CollectionUtils.isNotEmpty(catTransaction.getCatParticipants())) {
-            final CatParticipant catParticipant = catTransaction.getCatParticipants().get(0);
-            adapter.setConfirmMethod(catParticipant.getConfirmCatInvocation().getMethodName());
-            adapter.setCancelMethod(catParticipant.getCancelCatInvocation().getMethodName());
-        }
-        adapter.setContents(objectSerializer.serialize(catTransaction.getCatParticipants()));
-        return objectSerializer.serialize(adapter);
+        return CatRecordCodec.encode(catTransaction, objectSerializer);
+    }
+
+    /**
+     * Convert into the lease without copy.
+     *
+     * @param catTransaction   the tcc transaction
+     * @param objectSerializer the object serializer
+     * @param lease            the lease
+     * @return view of the lease content
+     * @throws CatException the tcc exception
+     */
+    public static ByteBuffer convert(final CatTransaction catTransaction, final ObjectSerializer objectSerializer,
+                                     final BufferLease lease) throws CatException {
+        return CatRecordCodec.encode(catTransaction, objectSerializer, lease);
     }
 
     /**
@@ -71,23 +71,60 @@ public class RepositoryConvertUtils {
      * @return the tcc transaction
      * @throws CatException the tcc exception
      */
-    @SuppressWarnings("unchecked")
     public static CatTransaction transformBean(final byte[] contents, final ObjectSerializer objectSerializer) throws CatException {
-        CatTransaction catTransaction = new CatTransaction();
-        final CoordinatorRepositoryAdapter adapter = objectSerializer.deSerialize(contents, CoordinatorRepositoryAdapter.class);
-        List<CatParticipant> catParticipants = objectSerializer.deSerialize(adapter.getContents(), ArrayList.class);
-        catTransaction.setLastTime(adapter.getLastTime());
-        catTransaction.setRetriedCount(adapter.getRetriedCount());
-        catTransaction.setCreateTime(adapter.getCreateTime());
-        catTransaction.setTransId(adapter.getTransId());
-        catTransaction.setStatus(adapter.getStatus());
-        catTransaction.setCatParticipants(catParticipants);
-        catTransaction.setRole(adapter.getRole());
-        catTransaction.setPattern(adapter.getPattern());
-        catTransaction.setTargetClass(adapter.getTargetClass());
-        catTransaction.setTargetMethod(adapter.getTargetMethod());
-        catTransaction.setVersion(adapter.getVersion());
-        return catTransaction;
+        return CatRecordCodec.decode(contents, objectSerializer);
+    }
+
+    /**
+     * Transform adapter without the participants.
+     *
+     * @param contents         the contents
+     * @param objectSerializer the object serializer
+     * @return the adapter
+     * @throws CatException the tcc exception
+     */
+    public static CoordinatorRepositoryAdapter transformAdapter(final byte[] contents, final ObjectSerializer objectSerializer) throws CatException {
+        return CatRecordCodec.decodeAdapter(contents, objectSerializer);
+    }
+
+    /**
+     * Transform the header fields into a transaction without the participants.
+     *
+     * @param contents         the contents
+     * @param objectSerializer the object serializer
+     * @return the transaction
+     * @throws CatException the tcc exception
+     */
+    public static CatTransaction transformHeader(final byte[] contents, final ObjectSerializer objectSerializer) throws CatException {
+        return CatRecordCodec.decodeHeader(contents, objectSerializer);
+    }
+
+    /**
+     * Update the header fields of the record.
+     *
+     * @param contents         the contents
+     * @param objectSerializer the object serializer
+     * @param mutator          the header mutator
+     * @return the new contents
+     * @throws CatException the tcc exception
+     */
+    public static byte[] updateHeader(final byte[] contents, final ObjectSerializer objectSerializer,
+                                      final Consumer<CatTransaction> mutator) throws CatException {
+        return CatRecordCodec.rewriteHeader(contents, objectSerializer, mutator);
+    }
+
+    /**
+     * Update the participants of the record.
+     *
+     * @param contents         the contents
+     * @param objectSerializer the object serializer
+     * @param catParticipants  the participants
+     * @return the new contents
+     * @throws CatException the tcc exception
+     */
+    public static byte[] updateParticipants(final byte[] contents, final ObjectSerializer objectSerializer,
+                                            final List<CatParticipant> catParticipants) throws CatException {
+        return CatRecordCodec.rewriteParticipants(contents, objectSerializer, catParticipants);
     }
 
 }
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.bean.variate;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.zoo.cat.common.bean.entity.CatCounter;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CatDegradationTest {
+
+    @Test
+    public void testDrain() {
+        CatDegradation.share();
+        Date now = new Date();
+        CatDegradation.record("org.zoo.Demo", "notice", now, 1);
+        CatDegradation.record("org.zoo.Demo", "notice", now, 1);
+        CatDegradation.record("org.zoo.Demo", "notice", now, -1);
+        List<CatCounter> counters = CatDegradation.drain();
+        Assert.assertEquals(3, counters.size());
+        for (CatCounter counter : counters) {
+            Assert.assertEquals("org.zoo.Demo#notice", counter.getKey());
+            Assert.assertEquals(1, counter.getDelta());
+        }
+        Assert.assertTrue(CatDegradation.drain().isEmpty());
+        Assert.assertTrue(CatDegradation.keys().contains("org.zoo.Demo#notice"));
+    }
+
+    @Test
+    public void testDrainWhileRecording() throws InterruptedException {
+        CatDegradation.share();
+        Date stale = new Date(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(10));
+        int threads = 4;
+        int records = 20000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < records; j++) {
+                    CatDegradation.record("org.zoo.Demo", "race", stale, 1);
+                }
+                done.countDown();
+            }).start();
+        }
+        long total = 0;
+        while (done.getCount() > 0) {
+            total += count(CatDegradation.drain());
+        }
+        total += count(CatDegradation.drain());
+        Assert.assertEquals(threads * records, total);
+    }
+
+    private static long count(final List<CatCounter> counters) {
+        long total = 0;
+        for (CatCounter counter : counters) {
+            if ("org.zoo.Demo#race".equals(counter.getKey()) && TimeUnit.SECONDS.name().equals(counter.getTimeUnit())) {
+                total += counter.getDelta();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.bean.variate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CatSlidingWindowTest {
+
+    @Test
+    public void testSumOfWindow() {
+        CatSlidingWindow window = new CatSlidingWindow(1000, 60);
+        window.add(10_000, 1);
+        window.add(10_500, 1);
+        window.add(11_000, 1);
+        Assert.assertEquals(1, window.sum(11_200, 1));
+        Assert.assertEquals(3, window.sum(11_200, 2));
+        Assert.assertEquals(0, window.sum(80_000, 60));
+    }
+
+    @Test
+    public void testTakeBack() {
+        CatSlidingWindow window = new CatSlidingWindow(1000, 4);
+        window.add(1_000, 1);
+        window.add(1_000, -1);
+        Assert.assertEquals(0, window.sum(1_000, 4));
+        window.add(1_000, 1);
+        window.add(5_000, 1);
+        window.add(1_000, -1);
+        Assert.assertEquals(1, window.sum(5_000, 4));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.journal;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.zoo.cat.common.config.CatFileConfig;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+public class CatSegmentLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CatFileConfig fileConfig() {
+        CatFileConfig fileConfig = new CatFileConfig();
+        fileConfig.setSegmentSize(1024);
+        return fileConfig;
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        String path = folder.getRoot().getPath();
+        try (CatSegmentLog log = CatSegmentLog.open(path, fileConfig())) {
+            log.put("1", bytes("a"));
+            log.put("2", bytes("b"));
+            log.put("1", bytes("c"));
+            Assert.assertEquals("c", string(log.get("1")));
+            Assert.assertTrue(log.remove("2"));
+            Assert.assertNull(log.get("2"));
+            Assert.assertEquals(1, log.size());
+        }
+    }
+
+    @Test
+    public void testRecover() {
+        String path = folder.getRoot().getPath();
+        try (CatSegmentLog log = CatSegmentLog.open(path, fileConfig())) {
+            for (int i = 0; i < 100; i++) {
+                log.put(String.valueOf(i), bytes("value-" + i));
+            }
+            for (int i = 0; i < 100; i += 2) {
+                log.remove(String.valueOf(i));
+            }
+        }
+        try (CatSegmentLog log = CatSegmentLog.openReadOnly(path)) {
+            Assert.assertEquals(50, log.size());
+            Assert.assertNull(log.get("0"));
+            Assert.assertEquals("value-99", string(log.get("99")));
+        }
+    }
+
+    @Test
+    public void testCompact() {
+        String path = folder.getRoot().getPath();
+        try (CatSegmentLog log = CatSegmentLog.open(path, fileConfig())) {
+            for (int i = 0; i < 200; i++) {
+                log.put(String.valueOf(i), bytes("value-" + i));
+                if (i % 10 != 0) {
+                    log.remove(String.valueOf(i));
+                }
+            }
+            int before = segmentFiles(path);
+            log.compact();
+            Assert.assertTrue(segmentFiles(path) < before);
+            Assert.assertEquals(20, log.size());
+        }
+        try (CatSegmentLog log = CatSegmentLog.openReadOnly(path)) {
+            Assert.assertEquals(20, log.size());
+            Assert.assertEquals("value-190", string(log.get("190")));
+            Assert.assertNull(log.get("191"));
+        }
+    }
+
+    @Test
+    public void testClose() {
+        String path = folder.getRoot().getPath();
+        CatSegmentLog log = CatSegmentLog.open(path, fileConfig());
+        log.put("1", bytes("a"));
+        log.close();
+        Assert.assertNull(log.get("1"));
+        CatSegmentLog readOnly = CatSegmentLog.openReadOnly(path);
+        Assert.assertEquals("a", string(readOnly.get("1")));
+        readOnly.close();
+        Assert.assertNull(readOnly.get("1"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testLock() {
+        String path = folder.getRoot().getPath();
+        try (CatSegmentLog log = CatSegmentLog.open(path, fileConfig())) {
+            CatSegmentLog.open(path, fileConfig());
+        }
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        String path = folder.getRoot().getPath();
+        Assert.assertFalse(CatSegmentLog.submit(path, new CatSegmentLog.Batch().remove("1")));
+        Assert.assertEquals(0, segmentFiles(path));
+        try (CatSegmentLog log = CatSegmentLog.open(path, fileConfig())) {
+            log.put("1", bytes("a"));
+            log.put("2", bytes("b"));
+            Assert.assertTrue(CatSegmentLog.submit(path, new CatSegmentLog.Batch().remove("1").put("2", bytes("c"))));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (log.contains("1") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertNull(log.get("1"));
+            Assert.assertEquals("c", string(log.get("2")));
+        }
+        Assert.assertTrue(CatSegmentLog.submit(path, new CatSegmentLog.Batch().remove("2")));
+        try (CatSegmentLog log = CatSegmentLog.openReadOnly(path)) {
+            Assert.assertEquals(0, log.size());
+        }
+    }
+
+    private int segmentFiles(final String path) {
+        return new File(path).list((dir, name) -> CatLogSegment.isSegmentFile(name)).length;
+    }
+
+    private byte[] bytes(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String string(final byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
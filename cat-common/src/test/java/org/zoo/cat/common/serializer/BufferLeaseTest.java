@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class BufferLeaseTest {
+
+    @Test
+    public void testSerializeIntoLease() throws Exception {
+        ObjectSerializer[] serializers = {new KryoSerializer(), new HessianSerializer(),
+                new JavaSerializer(), new ProtostuffSerializer()};
+        CoordinatorRepositoryAdapter adapter = new CoordinatorRepositoryAdapter();
+        adapter.setTransId("1");
+        adapter.setContents(new byte[]{1, 2, 3});
+        for (ObjectSerializer serializer : serializers) {
+            try (BufferLease lease = BufferLease.acquire()) {
+                lease.write(9);
+                ByteBuffer buffer = serializer.serialize(adapter, lease);
+                Assert.assertEquals(9, buffer.get());
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                Assert.assertArrayEquals(serializer.serialize(adapter), bytes);
+                CoordinatorRepositoryAdapter result = serializer.deSerialize(bytes, CoordinatorRepositoryAdapter.class);
+                Assert.assertEquals("1", result.getTransId());
+                Assert.assertTrue(Arrays.equals(new byte[]{1, 2, 3}, result.getContents()));
+            }
+        }
+    }
+
+    @Test
+    public void testNestedAcquire() {
+        try (BufferLease outer = BufferLease.acquire()) {
+            outer.write(1);
+            try (BufferLease inner = BufferLease.acquire()) {
+                Assert.assertNotSame(outer, inner);
+                inner.write(2);
+            }
+            Assert.assertEquals(1, outer.size());
+        }
+        try (BufferLease lease = BufferLease.acquire()) {
+            Assert.assertEquals(0, lease.size());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.zoo.cat.common.serializer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CatMethodDictionaryTest {
+
+    @Test
+    public void testDenseIds() {
+        Map<Integer, String> store = new ConcurrentHashMap<>();
+        CatMethodDictionary dictionary = CatMethodDictionary.getInstance();
+        dictionary.bind(() -> store, (id, signature) -> store.putIfAbsent(id, signature) == null ? 1 : 0);
+        Assert.assertEquals(1, dictionary.idOf("a#confirm()"));
+        store.put(2, "b#confirm()");
+        Assert.assertEquals(3, dictionary.idOf("a#cancel()"));
+        Assert.assertEquals(1, dictionary.idOf("a#confirm()"));
+        Assert.assertEquals(2, dictionary.idOf("b#confirm()"));
+        Assert.assertEquals("a#cancel()", dictionary.signatureOf(3));
+    }
+
+    @Test
+    public void testRefusedIsCached() {
+        AtomicInteger saves = new AtomicInteger();
+        AtomicInteger loads = new AtomicInteger();
+        CatMethodDictionary dictionary = CatMethodDictionary.getInstance();
+        dictionary.bind(() -> {
+            loads.incrementAndGet();
+            return new ConcurrentHashMap<>();
+        }, (id, signature) -> {
+            saves.incrementAndGet();
+            return 0;
+        });
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(CatMethodDictionary.NONE, dictionary.idOf("a#confirm()"));
+        }
+        Assert.assertEquals(1, saves.get());
+        Assert.assertEquals(2, loads.get());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNull(dictionary.signatureOf(i));
+        }
+        Assert.assertEquals(2, loads.get());
+    }
+}
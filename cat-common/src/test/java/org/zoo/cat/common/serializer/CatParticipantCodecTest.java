@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.zoo.cat.common.bean.entity.CatInvocation;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CatParticipantCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Map<Integer, String> store = new ConcurrentHashMap<>();
+        CatMethodDictionary.getInstance().bind(() -> store, (id, signature) -> store.putIfAbsent(id, signature) == null ? 1 : 0);
+        ObjectSerializer serializer = new KryoSerializer();
+        List<CatParticipant> participants = buildParticipants();
+        byte[] contents = CatParticipantCodec.encode(participants, serializer);
+        Assert.assertTrue(CatParticipantCodec.isParticipants(contents));
+        Assert.assertEquals(2, store.size());
+        Assert.assertTrue(contents.length < serializer.serialize(participants).length);
+        ObjectSerializer hessian = new HessianSerializer();
+        Assert.assertTrue(CatParticipantCodec.encode(participants, hessian).length * 2 < hessian.serialize(participants).length);
+
+        List<CatParticipant> result = CatParticipantCodec.decode(contents, serializer);
+        CatInvocation confirm = result.get(0).getConfirmCatInvocation();
+        CatInvocation cancel = result.get(0).getCancelCatInvocation();
+        Assert.assertEquals(Order.class, confirm.getTargetClass());
+        Assert.assertEquals("confirm", confirm.getMethodName());
+        Assert.assertArrayEquals(new Class[]{Order.class, long.class}, cancel.getParameterTypes());
+        Assert.assertSame(confirm.getArgs(), cancel.getArgs());
+        Assert.assertEquals(new BigDecimal("12.50"), ((Order) confirm.getArgs()[0]).amount);
+        Assert.assertNull(result.get(0).getNoticeCatInvocation());
+    }
+
+    @Test
+    public void testAllSerializers() throws Exception {
+        CatMethodDictionary.getInstance().bind(ConcurrentHashMap::new, (id, signature) -> 0);
+        for (ObjectSerializer serializer : new ObjectSerializer[]{new KryoSerializer(), new HessianSerializer(),
+                new ProtostuffSerializer(), new JavaSerializer()}) {
+            List<CatParticipant> result = CatParticipantCodec.decode(CatParticipantCodec.encode(buildParticipants(), serializer), serializer);
+            CatInvocation confirm = result.get(0).getConfirmCatInvocation();
+            Assert.assertSame(confirm.getArgs(), result.get(0).getCancelCatInvocation().getArgs());
+            Assert.assertEquals("20191019000001", ((Order) confirm.getArgs()[0]).number);
+            Assert.assertEquals(3L, confirm.getArgs()[1]);
+        }
+    }
+
+    @Test
+    public void testInlineAndLegacy() throws Exception {
+        CatMethodDictionary.getInstance().bind(ConcurrentHashMap::new, (id, signature) -> 0);
+        ObjectSerializer serializer = new HessianSerializer();
+        List<CatParticipant> participants = buildParticipants();
+        List<CatParticipant> inline = CatParticipantCodec.decode(CatParticipantCodec.encode(participants, serializer), serializer);
+        Assert.assertEquals("cancel", inline.get(0).getCancelCatInvocation().getMethodName());
+        List<CatParticipant> legacy = CatParticipantCodec.decode(serializer.serialize(participants), serializer);
+        Assert.assertEquals("cancel", legacy.get(0).getCancelCatInvocation().getMethodName());
+    }
+
+    @Test
+    public void testCompress() throws Exception {
+        ObjectSerializer serializer = new KryoSerializer();
+        List<CatParticipant> participants = buildParticipants();
+        Order order = (Order) participants.get(0).getConfirmCatInvocation().getArgs()[0];
+        StringBuilder number = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            number.append("order-line-").append(i % 10).append(';');
+        }
+        order.number = number.toString();
+        long compressed = CatCompressor.getInstance().getCompressedCount();
+        byte[] contents = CatParticipantCodec.encode(participants, serializer);
+        Assert.assertEquals(compressed + 1, CatCompressor.getInstance().getCompressedCount());
+        Assert.assertTrue(contents.length * 4 < number.length());
+        List<CatParticipant> result = CatParticipantCodec.decode(contents, serializer);
+        Assert.assertEquals(order.number, ((Order) result.get(0).getCancelCatInvocation().getArgs()[0]).number);
+    }
+
+    private List<CatParticipant> buildParticipants() {
+        Order order = new Order();
+        order.number = "20191019000001";
+        order.amount = new BigDecimal("12.50");
+        Object[] args = {order, 3L};
+        Class[] parameterTypes = {Order.class, long.class};
+        List<CatParticipant> participants = new ArrayList<>();
+        participants.add(new CatParticipant("1", new CatInvocation(Order.class, "confirm", parameterTypes, args),
+                new CatInvocation(Order.class, "cancel", parameterTypes, args)));
+        return participants;
+    }
+
+    public static class Order implements java.io.Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String number;
+
+        private BigDecimal amount;
+    }
+}
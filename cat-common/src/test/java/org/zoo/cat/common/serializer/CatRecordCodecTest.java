@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
+import org.zoo.cat.common.bean.entity.CatInvocation;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class CatRecordCodecTest {
+
+    private final ObjectSerializer[] serializers = {new KryoSerializer(), new HessianSerializer(), new JavaSerializer()};
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        for (ObjectSerializer serializer : serializers) {
+            CatTransaction transaction = buildTransaction();
+            byte[] record = CatRecordCodec.encode(transaction, serializer);
+            Assert.assertTrue(CatRecordCodec.isRecord(record));
+            CatTransaction result = CatRecordCodec.decode(record, serializer);
+            Assert.assertEquals(transaction.getTransId(), result.getTransId());
+            Assert.assertEquals(transaction.getStatus(), result.getStatus());
+            Assert.assertEquals(transaction.getCreateTime(), result.getCreateTime());
+            Assert.assertEquals(transaction.getNextRetryTime(), result.getNextRetryTime());
+            Assert.assertNull(result.getNodeTransId());
+            Assert.assertEquals(1, result.getCatParticipants().size());
+            Assert.assertEquals("confirm", result.getCatParticipants().get(0).getConfirmCatInvocation().getMethodName());
+        }
+    }
+
+    @Test
+    public void testReadLegacy() throws Exception {
+        for (ObjectSerializer serializer : serializers) {
+            CatTransaction transaction = buildTransaction();
+            CoordinatorRepositoryAdapter adapter = new CoordinatorRepositoryAdapter();
+            adapter.setTransId(transaction.getTransId());
+            adapter.setStatus(transaction.getStatus());
+            adapter.setRetriedCount(2);
+            adapter.setContents(serializer.serialize(transaction.getCatParticipants()));
+            byte[] legacy = serializer.serialize(adapter);
+            Assert.assertFalse(CatRecordCodec.isRecord(legacy));
+            CatTransaction result = CatRecordCodec.decode(legacy, serializer);
+            Assert.assertEquals(transaction.getTransId(), result.getTransId());
+            Assert.assertEquals(2, result.getRetriedCount());
+            Assert.assertEquals(1, result.getCatParticipants().size());
+            Assert.assertEquals(2, CatRecordCodec.decodeAdapter(legacy, serializer).getRetriedCount());
+        }
+    }
+
+    @Test
+    public void testRewriteHeader() throws Exception {
+        ObjectSerializer serializer = new KryoSerializer();
+        byte[] record = CatRecordCodec.encode(buildTransaction(), serializer);
+        byte[] rewritten = CatRecordCodec.rewriteHeader(record, serializer, transaction -> {
+            transaction.setStatus(3);
+            transaction.setRetriedCount(5);
+            transaction.setNextRetryTime(new Date(4000L));
+        });
+        CoordinatorRepositoryAdapter adapter = CatRecordCodec.decodeAdapter(rewritten, serializer);
+        Assert.assertEquals(3, adapter.getStatus());
+        Assert.assertEquals(5, adapter.getRetriedCount());
+        Assert.assertEquals("confirm", adapter.getConfirmMethod());
+        CatTransaction result = CatRecordCodec.decode(rewritten, serializer);
+        Assert.assertEquals(new Date(4000L), result.getNextRetryTime());
+        Assert.assertEquals(1, result.getCatParticipants().size());
+    }
+
+    private CatTransaction buildTransaction() {
+        CatTransaction transaction = new CatTransaction("100");
+        transaction.setStatus(1);
+        transaction.setRole(1);
+        transaction.setPattern(1);
+        transaction.setCreateTime(new Date(1000L));
+        transaction.setLastTime(new Date(2000L));
+        transaction.setNextRetryTime(new Date(3000L));
+        transaction.setTargetClass(String.class.getName());
+        transaction.setTargetMethod("valueOf");
+        CatInvocation confirm = new CatInvocation(String.class, "confirm", new Class[]{String.class}, new Object[]{"a"});
+        CatInvocation cancel = new CatInvocation(String.class, "cancel", new Class[]{String.class}, new Object[]{"a"});
+        List<CatParticipant> participants = new ArrayList<>();
+        participants.add(new CatParticipant("100", confirm, cancel));
+        transaction.setCatParticipants(participants);
+        return transaction;
+    }
+}
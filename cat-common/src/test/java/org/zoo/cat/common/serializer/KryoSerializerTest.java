@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.common.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import org.junit.Assert;
+import org.junit.Test;
+import org.zoo.cat.common.bean.entity.CatInvocation;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class KryoSerializerTest {
+
+    private final KryoSerializer serializer = new KryoSerializer();
+
+    @Test
+    public void testTransaction() throws Exception {
+        CatTransaction transaction = buildTransaction();
+        CatTransaction result = serializer.deSerialize(serializer.serialize(transaction), CatTransaction.class);
+        Assert.assertEquals(transaction.getTransId(), result.getTransId());
+        Assert.assertEquals(1, result.getCatParticipants().size());
+        Assert.assertArrayEquals(new Object[]{"a", 1},
+                result.getCatParticipants().get(0).getConfirmCatInvocation().getArgs());
+    }
+
+    @Test
+    public void testReadUnregistered() throws Exception {
+        CatTransaction transaction = buildTransaction();
+        Output output = new Output(4096, -1);
+        new Kryo().writeObject(output, transaction.getCatParticipants());
+        List result = serializer.deSerialize(output.toBytes(), ArrayList.class);
+        Assert.assertEquals(transaction.getCatParticipants(), result);
+    }
+
+    private CatTransaction buildTransaction() {
+        CatTransaction transaction = new CatTransaction();
+        CatInvocation confirm = new CatInvocation(String.class, "confirm",
+                new Class[]{String.class, Integer.class}, new Object[]{"a", 1});
+        CatInvocation cancel = new CatInvocation(String.class, "cancel",
+                new Class[]{String.class, Integer.class}, confirm.getArgs());
+        transaction.registerParticipant(new CatParticipant(transaction.getTransId(), confirm, cancel));
+        return transaction;
+    }
+}
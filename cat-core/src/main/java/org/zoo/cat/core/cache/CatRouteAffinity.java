@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.zoo.cat.common.utils.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * EN: the provider chosen in the try of a transaction, so its confirm or cancel goes to the same provider.
+ * only the id of the provider is kept, in a bounded table that forgets the transactions that never come back.
+ * the id of a provider is computed once and kept while the provider is referenced.
+ * CN: 事务路由亲和表, 有界且过期.
+ *
+ * @param <T> the provider
+ * @author dzc
+ */
+public final class CatRouteAffinity<T> {
+
+    /**
+     * routes kept at most.
+     */
+    public static final int MAX_ROUTES = 100000;
+
+    /**
+     * seconds a route is kept after the try.
+     */
+    public static final long EXPIRE_SECONDS = 600;
+
+    private final Cache<String, String> routes;
+
+    private final Map<T, String> ids = CacheBuilder.newBuilder().weakKeys().<T, String>build().asMap();
+
+    private final Function<T, String> idOf;
+
+    /**
+     * Instantiates a new Cat route affinity.
+     *
+     * @param idOf id of the provider
+     */
+    public CatRouteAffinity(final Function<T, String> idOf) {
+        this(idOf, MAX_ROUTES, EXPIRE_SECONDS);
+    }
+
+    /**
+     * Instantiates a new Cat route affinity.
+     *
+     * @param idOf          id of the provider
+     * @param maxRoutes     routes kept at most
+     * @param expireSeconds seconds a route is kept after the try
+     */
+    public CatRouteAffinity(final Function<T, String> idOf, final int maxRoutes, final long expireSeconds) {
+        this.idOf = idOf;
+        this.routes = CacheBuilder.newBuilder()
+                .maximumSize(maxRoutes)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * remember the provider of the transaction.
+     *
+     * @param transId  transId
+     * @param provider the provider
+     */
+    public void bind(final String transId, final T provider) {
+        if (StringUtils.isNoneBlank(transId) && Objects.nonNull(provider)) {
+            routes.put(transId, id(provider));
+        }
+    }
+
+    /**
+     * take the provider of the transaction out of the candidates, the route is forgotten.
+     *
+     * @param transId    transId
+     * @param candidates the candidates
+     * @return the provider, null if the route is unknown or the provider is gone
+     */
+    public T take(final String transId, final List<? extends T> candidates) {
+        if (StringUtils.isBlank(transId)) {
+            return null;
+        }
+        final String id = routes.getIfPresent(transId);
+        if (Objects.isNull(id)) {
+            return null;
+        }
+        routes.invalidate(transId);
+        for (T candidate : candidates) {
+            if (id.equals(id(candidate))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * routes kept now.
+     *
+     * @return count
+     */
+    public long size() {
+        return routes.size();
+    }
+
+    private String id(final T provider) {
+        return ids.computeIfAbsent(provider, idOf);
+    }
+}
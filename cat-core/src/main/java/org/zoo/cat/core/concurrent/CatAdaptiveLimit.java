@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EN: concurrency limit that adapts to the latency by additive increase and multiplicative decrease.
+ * a call slower than the tolerance times the usual latency shrinks the limit by the backoff ratio, at most once per round:
+ * the slow calls that were already in flight when the limit was shrunk do not shrink it again, so a burst of slow calls
+ * backs off once. a fast call while at least half of the limit is in use grows it by one over the limit,
+ * so it grows by about one per round.
+ * the usual latency is a moving average that follows the slow calls twenty times slower than the fast ones,
+ * so a slow down shrinks the limit and only a lasting change of the latency moves the average.
+ * CN: AIMD自适应并发限制.
+ *
+ * @author dzc
+ */
+public final class CatAdaptiveLimit {
+
+    private static final double ALPHA = 0.05;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final double tolerance;
+
+    private volatile double limit;
+
+    private double usualNanos;
+
+    private boolean backedOff;
+
+    private long backoffNanos;
+
+    /**
+     * Instantiates a new adaptive limit.
+     *
+     * @param initialLimit limit at start
+     * @param minLimit     lower bound
+     * @param maxLimit     upper bound
+     * @param backoffRatio ratio the limit is multiplied by on a slow call
+     * @param tolerance    a call slower than the usual latency times it is slow
+     */
+    public CatAdaptiveLimit(final int initialLimit, final int minLimit, final int maxLimit,
+                            final double backoffRatio, final double tolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.backoffRatio = Math.min(1D, Math.max(0.1D, backoffRatio));
+        this.tolerance = Math.max(1D, tolerance);
+    }
+
+    /**
+     * take a slot.
+     *
+     * @return false if the limit is reached
+     */
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * give back the slot with the latency of the call.
+     *
+     * @param latencyNanos latency
+     */
+    public void release(final long latencyNanos) {
+        final int using = inFlight.getAndDecrement();
+        final long now = System.nanoTime();
+        synchronized (this) {
+            if (usualNanos > 0 && latencyNanos > usualNanos * tolerance) {
+                usualNanos += ALPHA / 20 * (latencyNanos - usualNanos);
+                //a call started before the last backoff has been counted by it
+                if (!backedOff || now - latencyNanos - backoffNanos >= 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    backedOff = true;
+                    backoffNanos = now;
+                }
+                return;
+            }
+            usualNanos = usualNanos == 0 ? latencyNanos : usualNanos + ALPHA * (latencyNanos - usualNanos);
+            if (using * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1D / limit);
+            }
+        }
+    }
+
+    /**
+     * the limit now.
+     *
+     * @return limit
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * calls in flight.
+     *
+     * @return count
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
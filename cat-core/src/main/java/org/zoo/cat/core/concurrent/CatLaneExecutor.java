@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.config.CatLaneConfig;
+import org.zoo.cat.common.utils.LogUtil;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * EN: async executor of the confirm, cancel, notice and recovery work with a bounded lane for each.
+ * the threads pick the lanes by smooth weighted round robin, so every lane with work gets its share and none starves,
+ * in a lane the work of the higher priority runs first and the work of the same priority in order.
+ * a lane that is full runs the work on the calling thread. the threads come from the {@link CatRuntime},
+ * platform threads loop over the lanes in a fixed pool, virtual threads are started one per work and bounded
+ * by a semaphore of the same size. the lanes are picked under a {@link ReentrantLock}, a monitor would pin
+ * the carrier of a virtual thread.
+ * CN: 分道异步执行器, 按权重轮询各道, 道内按优先级执行.
+ *
+ * @author dzc
+ */
+@Component
+public class CatLaneExecutor implements DisposableBean {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatLaneExecutor.class);
+
+    private final LaneQueue[] queues = new LaneQueue[Lane.values().length];
+
+    private final Semaphore available = new Semaphore(0);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder callerRuns = new LongAdder();
+
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    private final int threads;
+
+    private final Semaphore running;
+
+    private final CatRuntime catRuntime;
+
+    private volatile boolean started;
+
+    private ExecutorService executorService;
+
+    private Thread dispatcher;
+
+    /**
+     * Instantiates a new Cat lane executor.
+     *
+     * @param catConfig  the cat config
+     * @param catRuntime the cat runtime
+     */
+    @Autowired
+    public CatLaneExecutor(final CatConfig catConfig, final CatRuntime catRuntime) {
+        this.catRuntime = catRuntime;
+        final CatLaneConfig config = Optional.ofNullable(catConfig.getCatLaneConfig()).orElseGet(CatLaneConfig::new);
+        this.threads = Math.max(1, catConfig.getAsyncThreads());
+        this.running = new Semaphore(threads);
+        queues[Lane.CONFIRM.ordinal()] = new LaneQueue(config.getConfirmWeight(), config.getConfirmCapacity());
+        queues[Lane.CANCEL.ordinal()] = new LaneQueue(config.getCancelWeight(), config.getCancelCapacity());
+        queues[Lane.NOTICE.ordinal()] = new LaneQueue(config.getNoticeWeight(), config.getNoticeCapacity());
+        queues[Lane.RECOVERY.ordinal()] = new LaneQueue(config.getRecoveryWeight(), config.getRecoveryCapacity());
+    }
+
+    /**
+     * run the work in the lane, or on the calling thread when the lane is full.
+     *
+     * @param lane     lane
+     * @param priority priority, higher runs first
+     * @param task     work
+     */
+    public void execute(final Lane lane, final int priority, final Runnable task) {
+        if (!offer(lane, priority, task)) {
+            callerRuns.increment();
+            run(task);
+        }
+    }
+
+    /**
+     * queue the work in the lane.
+     *
+     * @param lane     lane
+     * @param priority priority, higher runs first
+     * @param task     work
+     * @return false if the lane is full
+     */
+    public boolean offer(final Lane lane, final int priority, final Runnable task) {
+        start();
+        final LaneQueue queue = queues[lane.ordinal()];
+        if (queue.size.incrementAndGet() > queue.capacity) {
+            queue.size.decrementAndGet();
+            return false;
+        }
+        queue.tasks.add(new LaneTask(priority, sequence.getAndIncrement(), task));
+        available.release();
+        return true;
+    }
+
+    /**
+     * work waiting in the lane.
+     *
+     * @param lane lane
+     * @return count
+     */
+    public int getQueued(final Lane lane) {
+        return queues[lane.ordinal()].size.get();
+    }
+
+    /**
+     * work run on the calling thread because its lane was full.
+     *
+     * @return count
+     */
+    public long getCallerRuns() {
+        return callerRuns.sum();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (Objects.nonNull(executorService)) {
+            executorService.shutdownNow();
+        }
+        if (Objects.nonNull(dispatcher)) {
+            dispatcher.interrupt();
+        }
+    }
+
+    private void start() {
+        if (started) {
+            return;
+        }
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            final ThreadFactory threadFactory = catRuntime.blockingThreadFactory("cat-lane-executor");
+            if (catRuntime.isVirtualThreads()) {
+                dispatcher = threadFactory.newThread(() -> dispatch(threadFactory));
+                dispatcher.start();
+            } else {
+                executorService = Executors.newFixedThreadPool(threads, threadFactory);
+                for (int i = 0; i < threads; i++) {
+                    executorService.execute(this::work);
+                }
+            }
+            started = true;
+        }
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final LaneTask task;
+            try {
+                available.acquire();
+                task = poll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (Objects.isNull(task)) {
+                continue;
+            }
+            run(task.task);
+        }
+    }
+
+    /**
+     * the lane is picked when a thread is free, so the work of virtual threads keeps the order of the lanes.
+     */
+    private void dispatch(final ThreadFactory threadFactory) {
+        while (!Thread.currentThread().isInterrupted()) {
+            final LaneTask task;
+            try {
+                running.acquire();
+                available.acquire();
+                task = poll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (Objects.isNull(task)) {
+                running.release();
+                continue;
+            }
+            try {
+                threadFactory.newThread(() -> {
+                    try {
+                        run(task.task);
+                    } finally {
+                        running.release();
+                    }
+                }).start();
+            } catch (RuntimeException | OutOfMemoryError e) {
+                running.release();
+                LogUtil.error(LOGGER, "lane executor start thread exception:{}", e::getMessage);
+                run(task.task);
+            }
+        }
+    }
+
+    private static void run(final Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "lane executor task exception:{}", () -> e);
+        }
+    }
+
+    private LaneTask poll() {
+        pollLock.lock();
+        try {
+            return select();
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private LaneTask select() {
+        LaneQueue selected = null;
+        int total = 0;
+        for (LaneQueue queue : queues) {
+            if (queue.tasks.isEmpty()) {
+                continue;
+            }
+            queue.current += queue.weight;
+            total += queue.weight;
+            if (Objects.isNull(selected) || queue.current > selected.current) {
+                selected = queue;
+            }
+        }
+        if (Objects.isNull(selected)) {
+            return null;
+        }
+        selected.current -= total;
+        selected.size.decrementAndGet();
+        return selected.tasks.poll();
+    }
+
+    /**
+     * The lanes.
+     */
+    public enum Lane {
+
+        /**
+         * confirm of the starter.
+         */
+        CONFIRM,
+
+        /**
+         * cancel of the starter.
+         */
+        CANCEL,
+
+        /**
+         * notice of the starter.
+         */
+        NOTICE,
+
+        /**
+         * in memory recovery.
+         */
+        RECOVERY
+    }
+
+    private static final class LaneQueue {
+
+        private final PriorityBlockingQueue<LaneTask> tasks = new PriorityBlockingQueue<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        private final int weight;
+
+        private final int capacity;
+
+        private int current;
+
+        private LaneQueue(final int weight, final int capacity) {
+            this.weight = Math.max(1, weight);
+            this.capacity = Math.max(1, capacity);
+        }
+    }
+
+    private static final class LaneTask implements Comparable<LaneTask> {
+
+        private final int priority;
+
+        private final long sequence;
+
+        private final Runnable task;
+
+        private LaneTask(final int priority, final long sequence, final Runnable task) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(final LaneTask other) {
+            if (priority != other.priority) {
+                return Integer.compare(other.priority, priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.core.concurrent.threadpool.CatThreadFactory;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * EN: the threads of cat.
+ * the periodic work of cat shares one small scheduler, the blocking rpc of the confirm, cancel, notice and recovery
+ * runs on threads made by {@link #blockingThreadFactory(String)}, virtual threads when they are enabled and the jdk
+ * has them (21+), platform daemon threads otherwise.
+ * CN: cat线程运行时, 共享调度线程, 可选虚拟线程.
+ *
+ * @author dzc
+ */
+@Component
+public class CatRuntime implements DisposableBean {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatRuntime.class);
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final boolean virtualThreads;
+
+    /**
+     * Instantiates a new Cat runtime.
+     *
+     * @param catConfig the cat config
+     */
+    @Autowired
+    public CatRuntime(final CatConfig catConfig) {
+        this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, catConfig.getSchedulerThreads()),
+                CatThreadFactory.create("cat-scheduler", true));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.virtualThreads = catConfig.isVirtualThreads() && Objects.nonNull(virtualThreadFactory("cat-probe"));
+        if (catConfig.isVirtualThreads() && !virtualThreads) {
+            LogUtil.warn(LOGGER, "virtual threads need jdk 21+, platform threads are used:{}", () -> System.getProperty("java.version"));
+        }
+    }
+
+    /**
+     * the scheduler shared by the periodic work of cat.
+     *
+     * @return the scheduler
+     */
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * are the blocking threads virtual.
+     *
+     * @return true if virtual
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * threads for blocking work.
+     *
+     * @param name thread name prefix
+     * @return the thread factory
+     */
+    public ThreadFactory blockingThreadFactory(final String name) {
+        if (virtualThreads) {
+            final ThreadFactory factory = virtualThreadFactory(name);
+            if (Objects.nonNull(factory)) {
+                return factory;
+            }
+        }
+        return CatThreadFactory.create(name, true);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * {@code Thread.ofVirtual().name(name, 0).factory()} through reflection, cat builds on jdk 8.
+     */
+    private static ThreadFactory virtualThreadFactory(final String name) {
+        try {
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Object named = builder.getMethod("name", String.class, long.class)
+                    .invoke(ofVirtual.invoke(null), "catTransaction-" + name + "-", 0L);
+            return (ThreadFactory) builder.getMethod("factory").invoke(named);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
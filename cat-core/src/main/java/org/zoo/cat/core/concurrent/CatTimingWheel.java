@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.core.concurrent.threadpool.CatThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EN: hashed timing wheel for many short delays.
+ * scheduling only appends to a queue, one thread moves the tasks into the buckets and hands the expired ones
+ * to the executor every tick, so a task runs up to one tick late.
+ * CN: 哈希时间轮.
+ *
+ * @author dzc
+ */
+public final class CatTimingWheel {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatTimingWheel.class);
+
+    private final long tickNanos;
+
+    private final List<List<Timeout>> buckets;
+
+    private final int mask;
+
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Executor executor;
+
+    private final Thread worker;
+
+    private final long startNanos;
+
+    private volatile boolean running = true;
+
+    private long tick;
+
+    /**
+     * Instantiates a new timing wheel and starts its thread.
+     *
+     * @param name       thread name
+     * @param tickMills  tick duration
+     * @param wheelSize  buckets, rounded up to a power of two
+     * @param executor   runs the expired tasks
+     */
+    public CatTimingWheel(final String name, final long tickMills, final int wheelSize, final Executor executor) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMills));
+        final int size = Integer.highestOneBit(Math.max(2, wheelSize) * 2 - 1);
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.mask = size - 1;
+        this.executor = executor;
+        this.startNanos = System.nanoTime();
+        this.worker = CatThreadFactory.create(name, true).newThread(this::run);
+        worker.start();
+    }
+
+    /**
+     * schedule the task.
+     *
+     * @param task  task
+     * @param delay delay
+     * @param unit  unit of the delay
+     * @return false if the wheel is stopped
+     */
+    public boolean schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        if (!running) {
+            return false;
+        }
+        pending.incrementAndGet();
+        incoming.add(new Timeout(task, System.nanoTime() + unit.toNanos(delay)));
+        return true;
+    }
+
+    /**
+     * tasks not run yet.
+     *
+     * @return count
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * stop the thread, the tasks not run yet are dropped.
+     *
+     * @return dropped tasks
+     */
+    public int stop() {
+        running = false;
+        worker.interrupt();
+        return pending.getAndSet(0);
+    }
+
+    private void run() {
+        while (running) {
+            final long deadline = startNanos + (tick + 1) * tickNanos;
+            final long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+            }
+            transfer();
+            expire(buckets.get((int) (tick & mask)), deadline);
+            tick++;
+        }
+    }
+
+    private void transfer() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            final long calculated = Math.max(0, timeout.deadline - startNanos) / tickNanos;
+            final long ticks = Math.max(calculated, tick);
+            timeout.rounds = (ticks - tick) / buckets.size();
+            buckets.get((int) (ticks & mask)).add(timeout);
+        }
+    }
+
+    private void expire(final List<Timeout> bucket, final long deadline) {
+        final Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            final Timeout timeout = iterator.next();
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                continue;
+            }
+            if (timeout.deadline > deadline) {
+                continue;
+            }
+            iterator.remove();
+            pending.decrementAndGet();
+            try {
+                executor.execute(timeout.task);
+            } catch (RejectedExecutionException e) {
+                LogUtil.warn(LOGGER, "timing wheel task rejected:{}", e::getMessage);
+            }
+        }
+    }
+
+    private static final class Timeout {
+
+        private final Runnable task;
+
+        private final long deadline;
+
+        private long rounds;
+
+        private Timeout(final Runnable task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -66,11 +66,13 @@ public class SingletonExecutor extends ThreadPoolExecutor {
      * @param poolName the pool name
      */
     public SingletonExecutor(final String poolName) {
-        super(1, 1, 0L,
-                TimeUnit.MILLISECONDS,
+        super(1, 1, 60L,
+                TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>(QUEUE_SIZE),
                 CatThreadFactory.create(poolName, false),
                 HANDLER);
+        //an idle executor gives back its thread, the tasks stay in order on the next one
+        allowCoreThreadTimeOut(true);
         this.name = poolName;
     }
 
@@ -0,0 +1,227 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package org.zoo.cat.core.concurrent.threadlocal;
+
+import org.zoo.cat.core.service.executor.CatTransactionScope;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * EN: executors that run every task in the transaction of the thread that submits it.
+ * the transaction is captured on submit and bound on the worker only while the task runs, what the worker had before is
+ * restored after it, so a pooled thread never keeps the transaction of an earlier task.
+ * a task submitted without a transaction is handed over as it is.
+ * the tasks are not awaited by the starter, use {@link CatTransactionScope#executor(Executor)} for the tries of a starter.
+ * CN: 传递事务上下文的线程池包装.
+ *
+ * @author dzc
+ */
+public final class CatContextExecutors {
+
+    private CatContextExecutors() {
+    }
+
+    /**
+     * run the task in the transaction of the calling thread.
+     *
+     * @param task the task
+     * @return the wrapped task, the task itself if the thread has no transaction
+     */
+    public static Runnable wrap(final Runnable task) {
+        final CatTransactionScope scope = CatTransactionScope.capture();
+        return scope.isActive() ? scope.wrap(task) : task;
+    }
+
+    /**
+     * run the task in the transaction of the calling thread.
+     *
+     * @param task the task
+     * @param <T>  the result type
+     * @return the wrapped task, the task itself if the thread has no transaction
+     */
+    public static <T> Callable<T> wrap(final Callable<T> task) {
+        final CatTransactionScope scope = CatTransactionScope.capture();
+        return scope.isActive() ? scope.wrap(task) : task;
+    }
+
+    /**
+     * decorate the executor.
+     *
+     * @param executor the executor
+     * @return the decorated executor
+     */
+    public static Executor executor(final Executor executor) {
+        if (executor instanceof ContextExecutorService) {
+            return executor;
+        }
+        return task -> executor.execute(wrap(task));
+    }
+
+    /**
+     * decorate the executor service.
+     *
+     * @param executorService the executor service
+     * @return the decorated executor service
+     */
+    public static ExecutorService executorService(final ExecutorService executorService) {
+        if (executorService instanceof ContextExecutorService) {
+            return executorService;
+        }
+        return new ContextExecutorService(executorService);
+    }
+
+    /**
+     * decorate the scheduled executor service, a periodic task runs in the transaction captured when it is scheduled.
+     *
+     * @param scheduledExecutorService the scheduled executor service
+     * @return the decorated scheduled executor service
+     */
+    public static ScheduledExecutorService scheduledExecutorService(final ScheduledExecutorService scheduledExecutorService) {
+        if (scheduledExecutorService instanceof ContextScheduledExecutorService) {
+            return scheduledExecutorService;
+        }
+        return new ContextScheduledExecutorService(scheduledExecutorService);
+    }
+
+    private static <T> List<Callable<T>> wrapAll(final Collection<? extends Callable<T>> tasks) {
+        final List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            wrapped.add(wrap(task));
+        }
+        return wrapped;
+    }
+
+    private static class ContextExecutorService implements ExecutorService {
+
+        private final ExecutorService delegate;
+
+        ContextExecutorService(final ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            delegate.execute(wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+
+        @Override
+        public <T> Future<T> submit(final Callable<T> task) {
+            return delegate.submit(wrap(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(final Runnable task, final T result) {
+            return delegate.submit(wrap(task), result);
+        }
+
+        @Override
+        public Future<?> submit(final Runnable task) {
+            return delegate.submit(wrap(task));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks) throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks,
+                                             final long timeout, final TimeUnit unit) throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(final Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+            return delegate.invokeAny(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.invokeAny(wrapAll(tasks), timeout, unit);
+        }
+    }
+
+    private static final class ContextScheduledExecutorService extends ContextExecutorService implements ScheduledExecutorService {
+
+        private final ScheduledExecutorService delegate;
+
+        ContextScheduledExecutorService(final ScheduledExecutorService delegate) {
+            super(delegate);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit) {
+            return delegate.schedule(wrap(command), delay, unit);
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(final Callable<V> callable, final long delay, final TimeUnit unit) {
+            return delegate.schedule(wrap(callable), delay, unit);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(final Runnable command, final long initialDelay,
+                                                      final long period, final TimeUnit unit) {
+            return delegate.scheduleAtFixedRate(wrap(command), initialDelay, period, unit);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable command, final long initialDelay,
+                                                         final long delay, final TimeUnit unit) {
+            return delegate.scheduleWithFixedDelay(wrap(command), initialDelay, delay, unit);
+        }
+    }
+}
@@ -21,11 +21,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.serializer.CatMethodDictionary;
 import org.zoo.cat.common.utils.StringUtils;
 import org.zoo.cat.core.coordinator.CatCoordinatorService;
 import org.zoo.cat.core.helper.SpringBeanUtils;
 import org.zoo.cat.core.service.CatApplicationService;
+import org.zoo.cat.core.service.recovery.CatRetryPolicy;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
+import org.zoo.cat.core.spi.CatCounterStore;
+
+import java.util.Objects;
 
 /**
  * impl catCoordinatorService.
@@ -37,6 +42,8 @@ public class CatCoordinatorServiceImpl implements CatCoordinatorService {
 
     private CatCoordinatorRepository coordinatorRepository;
 
+    private CatRetryPolicy catRetryPolicy;
+
     private final CatApplicationService catApplicationService;
 
     @Autowired
@@ -50,10 +57,19 @@ public class CatCoordinatorServiceImpl implements CatCoordinatorService {
         final String appName = catApplicationService.acquireName();
         coordinatorRepository = SpringBeanUtils.getInstance().getBean(CatCoordinatorRepository.class);
         coordinatorRepository.init(tableName,appName, catConfig);
+        //a counter store of its own, the repositories that keep counters are inited above
+        if (SpringBeanUtils.getInstance().containsBean(CatCounterStore.class.getName())) {
+            SpringBeanUtils.getInstance().getBean(CatCounterStore.class).init(tableName, appName, catConfig);
+        }
+        catRetryPolicy = new CatRetryPolicy(catConfig);
+        CatMethodDictionary.getInstance().bind(coordinatorRepository::loadMethods, coordinatorRepository::saveMethod);
     }
 
     @Override
     public String save(final CatTransaction catTransaction) {
+        if (Objects.isNull(catTransaction.getNextRetryTime())) {
+            catTransaction.setNextRetryTime(catRetryPolicy.first(catTransaction));
+        }
         final int rows = coordinatorRepository.create(catTransaction);
         if (rows > 0) {
             return catTransaction.getTransId();
@@ -8,6 +8,8 @@ import org.zoo.cat.core.disruptor.AbstractDisruptorConsumerExecutor;
 import org.zoo.cat.core.disruptor.DisruptorConsumerFactory;
 import org.zoo.cat.core.disruptor.event.CatTransactionEvent;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * this is disruptor consumer.
  *
@@ -19,9 +21,20 @@ public class CatConsumerLogDataHandler extends AbstractDisruptorConsumerExecutor
 
     private final CatCoordinatorService coordinatorService;
 
-    public CatConsumerLogDataHandler(final ConsistentHashSelector executor, final CatCoordinatorService coordinatorService) {
+    private final LongAdder pending;
+
+    /**
+     * Instantiates a new Cat consumer log data handler.
+     *
+     * @param executor           the executor
+     * @param coordinatorService the coordinator service
+     * @param pending            events published and not written yet, taken back when written
+     */
+    public CatConsumerLogDataHandler(final ConsistentHashSelector executor, final CatCoordinatorService coordinatorService,
+                                     final LongAdder pending) {
         this.executor = executor;
         this.coordinatorService = coordinatorService;
+        this.pending = pending;
     }
 
     @Override
@@ -38,25 +51,33 @@ public class CatConsumerLogDataHandler extends AbstractDisruptorConsumerExecutor
     public void executor(final CatTransactionEvent event) {
         String transId = event.getCatTransaction().getTransId();
         executor.select(transId).execute(() -> {
-            EventTypeEnum eventTypeEnum = EventTypeEnum.buildByCode(event.getType());
-            switch (eventTypeEnum) {
-                case SAVE:
-                    coordinatorService.save(event.getCatTransaction());
-                    break;
-                case DELETE:
-                    coordinatorService.remove(event.getCatTransaction().getTransId());
-                    break;
-                case UPDATE_STATUS:
-                    final CatTransaction catTransaction = event.getCatTransaction();
-                    coordinatorService.updateStatus(catTransaction.getTransId(), catTransaction.getStatus());
-                    break;
-                case UPDATE_PARTICIPANT:
-                    coordinatorService.updateParticipant(event.getCatTransaction());
-                    break;
-                default:
-                    break;
+            try {
+                write(event);
+            } finally {
+                pending.decrement();
             }
             event.clear();
         });
     }
+
+    private void write(final CatTransactionEvent event) {
+        EventTypeEnum eventTypeEnum = EventTypeEnum.buildByCode(event.getType());
+        switch (eventTypeEnum) {
+            case SAVE:
+                coordinatorService.save(event.getCatTransaction());
+                break;
+            case DELETE:
+                coordinatorService.remove(event.getCatTransaction().getTransId());
+                break;
+            case UPDATE_STATUS:
+                final CatTransaction catTransaction = event.getCatTransaction();
+                coordinatorService.updateStatus(catTransaction.getTransId(), catTransaction.getStatus());
+                break;
+            case UPDATE_PARTICIPANT:
+                coordinatorService.updateParticipant(event.getCatTransaction());
+                break;
+            default:
+                break;
+        }
+    }
 }
@@ -22,7 +22,9 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.SmartApplicationListener;
 import org.springframework.stereotype.Component;
+import org.zoo.cat.annotation.TransTypeEnum;
 import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.bean.variate.CatDegradation;
 import org.zoo.cat.common.config.CatConfig;
 import org.zoo.cat.common.enums.EventTypeEnum;
 import org.zoo.cat.core.concurrent.ConsistentHashSelector;
@@ -34,7 +36,9 @@ import org.zoo.cat.core.disruptor.handler.CatConsumerLogDataHandler;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * event publisher.
@@ -52,6 +56,8 @@ public class CatTransactionEventPublisher implements SmartApplicationListener {
 
     private final CatConfig catConfig;
 
+    private final LongAdder pending = new LongAdder();
+
     @Autowired
     public CatTransactionEventPublisher(final CatCoordinatorService coordinatorService,
                                           final CatConfig catConfig) {
@@ -73,7 +79,7 @@ public class CatTransactionEventPublisher implements SmartApplicationListener {
         ConsistentHashSelector selector = new ConsistentHashSelector(selects);
         disruptorProviderManage =
                 new DisruptorProviderManage<>(
-                        new CatConsumerLogDataHandler(selector, coordinatorService), 1, bufferSize);
+                        new CatConsumerLogDataHandler(selector, coordinatorService, pending), 1, bufferSize);
         disruptorProviderManage.startup();
     }
 
@@ -84,12 +90,36 @@ public class CatTransactionEventPublisher implements SmartApplicationListener {
      * @param type             {@linkplain EventTypeEnum}
      */
     public void publishEvent(final CatTransaction catTransaction, final int type) {
+        count(catTransaction, type);
+        pending.increment();
         CatTransactionEvent event = new CatTransactionEvent();
         event.setType(type);
         event.setCatTransaction(catTransaction);
         disruptorProviderManage.getProvider().onData(event);
     }
 
+    /**
+     * log writes published and not done yet.
+     *
+     * @return count
+     */
+    public long getPending() {
+        return pending.sum();
+    }
+
+    private static void count(final CatTransaction catTransaction, final int type) {
+        if (!Objects.equals(catTransaction.getPattern(), TransTypeEnum.NOTICE.getCode())) {
+            return;
+        }
+        if (type == EventTypeEnum.SAVE.getCode()) {
+            CatDegradation.record(catTransaction.getTargetClass(), catTransaction.getTargetMethod(),
+                    catTransaction.getCreateTime(), 1);
+        } else if (type == EventTypeEnum.DELETE.getCode()) {
+            CatDegradation.record(catTransaction.getTargetClass(), catTransaction.getTargetMethod(),
+                    catTransaction.getCreateTime(), -1);
+        }
+    }
+
     @Override
     public boolean supportsEventType(Class<? extends ApplicationEvent> aClass) {
         return aClass == ContextRefreshedEvent.class;
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.helper;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.zoo.cat.annotation.Cat;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.utils.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Cat} of the target method of a logged transaction, cached by class and method name.
+ *
+ * @author dzc
+ */
+public final class CatAnnotationHelper {
+
+    private static final Map<String, Optional<Cat>> ANNOTATIONS = new ConcurrentHashMap<>();
+
+    private CatAnnotationHelper() {
+    }
+
+    /**
+     * find the {@link Cat} of the target method of the transaction.
+     *
+     * @param catTransaction the cat transaction
+     * @return the annotation or null
+     */
+    public static Cat find(final CatTransaction catTransaction) {
+        return find(catTransaction.getTargetClass(), catTransaction.getTargetMethod());
+    }
+
+    /**
+     * find the {@link Cat} of the method.
+     *
+     * @param className  class name
+     * @param methodName method name
+     * @return the annotation or null
+     */
+    public static Cat find(final String className, final String methodName) {
+        if (StringUtils.isBlank(className) || StringUtils.isBlank(methodName)) {
+            return null;
+        }
+        return ANNOTATIONS.computeIfAbsent(className + "#" + methodName,
+            key -> resolve(className, methodName)).orElse(null);
+    }
+
+    private static Optional<Cat> resolve(final String className, final String methodName) {
+        try {
+            final Class<?> clazz = Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+            for (Method method : clazz.getMethods()) {
+                if (method.getName().equals(methodName)) {
+                    final Cat cat = AnnotationUtils.findAnnotation(method, Cat.class);
+                    if (Objects.nonNull(cat)) {
+                        return Optional.of(cat);
+                    }
+                }
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Optional.empty();
+        }
+        return Optional.empty();
+    }
+}
@@ -91,6 +91,16 @@ public final class SpringBeanUtils {
     }
 
 
+    /**
+     * is the bean registered in spring ioc.
+     *
+     * @param beanName bean name
+     * @return true if registered
+     */
+    public boolean containsBean(final String beanName) {
+        return cfgContext.containsBean(beanName);
+    }
+
     /**
      * register bean in spring ioc.
      *
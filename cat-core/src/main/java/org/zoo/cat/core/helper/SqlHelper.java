@@ -50,6 +50,168 @@ public class SqlHelper {
         }
     }
 
+    /**
+     * create method dictionary table sql.
+     *
+     * @param driverClassName driverClassName .
+     * @param tableName       table name .
+     * @return sql.
+     */
+    public static String buildCreateMethodTableSql(final String driverClassName, final String tableName) {
+        String dbType = DbTypeUtils.buildByDriverClassName(driverClassName);
+        switch (dbType) {
+            case CommonConstant.DB_MYSQL:
+            case CommonConstant.DB_SQLSERVER:
+                return "CREATE TABLE IF NOT EXISTS `" +
+                        tableName +
+                        "` (" +
+                        "  `app_name` varchar(30) NOT NULL COMMENT '项目名称'," +
+                        "  `method_id` int NOT NULL COMMENT '方法ID'," +
+                        "  `signature` varchar(1024) NOT NULL COMMENT '方法签名'," +
+                        "  PRIMARY KEY (`app_name`,`method_id`))";
+            case CommonConstant.DB_ORACLE:
+                return "CREATE TABLE IF NOT EXISTS `" +
+                        tableName +
+                        "` (" +
+                        "  `app_name` varchar(30) NOT NULL COMMENT '项目名称'," +
+                        "  `method_id` number(11) NOT NULL COMMENT '方法ID'," +
+                        "  `signature` varchar(1024) NOT NULL COMMENT '方法签名'," +
+                        "  PRIMARY KEY (`app_name`,`method_id`))";
+            case CommonConstant.DB_POSTGRESQL:
+                return " CREATE TABLE IF NOT EXISTS " +
+                        tableName +
+                        "(" +
+                        "  app_name  varchar(30) NOT NULL," +
+                        "  method_id INTEGER NOT NULL," +
+                        "  signature VARCHAR(1024) NOT NULL," +
+                        "  PRIMARY KEY (app_name, method_id)" +
+                        ");";
+            default:
+                throw new RuntimeException("dbType not support ! The current support mysql oracle sqlserver postgresql.");
+        }
+    }
+
+    /**
+     * create recovery node lease table sql.
+     *
+     * @param driverClassName driverClassName .
+     * @param tableName       table name .
+     * @return sql.
+     */
+    public static String buildCreateNodeTableSql(final String driverClassName, final String tableName) {
+        String dbType = DbTypeUtils.buildByDriverClassName(driverClassName);
+        switch (dbType) {
+            case CommonConstant.DB_MYSQL:
+            case CommonConstant.DB_SQLSERVER:
+                return "CREATE TABLE IF NOT EXISTS `" +
+                        tableName +
+                        "` (" +
+                        "  `app_name` varchar(30) NOT NULL COMMENT '项目名称'," +
+                        "  `node_id` varchar(128) NOT NULL COMMENT '节点ID'," +
+                        "  `expire_time` datetime NOT NULL COMMENT '租约到期时间'," +
+                        "  PRIMARY KEY (`app_name`,`node_id`))";
+            case CommonConstant.DB_ORACLE:
+                return "CREATE TABLE IF NOT EXISTS `" +
+                        tableName +
+                        "` (" +
+                        "  `app_name` varchar(30) NOT NULL COMMENT '项目名称'," +
+                        "  `node_id` varchar(128) NOT NULL COMMENT '节点ID'," +
+                        "  `expire_time` date NOT NULL COMMENT '租约到期时间'," +
+                        "  PRIMARY KEY (`app_name`,`node_id`))";
+            case CommonConstant.DB_POSTGRESQL:
+                return " CREATE TABLE IF NOT EXISTS " +
+                        tableName +
+                        "(" +
+                        "  app_name    varchar(30) NOT NULL," +
+                        "  node_id     VARCHAR(128) NOT NULL," +
+                        "  expire_time TIMESTAMP NOT NULL," +
+                        "  PRIMARY KEY (app_name, node_id)" +
+                        ");";
+            default:
+                throw new RuntimeException("dbType not support ! The current support mysql oracle sqlserver postgresql.");
+        }
+    }
+
+    /**
+     * create notice counter table sql.
+     *
+     * @param driverClassName driverClassName .
+     * @param tableName       table name .
+     * @return sql.
+     */
+    public static String buildCreateCounterTableSql(final String driverClassName, final String tableName) {
+        String dbType = DbTypeUtils.buildByDriverClassName(driverClassName);
+        switch (dbType) {
+            case CommonConstant.DB_MYSQL:
+            case CommonConstant.DB_SQLSERVER:
+            case CommonConstant.DB_ORACLE:
+                return "CREATE TABLE IF NOT EXISTS `" +
+                        tableName +
+                        "` (" +
+                        "  `app_name` varchar(30) NOT NULL COMMENT '项目名称'," +
+                        "  `time_unit` varchar(16) NOT NULL COMMENT '时间单位'," +
+                        "  `bucket` bigint NOT NULL COMMENT '时间桶'," +
+                        "  `counter_key` varchar(512) NOT NULL COMMENT '计数方法'," +
+                        "  `num` bigint NOT NULL COMMENT '计数'," +
+                        "  PRIMARY KEY (`app_name`,`time_unit`,`bucket`,`counter_key`))";
+            case CommonConstant.DB_POSTGRESQL:
+                return " CREATE TABLE IF NOT EXISTS " +
+                        tableName +
+                        "(" +
+                        "  app_name    varchar(30) NOT NULL," +
+                        "  time_unit   VARCHAR(16) NOT NULL," +
+                        "  bucket      BIGINT NOT NULL," +
+                        "  counter_key VARCHAR(512) NOT NULL," +
+                        "  num         BIGINT NOT NULL," +
+                        "  PRIMARY KEY (app_name, time_unit, bucket, counter_key)" +
+                        ");";
+            default:
+                throw new RuntimeException("dbType not support ! The current support mysql oracle sqlserver postgresql.");
+        }
+    }
+
+    /**
+     * date column type.
+     *
+     * @param driverClassName driverClassName .
+     * @return type.
+     */
+    public static String buildDateType(final String driverClassName) {
+        String dbType = DbTypeUtils.buildByDriverClassName(driverClassName);
+        switch (dbType) {
+            case CommonConstant.DB_ORACLE:
+                return "date";
+            case CommonConstant.DB_POSTGRESQL:
+                return "timestamp";
+            default:
+                return "datetime";
+        }
+    }
+
+    /**
+     * add column sql of an old table.
+     *
+     * @param tableName table name .
+     * @param column    column .
+     * @param type      column type .
+     * @return sql.
+     */
+    public static String buildAddColumnSql(final String tableName, final String column, final String type) {
+        return "ALTER TABLE " + tableName + " ADD " + column + " " + type;
+    }
+
+    /**
+     * create index sql.
+     *
+     * @param tableName table name .
+     * @param index     index name .
+     * @param columns   columns .
+     * @return sql.
+     */
+    public static String buildCreateIndexSql(final String tableName, final String index, final String... columns) {
+        return "CREATE INDEX " + index + " ON " + tableName + "(" + String.join(",", columns) + ")";
+    }
+
     private static String buildMysql(final String tableName) {
         return "CREATE TABLE IF NOT EXISTS `" +
                 tableName +
@@ -71,6 +233,8 @@ public class SqlHelper {
                 "  `invocation` longblob COMMENT '方法入参'," +
                 "  `role` tinyint NOT NULL COMMENT '调用角色 1.发起者 2.消费者 3.提供者 4.本地调用 5.内嵌RPC调用 6.SpringCloud 7.http'," +
                 "  `pattern` tinyint COMMENT '事务类型模式值'," +
+                "  `shard_key` int COMMENT '补偿分片槽'," +
+                "  `next_retry_time` datetime COMMENT '下次补偿时间'," +
                 "  PRIMARY KEY (`id`))";  
     }
 
@@ -95,6 +259,8 @@ public class SqlHelper {
                 "  `invocation` BLOB  COMMENT '方法入参'," +
                 "  `role` int(2) NOT NULL COMMENT '调用角色 1.发起者 2.消费者 3.提供者 4.本地调用 5.内嵌RPC调用 6.SpringCloud 7.http'," +
                 "  `pattern` int(2)  COMMENT '事务类型模式值'," +
+                "  `shard_key` int(4) COMMENT '补偿分片槽'," +
+                "  `next_retry_time` date COMMENT '下次补偿时间'," +
                 "  PRIMARY KEY (`id`))";
     }
 
@@ -119,6 +285,8 @@ public class SqlHelper {
                 "  `invocation` varbinary  COMMENT '方法入参'," +
                 "  `role` int(2) NOT NULL COMMENT '调用角色 1.发起者 2.消费者 3.提供者 4.本地调用 5.内嵌RPC调用 6.SpringCloud 7.http'," +
                 "  `pattern` int(2)  COMMENT '事务类型模式值'," +
+                "  `shard_key` int(4) COMMENT '补偿分片槽'," +
+                "  `next_retry_time` datetime COMMENT '下次补偿时间'," +
                 "  PRIMARY KEY (`id`))";
     }
 
@@ -142,7 +310,9 @@ public class SqlHelper {
                 "  status         SMALLINT    NOT NULL COMMENT '执行阶段状态  0.开始执行try 1.try阶段完成 2.confirm阶段 3.cancel阶段 4.notice阶段'," +
                 "  invocation     BYTEA  COMMENT '方法入参'," +
                 "  role           SMALLINT    NOT NULL COMMENT '调用角色 1.发起者 2.消费者 3.提供者 4.本地调用 5.内嵌RPC调用 6.SpringCloud 7.http'," +
-                "  pattern        SMALLINT    NOT NULL  COMMENT '事务类型模式值'" +
+                "  pattern        SMALLINT    NOT NULL  COMMENT '事务类型模式值'," +
+                "  shard_key      INTEGER     COMMENT '补偿分片槽'," +
+                "  next_retry_time TIMESTAMP  COMMENT '下次补偿时间'" +
                 ");";
 
     }
@@ -0,0 +1,194 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package org.zoo.cat.core.reflect;
+
+import org.zoo.cat.annotation.Cat;
+import org.zoo.cat.common.bean.entity.CatInvocation;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.utils.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EN: {@link Cat} of a method of a rpc interface with its confirm and cancel names, resolved once per method.
+ * the methods are cached per interface by name and declared parameter types, a method without {@link Cat} is cached too,
+ * so a call that is not transactional costs one lookup.
+ * CN: rpc接口方法元数据缓存.
+ *
+ * @author dzc
+ */
+public final class CatMethodMetadata {
+
+    private static final ClassValue<Map<MethodKey, Optional<CatMethodMetadata>>> INTERFACES =
+            new ClassValue<Map<MethodKey, Optional<CatMethodMetadata>>>() {
+                @Override
+                protected Map<MethodKey, Optional<CatMethodMetadata>> computeValue(final Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final Class<?> targetClass;
+
+    private final Method method;
+
+    private final Cat cat;
+
+    private final String confirmMethod;
+
+    private final String cancelMethod;
+
+    private CatMethodMetadata(final Class<?> targetClass, final Method method, final Cat cat) {
+        this.targetClass = targetClass;
+        this.method = method;
+        this.cat = cat;
+        this.confirmMethod = StringUtils.isBlank(cat.confirmMethod()) ? method.getName() : cat.confirmMethod();
+        this.cancelMethod = StringUtils.isBlank(cat.cancelMethod()) ? method.getName() : cat.cancelMethod();
+    }
+
+    /**
+     * find the metadata of the method of the interface.
+     *
+     * @param clazz          the interface
+     * @param methodName     method name
+     * @param parameterTypes declared parameter types
+     * @return the metadata, null if the method has no {@link Cat} or is not found
+     */
+    public static CatMethodMetadata of(final Class<?> clazz, final String methodName, final Class<?>[] parameterTypes) {
+        final Map<MethodKey, Optional<CatMethodMetadata>> methods = INTERFACES.get(clazz);
+        final MethodKey key = new MethodKey(methodName, parameterTypes);
+        Optional<CatMethodMetadata> metadata = methods.get(key);
+        if (Objects.isNull(metadata)) {
+            metadata = resolve(clazz, methodName, parameterTypes);
+            methods.putIfAbsent(key.copy(), metadata);
+        }
+        return metadata.orElse(null);
+    }
+
+    /**
+     * find the metadata of the method, on its declaring interface.
+     *
+     * @param method the method
+     * @return the metadata, null if the method has no {@link Cat}
+     */
+    public static CatMethodMetadata of(final Method method) {
+        return of(method.getDeclaringClass(), method.getName(), method.getParameterTypes());
+    }
+
+    private static Optional<CatMethodMetadata> resolve(final Class<?> clazz, final String methodName,
+                                                       final Class<?>[] parameterTypes) {
+        final Method method;
+        try {
+            method = clazz.getMethod(methodName, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(method.getAnnotation(Cat.class))
+                .map(cat -> new CatMethodMetadata(clazz, method, cat));
+    }
+
+    /**
+     * build the participant of the call.
+     *
+     * @param transId transId
+     * @param args    the arguments of the call
+     * @return the cat participant
+     */
+    public CatParticipant participant(final String transId, final Object[] args) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final CatInvocation confirmInvocation = new CatInvocation(targetClass, confirmMethod, parameterTypes, args);
+        final CatInvocation cancelInvocation = new CatInvocation(targetClass, cancelMethod, parameterTypes, args);
+        return new CatParticipant(transId, confirmInvocation, cancelInvocation);
+    }
+
+    /**
+     * the method.
+     *
+     * @return method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * the annotation.
+     *
+     * @return cat
+     */
+    public Cat getCat() {
+        return cat;
+    }
+
+    /**
+     * name of the confirm method.
+     *
+     * @return name
+     */
+    public String getConfirmMethod() {
+        return confirmMethod;
+    }
+
+    /**
+     * name of the cancel method.
+     *
+     * @return name
+     */
+    public String getCancelMethod() {
+        return cancelMethod;
+    }
+
+    private static final class MethodKey {
+
+        private final String name;
+
+        private final Class<?>[] parameterTypes;
+
+        private final int hash;
+
+        private MethodKey(final String name, final Class<?>[] parameterTypes) {
+            this.name = name;
+            this.parameterTypes = parameterTypes == null ? new Class<?>[0] : parameterTypes;
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(this.parameterTypes);
+        }
+
+        private MethodKey copy() {
+            return new MethodKey(name, parameterTypes.clone());
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MethodKey)) {
+                return false;
+            }
+            final MethodKey other = (MethodKey) o;
+            return hash == other.hash && name.equals(other.name) && Arrays.equals(parameterTypes, other.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
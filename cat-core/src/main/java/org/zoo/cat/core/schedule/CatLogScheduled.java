@@ -26,7 +26,7 @@ import org.springframework.context.event.SmartApplicationListener;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.zoo.cat.common.config.CatConfig;
-import org.zoo.cat.core.concurrent.threadpool.CatThreadFactory;
+import org.zoo.cat.core.concurrent.CatRuntime;
 import org.zoo.cat.core.helper.SpringBeanUtils;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
 
@@ -35,7 +35,6 @@ import java.time.ZoneId;
 import java.util.Date;
 import java.util.Objects;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -87,9 +86,7 @@ public class CatLogScheduled implements SmartApplicationListener {
             return;
         }
         catCoordinatorRepository = SpringBeanUtils.getInstance().getBean(CatCoordinatorRepository.class);
-        this.scheduledExecutorService =
-                new ScheduledThreadPoolExecutor(1,
-                        CatThreadFactory.create("cat-notice-safe-second-scheduled", true));
+        this.scheduledExecutorService = SpringBeanUtils.getInstance().getBean(CatRuntime.class).getScheduler();
         selfRecovery();
     }
 
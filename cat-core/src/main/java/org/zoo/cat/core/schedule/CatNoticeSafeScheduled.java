@@ -25,26 +25,33 @@ import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.SmartApplicationListener;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
-import org.zoo.cat.common.bean.entity.CatNoticeSafe;
+import org.zoo.cat.common.bean.entity.CatCounter;
 import org.zoo.cat.common.bean.variate.CatDegradation;
 import org.zoo.cat.common.config.CatConfig;
-import org.zoo.cat.core.concurrent.threadpool.CatThreadFactory;
+import org.zoo.cat.common.config.CatNoticeSafeConfig;
+import org.zoo.cat.common.utils.CollectionUtils;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.core.concurrent.CatRuntime;
 import org.zoo.cat.core.helper.SpringBeanUtils;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
+import org.zoo.cat.core.spi.CatCounterStore;
+import org.zoo.cat.core.spi.repository.TieredCoordinatorRepository;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * EN: the type cat notice safe scheduled.
- * CN: 框架补偿自动开启关闭配置
+ * adds the notice counts of this node to the {@link CatCounterStore} in batches and reads back the cluster counts
+ * of the last second, minute and hour for {@link CatDegradation}. the count of a window is the current bucket
+ * and the part of the previous bucket still in the window.
+ * CN: 框架补偿自动开启关闭配置, 集群计数
  * @author dzc
  */
 @Component
@@ -55,14 +62,15 @@ public class CatNoticeSafeScheduled implements SmartApplicationListener {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(CatNoticeSafeScheduled.class);
 
+    private static final TimeUnit[] UNITS = {TimeUnit.SECONDS, TimeUnit.MINUTES, TimeUnit.HOURS};
+
     private final CatConfig catConfig;
 
     private volatile AtomicBoolean isInit = new AtomicBoolean(false);
 
     private ScheduledExecutorService scheduledExecutorService;
 
-    private CatCoordinatorRepository catCoordinatorRepository;
-
+    private CatCounterStore catCounterStore;
 
     @Autowired(required = false)
     public CatNoticeSafeScheduled(final CatConfig catConfig) {
@@ -89,66 +97,64 @@ public class CatNoticeSafeScheduled implements SmartApplicationListener {
         if (!isInit.compareAndSet(false, true)) {
             return;
         }
-        catCoordinatorRepository = SpringBeanUtils.getInstance().getBean(CatCoordinatorRepository.class);
-        this.scheduledExecutorService =
-                new ScheduledThreadPoolExecutor(1,
-                        CatThreadFactory.create("cat-notice-safe-second-scheduled", true));
-        selfRecovery();
+        final CatNoticeSafeConfig config = catConfig.getCatNoticeSafeConfig();
+        if (Objects.isNull(config.getTimesSecond()) && Objects.isNull(config.getTimesMinute())
+                && Objects.isNull(config.getTimesHour())) {
+            return;
+        }
+        catCounterStore = counterStore();
+        if (Objects.isNull(catCounterStore)) {
+            LogUtil.info(LOGGER, "no counter store, the notice degradation counts this node:{}", catConfig::getRepositorySupport);
+            return;
+        }
+        CatDegradation.share();
+        this.scheduledExecutorService = SpringBeanUtils.getInstance().getBean(CatRuntime.class).getScheduler();
+        scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+                refresh();
+            } catch (Exception e) {
+                LOGGER.error("cat notice safe scheduled  is error:", e);
+            }
+        }, config.getNoticeScheduledDelay(), config.getNoticeScheduledDelay(), TimeUnit.SECONDS);
     }
 
-    /**
-     * if have some exception by schedule execute cat transaction log.
-     */
-    private void selfRecovery() {
-        scheduledExecutorService
-                .scheduleWithFixedDelay(() -> {
-                        try {
-		                    	 if(Objects.nonNull(catConfig.getCatNoticeSafeConfig().getTimesSecond())) {
-		                          List<CatNoticeSafe> catNoticeSafeList = catCoordinatorRepository.countLogsByDelay(acquireSecondsData(),TimeUnit.SECONDS.name());
-		                          CatDegradation.catNoticeSafe = catNoticeSafeList;
-		                     }
-		                    	 
-		                    	 
-                            if(Objects.isNull(catConfig.getCatNoticeSafeConfig().getTimesSecond()) 
-                            		  && Objects.nonNull(catConfig.getCatNoticeSafeConfig().getTimesMinute())) {
-                                      List<CatNoticeSafe> catNoticeSafeList = catCoordinatorRepository.countLogsByDelay(acquireMinutesData(),TimeUnit.MINUTES.name());
-  		                              CatDegradation.catNoticeSafe = catNoticeSafeList;
-                            }
-                            
-                            if(Objects.nonNull(catConfig.getCatNoticeSafeConfig().getTimesHour()) 
-                            		  && (Objects.isNull(catConfig.getCatNoticeSafeConfig().getTimesSecond()) 
-                            				  || Objects.isNull(catConfig.getCatNoticeSafeConfig().getTimesMinute()))) {
-                                              List<CatNoticeSafe> catNoticeSafeList = catCoordinatorRepository.countLogsByDelay(acquireHourData(),TimeUnit.HOURS.name());
-  		                                      CatDegradation.catNoticeSafe = catNoticeSafeList;
-                            }
-                        } catch (Exception e) {
-                            LOGGER.error("cat notice safe scheduled  is error:", e);
-                        } 
-                }, catConfig.getScheduledInitDelay(), catConfig.getCatNoticeSafeConfig().getNoticeScheduledDelay(), TimeUnit.SECONDS);
-
+    private void flush() {
+        final List<CatCounter> counters = CatDegradation.drain();
+        if (CollectionUtils.isNotEmpty(counters)) {
+            catCounterStore.incrementCounters(counters);
+        }
     }
 
-    /**
-     * seconds acquire time
-     * */
-    private Date acquireSecondsData() {
-        return new Date(LocalDateTime.now().atZone(ZoneId.systemDefault())
-                .toInstant().toEpochMilli() - (catConfig.getCatNoticeSafeConfig().getNoticeScheduledDelay() * 1000));
-    }
-    
-    /**
-     * minutes acquire time
-     * */
-    private Date acquireMinutesData() {
-        return new Date(LocalDateTime.now().atZone(ZoneId.systemDefault())
-                .toInstant().toEpochMilli() - (catConfig.getCatNoticeSafeConfig().getNoticeScheduledDelay() * 1000 * 60));
+    private void refresh() {
+        final Set<String> keys = CatDegradation.keys();
+        if (keys.isEmpty()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final Map<String, long[]> totals = new HashMap<>(keys.size());
+        for (int i = 0; i < UNITS.length; i++) {
+            final long unitMills = UNITS[i].toMillis(1);
+            final long bucket = now / unitMills;
+            final double previousPart = 1 - (double) (now % unitMills) / unitMills;
+            final Map<String, Long> current = catCounterStore.findCounters(UNITS[i].name(), bucket, keys);
+            final Map<String, Long> previous = catCounterStore.findCounters(UNITS[i].name(), bucket - 1, keys);
+            for (String key : keys) {
+                final long total = current.getOrDefault(key, 0L) + (long) (previous.getOrDefault(key, 0L) * previousPart);
+                totals.computeIfAbsent(key, k -> new long[UNITS.length])[i] = total;
+            }
+        }
+        CatDegradation.cluster(totals);
     }
-    
-    /**
-     * hour acquire time
-     * */
-    private Date acquireHourData() {
-        return new Date(LocalDateTime.now().atZone(ZoneId.systemDefault())
-                .toInstant().toEpochMilli() - (catConfig.getCatNoticeSafeConfig().getNoticeScheduledDelay() * 1000 * 60 * 60));
+
+    private CatCounterStore counterStore() {
+        if (SpringBeanUtils.getInstance().containsBean(CatCounterStore.class.getName())) {
+            return SpringBeanUtils.getInstance().getBean(CatCounterStore.class);
+        }
+        CatCoordinatorRepository repository = SpringBeanUtils.getInstance().getBean(CatCoordinatorRepository.class);
+        if (repository instanceof TieredCoordinatorRepository) {
+            repository = ((TieredCoordinatorRepository) repository).getRemote();
+        }
+        return repository instanceof CatCounterStore ? (CatCounterStore) repository : null;
     }
 }
@@ -20,21 +20,28 @@ package org.zoo.cat.core.schedule;
 import org.zoo.cat.annotation.TransTypeEnum;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.SmartApplicationListener;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.config.CatConfig;
 import org.zoo.cat.common.enums.CatActionEnum;
 import org.zoo.cat.common.enums.CatRoleEnum;
 import org.zoo.cat.common.utils.CollectionUtils;
 import org.zoo.cat.common.utils.LogUtil;
-import org.zoo.cat.core.concurrent.threadpool.CatThreadFactory;
+import org.zoo.cat.core.concurrent.CatRuntime;
 import org.zoo.cat.core.helper.SpringBeanUtils;
-import org.zoo.cat.core.service.recovery.CatTransactionRecoveryService;
+import org.zoo.cat.core.service.recovery.CatFastRetryService;
+import org.zoo.cat.core.service.recovery.CatRecoveryGuard;
+import org.zoo.cat.core.service.recovery.CatRecoverySharding;
+import org.zoo.cat.core.service.recovery.CatRetryPolicy;
+import org.zoo.cat.core.service.recovery.CatStartupRecovery;
+import org.zoo.cat.core.service.recovery.CatTransactionRecoveryEngine;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
 
 import java.time.LocalDateTime;
@@ -43,17 +50,21 @@ import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * EN:The type Cat transaction self recovery scheduled.
+ * the scan runs on one scheduled thread, the recovery runs on the workers of {@link CatTransactionRecoveryEngine}.
+ * in a cluster every node scans only its own shard, see {@link CatRecoverySharding}.
+ * on start the {@link CatStartupRecovery} drains the backlog first, the scan starts after it.
  * CN:定时补偿失败的请求
  * @author dzc
  */
 @Component
-public class CatTransactionSelfRecoveryScheduled implements SmartApplicationListener {
+public class CatTransactionSelfRecoveryScheduled implements SmartApplicationListener, DisposableBean {
 
     /**
      * logger.
@@ -66,9 +77,21 @@ public class CatTransactionSelfRecoveryScheduled implements SmartApplicationList
 
     private ScheduledExecutorService scheduledExecutorService;
 
+    private volatile ScheduledFuture<?> scan;
+
+    private CatRuntime catRuntime;
+
     private CatCoordinatorRepository catCoordinatorRepository;
 
-    private CatTransactionRecoveryService catTransactionRecoveryService;
+    private CatTransactionRecoveryEngine catTransactionRecoveryEngine;
+
+    private CatRecoverySharding catRecoverySharding;
+
+    private CatFastRetryService catFastRetryService;
+
+    private CatRecoveryGuard catRecoveryGuard;
+
+    private CatStartupRecovery catStartupRecovery;
 
     @Autowired(required = false)
     public CatTransactionSelfRecoveryScheduled(final CatConfig catConfig) {
@@ -96,70 +119,152 @@ public class CatTransactionSelfRecoveryScheduled implements SmartApplicationList
             return;
         }
         catCoordinatorRepository = SpringBeanUtils.getInstance().getBean(CatCoordinatorRepository.class);
-        this.scheduledExecutorService =
-                new ScheduledThreadPoolExecutor(1,
-                        CatThreadFactory.create("cat-transaction-self-recovery", true));
-        catTransactionRecoveryService = new CatTransactionRecoveryService(catCoordinatorRepository);
-        selfRecovery();
+        catFastRetryService = SpringBeanUtils.getInstance().getBean(CatFastRetryService.class);
+        catRuntime = SpringBeanUtils.getInstance().getBean(CatRuntime.class);
+        this.scheduledExecutorService = catRuntime.getScheduler();
+        catRecoveryGuard = SpringBeanUtils.getInstance().getBean(CatRecoveryGuard.class);
+        catTransactionRecoveryEngine = new CatTransactionRecoveryEngine(catCoordinatorRepository,
+                new CatRetryPolicy(catConfig), catRecoveryGuard, catConfig.getScheduledThreadMax(), catConfig.getRecoveryQueueSize(),
+                catRuntime.blockingThreadFactory("cat-transaction-recovery"));
+        catTransactionRecoveryEngine.start();
+        if (catConfig.isRecoverySharding()) {
+            catRecoverySharding = new CatRecoverySharding(catCoordinatorRepository,
+                    TimeUnit.SECONDS.toMillis(catConfig.getScheduledDelay() * 3L));
+        }
+        if (catConfig.getStartupRecoveryThreads() > 0) {
+            startupRecovery();
+        } else {
+            selfRecovery();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (!isInit.get()) {
+            return;
+        }
+        //the scheduler is shared, only the scan of this node is stopped
+        if (Objects.nonNull(scan)) {
+            scan.cancel(true);
+        }
+        if (Objects.nonNull(catStartupRecovery)) {
+            catStartupRecovery.stop();
+        }
+        catTransactionRecoveryEngine.stop();
+        if (Objects.nonNull(catRecoverySharding)) {
+            catRecoverySharding.leave();
+        }
     }
 
     /**
      * if have some exception by schedule execute cat transaction log.
      */
     private void selfRecovery() {
-        scheduledExecutorService
+        scan = scheduledExecutorService
                 .scheduleWithFixedDelay(() -> {
                     LogUtil.debug(LOGGER, "self recovery execute delayTime:{}", catConfig::getScheduledDelay);
                     try {
-                        final List<CatTransaction> catTransactions = catCoordinatorRepository.listAllByDelay(acquireData());
+                        final List<CatTransaction> catTransactions = catCoordinatorRepository.listAllByQuery(query());
                         if (CollectionUtils.isEmpty(catTransactions)) {
                             return;
                         }
-                        for (CatTransaction catTransaction : catTransactions) {
-                            // if the try is not completed, no compensation will be provided (to prevent various exceptions in the try phase)
-                            if (catTransaction.getRole() == CatRoleEnum.PROVIDER.getCode()
-                                    && catTransaction.getStatus() == CatActionEnum.PRE_TRY.getCode()) {
-                                catCoordinatorRepository.remove(catTransaction.getTransId());
-                                continue;
-                            }
-                            
-                            if (catTransaction.getRetriedCount() >= catTransaction.getRetryMax()) {
-                                LogUtil.debug(LOGGER, "This transaction exceeds the maximum number of retries and no retries will occur：{}", () -> catTransaction);
-                                continue;
-                            }
-                            if (Objects.equals(catTransaction.getPattern(), TransTypeEnum.CC.getCode())
-                                    && catTransaction.getStatus() == CatActionEnum.TRYING.getCode()) {
-                                continue;
-                            }
-                            // if the transaction role is the provider, and the number of retries in the scope class cannot be executed, only by the initiator
-                            if (catTransaction.getRole() == CatRoleEnum.PROVIDER.getCode()
-                                    && (catTransaction.getCreateTime().getTime()
-                                    + catConfig.getRecoverDelayTime() * catConfig.getLoadFactor() * 1000
-                                    > System.currentTimeMillis())) {
-                                continue;
-                            }
-                            catTransaction.setRetriedCount(catTransaction.getRetriedCount() + 1);
-                            final int rows = catCoordinatorRepository.update(catTransaction);
-                            // determine that rows>0 is executed to prevent concurrency when the business side is in cluster mode
-                            if (rows > 0) {
-                                if (catTransaction.getStatus() == CatActionEnum.TRYING.getCode()
-                                        || catTransaction.getStatus() == CatActionEnum.PRE_TRY.getCode()
-                                        || catTransaction.getStatus() == CatActionEnum.CANCELING.getCode()) {
-                                    catTransactionRecoveryService.cancel(catTransaction);
-                                } else if (catTransaction.getStatus() == CatActionEnum.CONFIRMING.getCode()) {
-                                    catTransactionRecoveryService.confirm(catTransaction);
-                                } else if (catTransaction.getStatus() == CatActionEnum.NOTICEING.getCode()) {
-                                    catTransactionRecoveryService.notice(catTransaction);
-                                }
-                            }
-                        }
+                        catTransactions.stream()
+                                .map(CatTransactionRecoveryEngine::prioritize)
+                                .sorted(CatTransactionRecoveryEngine.PRIORITY)
+                                .filter(this::admit)
+                                .forEach(catTransactionRecoveryEngine::submit);
                     } catch (Exception e) {
                         LOGGER.error("cat scheduled transaction log is error:", e);
-                    } 
+                    } finally {
+                        if (catTransactionRecoveryEngine.getQueued() + catTransactionRecoveryEngine.getInFlight() > 0) {
+                            LogUtil.info(LOGGER, "self recovery progress:{}", this::progress);
+                        } else {
+                            LogUtil.debug(LOGGER, "self recovery progress:{}", this::progress);
+                        }
+                    }
                 }, catConfig.getScheduledInitDelay(), catConfig.getScheduledDelay(), TimeUnit.SECONDS);
 
     }
 
+    /**
+     * the rules of the recovery, shared by the scan and the startup recovery.
+     *
+     * @param catTransaction the cat transaction
+     * @return true if it should be recovered now
+     */
+    private boolean admit(final CatTransaction catTransaction) {
+        // if the try is not completed, no compensation will be provided (to prevent various exceptions in the try phase)
+        if (catTransaction.getRole() == CatRoleEnum.PROVIDER.getCode()
+                && catTransaction.getStatus() == CatActionEnum.PRE_TRY.getCode()) {
+            catCoordinatorRepository.remove(catTransaction.getTransId());
+            return false;
+        }
+        // still retried in memory by this node
+        if (catFastRetryService.isRetrying(catTransaction.getTransId())) {
+            return false;
+        }
+        if (catTransaction.getRetriedCount() >= catTransaction.getRetryMax()) {
+            // parked out of the scanned set, repositories without a dead letter store keep it
+            if (!catTransactionRecoveryEngine.park(catTransaction)) {
+                LogUtil.debug(LOGGER, "This transaction exceeds the maximum number of retries and no retries will occur：{}", () -> catTransaction);
+            }
+            return false;
+        }
+        if (Objects.equals(catTransaction.getPattern(), TransTypeEnum.CC.getCode())
+                && catTransaction.getStatus() == CatActionEnum.TRYING.getCode()) {
+            return false;
+        }
+        // if the transaction role is the provider, and the number of retries in the scope class cannot be executed, only by the initiator
+        return catTransaction.getRole() != CatRoleEnum.PROVIDER.getCode()
+                || catTransaction.getCreateTime().getTime()
+                + catConfig.getRecoverDelayTime() * catConfig.getLoadFactor() * 1000 <= System.currentTimeMillis();
+    }
+
+    /**
+     * warm the cache with the pending provider transactions of this node before the app is ready,
+     * read the due ones and start the scan when they are recovered.
+     */
+    private void startupRecovery() {
+        catStartupRecovery = new CatStartupRecovery(catCoordinatorRepository, catTransactionRecoveryEngine,
+                catConfig.getStartupRecoveryThreads(), catRuntime.blockingThreadFactory("cat-startup-recovery"));
+        final int cached;
+        final List<CatTransaction> due;
+        try {
+            final CatRecoveryQuery shard = query();
+            cached = catStartupRecovery.warm(shard);
+            due = catStartupRecovery.load(shard);
+        } catch (Exception e) {
+            LOGGER.error("cat startup recovery load is error:", e);
+            catStartupRecovery.stop();
+            selfRecovery();
+            return;
+        }
+        final List<CatTransaction> recoverList = due.stream()
+                .filter(this::admit)
+                .collect(Collectors.toList());
+        LogUtil.info(LOGGER, "startup recovery:{}", () -> "cached " + cached + " due " + due.size()
+                + " admitted " + recoverList.size());
+        catStartupRecovery.recover(recoverList).whenComplete((result, e) -> selfRecovery());
+    }
+
+    private CatRecoveryQuery query() {
+        return Objects.isNull(catRecoverySharding)
+                ? new CatRecoveryQuery(acquireData(), new Date()) : catRecoverySharding.query(acquireData());
+    }
+
+    private String progress() {
+        return "fastRecovered " + catFastRetryService.getRecovered()
+                + " fastHandedOff " + catFastRetryService.getHandedOff()
+                + " queued " + catTransactionRecoveryEngine.getQueued()
+                + " inFlight " + catTransactionRecoveryEngine.getInFlight()
+                + " done " + catTransactionRecoveryEngine.getDone()
+                + " failed " + catTransactionRecoveryEngine.getFailed()
+                + " skipped " + catTransactionRecoveryEngine.getSkipped()
+                + " parked " + catTransactionRecoveryEngine.getParked()
+                + " throttled " + catTransactionRecoveryEngine.getThrottled()
+                + " openBreakers " + catRecoveryGuard.getOpen();
+    }
+
     private Date acquireData() {
         return new Date(LocalDateTime.now().atZone(ZoneId.systemDefault())
                 .toInstant().toEpochMilli() - (catConfig.getRecoverDelayTime() * 1000));
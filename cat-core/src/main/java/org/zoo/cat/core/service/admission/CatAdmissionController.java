@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.service.admission;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.zoo.cat.common.config.CatAdmissionConfig;
+import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.exception.CatRuntimeException;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.core.concurrent.CatAdaptiveLimit;
+import org.zoo.cat.core.concurrent.CatRuntime;
+import org.zoo.cat.core.disruptor.publisher.CatTransactionEventPublisher;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EN: admission of the starter calls of the {@code @Cat} methods.
+ * only a call without an incoming transaction context is admitted here, a provider try and the confirm or cancel
+ * of a started transaction are never rejected or degraded, and their latency is not fed into the limits.
+ * a call is admitted while its method is under its {@link CatAdaptiveLimit} and the log writes waiting for the
+ * repository are under the cap of the app, so a slow repository sheds the calls instead of blocking the callers
+ * on the ring buffer. a call that is not admitted fails fast, or runs without the transaction when degrade is set.
+ * the slot of a call that returns a {@link CompletionStage} or a {@code Mono} is given back when the returned value
+ * completes, so the limit sees the latency of the try and not the time to return, or after a minute at the latest.
+ * CN: 准入控制.
+ *
+ * @author dzc
+ */
+@Component
+public class CatAdmissionController {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatAdmissionController.class);
+
+    private static final boolean REACTOR = ClassUtils.isPresent("reactor.core.publisher.Mono", CatAdmissionController.class.getClassLoader());
+
+    private static final long RELEASE_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    private final CatAdmissionConfig config;
+
+    private final CatTransactionEventPublisher catTransactionEventPublisher;
+
+    private final CatRuntime catRuntime;
+
+    private final Map<Method, CatAdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder degraded = new LongAdder();
+
+    /**
+     * Instantiates a new Cat admission controller.
+     *
+     * @param catConfig                    the cat config
+     * @param catTransactionEventPublisher the cat transaction event publisher
+     * @param catRuntime                   the cat runtime
+     */
+    @Autowired
+    public CatAdmissionController(final CatConfig catConfig,
+                                  final CatTransactionEventPublisher catTransactionEventPublisher,
+                                  final CatRuntime catRuntime) {
+        this.config = Optional.ofNullable(catConfig.getCatAdmissionConfig()).orElseGet(CatAdmissionConfig::new);
+        this.catTransactionEventPublisher = catTransactionEventPublisher;
+        this.catRuntime = catRuntime;
+    }
+
+    /**
+     * is the admission control on.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * take a slot of the method of the call.
+     *
+     * @param point the point
+     * @return the limit to release with the latency of the call, null if the call is not admitted
+     */
+    public CatAdaptiveLimit acquire(final ProceedingJoinPoint point) {
+        if (catTransactionEventPublisher.getPending() >= config.getMaxPending()) {
+            return null;
+        }
+        final CatAdaptiveLimit limit = limits.computeIfAbsent(((MethodSignature) point.getSignature()).getMethod(),
+            method -> new CatAdaptiveLimit(config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(),
+                    config.getBackoffRatio(), config.getLatencyTolerance()));
+        return limit.tryAcquire() ? limit : null;
+    }
+
+    /**
+     * give back the slot of an admitted call, when its returned value completes if it is async.
+     *
+     * @param limit       the limit of the call
+     * @param startNanos  start of the call
+     * @param returnValue the return value
+     * @return the value to return in place of the return value
+     */
+    public Object release(final CatAdaptiveLimit limit, final long startNanos, final Object returnValue) {
+        final boolean mono = REACTOR && Reactive.isMono(returnValue);
+        if (!mono && !(returnValue instanceof CompletionStage)) {
+            limit.release(System.nanoTime() - startNanos);
+            return returnValue;
+        }
+        final Slot slot = new Slot(limit, startNanos);
+        slot.timeout = catRuntime.getScheduler().schedule(slot::release, RELEASE_TIMEOUT, TimeUnit.MILLISECONDS);
+        if (mono) {
+            return Reactive.releaseOnTerminate(returnValue, slot);
+        }
+        ((CompletionStage<?>) returnValue).whenComplete((value, error) -> slot.release());
+        return returnValue;
+    }
+
+    /**
+     * handle the call that is not admitted.
+     *
+     * @param point the point
+     * @return the result of the method when degrade is set
+     * @throws Throwable the exception of the method, or {@link CatRuntimeException} when the call fails fast
+     */
+    public Object reject(final ProceedingJoinPoint point) throws Throwable {
+        if (config.isDegrade()) {
+            degraded.increment();
+            LogUtil.debug(LOGGER, "cat admission degrade:{}", point::toShortString);
+            return point.proceed();
+        }
+        rejected.increment();
+        throw new CatRuntimeException("cat admission rejected, too many calls or log writes pending:" + point.toShortString());
+    }
+
+    /**
+     * calls failed fast.
+     *
+     * @return count
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * calls run without the transaction.
+     *
+     * @return count
+     */
+    public long getDegraded() {
+        return degraded.sum();
+    }
+
+    /**
+     * the slot of an async call, given back once.
+     */
+    private static final class Slot {
+
+        private final CatAdaptiveLimit limit;
+
+        private final long startNanos;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private volatile ScheduledFuture<?> timeout;
+
+        private Slot(final CatAdaptiveLimit limit, final long startNanos) {
+            this.limit = limit;
+            this.startNanos = startNanos;
+        }
+
+        private void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            limit.release(System.nanoTime() - startNanos);
+            if (Objects.nonNull(timeout)) {
+                timeout.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * the reactor part, loaded only when reactor-core is present.
+     */
+    private static final class Reactive {
+
+        private static boolean isMono(final Object returnValue) {
+            return returnValue instanceof Mono;
+        }
+
+        private static Object releaseOnTerminate(final Object returnValue, final Slot slot) {
+            return ((Mono<?>) returnValue).doFinally(signal -> slot.release());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package org.zoo.cat.core.service.executor;
+
+import org.zoo.cat.common.bean.context.CatTransactionContext;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * EN: the transaction of a reactive {@code @Cat} method in the Reactor {@link Context} of its subscription.
+ * the thread locals are not used there, read the context with {@link #transactionContext()} and run the blocking
+ * rpc calls of the participants with {@link #inScope(Supplier)}. needs reactor-core on the classpath.
+ * CN: Reactor上下文中的事务.
+ *
+ * @author dzc
+ */
+public final class CatReactorContext {
+
+    /**
+     * key of the {@link CatTransactionContext}.
+     */
+    public static final Class<CatTransactionContext> CONTEXT_KEY = CatTransactionContext.class;
+
+    /**
+     * key of the {@link CatTransactionScope}.
+     */
+    public static final Class<CatTransactionScope> SCOPE_KEY = CatTransactionScope.class;
+
+    private CatReactorContext() {
+    }
+
+    /**
+     * put the scope into the context.
+     *
+     * @param context the context
+     * @param scope   the scope
+     * @return the context
+     */
+    public static Context put(final Context context, final CatTransactionScope scope) {
+        if (!scope.isActive()) {
+            return context;
+        }
+        final Context withScope = context.put(SCOPE_KEY, scope);
+        return Optional.ofNullable(scope.getContext()).map(c -> withScope.put(CONTEXT_KEY, c)).orElse(withScope);
+    }
+
+    /**
+     * the transaction context of the subscription.
+     *
+     * @return the transaction context, empty if none
+     */
+    public static Mono<CatTransactionContext> transactionContext() {
+        return Mono.subscriberContext().flatMap(context -> Mono.justOrEmpty(context.<CatTransactionContext>getOrEmpty(CONTEXT_KEY)));
+    }
+
+    /**
+     * run the call with the transaction of the subscription bound to the thread.
+     *
+     * @param call the call
+     * @param <T>  the result type
+     * @return the result
+     */
+    public static <T> Mono<T> inScope(final Supplier<T> call) {
+        return Mono.subscriberContext().flatMap(context -> Mono.justOrEmpty(context.<CatTransactionScope>getOrEmpty(SCOPE_KEY)
+                .map(scope -> scope.wrap(call))
+                .orElse(call)
+                .get()));
+    }
+}
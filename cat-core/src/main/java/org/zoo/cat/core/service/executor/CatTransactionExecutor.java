@@ -17,6 +17,7 @@
 
 package org.zoo.cat.core.service.executor;
 
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
@@ -42,12 +43,20 @@ import org.zoo.cat.core.cache.CatTransactionGuavaCacheManager;
 import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
 import org.zoo.cat.core.disruptor.publisher.CatTransactionEventPublisher;
 import org.zoo.cat.core.reflect.CatReflector;
+import org.zoo.cat.core.service.recovery.CatFastRetryService;
 import org.zoo.cat.core.utils.JoinPointUtils;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 
@@ -69,16 +78,27 @@ public class CatTransactionExecutor {
      */
     private static final ThreadLocal<CatTransaction> CURRENT = new ThreadLocal<>();
 
+    /**
+     * async tries of the starters, held as long as the transaction is reachable.
+     */
+    private static final Map<CatTransaction, AsyncTries> ASYNC_TRIES =
+            CacheBuilder.newBuilder().weakKeys().<CatTransaction, AsyncTries>build().asMap();
+
     private final CatTransactionEventPublisher catTransactionEventPublisher;
 
+    private final CatFastRetryService catFastRetryService;
+
     /**
      * Instantiates a new Cat transaction executor.
      *
      * @param catTransactionEventPublisher the cat transaction event publisher
+     * @param catFastRetryService          the cat fast retry service
      */
     @Autowired
-    public CatTransactionExecutor(final CatTransactionEventPublisher catTransactionEventPublisher) {
+    public CatTransactionExecutor(final CatTransactionEventPublisher catTransactionEventPublisher,
+                                  final CatFastRetryService catFastRetryService) {
         this.catTransactionEventPublisher = catTransactionEventPublisher;
+        this.catFastRetryService = catFastRetryService;
     }
 
     /**
@@ -280,6 +300,30 @@ public class CatTransactionExecutor {
     }
 
 
+    /**
+     * leave the confirm or cancel of the transaction to the fast retry and the log, when it can not run now.
+     * nothing runs on the calling thread, when the fast retry refuses it the scheduled recovery takes it from the log.
+     *
+     * @param currentTransaction {@linkplain CatTransaction}
+     * @param action             {@link CatActionEnum#CONFIRMING} or {@link CatActionEnum#CANCELING}
+     */
+    public void defer(final CatTransaction currentTransaction, final CatActionEnum action) {
+        if (Objects.isNull(currentTransaction) || CollectionUtils.isEmpty(currentTransaction.getCatParticipants())) {
+            return;
+        }
+        if (action == CatActionEnum.CANCELING && currentTransaction.getStatus() == CatActionEnum.TRYING.getCode()
+                && Objects.equals(currentTransaction.getPattern(), TransTypeEnum.CC.getCode())) {
+            deleteTransaction(currentTransaction);
+            return;
+        }
+        currentTransaction.setStatus(action.getCode());
+        updateStatus(currentTransaction);
+        if (!catFastRetryService.retry(currentTransaction)) {
+            LogUtil.warn(LOGGER, "lane is full, the transaction is left to the scheduled recovery:{}",
+                    currentTransaction::getTransId);
+        }
+    }
+
     /**
      * update transaction status by disruptor.
      *
@@ -324,6 +368,112 @@ public class CatTransactionExecutor {
         CURRENT.remove();
     }
 
+    /**
+     * add the participant of an async try when the try completes.
+     * the transaction is captured on the calling thread, the completion may run on any thread.
+     * the tries of a starter are awaited by {@link #awaitAsyncTries(CatTransaction)} before its confirm or cancel.
+     *
+     * @param context        the transaction context of the call
+     * @param catParticipant {@linkplain CatParticipant}
+     * @param tried          completes when the remote try completes, exceptionally if it failed
+     */
+    public void enlistAsync(final CatTransactionContext context, final CatParticipant catParticipant,
+                            final CompletableFuture<?> tried) {
+        if (Objects.isNull(catParticipant)) {
+            return;
+        }
+        final CatTransaction current = getCurrentTransaction();
+        final String transId = context.getTransId();
+        final CompletableFuture<Void> enlisted = tried.thenAccept(result -> {
+            if (context.getRole() == CatRoleEnum.INLINE.getCode() || Objects.isNull(current)) {
+                registerByNested(transId, catParticipant);
+            } else {
+                current.registerParticipant(catParticipant);
+                updateParticipant(current);
+            }
+        });
+        track(current, enlisted);
+    }
+
+    /**
+     * let the starter of the transaction wait for the async work before its confirm or cancel.
+     * the work tracked after the tries of the starter are finished is not awaited, it is refused and logged.
+     *
+     * @param catTransaction the cat transaction, ignored unless it is a starter
+     * @param completion     completes when the work is done
+     * @return false if the tries of the starter are finished
+     */
+    static boolean track(final CatTransaction catTransaction, final CompletableFuture<Void> completion) {
+        if (Objects.isNull(catTransaction) || catTransaction.getRole() != CatRoleEnum.START.getCode()) {
+            return true;
+        }
+        if (ASYNC_TRIES.computeIfAbsent(catTransaction, key -> new AsyncTries()).add(completion)) {
+            return true;
+        }
+        LogUtil.warn(LOGGER, "async try after the starter finished its tries is not awaited:{}", catTransaction::getTransId);
+        return false;
+    }
+
+    /**
+     * the transaction of the calling thread.
+     *
+     * @return the cat transaction
+     */
+    static CatTransaction current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * bind the transaction to the calling thread.
+     *
+     * @param catTransaction the cat transaction, null to unbind
+     * @return the transaction bound before
+     */
+    static CatTransaction bind(final CatTransaction catTransaction) {
+        final CatTransaction previous = CURRENT.get();
+        if (Objects.isNull(catTransaction)) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(catTransaction);
+        }
+        return previous;
+    }
+
+    /**
+     * wait for the async tries of the transaction, their participants are added when this returns.
+     * the tries are finished, the wait is bounded by the timeout of the transaction.
+     *
+     * @param catTransaction the cat transaction
+     * @throws CatRuntimeException if a try failed or the timeout elapsed
+     */
+    public void awaitAsyncTries(final CatTransaction catTransaction) {
+        final CompletableFuture<Void> tries = finishAsyncTries(catTransaction);
+        try {
+            if (catTransaction.getTimeoutMills() > 0) {
+                tries.get(catTransaction.getTimeoutMills(), TimeUnit.MILLISECONDS);
+            } else {
+                tries.join();
+            }
+        } catch (CompletionException | ExecutionException e) {
+            throw new CatRuntimeException("async try exception", e.getCause());
+        } catch (TimeoutException e) {
+            throw new CatRuntimeException("async try timeout:" + catTransaction.getTimeoutMills() + "ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CatRuntimeException("async try interrupted", e);
+        }
+    }
+
+    /**
+     * the async tries of the transaction tracked until now, no more is tracked after.
+     *
+     * @param catTransaction the cat transaction
+     * @return completes when the tries complete, exceptionally if one failed
+     */
+    public CompletableFuture<Void> finishAsyncTries(final CatTransaction catTransaction) {
+        return ASYNC_TRIES.computeIfAbsent(catTransaction, key -> new AsyncTries()).finish();
+    }
+
     /**
      * add participant.
      *
@@ -368,6 +518,8 @@ public class CatTransactionExecutor {
         } else {
             currentTransaction.setCatParticipants(failList);
             updateParticipant(currentTransaction);
+            //short failures mostly pass on a retry, the log above stays for the scheduled recovery
+            catFastRetryService.retry(currentTransaction);
             throw new CatRuntimeException(failList.toString());
         }
     }
@@ -412,6 +564,7 @@ public class CatTransactionExecutor {
         catTransaction.setRetryMax(cat.retryMax());
         catTransaction.setTransType(cat.pattern().getDesc());
         catTransaction.setTimeoutMills(cat.timeoutMills());
+        catTransaction.setPriority(cat.priority());
         
         String targetMethod = method.getName(); 
         String confirmMethodName = cat.confirmMethod();
@@ -490,4 +643,31 @@ public class CatTransactionExecutor {
 	        return null;
 	}
 
+
+    /**
+     * the async tries of one starter.
+     */
+    private static final class AsyncTries {
+
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        private boolean finished;
+
+        private synchronized boolean add(final CompletableFuture<Void> completion) {
+            if (finished) {
+                return false;
+            }
+            //the succeeded ones are dropped, they would keep the transaction reachable
+            futures.removeIf(future -> future.isDone() && !future.isCompletedExceptionally());
+            futures.add(completion);
+            return true;
+        }
+
+        private synchronized CompletableFuture<Void> finish() {
+            finished = true;
+            final CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+            futures.clear();
+            return all;
+        }
+    }
 }
@@ -0,0 +1,203 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package org.zoo.cat.core.service.executor;
+
+import org.zoo.cat.common.bean.context.CatTransactionContext;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * EN: handle of the transaction of a thread, to run the tries of a starter on other threads.
+ * capture the scope on the thread of the starter and bind it on the worker, the participants enlisted there
+ * go to the same transaction. the work handed to {@link #executor(Executor)} is awaited by the starter before its
+ * confirm or cancel, its failures are left to the caller of the work. work handed over after the starter finished
+ * its tries still runs, but is not awaited.
+ * CN: 事务作用域, 用于并行调用参与者.
+ *
+ * @author dzc
+ */
+public final class CatTransactionScope {
+
+    private final CatTransaction catTransaction;
+
+    private final CatTransactionContext context;
+
+    private CatTransactionScope(final CatTransaction catTransaction, final CatTransactionContext context) {
+        this.catTransaction = catTransaction;
+        this.context = context;
+    }
+
+    /**
+     * capture the transaction of the calling thread.
+     *
+     * @return the scope, not active if the thread has no transaction
+     */
+    public static CatTransactionScope capture() {
+        return new CatTransactionScope(CatTransactionExecutor.current(), CatTransactionContextLocal.getInstance().get());
+    }
+
+    /**
+     * an executor that runs every task in the scope of the thread that submits it.
+     *
+     * @param delegate the executor
+     * @return the executor
+     */
+    public static Executor executor(final Executor delegate) {
+        return task -> {
+            final CatTransactionScope scope = capture();
+            if (!scope.isActive()) {
+                delegate.execute(task);
+                return;
+            }
+            final CompletableFuture<Void> completion = new CompletableFuture<>();
+            CatTransactionExecutor.track(scope.catTransaction, completion);
+            final Runnable wrapped = scope.wrap(task);
+            try {
+                delegate.execute(() -> {
+                    try {
+                        wrapped.run();
+                    } finally {
+                        completion.complete(null);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                completion.complete(null);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * has the scope a transaction.
+     *
+     * @return true if active
+     */
+    public boolean isActive() {
+        return Objects.nonNull(catTransaction) || Objects.nonNull(context);
+    }
+
+    /**
+     * the transaction of the scope.
+     *
+     * @return the cat transaction
+     */
+    public CatTransaction getCatTransaction() {
+        return catTransaction;
+    }
+
+    /**
+     * the transaction context of the scope.
+     *
+     * @return the cat transaction context
+     */
+    public CatTransactionContext getContext() {
+        return context;
+    }
+
+    /**
+     * bind the scope to the calling thread, close the binding to restore what the thread had before.
+     *
+     * @return the binding
+     */
+    public Binding bind() {
+        final CatTransaction previous = CatTransactionExecutor.bind(catTransaction);
+        final CatTransactionContext previousContext = CatTransactionContextLocal.getInstance().get();
+        setContext(context);
+        return new Binding(previous, previousContext);
+    }
+
+    /**
+     * run the task in the scope.
+     *
+     * @param task the task
+     * @return the wrapped task
+     */
+    public Runnable wrap(final Runnable task) {
+        return () -> {
+            try (Binding ignored = bind()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * run the task in the scope.
+     *
+     * @param task the task
+     * @param <T>  the result type
+     * @return the wrapped task
+     */
+    public <T> Callable<T> wrap(final Callable<T> task) {
+        return () -> {
+            try (Binding ignored = bind()) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * run the task in the scope.
+     *
+     * @param task the task
+     * @param <T>  the result type
+     * @return the wrapped task
+     */
+    public <T> Supplier<T> wrap(final Supplier<T> task) {
+        return () -> {
+            try (Binding ignored = bind()) {
+                return task.get();
+            }
+        };
+    }
+
+    private static void setContext(final CatTransactionContext context) {
+        if (Objects.isNull(context)) {
+            CatTransactionContextLocal.getInstance().remove();
+        } else {
+            CatTransactionContextLocal.getInstance().set(context);
+        }
+    }
+
+    /**
+     * the scope bound to a thread.
+     */
+    public static final class Binding implements AutoCloseable {
+
+        private final CatTransaction previous;
+
+        private final CatTransactionContext previousContext;
+
+        private Binding(final CatTransaction previous, final CatTransactionContext previousContext) {
+            this.previous = previous;
+            this.previousContext = previousContext;
+        }
+
+        @Override
+        public void close() {
+            CatTransactionExecutor.bind(previous);
+            setContext(previousContext);
+        }
+    }
+}
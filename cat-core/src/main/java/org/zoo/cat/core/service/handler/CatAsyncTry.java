@@ -0,0 +1,166 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one or more
+ *   contributor license agreements.  See the NOTICE file distributed with
+ *   this work for additional information regarding copyright ownership.
+ *   The ASF licenses this file to You under the Apache License, Version 2.0
+ *   (the "License"); you may not use this file except in compliance with
+ *   the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package org.zoo.cat.core.service.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.core.service.executor.CatReactorContext;
+import org.zoo.cat.core.service.executor.CatTransactionScope;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * EN: the try of a {@code @Cat} method that returns a {@link CompletionStage} or a {@code Mono}.
+ * the method returns before its work has run, so the work after the try is hooked on the completion of the returned value
+ * and no thread waits for it. the try fails when it is not done within {@link CatTransaction#getTimeoutMills()},
+ * the timeout waits on the scheduler of the {@link org.zoo.cat.core.concurrent.CatRuntime} and is canceled when the try completes.
+ * a {@code Mono} carries the transaction in its Reactor context, see {@link CatReactorContext}.
+ * the returned {@code Mono} is cached: the try body and the confirm or cancel run once, on the first subscription,
+ * later subscribers get the same result. it must be subscribed, the try does not run otherwise.
+ * CN: 异步返回值的try阶段.
+ *
+ * @author dzc
+ */
+final class CatAsyncTry {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatAsyncTry.class);
+
+    private static final boolean REACTOR = ClassUtils.isPresent("reactor.core.publisher.Mono", CatAsyncTry.class.getClassLoader());
+
+    private CatAsyncTry() {
+    }
+
+    /**
+     * is the value returned by the try completed later.
+     *
+     * @param returnValue the return value
+     * @return true if async
+     */
+    static boolean isAsync(final Object returnValue) {
+        return returnValue instanceof CompletionStage || (REACTOR && Reactive.isMono(returnValue));
+    }
+
+    /**
+     * hook the work after the try on the returned value.
+     *
+     * @param returnValue    the async return value
+     * @param catTransaction the cat transaction
+     * @param scope          the scope of the try
+     * @param scheduler      the scheduler of the timeout
+     * @param onTried        runs when the try succeeded, its failure fails the try
+     * @param onFailed       runs when the try failed or timed out
+     * @return the value to return in place of the return value
+     */
+    static Object adapt(final Object returnValue, final CatTransaction catTransaction, final CatTransactionScope scope,
+                        final ScheduledExecutorService scheduler,
+                        final Supplier<CompletableFuture<Void>> onTried, final Consumer<Throwable> onFailed) {
+        if (returnValue instanceof CompletionStage) {
+            final CompletableFuture<Object> tried = new CompletableFuture<>();
+            ((CompletionStage<?>) returnValue).whenComplete((value, error) -> {
+                if (Objects.isNull(error)) {
+                    tried.complete(value);
+                } else {
+                    tried.completeExceptionally(unwrap(error));
+                }
+            });
+            if (catTransaction.getTimeoutMills() > 0) {
+                //the failure runs on the common pool and not on the shared scheduler
+                final ScheduledFuture<?> timeout = scheduler.schedule(() -> ForkJoinPool.commonPool()
+                                .execute(() -> tried.completeExceptionally(timeout(catTransaction))),
+                        catTransaction.getTimeoutMills(), TimeUnit.MILLISECONDS);
+                tried.whenComplete((value, error) -> timeout.cancel(false));
+            }
+            final CompletableFuture<Object> result = new CompletableFuture<>();
+            tried.thenCompose(value -> onTried.get().thenApply(ignored -> value))
+                    .whenComplete((value, error) -> {
+                        if (Objects.isNull(error)) {
+                            result.complete(value);
+                            return;
+                        }
+                        final Throwable cause = unwrap(error);
+                        failed(onFailed, cause);
+                        result.completeExceptionally(cause);
+                    });
+            return result;
+        }
+        return Reactive.adapt(returnValue, catTransaction, scope, onTried, onFailed);
+    }
+
+    private static TimeoutException timeout(final CatTransaction catTransaction) {
+        return new TimeoutException("method " + catTransaction.getTargetMethod() + " timeout..");
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        return error instanceof CompletionException && Objects.nonNull(error.getCause()) ? error.getCause() : error;
+    }
+
+    private static void failed(final Consumer<Throwable> onFailed, final Throwable cause) {
+        try {
+            onFailed.accept(cause);
+        } catch (RuntimeException e) {
+            LogUtil.error(LOGGER, "async try failure handling exception:{}", e::getMessage);
+        }
+    }
+
+    /**
+     * the reactor part, loaded only when reactor-core is present.
+     * the source is cold, so the adapted mono is cached to complete the transaction once.
+     */
+    private static final class Reactive {
+
+        private static boolean isMono(final Object returnValue) {
+            return returnValue instanceof Mono;
+        }
+
+        private static Object adapt(final Object returnValue, final CatTransaction catTransaction, final CatTransactionScope scope,
+                                    final Supplier<CompletableFuture<Void>> onTried, final Consumer<Throwable> onFailed) {
+            Mono<Object> mono = ((Mono<?>) returnValue).map(value -> (Object) value);
+            if (catTransaction.getTimeoutMills() > 0) {
+                mono = mono.timeout(Duration.ofMillis(catTransaction.getTimeoutMills()));
+            }
+            return mono.map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(value -> Mono.fromFuture(onTried.get()).then(Mono.justOrEmpty(value)))
+                    .onErrorResume(error -> {
+                        failed(onFailed, error);
+                        return Mono.error(error);
+                    })
+                    .subscriberContext(context -> CatReactorContext.put(context, scope))
+                    .cache();
+        }
+    }
+}
@@ -27,12 +27,15 @@ import org.zoo.cat.common.enums.CatActionEnum;
 import org.zoo.cat.common.exception.CatException;
 import org.zoo.cat.common.utils.DefaultValueUtils;
 import org.zoo.cat.core.cache.CatTransactionGuavaCacheManager;
+import org.zoo.cat.core.concurrent.CatRuntime;
 import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
 import org.zoo.cat.core.service.CatTransactionHandler;
 import org.zoo.cat.core.service.executor.CatTransactionExecutor;
+import org.zoo.cat.core.service.executor.CatTransactionScope;
 
 import java.lang.reflect.Method;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Participant Handler.
@@ -43,16 +46,19 @@ import java.util.Objects;
 public class ParticipantCatTransactionHandler implements CatTransactionHandler {
 
     private final CatTransactionExecutor catTransactionExecutor;
-    
+
+    private final CatRuntime catRuntime;
 
     /**
      * Instantiates a new Participant cat transaction handler.
      *
      * @param catTransactionExecutor the cat transaction executor
+     * @param catRuntime             the cat runtime
      */
     @Autowired
-    public ParticipantCatTransactionHandler(final CatTransactionExecutor catTransactionExecutor) {
+    public ParticipantCatTransactionHandler(final CatTransactionExecutor catTransactionExecutor, final CatRuntime catRuntime) {
         this.catTransactionExecutor = catTransactionExecutor;
+        this.catRuntime = catRuntime;
     }
 
 
@@ -65,6 +71,14 @@ public class ParticipantCatTransactionHandler implements CatTransactionHandler {
                 try {
                     catTransaction = catTransactionExecutor.preTryParticipant(context, point);
                     final Object proceed = point.proceed();
+                    if (CatAsyncTry.isAsync(proceed)) {
+                        final CatTransaction tried = catTransaction;
+                        return CatAsyncTry.adapt(proceed, tried, CatTransactionScope.capture(), catRuntime.getScheduler(), () -> {
+                            tried.setStatus(CatActionEnum.TRYING.getCode());
+                            catTransactionExecutor.updateStatus(tried);
+                            return CompletableFuture.completedFuture(null);
+                        }, error -> catTransactionExecutor.deleteTransaction(tried));
+                    }
                     catTransaction.setStatus(CatActionEnum.TRYING.getCode());
                     //update log status to try
                     catTransactionExecutor.updateStatus(catTransaction);
@@ -19,45 +19,51 @@ package org.zoo.cat.core.service.handler;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEvent;
-import org.springframework.context.event.ContextRefreshedEvent;
-import org.springframework.context.event.SmartApplicationListener;
 import org.springframework.stereotype.Component;
 import org.zoo.cat.common.bean.context.CatTransactionContext;
 import org.zoo.cat.common.bean.entity.CatTransaction;
-import org.zoo.cat.common.config.CatConfig;
 import org.zoo.cat.common.enums.CatActionEnum;
+import org.zoo.cat.common.exception.CatRuntimeException;
+import org.zoo.cat.core.concurrent.CatLaneExecutor;
+import org.zoo.cat.core.concurrent.CatLaneExecutor.Lane;
+import org.zoo.cat.core.concurrent.CatRuntime;
 import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
-import org.zoo.cat.core.disruptor.DisruptorProviderManage;
-import org.zoo.cat.core.disruptor.handler.CatConsumerTransactionDataHandler;
 import org.zoo.cat.core.service.CatTransactionHandler;
-import org.zoo.cat.core.service.CatTransactionHandlerAlbum;
 import org.zoo.cat.core.service.executor.CatTransactionExecutor;
+import org.zoo.cat.core.service.executor.CatTransactionScope;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * this is cat transaction starter.
+ * a try that returns a {@link CompletableFuture} or a {@code Mono} is confirmed or canceled when it completes.
+ * the completing thread may be an event loop, so the confirm or cancel is only queued in its lane, when the lane is full
+ * it is deferred to the fast retry and the log and never run on that thread.
  *
  * @author dzc
  */
 @Component
-public class StarterCatTransactionHandler implements CatTransactionHandler, SmartApplicationListener {
+public class StarterCatTransactionHandler implements CatTransactionHandler {
 
     private final CatTransactionExecutor catTransactionExecutor;
 
-    private final CatConfig catConfig;
+    private final CatLaneExecutor catLaneExecutor;
 
-    private DisruptorProviderManage<CatTransactionHandlerAlbum> disruptorProviderManage;
+    private final CatRuntime catRuntime;
 
     /**
      * Instantiates a new Starter cat transaction handler.
      *
      * @param catTransactionExecutor the cat transaction executor
-     * @param catConfig              the cat config
+     * @param catLaneExecutor        the cat lane executor
+     * @param catRuntime             the cat runtime
      */
     @Autowired
-    public StarterCatTransactionHandler(final CatTransactionExecutor catTransactionExecutor, final CatConfig catConfig) {
+    public StarterCatTransactionHandler(final CatTransactionExecutor catTransactionExecutor,
+                                        final CatLaneExecutor catLaneExecutor, final CatRuntime catRuntime) {
         this.catTransactionExecutor = catTransactionExecutor;
-        this.catConfig = catConfig;
+        this.catLaneExecutor = catLaneExecutor;
+        this.catRuntime = catRuntime;
     }
 
     @Override
@@ -68,17 +74,25 @@ public class StarterCatTransactionHandler implements CatTransactionHandler, Smar
             try {
                 //execute try
                 returnValue = point.proceed();
+                if (CatAsyncTry.isAsync(returnValue)) {
+                    return tryAsync(returnValue, catTransaction);
+                }
+                //the participants of the async tries are added before the confirm
+                catTransactionExecutor.awaitAsyncTries(catTransaction);
                 catTransaction.setStatus(CatActionEnum.TRYING.getCode());
                 catTransactionExecutor.updateStatus(catTransaction);
             } catch (Throwable throwable) {
                 //if exception ,execute cancel
                 final CatTransaction currentTransaction = catTransactionExecutor.getCurrentTransaction();
-                disruptorProviderManage.getProvider().onData(() -> catTransactionExecutor.cancel(currentTransaction));
+                awaitQuietly(currentTransaction);
+                catLaneExecutor.execute(Lane.CANCEL, currentTransaction.getPriority(),
+                        () -> catTransactionExecutor.cancel(currentTransaction));
                 throw throwable;
             }
             //execute confirm
             final CatTransaction currentTransaction = catTransactionExecutor.getCurrentTransaction();
-            disruptorProviderManage.getProvider().onData(() -> catTransactionExecutor.confirm(currentTransaction));
+            catLaneExecutor.execute(Lane.CONFIRM, currentTransaction.getPriority(),
+                    () -> catTransactionExecutor.confirm(currentTransaction));
         } finally {
             CatTransactionContextLocal.getInstance().remove();
             catTransactionExecutor.remove();
@@ -86,29 +100,32 @@ public class StarterCatTransactionHandler implements CatTransactionHandler, Smar
         return returnValue;
     }
 
-
-    @Override
-    public boolean supportsEventType(Class<? extends ApplicationEvent> aClass) {
-        return aClass == ContextRefreshedEvent.class;
-    }
-
-    @Override
-    public boolean supportsSourceType(Class<?> aClass) {
-        return true;
+    private Object tryAsync(final Object returnValue, final CatTransaction catTransaction) {
+        //the tries are still tracked after the thread locals are removed, they are finished on completion
+        return CatAsyncTry.adapt(returnValue, catTransaction, CatTransactionScope.capture(), catRuntime.getScheduler(),
+            () -> catTransactionExecutor.finishAsyncTries(catTransaction).thenRun(() -> {
+                catTransaction.setStatus(CatActionEnum.TRYING.getCode());
+                catTransactionExecutor.updateStatus(catTransaction);
+                if (!catLaneExecutor.offer(Lane.CONFIRM, catTransaction.getPriority(),
+                        () -> catTransactionExecutor.confirm(catTransaction))) {
+                    catTransactionExecutor.defer(catTransaction, CatActionEnum.CONFIRMING);
+                }
+            }),
+            error -> catTransactionExecutor.finishAsyncTries(catTransaction)
+                    .handle((value, e) -> null)
+                    .thenRun(() -> {
+                        if (!catLaneExecutor.offer(Lane.CANCEL, catTransaction.getPriority(),
+                                () -> catTransactionExecutor.cancel(catTransaction))) {
+                            catTransactionExecutor.defer(catTransaction, CatActionEnum.CANCELING);
+                        }
+                    }));
     }
 
-    @Override
-    public void onApplicationEvent(ApplicationEvent applicationEvent) {
-        if (catConfig.getStarted()) {
-            disruptorProviderManage = new DisruptorProviderManage<>(new CatConsumerTransactionDataHandler(),
-                    catConfig.getAsyncThreads(),
-                    DisruptorProviderManage.DEFAULT_SIZE);
-            disruptorProviderManage.startup();
+    private void awaitQuietly(final CatTransaction catTransaction) {
+        try {
+            catTransactionExecutor.awaitAsyncTries(catTransaction);
+        } catch (CatRuntimeException ignored) {
+            //the failed tries have no participant to cancel
         }
     }
-
-    @Override
-    public int getOrder() {
-        return LOWEST_PRECEDENCE - 2;
-    }
 }
@@ -19,20 +19,15 @@ package org.zoo.cat.core.service.handler;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEvent;
-import org.springframework.context.event.ContextRefreshedEvent;
-import org.springframework.context.event.SmartApplicationListener;
 import org.springframework.stereotype.Component;
 import org.zoo.cat.common.bean.context.CatTransactionContext;
 import org.zoo.cat.common.bean.entity.CatTransaction;
-import org.zoo.cat.common.config.CatConfig;
 import org.zoo.cat.common.enums.CatActionEnum;
 import org.zoo.cat.common.exception.CatException;
+import org.zoo.cat.core.concurrent.CatLaneExecutor;
+import org.zoo.cat.core.concurrent.CatLaneExecutor.Lane;
 import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
-import org.zoo.cat.core.disruptor.DisruptorProviderManage;
-import org.zoo.cat.core.disruptor.handler.CatConsumerTransactionDataHandler;
 import org.zoo.cat.core.service.CatTransactionHandler;
-import org.zoo.cat.core.service.CatTransactionHandlerAlbum;
 import org.zoo.cat.core.service.executor.CatTransactionExecutor;
 
 /**
@@ -41,24 +36,22 @@ import org.zoo.cat.core.service.executor.CatTransactionExecutor;
  * @author dzc
  */
 @Component
-public class StarterNoticeTransactionHandler implements CatTransactionHandler, SmartApplicationListener {
+public class StarterNoticeTransactionHandler implements CatTransactionHandler {
 
     private final CatTransactionExecutor catTransactionExecutor;
 
-    private final CatConfig catConfig;
-
-    private DisruptorProviderManage<CatTransactionHandlerAlbum> disruptorProviderManage;
+    private final CatLaneExecutor catLaneExecutor;
 
     /**
      * Instantiates a new Starter cat transaction handler.
      *
      * @param catTransactionExecutor the cat transaction executor
-     * @param catConfig              the cat config
+     * @param catLaneExecutor        the cat lane executor
      */
     @Autowired
-    public StarterNoticeTransactionHandler(final CatTransactionExecutor catTransactionExecutor, final CatConfig catConfig) {
+    public StarterNoticeTransactionHandler(final CatTransactionExecutor catTransactionExecutor, final CatLaneExecutor catLaneExecutor) {
         this.catTransactionExecutor = catTransactionExecutor;
-        this.catConfig = catConfig;
+        this.catLaneExecutor = catLaneExecutor;
     }
 
     @Override
@@ -79,42 +72,18 @@ public class StarterNoticeTransactionHandler implements CatTransactionHandler, S
             } catch (Throwable throwable) {
                 //if exception again notice
                 final CatTransaction currentTransaction = catTransactionExecutor.getCurrentTransaction();
-                disruptorProviderManage.getProvider().onData(() -> catTransactionExecutor.notice(currentTransaction));
+                catLaneExecutor.execute(Lane.NOTICE, currentTransaction.getPriority(),
+                        () -> catTransactionExecutor.notice(currentTransaction));
                 throw throwable;
             }
             //正常执行完毕删除补偿记录
             final CatTransaction currentTransaction = catTransactionExecutor.getCurrentTransaction();
-            disruptorProviderManage.getProvider().onData(() -> catTransactionExecutor.executeHandler(true,currentTransaction,null));
+            catLaneExecutor.execute(Lane.NOTICE, currentTransaction.getPriority(),
+                    () -> catTransactionExecutor.executeHandler(true,currentTransaction,null));
         } finally {
             CatTransactionContextLocal.getInstance().remove();
             catTransactionExecutor.remove();
         }
         return returnValue;
     }
-
-
-    @Override
-    public boolean supportsEventType(Class<? extends ApplicationEvent> aClass) {
-        return aClass == ContextRefreshedEvent.class;
-    }
-
-    @Override
-    public boolean supportsSourceType(Class<?> aClass) {
-        return true;
-    }
-
-    @Override
-    public void onApplicationEvent(ApplicationEvent applicationEvent) {
-        if (catConfig.getStarted()) {
-            disruptorProviderManage = new DisruptorProviderManage<>(new CatConsumerTransactionDataHandler(),
-                    catConfig.getAsyncThreads(),
-                    DisruptorProviderManage.DEFAULT_SIZE);
-            disruptorProviderManage.startup();
-        }
-    }
-
-    @Override
-    public int getOrder() {
-        return LOWEST_PRECEDENCE - 2;
-    }
 }
@@ -22,14 +22,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.enums.RepositorySupportEnum;
+import org.zoo.cat.common.serializer.CatCompressor;
 import org.zoo.cat.common.serializer.ObjectSerializer;
 import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.common.utils.StringUtils;
 import org.zoo.cat.common.utils.extension.ExtensionLoader;
 import org.zoo.cat.core.coordinator.CatCoordinatorService;
 import org.zoo.cat.core.helper.SpringBeanUtils;
 import org.zoo.cat.core.logo.CatLogo;
 import org.zoo.cat.core.service.CatInitService;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
+import org.zoo.cat.core.spi.CatCounterStore;
+import org.zoo.cat.core.spi.repository.TieredCoordinatorRepository;
 
 /**
  * cat init service.
@@ -83,13 +88,27 @@ public class CatInitServiceImpl implements CatInitService {
         //spi serialize
         final ObjectSerializer serializer = ExtensionLoader.getExtensionLoader(ObjectSerializer.class)
                 .getActivateExtension(catConfig.getSerializer());
+        CatCompressor.getInstance().configure(catConfig.getCatCompressConfig());
 
         //spi repository
-        final CatCoordinatorRepository repository = ExtensionLoader.getExtensionLoader(CatCoordinatorRepository.class)
+        CatCoordinatorRepository repository = ExtensionLoader.getExtensionLoader(CatCoordinatorRepository.class)
                 .getActivateExtension(catConfig.getRepositorySupport());
 
+        //spi counter store of the notice degradation, blank uses the repository
+        final String counterStore = catConfig.getCatNoticeSafeConfig().getCounterStore();
+
+        //local journal in front of the remote repository
+        if (catConfig.getCatJournalConfig().isEnabled()
+                && !RepositorySupportEnum.FILE.getSupport().equals(repository.getScheme())) {
+            repository = new TieredCoordinatorRepository(repository);
+        }
+
         repository.setSerializer(serializer);
 
         SpringBeanUtils.getInstance().registerBean(CatCoordinatorRepository.class.getName(), repository);
+        if (StringUtils.isNoneBlank(counterStore)) {
+            SpringBeanUtils.getInstance().registerBean(CatCounterStore.class.getName(),
+                    ExtensionLoader.getExtensionLoader(CatCounterStore.class).getActivateExtension(counterStore));
+        }
     }
 }
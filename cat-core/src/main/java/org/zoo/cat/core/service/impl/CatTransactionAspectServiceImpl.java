@@ -21,10 +21,14 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.zoo.cat.common.bean.context.CatTransactionContext;
+import org.zoo.cat.core.concurrent.CatAdaptiveLimit;
 import org.zoo.cat.core.helper.SpringBeanUtils;
 import org.zoo.cat.core.service.CatTransactionAspectService;
 import org.zoo.cat.core.service.CatTransactionFactoryService;
 import org.zoo.cat.core.service.CatTransactionHandler;
+import org.zoo.cat.core.service.admission.CatAdmissionController;
+
+import java.util.Objects;
 
 /**
  * CatTransactionAspectServiceImpl.
@@ -36,21 +40,27 @@ import org.zoo.cat.core.service.CatTransactionHandler;
 public class CatTransactionAspectServiceImpl implements CatTransactionAspectService {
 
     private final CatTransactionFactoryService catTransactionFactoryService;
-    
 
+    private final CatAdmissionController catAdmissionController;
 
     /**
      * Instantiates a new Cat transaction aspect service.
      *
      * @param catTransactionFactoryService the cat transaction factory service
+     * @param catAdmissionController       the cat admission controller
      */
     @Autowired
-    public CatTransactionAspectServiceImpl(final CatTransactionFactoryService catTransactionFactoryService) {
+    public CatTransactionAspectServiceImpl(final CatTransactionFactoryService catTransactionFactoryService,
+                                           final CatAdmissionController catAdmissionController) {
         this.catTransactionFactoryService = catTransactionFactoryService;
+        this.catAdmissionController = catAdmissionController;
     }
 
     /**
      * cat transaction aspect.
+     * only the starter calls, which come without a context, go through the admission.
+     * the calls of the participants and the confirm or cancel of a started transaction are never shed.
+     * the slot of an async starter is given back when its returned value completes.
      *
      * @param catTransactionContext {@linkplain  CatTransactionContext}
      * @param point                   {@linkplain ProceedingJoinPoint}
@@ -59,6 +69,25 @@ public class CatTransactionAspectServiceImpl implements CatTransactionAspectServ
      */
     @Override
     public Object invoke(final CatTransactionContext catTransactionContext, final ProceedingJoinPoint point) throws Throwable {
+        if (!catAdmissionController.isEnabled() || Objects.nonNull(catTransactionContext)) {
+            return handle(catTransactionContext, point);
+        }
+        final CatAdaptiveLimit limit = catAdmissionController.acquire(point);
+        if (Objects.isNull(limit)) {
+            return catAdmissionController.reject(point);
+        }
+        final long start = System.nanoTime();
+        final Object returnValue;
+        try {
+            returnValue = handle(catTransactionContext, point);
+        } catch (Throwable throwable) {
+            limit.release(System.nanoTime() - start);
+            throw throwable;
+        }
+        return catAdmissionController.release(limit, start, returnValue);
+    }
+
+    private Object handle(final CatTransactionContext catTransactionContext, final ProceedingJoinPoint point) throws Throwable {
         final Class clazz = catTransactionFactoryService.factoryOf(point,catTransactionContext);
         final CatTransactionHandler txTransactionHandler =
                 (CatTransactionHandler) SpringBeanUtils.getInstance().getBean(clazz);
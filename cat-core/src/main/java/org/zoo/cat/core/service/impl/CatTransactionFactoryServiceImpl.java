@@ -18,7 +18,6 @@
 package org.zoo.cat.core.service.impl;
 
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.reflect.MethodSignature;
 import org.zoo.cat.annotation.Cat;
 import org.zoo.cat.annotation.TransTypeEnum;
 import org.slf4j.Logger;
@@ -65,9 +64,7 @@ public class CatTransactionFactoryServiceImpl implements CatTransactionFactorySe
      */
     @Override
     public Class factoryOf(final ProceedingJoinPoint point,final CatTransactionContext context) {
-        MethodSignature signature = (MethodSignature) point.getSignature();
         Method method = JoinPointUtils.getMethod(point);
-        Class<?> declaringClass =  signature.getMethod().getDeclaringClass();
         
         final Cat cat = method.getAnnotation(Cat.class);
         final TransTypeEnum pattern = cat.pattern();
@@ -78,7 +75,7 @@ public class CatTransactionFactoryServiceImpl implements CatTransactionFactorySe
         
         //判断正向消息补偿模式
         if(cat.pattern().getCode()==TransTypeEnum.NOTICE.getCode()) {
-        	  if(CatDegradation.isStartDegradation(catConfig, declaringClass.getName(), method.getName())) {
+        	  if(CatDegradation.isStartDegradation(catConfig, point.getTarget().getClass().getName(), method.getName())) {
                	if (Objects.isNull(context)) { 
                     return StarterNoticeTransactionHandler.class;
                 } else {
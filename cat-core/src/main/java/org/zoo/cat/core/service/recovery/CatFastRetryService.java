@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.service.recovery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.zoo.cat.common.bean.entity.CatInvocation;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.config.CatFastRetryConfig;
+import org.zoo.cat.common.enums.CatActionEnum;
+import org.zoo.cat.common.enums.EventTypeEnum;
+import org.zoo.cat.common.utils.CollectionUtils;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.core.concurrent.CatLaneExecutor;
+import org.zoo.cat.core.concurrent.CatLaneExecutor.Lane;
+import org.zoo.cat.core.concurrent.CatTimingWheel;
+import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
+import org.zoo.cat.core.disruptor.publisher.CatTransactionEventPublisher;
+import org.zoo.cat.core.reflect.CatReflector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * EN: in memory retries of the participants that failed in confirm, cancel or notice.
+ * the retries wait on a {@link CatTimingWheel} with a doubling delay and run in the recovery lane of the {@link CatLaneExecutor},
+ * behind the confirm, cancel and notice work of the starters. the log is written by the disruptor
+ * like the first execution so it stays in order with it. every attempt asks the {@link CatRecoveryGuard} first,
+ * an attempt held back by an open breaker or a used up budget calls nothing. the log is kept during the retries,
+ * when they are used up, rejected, fail unexpectedly or the node stops, the scheduled recovery takes over from the log.
+ * CN: 内存快速重试, 失败后交给定时补偿.
+ *
+ * @author dzc
+ */
+@Component
+public class CatFastRetryService implements DisposableBean {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatFastRetryService.class);
+
+    private final CatTransactionEventPublisher catTransactionEventPublisher;
+
+    private final CatFastRetryConfig config;
+
+    private final CatRecoveryGuard catRecoveryGuard;
+
+    private final Map<String, Integer> retrying = new ConcurrentHashMap<>();
+
+    private final LongAdder recovered = new LongAdder();
+
+    private final LongAdder handedOff = new LongAdder();
+
+    private CatTimingWheel timingWheel;
+
+    /**
+     * Instantiates a new Cat fast retry service.
+     *
+     * @param catTransactionEventPublisher the cat transaction event publisher
+     * @param catConfig                    the cat config
+     * @param catLaneExecutor              the cat lane executor
+     * @param catRecoveryGuard             the cat recovery guard
+     */
+    @Autowired
+    public CatFastRetryService(final CatTransactionEventPublisher catTransactionEventPublisher,
+                               final CatConfig catConfig, final CatLaneExecutor catLaneExecutor,
+                               final CatRecoveryGuard catRecoveryGuard) {
+        this.catTransactionEventPublisher = catTransactionEventPublisher;
+        this.catRecoveryGuard = catRecoveryGuard;
+        this.config = Optional.ofNullable(catConfig.getCatFastRetryConfig()).orElseGet(CatFastRetryConfig::new);
+        if (config.isEnabled() && config.getAttempts() > 0) {
+            timingWheel = new CatTimingWheel("cat-fast-retry-wheel", config.getTickMills(), config.getWheelSize(), task -> {
+                final RetryTask retryTask = (RetryTask) task;
+                if (!catLaneExecutor.offer(Lane.RECOVERY, retryTask.catTransaction.getPriority(), retryTask)) {
+                    retryTask.handOff();
+                }
+            });
+        }
+    }
+
+    /**
+     * retry the failed participants of the transaction in memory.
+     *
+     * @param catTransaction the cat transaction with the failed participants
+     * @return false if it is left to the scheduled recovery
+     */
+    public boolean retry(final CatTransaction catTransaction) {
+        if (Objects.isNull(timingWheel) || Objects.isNull(invocation(catTransaction.getStatus()))
+                || Objects.nonNull(retrying.putIfAbsent(catTransaction.getTransId(), 0))) {
+            return false;
+        }
+        return schedule(new RetryTask(catTransaction, 0));
+    }
+
+    /**
+     * is the transaction retried in memory now, the scheduled recovery should skip it.
+     *
+     * @param transId transId
+     * @return true if retrying
+     */
+    public boolean isRetrying(final String transId) {
+        return retrying.containsKey(transId);
+    }
+
+    /**
+     * transactions recovered in memory.
+     *
+     * @return count
+     */
+    public long getRecovered() {
+        return recovered.sum();
+    }
+
+    /**
+     * transactions left to the scheduled recovery.
+     *
+     * @return count
+     */
+    public long getHandedOff() {
+        return handedOff.sum();
+    }
+
+    @Override
+    public void destroy() {
+        if (Objects.isNull(timingWheel)) {
+            return;
+        }
+        final int dropped = timingWheel.stop();
+        if (dropped > 0) {
+            LogUtil.info(LOGGER, "fast retry stopped, transactions left to the scheduled recovery:{}", () -> dropped);
+        }
+        retrying.clear();
+    }
+
+    private boolean schedule(final RetryTask task) {
+        final long delay = config.getDelayMills() << Math.min(task.attempt, 20);
+        if (!timingWheel.schedule(task, delay, TimeUnit.MILLISECONDS)) {
+            task.handOff();
+            return false;
+        }
+        return true;
+    }
+
+    private static Function<CatParticipant, CatInvocation> invocation(final int status) {
+        if (status == CatActionEnum.CONFIRMING.getCode()) {
+            return CatParticipant::getConfirmCatInvocation;
+        } else if (status == CatActionEnum.CANCELING.getCode()) {
+            return CatParticipant::getCancelCatInvocation;
+        } else if (status == CatActionEnum.NOTICEING.getCode()) {
+            return CatParticipant::getNoticeCatInvocation;
+        }
+        return null;
+    }
+
+    private final class RetryTask implements Runnable {
+
+        private final CatTransaction catTransaction;
+
+        private final int attempt;
+
+        private RetryTask(final CatTransaction catTransaction, final int attempt) {
+            this.catTransaction = catTransaction;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            boolean settled = false;
+            try {
+                attempt();
+                settled = true;
+            } finally {
+                //an unexpected exception leaves the transaction to the scheduled recovery
+                if (!settled) {
+                    handOff();
+                }
+            }
+        }
+
+        private void attempt() {
+            final Set<String> targets = CatRecoveryGuard.targets(catTransaction);
+            if (!catRecoveryGuard.tryAcquire(targets)) {
+                next();
+                return;
+            }
+            final List<CatParticipant> failList = new ArrayList<>();
+            boolean reported = false;
+            try {
+                report(call(failList));
+                reported = true;
+            } finally {
+                //the calls taken from the guard but not reported go back to it
+                if (!reported) {
+                    catRecoveryGuard.release(targets);
+                }
+            }
+            if (CollectionUtils.isEmpty(failList)) {
+                catTransactionEventPublisher.publishEvent(catTransaction, EventTypeEnum.DELETE.getCode());
+                retrying.remove(catTransaction.getTransId());
+                recovered.increment();
+                return;
+            }
+            if (failList.size() < catTransaction.getCatParticipants().size()) {
+                catTransaction.setCatParticipants(failList);
+                catTransactionEventPublisher.publishEvent(catTransaction, EventTypeEnum.UPDATE_PARTICIPANT.getCode());
+            }
+            next();
+        }
+
+        private Map<String, Boolean> call(final List<CatParticipant> failList) {
+            final CatActionEnum action = CatActionEnum.acquireByCode(catTransaction.getStatus());
+            final Function<CatParticipant, CatInvocation> invocation = invocation(catTransaction.getStatus());
+            final Map<String, Boolean> results = new LinkedHashMap<>();
+            for (CatParticipant catParticipant : catTransaction.getCatParticipants()) {
+                final CatInvocation catInvocation = invocation.apply(catParticipant);
+                final String target = CatRecoveryGuard.target(catInvocation);
+                try {
+                    CatReflector.executor(catParticipant.getTransId(), action, catInvocation);
+                    results.merge(target, true, Boolean::logicalAnd);
+                } catch (Exception e) {
+                    LogUtil.debug(LOGGER, "fast retry exception:{}", () -> catTransaction.getTransId() + " " + e);
+                    results.merge(target, false, Boolean::logicalAnd);
+                    failList.add(catParticipant);
+                } finally {
+                    CatTransactionContextLocal.getInstance().remove();
+                }
+            }
+            return results;
+        }
+
+        private void report(final Map<String, Boolean> results) {
+            //one report per target, as one call of it was taken from the guard
+            results.forEach((target, success) -> {
+                if (success) {
+                    catRecoveryGuard.onSuccess(target);
+                } else {
+                    catRecoveryGuard.onFailure(target);
+                }
+            });
+        }
+
+        private void next() {
+            if (attempt + 1 >= config.getAttempts()) {
+                handOff();
+                return;
+            }
+            retrying.put(catTransaction.getTransId(), attempt + 1);
+            schedule(new RetryTask(catTransaction, attempt + 1));
+        }
+
+        private void handOff() {
+            retrying.remove(catTransaction.getTransId());
+            handedOff.increment();
+        }
+    }
+}
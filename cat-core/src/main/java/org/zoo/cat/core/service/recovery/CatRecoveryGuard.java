@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.service.recovery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.zoo.cat.common.bean.entity.CatInvocation;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.config.CatRecoveryBreakerConfig;
+import org.zoo.cat.common.enums.CatActionEnum;
+import org.zoo.cat.common.utils.CollectionUtils;
+import org.zoo.cat.common.utils.LogUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * EN: circuit breaker and retry budget of every participant target in the recovery.
+ * the target is the class of the confirm, cancel or notice invocation. consecutive failures open the breaker of the target,
+ * after the open time it lets a few trial calls through and closes when they succeed. a token bucket paces the calls
+ * of every target. a transaction is let through only when all its targets are, otherwise it waits for a later scan.
+ * the scheduled recovery and the fast retry share it.
+ * CN: 补偿按目标熔断与限流.
+ *
+ * @author dzc
+ */
+@Component
+public class CatRecoveryGuard {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatRecoveryGuard.class);
+
+    private final CatRecoveryBreakerConfig config;
+
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Instantiates a new Cat recovery guard.
+     *
+     * @param catConfig the cat config
+     */
+    @Autowired
+    public CatRecoveryGuard(final CatConfig catConfig) {
+        this(catConfig.getCatRecoveryBreakerConfig());
+    }
+
+    /**
+     * Instantiates a new Cat recovery guard.
+     *
+     * @param config the breaker config
+     */
+    public CatRecoveryGuard(final CatRecoveryBreakerConfig config) {
+        this.config = Optional.ofNullable(config).orElseGet(CatRecoveryBreakerConfig::new);
+    }
+
+    /**
+     * targets called by the recovery of the transaction in its status.
+     *
+     * @param catTransaction the cat transaction
+     * @return target class names
+     */
+    public static Set<String> targets(final CatTransaction catTransaction) {
+        final Set<String> targets = new LinkedHashSet<>();
+        final Function<CatParticipant, CatInvocation> invocation = invocation(catTransaction.getStatus());
+        if (Objects.isNull(invocation) || CollectionUtils.isEmpty(catTransaction.getCatParticipants())) {
+            return targets;
+        }
+        for (CatParticipant catParticipant : catTransaction.getCatParticipants()) {
+            targets.add(target(invocation.apply(catParticipant)));
+        }
+        return targets;
+    }
+
+    /**
+     * target of the invocation.
+     *
+     * @param catInvocation the invocation
+     * @return target class name
+     */
+    public static String target(final CatInvocation catInvocation) {
+        return Objects.isNull(catInvocation) || Objects.isNull(catInvocation.getTargetClass())
+                ? "" : catInvocation.getTargetClass().getName();
+    }
+
+    /**
+     * take a call of every target, all or none.
+     *
+     * @param targets target class names
+     * @return false if a breaker is open or a budget is used up
+     */
+    public boolean tryAcquire(final Set<String> targets) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        final List<Breaker> acquired = new ArrayList<>(targets.size());
+        for (String target : targets) {
+            final Breaker breaker = breakers.computeIfAbsent(target, Breaker::new);
+            if (!breaker.tryAcquire()) {
+                acquired.forEach(Breaker::release);
+                rejected.increment();
+                return false;
+            }
+            acquired.add(breaker);
+        }
+        return true;
+    }
+
+    /**
+     * give back the calls taken but not made.
+     *
+     * @param targets target class names
+     */
+    public void release(final Set<String> targets) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        for (String target : targets) {
+            Optional.ofNullable(breakers.get(target)).ifPresent(Breaker::release);
+        }
+    }
+
+    /**
+     * a call of the target succeeded.
+     *
+     * @param target target class name
+     */
+    public void onSuccess(final String target) {
+        if (config.isEnabled()) {
+            Optional.ofNullable(breakers.get(target)).ifPresent(Breaker::onSuccess);
+        }
+    }
+
+    /**
+     * a call of the target failed.
+     *
+     * @param target target class name
+     */
+    public void onFailure(final String target) {
+        if (config.isEnabled()) {
+            Optional.ofNullable(breakers.get(target)).ifPresent(Breaker::onFailure);
+        }
+    }
+
+    /**
+     * transactions held back by a breaker or a budget.
+     *
+     * @return count
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * targets with a breaker not closed.
+     *
+     * @return count
+     */
+    public long getOpen() {
+        return breakers.values().stream().filter(Breaker::isOpen).count();
+    }
+
+    private static Function<CatParticipant, CatInvocation> invocation(final int status) {
+        if (status == CatActionEnum.TRYING.getCode()
+                || status == CatActionEnum.PRE_TRY.getCode()
+                || status == CatActionEnum.CANCELING.getCode()) {
+            return CatParticipant::getCancelCatInvocation;
+        } else if (status == CatActionEnum.CONFIRMING.getCode()) {
+            return CatParticipant::getConfirmCatInvocation;
+        } else if (status == CatActionEnum.NOTICEING.getCode()) {
+            return CatParticipant::getNoticeCatInvocation;
+        }
+        return null;
+    }
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final class Breaker {
+
+        private final String target;
+
+        private State state = State.CLOSED;
+
+        private int failures;
+
+        private int trials;
+
+        private int successes;
+
+        private long openedAt;
+
+        private double tokens = config.getBurst();
+
+        private long refilledAt = System.nanoTime();
+
+        private Breaker(final String target) {
+            this.target = target;
+        }
+
+        private synchronized boolean tryAcquire() {
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAt < config.getOpenMills()) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trials = 0;
+                successes = 0;
+                LogUtil.info(LOGGER, "recovery breaker half open:{}", () -> target);
+            }
+            if (state == State.HALF_OPEN && trials >= Math.max(1, config.getHalfOpenPermits())) {
+                return false;
+            }
+            refill();
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            if (state == State.HALF_OPEN) {
+                trials++;
+            }
+            return true;
+        }
+
+        private synchronized void release() {
+            tokens = Math.min(config.getBurst(), tokens + 1);
+            if (state == State.HALF_OPEN && trials > 0) {
+                trials--;
+            }
+        }
+
+        private synchronized void onSuccess() {
+            if (state == State.CLOSED) {
+                failures = 0;
+            } else if (state == State.HALF_OPEN) {
+                trials = Math.max(0, trials - 1);
+                if (++successes >= config.getSuccessThreshold()) {
+                    state = State.CLOSED;
+                    failures = 0;
+                    LogUtil.info(LOGGER, "recovery breaker closed:{}", () -> target);
+                }
+            }
+        }
+
+        private synchronized void onFailure() {
+            if (state == State.HALF_OPEN || (state == State.CLOSED && ++failures >= config.getFailureThreshold())) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                LogUtil.warn(LOGGER, "recovery breaker opened:{}", () -> target);
+            }
+        }
+
+        private synchronized boolean isOpen() {
+            return state != State.CLOSED;
+        }
+
+        private void refill() {
+            final long now = System.nanoTime();
+            tokens = Math.min(config.getBurst(),
+                    tokens + (now - refilledAt) * config.getPermitsPerSecond() / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.service.recovery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.core.spi.CatCoordinatorRepository;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * EN: recovery ownership of the node in the cluster.
+ * every node renews its lease in the repository before a scan, the live nodes sorted by id split the
+ * {@link CatRecoveryQuery#SLOTS} slots of the transId hash in even ranges, so a node joining or leaving
+ * moves the ranges at the next scan. the optimistic version of the update still guards the short overlap.
+ * the node scans all slots when the repository keeps no leases or its own lease is not visible.
+ * CN: 补偿分片, 节点通过租约注册, 按存活节点平分事务分片.
+ *
+ * @author dzc
+ */
+public class CatRecoverySharding {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatRecoverySharding.class);
+
+    private final CatCoordinatorRepository catCoordinatorRepository;
+
+    private final String nodeId;
+
+    private final long leaseMillis;
+
+    private volatile List<String> nodes = Collections.emptyList();
+
+    /**
+     * Instantiates a new Cat recovery sharding.
+     *
+     * @param catCoordinatorRepository the cat coordinator repository
+     * @param leaseMillis              lease time, longer than the scan interval
+     */
+    public CatRecoverySharding(final CatCoordinatorRepository catCoordinatorRepository, final long leaseMillis) {
+        this.catCoordinatorRepository = catCoordinatorRepository;
+        this.leaseMillis = leaseMillis;
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * renew the lease and build the query of the own shard.
+     *
+     * @param delayTime transactions without next retry time not updated since
+     * @return query of the due transactions
+     */
+    public CatRecoveryQuery query(final Date delayTime) {
+        final CatRecoveryQuery query = new CatRecoveryQuery(delayTime, new Date());
+        final List<String> live;
+        try {
+            if (catCoordinatorRepository.heartbeat(nodeId, leaseMillis) <= 0) {
+                return query;
+            }
+            live = new ArrayList<>(catCoordinatorRepository.listLiveNodes());
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "recovery lease renew error:{}", e::getMessage);
+            return query;
+        }
+        Collections.sort(live);
+        final int index = live.indexOf(nodeId);
+        if (index < 0) {
+            return query;
+        }
+        if (!live.equals(nodes)) {
+            nodes = live;
+            LogUtil.info(LOGGER, "recovery shard rebalance:{}", () -> nodeId + " owns " + index + "/" + live.size()
+                    + " of nodes " + live);
+        }
+        query.setShardFrom(index * CatRecoveryQuery.SLOTS / live.size());
+        query.setShardTo((index + 1) * CatRecoveryQuery.SLOTS / live.size());
+        return query;
+    }
+
+    /**
+     * release the lease so the other nodes take over the shard at once.
+     */
+    public void leave() {
+        try {
+            catCoordinatorRepository.leave(nodeId);
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "recovery lease release error:{}", e::getMessage);
+        }
+    }
+
+    /**
+     * Gets node id.
+     *
+     * @return the node id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+}
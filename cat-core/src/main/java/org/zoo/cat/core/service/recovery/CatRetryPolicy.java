@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.service.recovery;
+
+import org.zoo.cat.annotation.Cat;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.core.helper.CatAnnotationHelper;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * EN: exponential backoff with jitter of the recovery.
+ * the n-th recovery waits delay * multiplier^n, bounded by the max delay and spread by the jitter.
+ * the delay and the max delay come from {@link Cat} of the target method, or {@link CatConfig} when not set.
+ * CN: 补偿指数退避策略.
+ *
+ * @author dzc
+ */
+public class CatRetryPolicy {
+
+    private final CatConfig catConfig;
+
+    /**
+     * Instantiates a new Cat retry policy.
+     *
+     * @param catConfig the cat config
+     */
+    public CatRetryPolicy(final CatConfig catConfig) {
+        this.catConfig = catConfig;
+    }
+
+    /**
+     * time of the first recovery of a new transaction.
+     *
+     * @param catTransaction the cat transaction
+     * @return next retry time
+     */
+    public Date first(final CatTransaction catTransaction) {
+        final long from = Objects.isNull(catTransaction.getCreateTime())
+                ? System.currentTimeMillis() : catTransaction.getCreateTime().getTime();
+        return new Date(from + delayMills(annotation(catTransaction)));
+    }
+
+    /**
+     * time of the next recovery after the retried count of the transaction.
+     *
+     * @param catTransaction the cat transaction
+     * @return next retry time
+     */
+    public Date next(final CatTransaction catTransaction) {
+        final Cat cat = annotation(catTransaction);
+        final long max = Objects.nonNull(cat) && cat.retryMaxDelayMills() > 0
+                ? cat.retryMaxDelayMills() : catConfig.getRetryMaxDelayTime() * 1000L;
+        final double backoff = delayMills(cat)
+                * Math.pow(Math.max(1D, catConfig.getRetryBackoffMultiplier()), Math.max(0, catTransaction.getRetriedCount()));
+        final double jitter = Math.min(1D, Math.max(0D, catConfig.getRetryJitter()));
+        final double spread = 1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        return new Date(System.currentTimeMillis() + (long) (Math.min(backoff, max) * spread));
+    }
+
+    private long delayMills(final Cat cat) {
+        return Objects.nonNull(cat) && cat.retryDelayMills() > 0
+                ? cat.retryDelayMills() : catConfig.getRecoverDelayTime() * 1000L;
+    }
+
+    private Cat annotation(final CatTransaction catTransaction) {
+        return CatAnnotationHelper.find(catTransaction);
+    }
+}
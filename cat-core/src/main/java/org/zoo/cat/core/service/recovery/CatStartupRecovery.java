@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.service.recovery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.enums.CatActionEnum;
+import org.zoo.cat.common.enums.CatRoleEnum;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.core.cache.CatTransactionGuavaCacheManager;
+import org.zoo.cat.core.spi.CatCoordinatorRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * EN: recovery of a restarted node before the scheduled recovery starts.
+ * the pending provider transactions of the shard of the node are read page by page in parallel by slot ranges
+ * and warm the transaction cache before the app is ready, a page is dropped once it is cached.
+ * then only the due transactions are read and recovered on a bounded pool, confirming before canceling and oldest first.
+ * CN: 启动补偿, 并行加载, 预热缓存, 按优先级补偿.
+ *
+ * @author dzc
+ */
+public class CatStartupRecovery {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatStartupRecovery.class);
+
+    /**
+     * far enough to match every pending transaction.
+     */
+    private static final long PENDING_HORIZON = TimeUnit.DAYS.toMillis(365L * 100);
+
+    /**
+     * slot range pages of each thread when warming.
+     */
+    private static final int PAGES_PER_THREAD = 8;
+
+    private static final Comparator<CatTransaction> PRIORITY = Comparator
+            .comparingInt((CatTransaction catTransaction) -> rank(catTransaction.getStatus()))
+            .thenComparing(CatTransactionRecoveryEngine.PRIORITY)
+            .thenComparing(CatTransaction::getPattern, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final CatCoordinatorRepository catCoordinatorRepository;
+
+    private final CatTransactionRecoveryEngine catTransactionRecoveryEngine;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Instantiates a new Cat startup recovery.
+     *
+     * @param catCoordinatorRepository     the cat coordinator repository
+     * @param catTransactionRecoveryEngine the engine the transactions are recovered by
+     * @param threads                      threads
+     * @param threadFactory                thread factory
+     */
+    public CatStartupRecovery(final CatCoordinatorRepository catCoordinatorRepository,
+                              final CatTransactionRecoveryEngine catTransactionRecoveryEngine, final int threads,
+                              final ThreadFactory threadFactory) {
+        this.catCoordinatorRepository = catCoordinatorRepository;
+        this.catTransactionRecoveryEngine = catTransactionRecoveryEngine;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                threadFactory);
+    }
+
+    /**
+     * read the due transactions of the shard in parallel.
+     *
+     * @param due the due query of the shard
+     * @return the due transactions
+     */
+    public List<CatTransaction> load(final CatRecoveryQuery due) {
+        final List<CompletableFuture<List<CatTransaction>>> parts = due.split(executor.getCorePoolSize()).stream()
+                .map(part -> CompletableFuture.supplyAsync(() -> catCoordinatorRepository.listAllByQuery(part), executor))
+                .collect(Collectors.toList());
+        final Map<String, CatTransaction> transactions = new LinkedHashMap<>();
+        for (CompletableFuture<List<CatTransaction>> part : parts) {
+            part.join().forEach(catTransaction -> transactions.putIfAbsent(catTransaction.getTransId(), catTransaction));
+        }
+        return new ArrayList<>(transactions.values());
+    }
+
+    /**
+     * put the pending provider transactions of the shard into the transaction cache, page by page.
+     *
+     * @param shard the shard of the node
+     * @return cached count
+     */
+    public int warm(final CatRecoveryQuery shard) {
+        final Date horizon = new Date(System.currentTimeMillis() + PENDING_HORIZON);
+        final CatRecoveryQuery pending = new CatRecoveryQuery(horizon, horizon);
+        pending.setShardFrom(shard.getShardFrom());
+        pending.setShardTo(shard.getShardTo());
+        pending.setRole(CatRoleEnum.PROVIDER.getCode());
+        final AtomicInteger cached = new AtomicInteger();
+        final CompletableFuture<?>[] pages = pending.split(executor.getCorePoolSize() * PAGES_PER_THREAD).stream()
+                .map(page -> CompletableFuture.runAsync(() -> catCoordinatorRepository.listAllByQuery(page)
+                        .forEach(catTransaction -> {
+                            CatTransactionGuavaCacheManager.getInstance().cacheCatTransaction(catTransaction);
+                            cached.incrementAndGet();
+                        }), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(pages).join();
+        return cached.get();
+    }
+
+    /**
+     * recover the due transactions by priority, the pool is shut down when they are done.
+     *
+     * @param transactions the due transactions
+     * @return completed when all are done
+     */
+    public CompletableFuture<Void> recover(final List<CatTransaction> transactions) {
+        final long start = System.currentTimeMillis();
+        final CompletableFuture<?>[] futures = transactions.stream()
+                .map(CatTransactionRecoveryEngine::prioritize)
+                .sorted(PRIORITY)
+                .map(catTransaction -> CompletableFuture.runAsync(
+                    () -> catTransactionRecoveryEngine.recoverNow(catTransaction), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).whenComplete((result, e) -> {
+            executor.shutdown();
+            LogUtil.info(LOGGER, "startup recovery done:{}",
+                () -> transactions.size() + " transactions in " + (System.currentTimeMillis() - start) + "ms");
+        });
+    }
+
+    /**
+     * stop the pool, the transactions not recovered yet are left to the scheduled recovery.
+     */
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private static int rank(final int status) {
+        if (status == CatActionEnum.CONFIRMING.getCode()) {
+            return 0;
+        } else if (status == CatActionEnum.CANCELING.getCode()) {
+            return 1;
+        } else if (status == CatActionEnum.TRYING.getCode() || status == CatActionEnum.PRE_TRY.getCode()) {
+            return 2;
+        }
+        return 3;
+    }
+}
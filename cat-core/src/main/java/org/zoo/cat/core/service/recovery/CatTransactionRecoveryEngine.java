@@ -0,0 +1,376 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.service.recovery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zoo.cat.annotation.Cat;
+import org.zoo.cat.annotation.TransTypeEnum;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.enums.CatActionEnum;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.core.helper.CatAnnotationHelper;
+import org.zoo.cat.core.spi.CatCoordinatorRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EN: recovery workers fed by the scan of the scheduler.
+ * every pattern has its own bounded queue and the workers poll them in turn, so one pattern can not starve the others.
+ * a queue serves the transactions of the higher {@link Cat#priority()} first and the longest waiting among the same.
+ * a transaction is accepted only once until its recovery ends, each recovery moves its next retry time by the {@link CatRetryPolicy}.
+ * a transaction that fails its last retry is parked in the dead letter store of the repository.
+ * a transaction whose targets are held back by the {@link CatRecoveryGuard} waits for a later scan without counting a retry.
+ * CN: 并发补偿引擎, 按事务模式分队列, 同一事务同时只补偿一次.
+ *
+ * @author dzc
+ */
+public class CatTransactionRecoveryEngine {
+
+    /**
+     * logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatTransactionRecoveryEngine.class);
+
+    /**
+     * higher priority first, then the longest waiting.
+     */
+    public static final Comparator<CatTransaction> PRIORITY = Comparator
+            .comparingInt((CatTransaction catTransaction) -> -catTransaction.getPriority())
+            .thenComparing(CatTransaction::getCreateTime, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final CatCoordinatorRepository catCoordinatorRepository;
+
+    private final CatTransactionRecoveryService catTransactionRecoveryService;
+
+    private final CatRetryPolicy catRetryPolicy;
+
+    private final CatRecoveryGuard catRecoveryGuard;
+
+    private final Map<Integer, BlockingQueue<CatTransaction>> queues = new ConcurrentHashMap<>();
+
+    private final List<BlockingQueue<CatTransaction>> lanes = new ArrayList<>();
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final Semaphore available = new Semaphore(0);
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private final LongAdder queued = new LongAdder();
+
+    private final LongAdder inFlight = new LongAdder();
+
+    private final LongAdder done = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    private final LongAdder parked = new LongAdder();
+
+    private final LongAdder throttled = new LongAdder();
+
+    private final int workers;
+
+    private final int queueSize;
+
+    private final ThreadFactory threadFactory;
+
+    private ExecutorService executorService;
+
+    /**
+     * Instantiates a new Cat transaction recovery engine.
+     *
+     * @param catCoordinatorRepository the cat coordinator repository
+     * @param catRetryPolicy           the cat retry policy
+     * @param catRecoveryGuard         the cat recovery guard
+     * @param workers                  worker threads
+     * @param queueSize                capacity of the queue of each pattern
+     * @param threadFactory            threads of the workers
+     */
+    public CatTransactionRecoveryEngine(final CatCoordinatorRepository catCoordinatorRepository,
+                                        final CatRetryPolicy catRetryPolicy,
+                                        final CatRecoveryGuard catRecoveryGuard,
+                                        final int workers, final int queueSize,
+                                        final ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+        this.catCoordinatorRepository = catCoordinatorRepository;
+        this.catRetryPolicy = catRetryPolicy;
+        this.catRecoveryGuard = catRecoveryGuard;
+        this.catTransactionRecoveryService = new CatTransactionRecoveryService(catCoordinatorRepository, catRecoveryGuard);
+        this.workers = Math.max(1, workers);
+        this.queueSize = Math.max(1, queueSize);
+        for (TransTypeEnum transTypeEnum : TransTypeEnum.values()) {
+            final BlockingQueue<CatTransaction> queue = new PriorityBlockingQueue<>(16, PRIORITY);
+            queues.put(transTypeEnum.getCode(), queue);
+            lanes.add(queue);
+        }
+    }
+
+    /**
+     * start the workers.
+     */
+    public synchronized void start() {
+        if (Objects.nonNull(executorService)) {
+            return;
+        }
+        executorService = Executors.newFixedThreadPool(workers, threadFactory);
+        for (int i = 0; i < workers; i++) {
+            executorService.execute(this::work);
+        }
+    }
+
+    /**
+     * stop the workers, the queued transactions are dropped and found by the next scan.
+     */
+    public synchronized void stop() {
+        if (Objects.nonNull(executorService)) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+
+    /**
+     * queue the transaction for recovery.
+     *
+     * @param catTransaction the cat transaction
+     * @return false if it is in flight already or the queue is full
+     */
+    public boolean submit(final CatTransaction catTransaction) {
+        if (!pending.add(catTransaction.getTransId())) {
+            return false;
+        }
+        final BlockingQueue<CatTransaction> queue = queues.getOrDefault(catTransaction.getPattern(),
+                queues.get(TransTypeEnum.TCC.getCode()));
+        if (queue.size() >= queueSize || !queue.offer(prioritize(catTransaction))) {
+            pending.remove(catTransaction.getTransId());
+            return false;
+        }
+        queued.increment();
+        available.release();
+        return true;
+    }
+
+    /**
+     * take the priority of the transaction from {@link Cat} of its target method, it is not stored with the log.
+     *
+     * @param catTransaction the cat transaction
+     * @return the cat transaction
+     */
+    public static CatTransaction prioritize(final CatTransaction catTransaction) {
+        final Cat cat = CatAnnotationHelper.find(catTransaction);
+        if (Objects.nonNull(cat)) {
+            catTransaction.setPriority(cat.priority());
+        }
+        return catTransaction;
+    }
+
+    /**
+     * recover the transaction on the calling thread.
+     *
+     * @param catTransaction the cat transaction
+     * @return false if it is in flight already
+     */
+    public boolean recoverNow(final CatTransaction catTransaction) {
+        if (!pending.add(catTransaction.getTransId())) {
+            return false;
+        }
+        run(catTransaction);
+        return true;
+    }
+
+    /**
+     * transactions waiting in the queues.
+     *
+     * @return count
+     */
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    /**
+     * transactions being recovered.
+     *
+     * @return count
+     */
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * recovered transactions.
+     *
+     * @return count
+     */
+    public long getDone() {
+        return done.sum();
+    }
+
+    /**
+     * transactions with failed participants.
+     *
+     * @return count
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * transactions taken by another node or not recoverable in their status.
+     *
+     * @return count
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * transactions held back by an open breaker or a used up budget of their targets.
+     *
+     * @return count
+     */
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    /**
+     * transactions moved to the dead letter store.
+     *
+     * @return count
+     */
+    public long getParked() {
+        return parked.sum();
+    }
+
+    /**
+     * park the transaction that used up its retries.
+     *
+     * @param catTransaction the cat transaction
+     * @return false if the repository has no dead letter store
+     */
+    public boolean park(final CatTransaction catTransaction) {
+        if (catCoordinatorRepository.park(catTransaction.getTransId()) > 0) {
+            parked.increment();
+            LogUtil.warn(LOGGER, "transaction used up its retries and is parked:{}", catTransaction::getTransId);
+            return true;
+        }
+        return false;
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final CatTransaction catTransaction;
+            try {
+                available.acquire();
+                catTransaction = poll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (Objects.isNull(catTransaction)) {
+                continue;
+            }
+            queued.decrement();
+            run(catTransaction);
+        }
+    }
+
+    private void run(final CatTransaction catTransaction) {
+        inFlight.increment();
+        try {
+            recover(catTransaction);
+        } catch (Exception e) {
+            failed.increment();
+            LogUtil.error(LOGGER, "recovery transaction exception:{}", () -> catTransaction.getTransId() + " " + e);
+        } finally {
+            inFlight.decrement();
+            pending.remove(catTransaction.getTransId());
+        }
+    }
+
+    private CatTransaction poll() {
+        final int start = Math.abs(cursor.getAndIncrement() % lanes.size());
+        for (int i = 0; i < lanes.size(); i++) {
+            final CatTransaction catTransaction = lanes.get((start + i) % lanes.size()).poll();
+            if (Objects.nonNull(catTransaction)) {
+                return catTransaction;
+            }
+        }
+        return null;
+    }
+
+    private void recover(final CatTransaction catTransaction) {
+        final Set<String> targets = CatRecoveryGuard.targets(catTransaction);
+        if (!catRecoveryGuard.tryAcquire(targets)) {
+            throttled.increment();
+            return;
+        }
+        catTransaction.setRetriedCount(catTransaction.getRetriedCount() + 1);
+        catTransaction.setNextRetryTime(catRetryPolicy.next(catTransaction));
+        final int rows;
+        try {
+            rows = catCoordinatorRepository.update(catTransaction);
+        } catch (RuntimeException e) {
+            catRecoveryGuard.release(targets);
+            throw e;
+        }
+        // determine that rows>0 is executed to prevent concurrency when the business side is in cluster mode
+        if (rows <= 0) {
+            catRecoveryGuard.release(targets);
+            skipped.increment();
+            return;
+        }
+        final boolean success;
+        final int status = catTransaction.getStatus();
+        if (status == CatActionEnum.TRYING.getCode()
+                || status == CatActionEnum.PRE_TRY.getCode()
+                || status == CatActionEnum.CANCELING.getCode()) {
+            success = catTransactionRecoveryService.cancel(catTransaction);
+        } else if (status == CatActionEnum.CONFIRMING.getCode()) {
+            success = catTransactionRecoveryService.confirm(catTransaction);
+        } else if (status == CatActionEnum.NOTICEING.getCode()) {
+            success = catTransactionRecoveryService.notice(catTransaction);
+        } else {
+            skipped.increment();
+            return;
+        }
+        if (success) {
+            done.increment();
+        } else {
+            failed.increment();
+            if (catTransaction.getRetriedCount() >= catTransaction.getRetryMax()) {
+                park(catTransaction);
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.google.common.collect.Lists;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.bean.entity.CatInvocation;
 import org.zoo.cat.common.bean.entity.CatParticipant;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.enums.CatActionEnum;
@@ -30,7 +31,10 @@ import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
 import org.zoo.cat.core.reflect.CatReflector;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * The type Cat transaction recovery service.
@@ -46,6 +50,8 @@ public class CatTransactionRecoveryService {
 
     private CatCoordinatorRepository catCoordinatorRepository;
 
+    private CatRecoveryGuard catRecoveryGuard;
+
     /**
      * Instantiates a new Cat transaction recovery service.
      *
@@ -55,14 +61,28 @@ public class CatTransactionRecoveryService {
         this.catCoordinatorRepository = catCoordinatorRepository;
     }
 
+    /**
+     * Instantiates a new Cat transaction recovery service that reports every target to the guard once per transaction.
+     *
+     * @param catCoordinatorRepository the cat coordinator repository
+     * @param catRecoveryGuard         the cat recovery guard
+     */
+    public CatTransactionRecoveryService(final CatCoordinatorRepository catCoordinatorRepository,
+                                         final CatRecoveryGuard catRecoveryGuard) {
+        this.catCoordinatorRepository = catCoordinatorRepository;
+        this.catRecoveryGuard = catRecoveryGuard;
+    }
+
     /**
      * Cancel.
      *
      * @param catTransaction the cat transaction
+     * @return true if all participants succeed
      */
-    public void cancel(final CatTransaction catTransaction) {
+    public boolean cancel(final CatTransaction catTransaction) {
         final List<CatParticipant> catParticipants = catTransaction.getCatParticipants();
         List<CatParticipant> failList = Lists.newArrayListWithCapacity(catParticipants.size());
+        final Map<String, Boolean> results = new LinkedHashMap<>();
         boolean success = true;
         if (CollectionUtils.isNotEmpty(catParticipants)) {
             for (CatParticipant catParticipant : catParticipants) {
@@ -70,7 +90,9 @@ public class CatTransactionRecoveryService {
                     CatReflector.executor(catParticipant.getTransId(),
                             CatActionEnum.CANCELING,
                             catParticipant.getCancelCatInvocation());
+                    collect(results, catParticipant.getCancelCatInvocation(), true);
                 } catch (Exception e) {
+                    collect(results, catParticipant.getCancelCatInvocation(), false);
                     LogUtil.error(LOGGER, "execute cancel exception:{}", () -> e);
                     success = false;
                     failList.add(catParticipant);
@@ -78,8 +100,10 @@ public class CatTransactionRecoveryService {
                     CatTransactionContextLocal.getInstance().remove();
                 }
             }
+            report(results);
             executeHandler(success, catTransaction, failList);
         }
+        return success;
 
     }
 
@@ -87,10 +111,12 @@ public class CatTransactionRecoveryService {
      * Confirm.
      *
      * @param catTransaction the cat transaction
+     * @return true if all participants succeed
      */
-    public void confirm(final CatTransaction catTransaction) {
+    public boolean confirm(final CatTransaction catTransaction) {
         final List<CatParticipant> catParticipants = catTransaction.getCatParticipants();
         List<CatParticipant> failList = Lists.newArrayListWithCapacity(catParticipants.size());
+        final Map<String, Boolean> results = new LinkedHashMap<>();
         boolean success = true;
         if (CollectionUtils.isNotEmpty(catParticipants)) {
             for (CatParticipant catParticipant : catParticipants) {
@@ -98,7 +124,9 @@ public class CatTransactionRecoveryService {
                     CatReflector.executor(catParticipant.getTransId(),
                             CatActionEnum.CONFIRMING,
                             catParticipant.getConfirmCatInvocation());
+                    collect(results, catParticipant.getConfirmCatInvocation(), true);
                 } catch (Exception e) {
+                    collect(results, catParticipant.getConfirmCatInvocation(), false);
                     LogUtil.error(LOGGER, "execute confirm exception:{}", () -> e);
                     success = false;
                     failList.add(catParticipant);
@@ -106,18 +134,22 @@ public class CatTransactionRecoveryService {
                     CatTransactionContextLocal.getInstance().remove();
                 }
             }
+            report(results);
             executeHandler(success, catTransaction, failList);
         }
+        return success;
     }
     
     
     /**
      * notice.
      * @param catTransaction the cat transaction
+     * @return true if all participants succeed
      */
-    public void notice(final CatTransaction catTransaction) {
+    public boolean notice(final CatTransaction catTransaction) {
         final List<CatParticipant> catParticipants = catTransaction.getCatParticipants();
         List<CatParticipant> failList = Lists.newArrayListWithCapacity(catParticipants.size());
+        final Map<String, Boolean> results = new LinkedHashMap<>();
         boolean success = true;
         if (CollectionUtils.isNotEmpty(catParticipants)) {
             for (CatParticipant catParticipant : catParticipants) {
@@ -125,7 +157,9 @@ public class CatTransactionRecoveryService {
                     CatReflector.executor(catParticipant.getTransId(),
                             CatActionEnum.NOTICEING,
                             catParticipant.getNoticeCatInvocation());
+                    collect(results, catParticipant.getNoticeCatInvocation(), true);
                 } catch (Exception e) {
+                    collect(results, catParticipant.getNoticeCatInvocation(), false);
                     LogUtil.error(LOGGER, "execute notice exception:{}", () -> e);
                     success = false;
                     failList.add(catParticipant);
@@ -133,8 +167,29 @@ public class CatTransactionRecoveryService {
                     CatTransactionContextLocal.getInstance().remove();
                 }
             }
+            report(results);
             executeHandler(success, catTransaction, failList);
         }
+        return success;
+    }
+
+    private void collect(final Map<String, Boolean> results, final CatInvocation catInvocation, final boolean success) {
+        if (Objects.nonNull(catRecoveryGuard)) {
+            results.merge(CatRecoveryGuard.target(catInvocation), success, Boolean::logicalAnd);
+        }
+    }
+
+    /**
+     * the guard gave one call per target, so a target is reported once, failed if any of its participants failed.
+     */
+    private void report(final Map<String, Boolean> results) {
+        results.forEach((target, success) -> {
+            if (success) {
+                catRecoveryGuard.onSuccess(target);
+            } else {
+                catRecoveryGuard.onFailure(target);
+            }
+        });
     }
 
     private void executeHandler(final boolean success, final CatTransaction currentTransaction, final List<CatParticipant> failList) {
@@ -19,12 +19,16 @@ package org.zoo.cat.core.spi;
 
 import org.zoo.cat.annotation.CatSPI;
 import org.zoo.cat.common.bean.entity.CatNoticeSafe;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.config.CatConfig;
 import org.zoo.cat.common.serializer.ObjectSerializer;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * CoordinatorRepository.
@@ -102,6 +106,19 @@ public interface CatCoordinatorRepository {
      */
     List<CatTransaction> listAllByDelay(Date date);
 
+    /**
+     * list the due transactions of the recovery query.
+     * a repository with an index on the next retry time should read only the due rows.
+     *
+     * @param query {@linkplain CatRecoveryQuery}
+     * @return {@linkplain CatTransaction}
+     */
+    default List<CatTransaction> listAllByQuery(CatRecoveryQuery query) {
+        return listAll().stream()
+                .filter(query::matches)
+                .collect(Collectors.toList());
+    }
+
     /**
      * init.
      *
@@ -127,6 +144,7 @@ public interface CatCoordinatorRepository {
 
     /**
      * 统计延时时间段异常日志数目.
+     * the notice degradation counts the logs in memory and does not call it.
      *
      * @param acquireData 延迟后的时间
      * @return {@linkplain CatNoticeSafe}
@@ -140,4 +158,94 @@ public interface CatCoordinatorRepository {
      * @return {@linkplain Integer}
      */
 	int removeLogsByDelay(Date acquireSecondsData);
+
+    /**
+     * load the method dictionary of the app.
+     *
+     * @return method id to signature
+     */
+    default Map<Integer, String> loadMethods() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * save a method of the dictionary if it is absent.
+     *
+     * @param id        method id
+     * @param signature signature
+     * @return rows 1 saved 0 exists or not supported
+     */
+    default int saveMethod(Integer id, String signature) {
+        return FAIL_ROWS;
+    }
+
+    /**
+     * register or renew the recovery lease of the node.
+     *
+     * @param nodeId      node id
+     * @param leaseMillis lease time
+     * @return rows 1 success 0 not supported
+     */
+    default int heartbeat(String nodeId, long leaseMillis) {
+        return FAIL_ROWS;
+    }
+
+    /**
+     * list the nodes with a live lease.
+     *
+     * @return node ids
+     */
+    default List<String> listLiveNodes() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * release the lease of the node.
+     *
+     * @param nodeId node id
+     * @return rows 1 success 0 fail
+     */
+    default int leave(String nodeId) {
+        return FAIL_ROWS;
+    }
+
+    /**
+     * move the transaction that used up its retries to the dead letter store,
+     * the recovery scans do not load it any more.
+     *
+     * @param id transId
+     * @return rows 1 success 0 fail or not supported
+     */
+    default int park(String id) {
+        return FAIL_ROWS;
+    }
+
+    /**
+     * list the transactions in the dead letter store.
+     *
+     * @return the parked transactions
+     */
+    default List<CatTransaction> listParked() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * move the transaction back from the dead letter store with its retries reset.
+     *
+     * @param id transId
+     * @return rows 1 success 0 fail or not supported
+     */
+    default int replay(String id) {
+        return FAIL_ROWS;
+    }
+
+    /**
+     * delete the transaction from the dead letter store.
+     *
+     * @param id transId
+     * @return rows 1 success 0 fail or not supported
+     */
+    default int purge(String id) {
+        return FAIL_ROWS;
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.spi;
+
+import org.zoo.cat.annotation.CatSPI;
+import org.zoo.cat.common.bean.entity.CatCounter;
+import org.zoo.cat.common.config.CatConfig;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CounterStore.
+ * the counts of all the nodes of the application in time buckets, the nodes add their local counts in batches
+ * and read back the totals for the notice degradation.
+ * the db and redis repositories keep the counters themselves, other stores are loaded by the
+ * counterStore of {@link org.zoo.cat.common.config.CatNoticeSafeConfig}.
+ * @author dzc
+ */
+@CatSPI
+public interface CatCounterStore {
+
+    /**
+     * buckets a counter is kept for, the totals are read from the current and the previous bucket.
+     */
+    int EXPIRE_BUCKETS = 3;
+
+    /**
+     * init a store that is not the repository.
+     *
+     * @param modelName model name
+     * @param appName   app name
+     * @param catConfig {@linkplain CatConfig}
+     */
+    void init(String modelName, String appName, CatConfig catConfig);
+
+    /**
+     * add the deltas to the counters, a counter expires {@link #EXPIRE_BUCKETS} buckets after it is added to.
+     *
+     * @param counters {@linkplain CatCounter}
+     * @return rows
+     */
+    int incrementCounters(List<CatCounter> counters);
+
+    /**
+     * totals of the counters in the bucket.
+     *
+     * @param timeUnit {@link java.util.concurrent.TimeUnit} name
+     * @param bucket   bucket
+     * @param keys     keys of the counters
+     * @return totals by key, missing keys are 0
+     */
+    Map<String, Long> findCounters(String timeUnit, long bucket, Collection<String> keys);
+}
@@ -18,39 +18,59 @@
 package org.zoo.cat.core.spi.repository;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.zoo.cat.annotation.CatSPI;
-import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
 import org.zoo.cat.common.bean.entity.CatNoticeSafe;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.config.CatFileConfig;
 import org.zoo.cat.common.enums.RepositorySupportEnum;
 import org.zoo.cat.common.exception.CatException;
 import org.zoo.cat.common.exception.CatRuntimeException;
+import org.zoo.cat.common.journal.CatSegmentLog;
+import org.zoo.cat.common.serializer.BufferLease;
 import org.zoo.cat.common.serializer.ObjectSerializer;
-import org.zoo.cat.common.utils.FileUtils;
+import org.zoo.cat.common.utils.LogUtil;
 import org.zoo.cat.common.utils.RepositoryConvertUtils;
 import org.zoo.cat.common.utils.RepositoryPathUtils;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * file impl.
+ * all transactions of the application are appended to a {@link CatSegmentLog}.
  * @author dzc
  */
 @SuppressWarnings("all")
 @CatSPI("file")
 public class FileCoordinatorRepository implements CatCoordinatorRepository {
 
-    private static volatile boolean initialized;
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileCoordinatorRepository.class);
+
+    private static final String METHOD_FILE = ".methods";
 
     private String filePath;
 
+    private CatSegmentLog segmentLog;
+
+    private CatSegmentLog deadLog;
+
     private ObjectSerializer serializer;
 
     @Override
@@ -60,18 +80,13 @@ public class FileCoordinatorRepository implements CatCoordinatorRepository {
 
     @Override
     public int create(final CatTransaction catTransaction) {
-
-        writeFile(catTransaction);
-        return 1;
+        writeLog(catTransaction);
+        return ROWS;
     }
 
     @Override
     public int remove(final String id) {
-        String fullFileName = RepositoryPathUtils.getFullFileName(filePath, id);
-        File file = new File(fullFileName);
-        if (file.exists()) {
-            file.delete();
-        }
+        segmentLog.remove(id);
         return ROWS;
     }
 
@@ -81,23 +96,22 @@ public class FileCoordinatorRepository implements CatCoordinatorRepository {
         catTransaction.setVersion(catTransaction.getVersion() + 1);
         catTransaction.setRetriedCount(catTransaction.getRetriedCount() + 1);
         try {
-            writeFile(catTransaction);
+            writeLog(catTransaction);
         } catch (Exception e) {
             throw new CatRuntimeException("update data exception!");
         }
-        return 1;
+        return ROWS;
     }
 
     @Override
     public int updateParticipant(final CatTransaction catTransaction) {
         try {
-            final String fullFileName = RepositoryPathUtils.getFullFileName(filePath, catTransaction.getTransId());
-            final File file = new File(fullFileName);
-            final CoordinatorRepositoryAdapter adapter = readAdapter(file);
-            if (Objects.nonNull(adapter)) {
-                adapter.setContents(serializer.serialize(catTransaction.getCatParticipants()));
+            final byte[] content = segmentLog.get(catTransaction.getTransId());
+            if (Objects.isNull(content)) {
+                return FAIL_ROWS;
             }
-            FileUtils.writeFile(fullFileName, serializer.serialize(adapter));
+            segmentLog.put(catTransaction.getTransId(), RepositoryConvertUtils.updateParticipants(content, serializer,
+                    catTransaction.getCatParticipants()));
         } catch (Exception e) {
             throw new CatRuntimeException("update data exception!");
         }
@@ -107,13 +121,12 @@ public class FileCoordinatorRepository implements CatCoordinatorRepository {
     @Override
     public int updateStatus(final String id, final Integer status) {
         try {
-            final String fullFileName = RepositoryPathUtils.getFullFileName(filePath, id);
-            final File file = new File(fullFileName);
-            final CoordinatorRepositoryAdapter adapter = readAdapter(file);
-            if (Objects.nonNull(adapter)) {
-                adapter.setStatus(status);
+            final byte[] content = segmentLog.get(id);
+            if (Objects.isNull(content)) {
+                return FAIL_ROWS;
             }
-            FileUtils.writeFile(fullFileName, serializer.serialize(adapter));
+            segmentLog.put(id, RepositoryConvertUtils.updateHeader(content, serializer,
+                    transaction -> transaction.setStatus(status)));
         } catch (Exception e) {
             throw new CatRuntimeException("update data exception!");
         }
@@ -122,12 +135,14 @@ public class FileCoordinatorRepository implements CatCoordinatorRepository {
 
     @Override
     public CatTransaction findById(final String id) {
-        String fullFileName = RepositoryPathUtils.getFullFileName(filePath, id);
-        File file = new File(fullFileName);
+        final byte[] content = segmentLog.get(id);
+        if (Objects.isNull(content)) {
+            return null;
+        }
         try {
-            return readTransaction(file);
-        } catch (Exception e) {
-            e.printStackTrace();
+            return RepositoryConvertUtils.transformBean(content, serializer);
+        } catch (CatException e) {
+            LogUtil.error(LOGGER, "read log exception:{}", e::getMessage);
             return null;
         }
     }
@@ -135,18 +150,13 @@ public class FileCoordinatorRepository implements CatCoordinatorRepository {
     @Override
     public List<CatTransaction> listAll() {
         List<CatTransaction> transactionRecoverList = Lists.newArrayList();
-        File path = new File(filePath);
-        File[] files = path.listFiles();
-        if (files != null && files.length > 0) {
-            for (File file : files) {
-                try {
-                    CatTransaction transaction = readTransaction(file);
-                    transactionRecoverList.add(transaction);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+        segmentLog.forEach((id, content) -> {
+            try {
+                transactionRecoverList.add(RepositoryConvertUtils.transformBean(content, serializer));
+            } catch (CatException e) {
+                LogUtil.error(LOGGER, "read log exception:{}", e::getMessage);
             }
-        }
+        });
         return transactionRecoverList;
     }
 
@@ -158,14 +168,78 @@ public class FileCoordinatorRepository implements CatCoordinatorRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<CatTransaction> listAllByQuery(final CatRecoveryQuery query) {
+        List<CatTransaction> transactionRecoverList = Lists.newArrayList();
+        segmentLog.forEach((id, content) -> {
+            try {
+                if (query.matches(RepositoryConvertUtils.transformHeader(content, serializer))) {
+                    transactionRecoverList.add(RepositoryConvertUtils.transformBean(content, serializer));
+                }
+            } catch (CatException e) {
+                LogUtil.error(LOGGER, "read log exception:{}", e::getMessage);
+            }
+        });
+        return transactionRecoverList;
+    }
+
+    /**
+     * the record is put in the dead letter log before it is removed, a copy left in both is overwritten by the next park.
+     */
+    @Override
+    public int park(final String id) {
+        final byte[] content = segmentLog.get(id);
+        if (Objects.isNull(content)) {
+            return FAIL_ROWS;
+        }
+        deadLog.put(id, content);
+        segmentLog.remove(id);
+        return ROWS;
+    }
+
+    @Override
+    public List<CatTransaction> listParked() {
+        List<CatTransaction> transactionRecoverList = Lists.newArrayList();
+        deadLog.forEach((id, content) -> {
+            try {
+                transactionRecoverList.add(RepositoryConvertUtils.transformBean(content, serializer));
+            } catch (CatException e) {
+                LogUtil.error(LOGGER, "read log exception:{}", e::getMessage);
+            }
+        });
+        return transactionRecoverList;
+    }
+
+    @Override
+    public int replay(final String id) {
+        final byte[] content = deadLog.get(id);
+        if (Objects.isNull(content)) {
+            return FAIL_ROWS;
+        }
+        try {
+            segmentLog.put(id, RepositoryConvertUtils.updateHeader(content, serializer, transaction -> {
+                transaction.setRetriedCount(0);
+                transaction.setNextRetryTime(null);
+            }));
+        } catch (CatException e) {
+            throw new CatRuntimeException("replay log exception!", e);
+        }
+        deadLog.remove(id);
+        return ROWS;
+    }
+
+    @Override
+    public int purge(final String id) {
+        return deadLog.remove(id) ? ROWS : FAIL_ROWS;
+    }
+
     @Override
     public void init(final String modelName,final String appName, final CatConfig catConfig) {
         filePath = RepositoryPathUtils.buildFilePath(modelName);
-        File file = new File(filePath);
-        if (!file.exists()) {
-            file.getParentFile().mkdirs();
-            file.mkdirs();
-        }
+        final CatFileConfig fileConfig = Optional.ofNullable(catConfig.getCatFileConfig()).orElseGet(CatFileConfig::new);
+        segmentLog = CatSegmentLog.open(filePath, fileConfig);
+        deadLog = CatSegmentLog.open(filePath + "_dead", fileConfig);
+        migrateLegacyFiles();
     }
 
     @Override
@@ -173,49 +247,63 @@ public class FileCoordinatorRepository implements CatCoordinatorRepository {
         return RepositorySupportEnum.FILE.getSupport();
     }
 
-    private void writeFile(final CatTransaction catTransaction) {
-        makeDir();
-        String fileName = RepositoryPathUtils.getFullFileName(filePath, catTransaction.getTransId());
+    @Override
+    public Map<Integer, String> loadMethods() {
+        final Map<Integer, String> methods = Maps.newHashMap();
+        final Path path = Paths.get(filePath, METHOD_FILE);
+        if (!Files.exists(path)) {
+            return methods;
+        }
         try {
-            FileUtils.writeFile(fileName, RepositoryConvertUtils.convert(catTransaction, serializer));
-        } catch (CatException e) {
-            e.printStackTrace();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                final int index = line.indexOf('\t');
+                if (index > 0) {
+                    methods.put(Integer.valueOf(line.substring(0, index)), line.substring(index + 1));
+                }
+            }
+        } catch (IOException e) {
+            throw new CatRuntimeException("read method dictionary exception!", e);
         }
+        return methods;
     }
 
-    private CatTransaction readTransaction(final File file) throws Exception {
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] content = new byte[(int) file.length()];
-            fis.read(content);
-            return RepositoryConvertUtils.transformBean(content, serializer);
+    @Override
+    public synchronized int saveMethod(final Integer id, final String signature) {
+        if (loadMethods().containsKey(id)) {
+            return FAIL_ROWS;
+        }
+        try {
+            Files.write(Paths.get(filePath, METHOD_FILE), (id + "\t" + signature + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            return ROWS;
+        } catch (IOException e) {
+            throw new CatRuntimeException("write method dictionary exception!", e);
         }
     }
 
-    private CoordinatorRepositoryAdapter readAdapter(final File file) throws Exception {
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] content = new byte[(int) file.length()];
-            fis.read(content);
-            return serializer.deSerialize(content, CoordinatorRepositoryAdapter.class);
+    private void writeLog(final CatTransaction catTransaction) {
+        try (BufferLease lease = BufferLease.acquire()) {
+            segmentLog.put(catTransaction.getTransId(), RepositoryConvertUtils.convert(catTransaction, serializer, lease));
+        } catch (CatException e) {
+            throw new CatRuntimeException("write log exception!", e);
         }
     }
 
-    private void makeDir() {
-        if (!initialized) {
-            synchronized (FileCoordinatorRepository.class) {
-                if (!initialized) {
-                    File rootPathFile = new File(filePath);
-                    if (!rootPathFile.exists()) {
-
-                        boolean result = rootPathFile.mkdir();
-
-                        if (!result) {
-                            throw new CatRuntimeException("cannot create root path, the path to create is:" + filePath);
-                        }
-                        initialized = true;
-                    } else if (!rootPathFile.isDirectory()) {
-                        throw new CatRuntimeException("rootPath is not directory");
-                    }
-                }
+    /**
+     * the old version write one file per transaction, move them into the log.
+     */
+    private void migrateLegacyFiles() {
+        final File[] files = new File(filePath).listFiles(file -> file.isFile()
+                && !file.getName().startsWith(".") && !file.getName().startsWith("segment-"));
+        if (Objects.isNull(files)) {
+            return;
+        }
+        for (File file : files) {
+            try {
+                segmentLog.put(file.getName(), Files.readAllBytes(file.toPath()));
+                Files.delete(file.toPath());
+            } catch (Exception e) {
+                LogUtil.error(LOGGER, "migrate legacy file exception:{}", () -> file + " " + e.getMessage());
             }
         }
     }
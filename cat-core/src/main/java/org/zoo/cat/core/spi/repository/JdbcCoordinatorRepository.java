@@ -22,8 +22,10 @@ import com.zaxxer.hikari.HikariDataSource;
 import org.zoo.cat.annotation.CatSPI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.bean.entity.CatCounter;
 import org.zoo.cat.common.bean.entity.CatNoticeSafe;
 import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.config.CatConfig;
 import org.zoo.cat.common.config.CatDbConfig;
@@ -31,6 +33,7 @@ import org.zoo.cat.common.constant.CommonConstant;
 import org.zoo.cat.common.enums.RepositorySupportEnum;
 import org.zoo.cat.common.exception.CatException;
 import org.zoo.cat.common.exception.CatRuntimeException;
+import org.zoo.cat.common.serializer.CatParticipantCodec;
 import org.zoo.cat.common.serializer.ObjectSerializer;
 import org.zoo.cat.common.utils.CollectionUtils;
 import org.zoo.cat.common.utils.DbTypeUtils;
@@ -39,9 +42,11 @@ import org.zoo.cat.common.utils.RepositoryPathUtils;
 import org.zoo.cat.common.utils.StringUtils;
 import org.zoo.cat.core.helper.SqlHelper;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
+import org.zoo.cat.core.spi.CatCounterStore;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -50,12 +55,12 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
@@ -64,19 +69,30 @@ import java.util.stream.Collectors;
  * @author dzc
  */
 @CatSPI("db")
-public class JdbcCoordinatorRepository implements CatCoordinatorRepository {
+public class JdbcCoordinatorRepository implements CatCoordinatorRepository, CatCounterStore {
 
     /**
      * logger.
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(JdbcCoordinatorRepository.class);
 
+    private static final String COLUMNS = "id,app_name,trans_id,trans_type,target_class,target_method,retry_max,retried_count,"
+            + "create_time,last_time,version,status,invocation,role,pattern,confirm_method,cancel_method,shard_key,next_retry_time";
+
     private DataSource dataSource;
     
     private String appName;
 
     private String tableName;
 
+    private String methodTableName;
+
+    private String nodeTableName;
+
+    private String deadTableName;
+
+    private String counterTableName;
+
     private String currentDBType;
 
     private ObjectSerializer serializer;
@@ -88,15 +104,15 @@ public class JdbcCoordinatorRepository implements CatCoordinatorRepository {
 
     @Override
     public int create(final CatTransaction catTransaction) {
-        String sql = "insert into " + tableName + "(id,app_name,trans_id,trans_type,target_class,target_method,retry_max,retried_count,"
-                + "create_time,last_time,version,status,invocation,role,pattern,confirm_method,cancel_method)"
-                + " values(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+        String sql = "insert into " + tableName + "(" + COLUMNS + ")"
+                + " values(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
         try {
-            final byte[] serialize = serializer.serialize(catTransaction.getCatParticipants());
+            final byte[] serialize = CatParticipantCodec.encode(catTransaction.getCatParticipants(), serializer);
             return executeUpdate(sql,catTransaction.getId(),appName,catTransaction.getTransId(),catTransaction.getTransType(), catTransaction.getTargetClass(), catTransaction.getTargetMethod(),
             		    catTransaction.getRetryMax(),catTransaction.getRetriedCount(), catTransaction.getCreateTime(), catTransaction.getLastTime(),
                     catTransaction.getVersion(), catTransaction.getStatus(), serialize, catTransaction.getRole(),
-                    catTransaction.getPattern(), catTransaction.getConfirmMethod(), catTransaction.getCancelMethod());
+                    catTransaction.getPattern(), catTransaction.getConfirmMethod(), catTransaction.getCancelMethod(),
+                    CatRecoveryQuery.slotOf(catTransaction.getTransId()), catTransaction.getNextRetryTime());
         } catch (CatException e) {
             e.printStackTrace();
             return FAIL_ROWS;
@@ -115,12 +131,12 @@ public class JdbcCoordinatorRepository implements CatCoordinatorRepository {
         catTransaction.setLastTime(new Date());
         catTransaction.setVersion(catTransaction.getVersion() + 1);
         String sql = "update " + tableName
-                + " set last_time = ?,version =?,retried_count =?,invocation=?,status=? ,pattern=? where trans_id = ? and version=? and app_name='"+appName+"'";
+                + " set last_time = ?,version =?,retried_count =?,invocation=?,status=? ,pattern=?,next_retry_time=? where trans_id = ? and version=? and app_name='"+appName+"'";
         try {
-            final byte[] serialize = serializer.serialize(catTransaction.getCatParticipants());
+            final byte[] serialize = CatParticipantCodec.encode(catTransaction.getCatParticipants(), serializer);
             return executeUpdate(sql, catTransaction.getLastTime(),
                     catTransaction.getVersion(), catTransaction.getRetriedCount(), serialize,
-                    catTransaction.getStatus(), catTransaction.getPattern(),
+                    catTransaction.getStatus(), catTransaction.getPattern(), catTransaction.getNextRetryTime(),
                     catTransaction.getTransId(), currentVersion);
         } catch (CatException e) {
             e.printStackTrace();
@@ -132,7 +148,7 @@ public class JdbcCoordinatorRepository implements CatCoordinatorRepository {
     public int updateParticipant(final CatTransaction catTransaction) {
         String sql = "update " + tableName + " set invocation=?  where trans_id = ?  and app_name='"+appName+"'";
         try {
-            final byte[] serialize = serializer.serialize(catTransaction.getCatParticipants());
+            final byte[] serialize = CatParticipantCodec.encode(catTransaction.getCatParticipants(), serializer);
             return executeUpdate(sql, serialize, catTransaction.getTransId());
         } catch (CatException e) {
             e.printStackTrace();
@@ -184,6 +200,132 @@ public class JdbcCoordinatorRepository implements CatCoordinatorRepository {
         return Collections.emptyList();
     }
 
+    @Override
+    public List<CatTransaction> listAllByQuery(final CatRecoveryQuery query) {
+        // rows written before the next retry time was added fall back to the last time
+        String sb = "select * from " + tableName + " where app_name=?"
+                + " and (next_retry_time <= ? or (next_retry_time is null and last_time <?)) and retried_count<retry_max";
+        final List<Object> params = new ArrayList<>();
+        params.add(appName);
+        params.add(query.getDueTime());
+        params.add(query.getDelayTime());
+        if (!query.isAllShards()) {
+            // rows written before the shard key was added belong to the node owning the first slot
+            sb += " and (shard_key >= ? and shard_key < ?" + (query.getShardFrom() == 0 ? " or shard_key is null)" : ")");
+            params.add(query.getShardFrom());
+            params.add(query.getShardTo());
+        }
+        if (Objects.nonNull(query.getRole())) {
+            sb += " and role=?";
+            params.add(query.getRole());
+        }
+        List<Map<String, Object>> list = executeQuery(sb, params.toArray());
+        if (CollectionUtils.isNotEmpty(list)) {
+            return list.stream().filter(Objects::nonNull)
+                    .map(this::buildByResultMap)
+                    .collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int heartbeat(final String nodeId, final long leaseMillis) {
+        final Date expireTime = new Date(System.currentTimeMillis() + leaseMillis);
+        String sql = "update " + nodeTableName + " set expire_time=? where app_name=? and node_id=?";
+        final int rows = executeUpdate(sql, expireTime, appName, nodeId);
+        if (rows > 0) {
+            return rows;
+        }
+        sql = "insert into " + nodeTableName + "(app_name,node_id,expire_time) values(?,?,?)";
+        return executeUpdate(sql, appName, nodeId, expireTime);
+    }
+
+    @Override
+    public List<String> listLiveNodes() {
+        String selectSql = "select node_id from " + nodeTableName + " where app_name=? and expire_time > ?";
+        List<Map<String, Object>> list = executeQuery(selectSql, appName, new Date());
+        if (CollectionUtils.isNotEmpty(list)) {
+            return list.stream().filter(Objects::nonNull)
+                    .map(item -> (String) item.get("node_id"))
+                    .collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int leave(final String nodeId) {
+        String sql = "delete from " + nodeTableName + " where app_name=? and node_id=?";
+        return executeUpdate(sql, appName, nodeId);
+    }
+
+    @Override
+    public int park(final String id) {
+        return move(tableName, deadTableName, id);
+    }
+
+    @Override
+    public List<CatTransaction> listParked() {
+        String selectSql = "select * from " + deadTableName + " where app_name=?";
+        List<Map<String, Object>> list = executeQuery(selectSql, appName);
+        if (CollectionUtils.isNotEmpty(list)) {
+            return list.stream().filter(Objects::nonNull)
+                    .map(this::buildByResultMap)
+                    .collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int replay(final String id) {
+        // without the next retry time the old last time makes it due at the next scan
+        return move(deadTableName, tableName, id,
+                "update " + tableName + " set retried_count=0,next_retry_time=null where trans_id=? and app_name=?");
+    }
+
+    @Override
+    public int purge(final String id) {
+        String sql = "delete from " + deadTableName + " where trans_id=? and app_name=?";
+        return executeUpdate(sql, id, appName);
+    }
+
+    /**
+     * copy the row to the other table and delete it in one database transaction.
+     */
+    private int move(final String from, final String to, final String id, final String... updates) {
+        final List<String> sqls = new ArrayList<>();
+        sqls.add("insert into " + to + "(" + COLUMNS + ") select " + COLUMNS + " from " + from + " where trans_id=? and app_name=?");
+        Collections.addAll(sqls, updates);
+        sqls.add("delete from " + from + " where trans_id=? and app_name=?");
+        try (Connection connection = dataSource.getConnection()) {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int rows = FAIL_ROWS;
+                for (String sql : sqls) {
+                    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                        ps.setObject(1, id);
+                        ps.setObject(2, appName);
+                        rows = ps.executeUpdate();
+                    }
+                    if (rows <= 0) {
+                        connection.rollback();
+                        return FAIL_ROWS;
+                    }
+                }
+                connection.commit();
+                return rows;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("move-> " + e.getMessage());
+            return FAIL_ROWS;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private CatTransaction buildByResultMap(final Map<String, Object> map) {
         CatTransaction catTransaction = new CatTransaction();
@@ -195,13 +337,14 @@ public class JdbcCoordinatorRepository implements CatCoordinatorRepository {
         catTransaction.setRetriedCount((Integer) map.get("retried_count"));
         catTransaction.setCreateTime((Date) map.get("create_time"));
         catTransaction.setLastTime((Date) map.get("last_time"));
+        catTransaction.setNextRetryTime((Date) map.get("next_retry_time"));
         catTransaction.setVersion((Integer) map.get("version"));
         catTransaction.setStatus((Integer) map.get("status"));
         catTransaction.setRole((Integer) map.get("role"));
         catTransaction.setPattern((Integer) map.get("pattern"));
         byte[] bytes = (byte[]) map.get("invocation");
         try {
-            final List<CatParticipant> catParticipants = serializer.deSerialize(bytes, CopyOnWriteArrayList.class);
+            final List<CatParticipant> catParticipants = CatParticipantCodec.decode(bytes, serializer);
             catTransaction.setCatParticipants(catParticipants);
         } catch (CatException e) {
             e.printStackTrace();
@@ -241,10 +384,25 @@ public class JdbcCoordinatorRepository implements CatCoordinatorRepository {
                 dataSource = hikariDataSource;
             }
             this.tableName = RepositoryPathUtils.buildDbTableName(modelName);
+            this.methodTableName = tableName + "_method";
+            this.nodeTableName = tableName + "_node";
+            this.deadTableName = tableName + "_dead";
+            this.counterTableName = tableName + "_counter";
             this.appName = appName;
             //save current database type
             this.currentDBType = DbTypeUtils.buildByDriverClassName(catDbConfig.getDriverClassName());
+            final boolean existed = tableExists(tableName);
             executeUpdate(SqlHelper.buildCreateTableSql(catDbConfig.getDriverClassName(), tableName));
+            if (addColumnIfAbsent("shard_key", "int") || !existed) {
+                executeUpdate(SqlHelper.buildCreateIndexSql(tableName, "idx_" + tableName + "_shard", "app_name", "shard_key"));
+            }
+            if (addColumnIfAbsent("next_retry_time", SqlHelper.buildDateType(catDbConfig.getDriverClassName())) || !existed) {
+                executeUpdate(SqlHelper.buildCreateIndexSql(tableName, "idx_" + tableName + "_retry", "app_name", "next_retry_time"));
+            }
+            executeUpdate(SqlHelper.buildCreateTableSql(catDbConfig.getDriverClassName(), deadTableName));
+            executeUpdate(SqlHelper.buildCreateMethodTableSql(catDbConfig.getDriverClassName(), methodTableName));
+            executeUpdate(SqlHelper.buildCreateNodeTableSql(catDbConfig.getDriverClassName(), nodeTableName));
+            executeUpdate(SqlHelper.buildCreateCounterTableSql(catDbConfig.getDriverClassName(), counterTableName));
         } catch (Exception e) {
             LogUtil.error(LOGGER, "cat jdbc log init exception please check config:{}", e::getMessage);
             throw new CatRuntimeException(e);
@@ -256,6 +414,117 @@ public class JdbcCoordinatorRepository implements CatCoordinatorRepository {
         return RepositorySupportEnum.DB.getSupport();
     }
 
+    @Override
+    public Map<Integer, String> loadMethods() {
+        String selectSql = "select method_id,signature from " + methodTableName + " where app_name=?";
+        List<Map<String, Object>> list = executeQuery(selectSql, appName);
+        Map<Integer, String> methods = Maps.newHashMap();
+        if (CollectionUtils.isNotEmpty(list)) {
+            list.stream().filter(Objects::nonNull)
+                    .forEach(item -> methods.put(((Number) item.get("method_id")).intValue(), (String) item.get("signature")));
+        }
+        return methods;
+    }
+
+    @Override
+    public int saveMethod(final Integer id, final String signature) {
+        String sql = "insert into " + methodTableName + "(app_name,method_id,signature) values(?,?,?)";
+        return executeUpdate(sql, appName, id, signature);
+    }
+
+    @Override
+    public int incrementCounters(final List<CatCounter> counters) {
+        final String update = "update " + counterTableName + " set num=num+? where app_name=? and time_unit=? and bucket=? and counter_key=?";
+        final String insert = "insert into " + counterTableName + "(app_name,time_unit,bucket,counter_key,num) values(?,?,?,?,?)";
+        final String expire = "delete from " + counterTableName + " where app_name=? and time_unit=? and bucket<?";
+        final Map<String, Long> latest = Maps.newHashMap();
+        int rows = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement updatePs = connection.prepareStatement(update);
+             PreparedStatement insertPs = connection.prepareStatement(insert)) {
+            for (CatCounter counter : counters) {
+                latest.merge(counter.getTimeUnit(), counter.getBucket(), Math::max);
+                if (increment(updatePs, counter) > 0) {
+                    rows++;
+                    continue;
+                }
+                try {
+                    insertPs.setString(1, appName);
+                    insertPs.setString(2, counter.getTimeUnit());
+                    insertPs.setLong(3, counter.getBucket());
+                    insertPs.setString(4, counter.getKey());
+                    insertPs.setLong(5, counter.getDelta());
+                    rows += insertPs.executeUpdate();
+                } catch (SQLException e) {
+                    // inserted by another node meanwhile
+                    rows += increment(updatePs, counter);
+                }
+            }
+        } catch (SQLException e) {
+            LogUtil.error(LOGGER, "increment counters exception:{}", e::getMessage);
+            return FAIL_ROWS;
+        }
+        latest.forEach((timeUnit, bucket) -> executeUpdate(expire, appName, timeUnit, bucket - EXPIRE_BUCKETS));
+        return rows;
+    }
+
+    @Override
+    public Map<String, Long> findCounters(final String timeUnit, final long bucket, final Collection<String> keys) {
+        String selectSql = "select counter_key,num from " + counterTableName + " where app_name=? and time_unit=? and bucket=?";
+        List<Map<String, Object>> list = executeQuery(selectSql, appName, timeUnit, bucket);
+        Map<String, Long> counters = Maps.newHashMap();
+        if (CollectionUtils.isNotEmpty(list)) {
+            list.stream().filter(Objects::nonNull)
+                    .filter(item -> keys.contains(item.get("counter_key")))
+                    .forEach(item -> counters.put((String) item.get("counter_key"), ((Number) item.get("num")).longValue()));
+        }
+        return counters;
+    }
+
+    private int increment(final PreparedStatement ps, final CatCounter counter) throws SQLException {
+        ps.setLong(1, counter.getDelta());
+        ps.setString(2, appName);
+        ps.setString(3, counter.getTimeUnit());
+        ps.setLong(4, counter.getBucket());
+        ps.setString(5, counter.getKey());
+        return ps.executeUpdate();
+    }
+
+    private boolean tableExists(final String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase(), table.toLowerCase()}) {
+                try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, name, null)) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * tables created by an older version miss the new columns.
+     */
+    private boolean addColumnIfAbsent(final String column, final String type) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{tableName, tableName.toUpperCase(), tableName.toLowerCase()}) {
+                try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, name, null)) {
+                    while (rs.next()) {
+                        if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        LogUtil.info(LOGGER, "add column to the cat table:{}", () -> tableName + "." + column);
+        executeUpdate(SqlHelper.buildAddColumnSql(tableName, column, type));
+        return true;
+    }
+
     private int executeUpdate(final String sql, final Object... params) {
         Connection connection = null;
         PreparedStatement ps = null;
@@ -19,26 +19,33 @@ package org.zoo.cat.core.spi.repository;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
 import org.zoo.cat.annotation.CatSPI;
 import org.zoo.cat.common.bean.adapter.MongoAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.MongoClientFactoryBean;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.zoo.cat.common.bean.entity.CatNoticeSafe;
 import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.config.CatConfig;
 import org.zoo.cat.common.config.CatMongoConfig;
 import org.zoo.cat.common.enums.RepositorySupportEnum;
 import org.zoo.cat.common.exception.CatException;
 import org.zoo.cat.common.exception.CatRuntimeException;
+import org.zoo.cat.common.serializer.CatParticipantCodec;
 import org.zoo.cat.common.serializer.ObjectSerializer;
 import org.zoo.cat.common.utils.AssertUtils;
 import org.zoo.cat.common.utils.CollectionUtils;
@@ -50,8 +57,8 @@ import java.net.InetSocketAddress;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
@@ -73,6 +80,12 @@ public class MongoCoordinatorRepository implements CatCoordinatorRepository {
 
     private String collectionName;
 
+    private String methodCollectionName;
+
+    private String nodeCollectionName;
+
+    private String deadCollectionName;
+
     @Override
     public int create(final CatTransaction catTransaction) {
         try {
@@ -88,7 +101,9 @@ public class MongoCoordinatorRepository implements CatCoordinatorRepository {
             mongoBean.setTargetMethod(catTransaction.getTargetMethod());
             mongoBean.setConfirmMethod(catTransaction.getConfirmMethod());
             mongoBean.setCancelMethod(catTransaction.getCancelMethod());
-            final byte[] cache = objectSerializer.serialize(catTransaction.getCatParticipants());
+            mongoBean.setShardKey(CatRecoveryQuery.slotOf(catTransaction.getTransId()));
+            mongoBean.setNextRetryTime(catTransaction.getNextRetryTime());
+            final byte[] cache = CatParticipantCodec.encode(catTransaction.getCatParticipants(), objectSerializer);
             mongoBean.setContents(cache);
             template.save(mongoBean, collectionName);
         } catch (CatException e) {
@@ -114,9 +129,12 @@ public class MongoCoordinatorRepository implements CatCoordinatorRepository {
         update.set("lastTime", new Date());
         update.set("retriedCount", catTransaction.getRetriedCount());
         update.set("version", catTransaction.getVersion() + 1);
+        if (Objects.nonNull(catTransaction.getNextRetryTime())) {
+            update.set("nextRetryTime", catTransaction.getNextRetryTime());
+        }
         try {
             if (CollectionUtils.isNotEmpty(catTransaction.getCatParticipants())) {
-                update.set("contents", objectSerializer.serialize(catTransaction.getCatParticipants()));
+                update.set("contents", CatParticipantCodec.encode(catTransaction.getCatParticipants(), objectSerializer));
             }
         } catch (CatException e) {
             e.printStackTrace();
@@ -135,7 +153,7 @@ public class MongoCoordinatorRepository implements CatCoordinatorRepository {
         query.addCriteria(new Criteria("transId").is(catTransaction.getTransId()));
         Update update = new Update();
         try {
-            update.set("contents", objectSerializer.serialize(catTransaction.getCatParticipants()));
+            update.set("contents", CatParticipantCodec.encode(catTransaction.getCatParticipants(), objectSerializer));
         } catch (CatException e) {
             e.printStackTrace();
         }
@@ -174,6 +192,7 @@ public class MongoCoordinatorRepository implements CatCoordinatorRepository {
             catTransaction.setTransId(cache.getTransId());
             catTransaction.setCreateTime(cache.getCreateTime());
             catTransaction.setLastTime(cache.getLastTime());
+            catTransaction.setNextRetryTime(cache.getNextRetryTime());
             catTransaction.setRetriedCount(cache.getRetriedCount());
             catTransaction.setVersion(cache.getVersion());
             catTransaction.setStatus(cache.getStatus());
@@ -181,7 +200,7 @@ public class MongoCoordinatorRepository implements CatCoordinatorRepository {
             catTransaction.setPattern(cache.getPattern());
             catTransaction.setTargetClass(cache.getTargetClass());
             catTransaction.setTargetMethod(cache.getTargetMethod());
-            List<CatParticipant> catParticipants = (List<CatParticipant>) objectSerializer.deSerialize(cache.getContents(), CopyOnWriteArrayList.class);
+            List<CatParticipant> catParticipants = CatParticipantCodec.decode(cache.getContents(), objectSerializer);
             catTransaction.setCatParticipants(catParticipants);
             return catTransaction;
         } catch (CatException e) {
@@ -215,11 +234,15 @@ public class MongoCoordinatorRepository implements CatCoordinatorRepository {
     @Override
     public void init(final String modelName,final String appName, final CatConfig catConfig) {
         collectionName = RepositoryPathUtils.buildMongoTableName(modelName);
+        methodCollectionName = collectionName + "_method";
+        nodeCollectionName = collectionName + "_node";
+        deadCollectionName = collectionName + "_dead";
         final CatMongoConfig catMongoConfig = catConfig.getCatMongoConfig();
         MongoClientFactoryBean clientFactoryBean = buildMongoClientFactoryBean(catMongoConfig);
         try {
             clientFactoryBean.afterPropertiesSet();
             template = new MongoTemplate(Objects.requireNonNull(clientFactoryBean.getObject()), catMongoConfig.getMongoDbName());
+            template.indexOps(collectionName).ensureIndex(new Index().on("nextRetryTime", Sort.Direction.ASC));
         } catch (Exception e) {
             LogUtil.error(LOGGER, "mongo init error please check you config:{}", e::getMessage);
             throw new CatRuntimeException(e);
@@ -249,6 +272,119 @@ public class MongoCoordinatorRepository implements CatCoordinatorRepository {
         return RepositorySupportEnum.MONGODB.getSupport();
     }
 
+    @Override
+    public List<CatTransaction> listAllByQuery(final CatRecoveryQuery query) {
+        // documents written before the next retry time was added fall back to the last time
+        final List<Criteria> criteria = Lists.newArrayList(new Criteria().orOperator(
+                Criteria.where("nextRetryTime").lte(query.getDueTime()),
+                new Criteria().andOperator(Criteria.where("nextRetryTime").exists(false),
+                        Criteria.where("lastTime").lt(query.getDelayTime()))));
+        if (!query.isAllShards()) {
+            final Criteria shard = Criteria.where("shardKey").gte(query.getShardFrom()).lt(query.getShardTo());
+            criteria.add(query.getShardFrom() == 0
+                    ? new Criteria().orOperator(shard, Criteria.where("shardKey").exists(false)) : shard);
+        }
+        if (Objects.nonNull(query.getRole())) {
+            criteria.add(Criteria.where("role").is(query.getRole()));
+        }
+        Query mongoQuery = new Query(new Criteria().andOperator(criteria.toArray(new Criteria[0])));
+        final List<MongoAdapter> mongoBeans =
+                template.find(mongoQuery, MongoAdapter.class, collectionName);
+        if (CollectionUtils.isNotEmpty(mongoBeans)) {
+            return mongoBeans.stream().map(this::buildByCache).filter(Objects::nonNull).collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int heartbeat(final String nodeId, final long leaseMillis) {
+        Query query = new Query();
+        query.addCriteria(new Criteria("_id").is(nodeId));
+        Update update = new Update();
+        update.set("expireTime", new Date(System.currentTimeMillis() + leaseMillis));
+        template.upsert(query, update, nodeCollectionName);
+        return ROWS;
+    }
+
+    @Override
+    public List<String> listLiveNodes() {
+        Query query = new Query();
+        query.addCriteria(Criteria.where("expireTime").gt(new Date()));
+        return template.find(query, Document.class, nodeCollectionName).stream()
+                .map(document -> document.getString("_id"))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int leave(final String nodeId) {
+        Query query = new Query();
+        query.addCriteria(new Criteria("_id").is(nodeId));
+        return (int) template.remove(query, nodeCollectionName).getDeletedCount();
+    }
+
+    /**
+     * the document is saved to the dead letter collection before it is removed, a failure in between leaves a copy
+     * in both and the next park overwrites it.
+     */
+    @Override
+    public int park(final String id) {
+        return move(collectionName, deadCollectionName, id, false);
+    }
+
+    @Override
+    public List<CatTransaction> listParked() {
+        final List<MongoAdapter> resultList = template.findAll(MongoAdapter.class, deadCollectionName);
+        if (CollectionUtils.isNotEmpty(resultList)) {
+            return resultList.stream().map(this::buildByCache).filter(Objects::nonNull).collect(Collectors.toList());
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int replay(final String id) {
+        return move(deadCollectionName, collectionName, id, true);
+    }
+
+    @Override
+    public int purge(final String id) {
+        Query query = new Query();
+        query.addCriteria(new Criteria("transId").is(id));
+        return (int) template.remove(query, deadCollectionName).getDeletedCount();
+    }
+
+    private int move(final String from, final String to, final String id, final boolean reset) {
+        Query query = new Query();
+        query.addCriteria(new Criteria("transId").is(id));
+        final MongoAdapter mongoBean = template.findOne(query, MongoAdapter.class, from);
+        if (Objects.isNull(mongoBean)) {
+            return FAIL_ROWS;
+        }
+        if (reset) {
+            mongoBean.setRetriedCount(0);
+            mongoBean.setNextRetryTime(null);
+        }
+        template.save(mongoBean, to);
+        return (int) template.remove(query, from).getDeletedCount();
+    }
+
+    @Override
+    public Map<Integer, String> loadMethods() {
+        final Map<Integer, String> methods = Maps.newHashMap();
+        template.findAll(Document.class, methodCollectionName)
+                .forEach(document -> methods.put(document.getInteger("_id"), document.getString("signature")));
+        return methods;
+    }
+
+    @Override
+    public int saveMethod(final Integer id, final String signature) {
+        try {
+            template.insert(new Document("_id", id).append("signature", signature), methodCollectionName);
+            return ROWS;
+        } catch (DuplicateKeyException e) {
+            return FAIL_ROWS;
+        }
+    }
+
     @Override
     public void setSerializer(final ObjectSerializer objectSerializer) {
         this.objectSerializer = objectSerializer;
@@ -19,14 +19,17 @@ package org.zoo.cat.core.spi.repository;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.zoo.cat.annotation.CatSPI;
-import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.bean.entity.CatCounter;
 import org.zoo.cat.common.bean.entity.CatNoticeSafe;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.config.CatConfig;
 import org.zoo.cat.common.config.CatRedisConfig;
+import org.zoo.cat.common.constant.CommonConstant;
 import org.zoo.cat.common.enums.RepositorySupportEnum;
 import org.zoo.cat.common.exception.CatException;
 import org.zoo.cat.common.exception.CatRuntimeException;
@@ -40,6 +43,7 @@ import org.zoo.cat.common.utils.RepositoryConvertUtils;
 import org.zoo.cat.common.utils.RepositoryPathUtils;
 import org.zoo.cat.common.utils.StringUtils;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
+import org.zoo.cat.core.spi.CatCounterStore;
 
 import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.JedisCluster;
@@ -47,10 +51,14 @@ import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.JedisSentinelPool;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -59,24 +67,41 @@ import java.util.stream.Collectors;
  * @author dzc
  */
 @CatSPI("redis")
-public class RedisCoordinatorRepository implements CatCoordinatorRepository {
+public class RedisCoordinatorRepository implements CatCoordinatorRepository, CatCounterStore {
 
     /**
      * logger.
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisCoordinatorRepository.class);
 
+    private static final long REINDEX_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
     private ObjectSerializer objectSerializer;
 
     private JedisClient jedisClient;
 
     private String keyPrefix;
 
+    private String methodKey;
+
+    private String nodeKeyPrefix;
+
+    private String retryKey;
+
+    private String deadKeyPrefix;
+
+    private String counterKeyPrefix;
+
+    private long recoverDelayMills;
+
+    private final AtomicLong reindexTime = new AtomicLong();
+
     @Override
     public int create(final CatTransaction catTransaction) {
         try {
             final String redisKey = RepositoryPathUtils.buildRedisKey(keyPrefix, catTransaction.getTransId());
             jedisClient.set(redisKey, RepositoryConvertUtils.convert(catTransaction, objectSerializer));
+            jedisClient.zadd(retryKey, retryScore(catTransaction), catTransaction.getTransId());
             return ROWS;
         } catch (Exception e) {
             throw new CatRuntimeException(e);
@@ -87,6 +112,7 @@ public class RedisCoordinatorRepository implements CatCoordinatorRepository {
     public int remove(final String id) {
         try {
             final String redisKey = RepositoryPathUtils.buildRedisKey(keyPrefix, id);
+            jedisClient.zrem(retryKey, id);
             return jedisClient.del(redisKey).intValue();
         } catch (Exception e) {
             throw new CatRuntimeException(e);
@@ -101,6 +127,7 @@ public class RedisCoordinatorRepository implements CatCoordinatorRepository {
             catTransaction.setLastTime(new Date());
             catTransaction.setRetriedCount(catTransaction.getRetriedCount());
             jedisClient.set(redisKey, RepositoryConvertUtils.convert(catTransaction, objectSerializer));
+            jedisClient.zadd(retryKey, retryScore(catTransaction), catTransaction.getTransId());
             return ROWS;
         } catch (Exception e) {
             throw new CatRuntimeException(e);
@@ -112,9 +139,11 @@ public class RedisCoordinatorRepository implements CatCoordinatorRepository {
         try {
             final String redisKey = RepositoryPathUtils.buildRedisKey(keyPrefix, catTransaction.getTransId());
             byte[] contents = jedisClient.get(redisKey.getBytes());
-            CoordinatorRepositoryAdapter adapter = objectSerializer.deSerialize(contents, CoordinatorRepositoryAdapter.class);
-            adapter.setContents(objectSerializer.serialize(catTransaction.getCatParticipants()));
-            jedisClient.set(redisKey, objectSerializer.serialize(adapter));
+            if (contents == null) {
+                return FAIL_ROWS;
+            }
+            jedisClient.set(redisKey, RepositoryConvertUtils.updateParticipants(contents, objectSerializer,
+                    catTransaction.getCatParticipants()));
         } catch (CatException e) {
             e.printStackTrace();
             return FAIL_ROWS;
@@ -128,9 +157,8 @@ public class RedisCoordinatorRepository implements CatCoordinatorRepository {
             final String redisKey = RepositoryPathUtils.buildRedisKey(keyPrefix, id);
             byte[] contents = jedisClient.get(redisKey.getBytes());
             if (contents != null) {
-                CoordinatorRepositoryAdapter adapter = objectSerializer.deSerialize(contents, CoordinatorRepositoryAdapter.class);
-                adapter.setStatus(status);
-                jedisClient.set(redisKey, objectSerializer.serialize(adapter));
+                jedisClient.set(redisKey, RepositoryConvertUtils.updateHeader(contents, objectSerializer,
+                        transaction -> transaction.setStatus(status)));
             }
         } catch (CatException e) {
             e.printStackTrace();
@@ -175,12 +203,179 @@ public class RedisCoordinatorRepository implements CatCoordinatorRepository {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * the due transactions are read from the sorted set of the next retry times.
+     * the keys are reindexed every {@link #REINDEX_INTERVAL}, so the transactions written by
+     * the nodes of an older version during a rolling deploy are recovered too.
+     */
+    @Override
+    public List<CatTransaction> listAllByQuery(final CatRecoveryQuery query) {
+        try {
+            final long now = System.currentTimeMillis();
+            final long next = reindexTime.get();
+            if (now >= next && reindexTime.compareAndSet(next, now + REINDEX_INTERVAL)) {
+                buildRetryIndex();
+            }
+            List<CatTransaction> transactions = Lists.newArrayList();
+            Set<String> ids = jedisClient.zrangeByScore(retryKey, 0, query.getDueTime().getTime());
+            for (final String id : ids) {
+                final int slot = CatRecoveryQuery.slotOf(id);
+                if (slot < query.getShardFrom() || slot >= query.getShardTo()) {
+                    continue;
+                }
+                byte[] contents = jedisClient.get(RepositoryPathUtils.buildRedisKey(keyPrefix, id).getBytes());
+                if (contents == null) {
+                    jedisClient.zrem(retryKey, id);
+                    continue;
+                }
+                if (query.matches(RepositoryConvertUtils.transformHeader(contents, objectSerializer))) {
+                    transactions.add(RepositoryConvertUtils.transformBean(contents, objectSerializer));
+                }
+            }
+            return transactions;
+        } catch (Exception e) {
+            throw new CatRuntimeException(e);
+        }
+    }
+
+    /**
+     * the lease is one key with a millisecond expire, the node ids of the application are kept in one set,
+     * so the live nodes are read without scanning the keyspace.
+     */
+    @Override
+    public int heartbeat(final String nodeId, final long leaseMillis) {
+        final String nodeKey = RepositoryPathUtils.buildRedisKey(nodeKeyPrefix, nodeId);
+        jedisClient.psetex(nodeKey, Math.max(1, leaseMillis), String.valueOf(System.currentTimeMillis() + leaseMillis));
+        jedisClient.sadd(nodeKeyPrefix, nodeId);
+        return ROWS;
+    }
+
+    @Override
+    public List<String> listLiveNodes() {
+        final List<String> nodes = Lists.newArrayList();
+        for (String nodeId : jedisClient.smembers(nodeKeyPrefix)) {
+            if (jedisClient.get(RepositoryPathUtils.buildRedisKey(nodeKeyPrefix, nodeId)) != null) {
+                nodes.add(nodeId);
+            } else {
+                jedisClient.srem(nodeKeyPrefix, nodeId);
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public int leave(final String nodeId) {
+        jedisClient.srem(nodeKeyPrefix, nodeId);
+        return jedisClient.del(RepositoryPathUtils.buildRedisKey(nodeKeyPrefix, nodeId)).intValue();
+    }
+
+    /**
+     * the counters of a time unit and bucket are the items of one hash, so a flush is one round trip per bucket
+     * and a lookup is one.
+     */
+    @Override
+    public int incrementCounters(final List<CatCounter> counters) {
+        final Map<String, Map<String, Long>> buckets = Maps.newLinkedHashMap();
+        final Map<String, Integer> expires = Maps.newHashMap();
+        for (CatCounter counter : counters) {
+            final String counterKey = counterKey(counter.getTimeUnit(), counter.getBucket());
+            buckets.computeIfAbsent(counterKey, k -> Maps.newLinkedHashMap()).merge(counter.getKey(), counter.getDelta(), Long::sum);
+            expires.putIfAbsent(counterKey, (int) TimeUnit.valueOf(counter.getTimeUnit()).toSeconds(EXPIRE_BUCKETS));
+        }
+        buckets.forEach((counterKey, items) -> jedisClient.hincrBy(counterKey, items, expires.get(counterKey)));
+        return counters.size();
+    }
+
+    @Override
+    public Map<String, Long> findCounters(final String timeUnit, final long bucket, final Collection<String> keys) {
+        final Map<String, Long> counters = Maps.newHashMap();
+        if (keys.isEmpty()) {
+            return counters;
+        }
+        final String[] items = keys.toArray(new String[0]);
+        final List<String> nums = jedisClient.hmget(counterKey(timeUnit, bucket), items);
+        for (int i = 0; i < items.length; i++) {
+            final String num = nums.get(i);
+            if (StringUtils.isNoneBlank(num)) {
+                counters.put(items[i], Long.valueOf(num));
+            }
+        }
+        return counters;
+    }
+
+    private String counterKey(final String timeUnit, final long bucket) {
+        return RepositoryPathUtils.buildRedisKey(counterKeyPrefix, timeUnit + ":" + bucket);
+    }
+
+    @Override
+    public int park(final String id) {
+        final String redisKey = RepositoryPathUtils.buildRedisKey(keyPrefix, id);
+        byte[] contents = jedisClient.get(redisKey.getBytes());
+        if (contents == null) {
+            return FAIL_ROWS;
+        }
+        jedisClient.set(RepositoryPathUtils.buildRedisKey(deadKeyPrefix, id), contents);
+        jedisClient.zrem(retryKey, id);
+        return jedisClient.del(redisKey).intValue();
+    }
+
+    @Override
+    public List<CatTransaction> listParked() {
+        try {
+            List<CatTransaction> transactions = Lists.newArrayList();
+            for (final String key : jedisClient.keys(deadKeyPrefix + ":*")) {
+                byte[] contents = jedisClient.get(key.getBytes());
+                if (contents != null) {
+                    transactions.add(RepositoryConvertUtils.transformBean(contents, objectSerializer));
+                }
+            }
+            return transactions;
+        } catch (Exception e) {
+            throw new CatRuntimeException(e);
+        }
+    }
+
+    @Override
+    public int replay(final String id) {
+        final String deadKey = RepositoryPathUtils.buildRedisKey(deadKeyPrefix, id);
+        byte[] contents = jedisClient.get(deadKey.getBytes());
+        if (contents == null) {
+            return FAIL_ROWS;
+        }
+        try {
+            final byte[] replayed = RepositoryConvertUtils.updateHeader(contents, objectSerializer, transaction -> {
+                transaction.setRetriedCount(0);
+                transaction.setNextRetryTime(null);
+            });
+            final CatTransaction catTransaction = RepositoryConvertUtils.transformHeader(replayed, objectSerializer);
+            jedisClient.set(RepositoryPathUtils.buildRedisKey(keyPrefix, id), replayed);
+            jedisClient.zadd(retryKey, retryScore(catTransaction), id);
+        } catch (CatException e) {
+            LogUtil.error(LOGGER, "replay redis transaction error:{}", () -> id + " " + e.getMessage());
+            return FAIL_ROWS;
+        }
+        return jedisClient.del(deadKey).intValue();
+    }
+
+    @Override
+    public int purge(final String id) {
+        return jedisClient.del(RepositoryPathUtils.buildRedisKey(deadKeyPrefix, id)).intValue();
+    }
+
     @Override
     public void init(final String modelName, final String appName,final CatConfig catConfig) {
         keyPrefix = RepositoryPathUtils.buildRedisKeyPrefix(modelName);
+        methodKey = String.format(CommonConstant.METHOD_REDIS_KEY_PRE, modelName);
+        nodeKeyPrefix = String.format(CommonConstant.NODE_REDIS_KEY_PRE, modelName);
+        retryKey = String.format(CommonConstant.RETRY_REDIS_KEY_PRE, modelName);
+        deadKeyPrefix = String.format(CommonConstant.DEAD_REDIS_KEY_PRE, modelName);
+        counterKeyPrefix = String.format(CommonConstant.COUNTER_REDIS_KEY_PRE, modelName);
+        recoverDelayMills = catConfig.getRecoverDelayTime() * 1000L;
         final CatRedisConfig catRedisConfig = catConfig.getCatRedisConfig();
         try {
             buildJedisPool(catRedisConfig);
+            buildRetryIndex();
+            reindexTime.set(System.currentTimeMillis() + REINDEX_INTERVAL);
         } catch (Exception e) {
             LogUtil.error(LOGGER, "redis init error please check you config:{}", e::getMessage);
             throw new CatRuntimeException(e);
@@ -192,11 +387,59 @@ public class RedisCoordinatorRepository implements CatCoordinatorRepository {
         return RepositorySupportEnum.REDIS.getSupport();
     }
 
+    @Override
+    public Map<Integer, String> loadMethods() {
+        final Map<Integer, String> methods = Maps.newHashMap();
+        jedisClient.hgetAll(methodKey).forEach((id, signature) -> methods.put(Integer.valueOf(id), signature));
+        return methods;
+    }
+
+    @Override
+    public int saveMethod(final Integer id, final String signature) {
+        return jedisClient.hsetnx(methodKey, String.valueOf(id), signature).intValue();
+    }
+
     @Override
     public void setSerializer(final ObjectSerializer objectSerializer) {
         this.objectSerializer = objectSerializer;
     }
 
+    /**
+     * transactions written by older versions, or whose index write was lost, are added to the index.
+     * the indexed ones keep their score.
+     */
+    private void buildRetryIndex() {
+        int indexed = 0;
+        for (final String key : jedisClient.keys(keyPrefix + ":*")) {
+            final String id = key.substring(keyPrefix.length() + 1);
+            if (jedisClient.zscore(retryKey, id) != null) {
+                continue;
+            }
+            byte[] contents = jedisClient.get(key.getBytes());
+            if (contents == null) {
+                continue;
+            }
+            try {
+                final CatTransaction catTransaction = RepositoryConvertUtils.transformHeader(contents, objectSerializer);
+                jedisClient.zadd(retryKey, retryScore(catTransaction), catTransaction.getTransId());
+                indexed++;
+            } catch (CatException e) {
+                LogUtil.error(LOGGER, "index redis transaction error:{}", () -> key + " " + e.getMessage());
+            }
+        }
+        if (indexed > 0) {
+            final int count = indexed;
+            LogUtil.info(LOGGER, "redis retry index add unindexed transactions:{}", () -> count);
+        }
+    }
+
+    private double retryScore(final CatTransaction catTransaction) {
+        if (catTransaction.getNextRetryTime() != null) {
+            return catTransaction.getNextRetryTime().getTime();
+        }
+        return catTransaction.getLastTime().getTime() + recoverDelayMills;
+    }
+
     private void buildJedisPool(final CatRedisConfig catRedisConfig) {
         JedisPoolConfig config = new JedisPoolConfig();
         config.setMaxIdle(catRedisConfig.getMaxIdle());
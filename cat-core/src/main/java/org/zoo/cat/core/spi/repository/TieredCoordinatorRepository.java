@@ -0,0 +1,513 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.zoo.cat.core.spi.repository;
+
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Striped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zoo.cat.common.bean.entity.CatNoticeSafe;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.config.CatFileConfig;
+import org.zoo.cat.common.config.CatJournalConfig;
+import org.zoo.cat.common.exception.CatException;
+import org.zoo.cat.common.exception.CatRuntimeException;
+import org.zoo.cat.common.journal.CatSegmentLog;
+import org.zoo.cat.common.serializer.BufferLease;
+import org.zoo.cat.common.serializer.CatMethodDictionary;
+import org.zoo.cat.common.serializer.ObjectSerializer;
+import org.zoo.cat.common.utils.LogUtil;
+import org.zoo.cat.common.utils.RepositoryConvertUtils;
+import org.zoo.cat.common.utils.RepositoryPathUtils;
+import org.zoo.cat.core.concurrent.threadpool.CatThreadFactory;
+import org.zoo.cat.core.spi.CatCoordinatorRepository;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * EN: tiered repository, a local {@link CatSegmentLog} journal in front of a remote repository.
+ * writes are appended to the journal synchronously and drained to the remote repository by a background thread,
+ * one remote write per transaction. the writes of one transaction are coalesced before drain,a transaction
+ * created and removed before drain never reaches the remote repository.reads check the journal first.
+ * when the remote repository fails, the rest of the round is parked and retried with exponential backoff.
+ * the journal is replayed on startup, so nothing acknowledged is lost after a crash.
+ * a pending write keeps the serialized snapshot of the transaction taken when the write is accepted, the object
+ * of the caller is never kept nor written to.
+ * CN: 本地日志 + 远程存储的分层仓储, 写本地日志后异步合并同步到远程存储, 失败时退避重试.
+ *
+ * @author dzc
+ */
+public class TieredCoordinatorRepository implements CatCoordinatorRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TieredCoordinatorRepository.class);
+
+    private static final byte CREATE = 1;
+
+    private static final byte STATUS = 1 << 1;
+
+    private static final byte PARTICIPANT = 1 << 2;
+
+    private static final byte REMOVE = 1 << 3;
+
+    private static final byte REPLAYED = 1 << 4;
+
+    private static final long MAX_BACKOFF = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    private final CatCoordinatorRepository remote;
+
+    private final Map<String, Pending> pendings = new ConcurrentHashMap<>();
+
+    private final LinkedBlockingQueue<String> drainQueue = new LinkedBlockingQueue<>();
+
+    private final Set<String> retries = new LinkedHashSet<>();
+
+    private int failures;
+
+    private long retryTime;
+
+    private Striped<Lock> locks;
+
+    private CatJournalConfig journalConfig;
+
+    private CatSegmentLog journal;
+
+    private ObjectSerializer serializer;
+
+    private ScheduledExecutorService drainExecutor;
+
+    /**
+     * Instantiates a new Tiered coordinator repository.
+     *
+     * @param remote the remote repository
+     */
+    public TieredCoordinatorRepository(final CatCoordinatorRepository remote) {
+        this.remote = remote;
+    }
+
+    @Override
+    public int create(final CatTransaction catTransaction) {
+        final byte[] snapshot = snapshot(catTransaction);
+        return write(catTransaction.getTransId(), pending -> new Pending(CREATE, null, snapshot));
+    }
+
+    @Override
+    public int remove(final String id) {
+        return write(id, pending -> {
+            if (pending != null && (pending.flags & CREATE) != 0 && (pending.flags & REPLAYED) == 0) {
+                return null;
+            }
+            return new Pending(REMOVE, null, null);
+        });
+    }
+
+    @Override
+    public int update(final CatTransaction catTransaction) throws CatRuntimeException {
+        final Lock lock = locks.get(catTransaction.getTransId());
+        lock.lock();
+        try {
+            drain(catTransaction.getTransId());
+            return remote.update(catTransaction);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int updateParticipant(final CatTransaction catTransaction) {
+        final byte[] snapshot = snapshot(catTransaction);
+        return write(catTransaction.getTransId(), pending -> {
+            if (pending == null) {
+                return new Pending(PARTICIPANT, null, snapshot);
+            }
+            return new Pending((byte) (pending.flags | PARTICIPANT), pending.status, snapshot);
+        });
+    }
+
+    @Override
+    public int updateStatus(final String id, final Integer status) {
+        return write(id, pending -> {
+            if (pending == null) {
+                return new Pending(STATUS, status, null);
+            }
+            return new Pending((byte) (pending.flags | STATUS), status, pending.snapshot);
+        });
+    }
+
+    @Override
+    public CatTransaction findById(final String id) {
+        final Pending pending = pendings.get(id);
+        if (pending == null) {
+            return remote.findById(id);
+        }
+        if ((pending.flags & REMOVE) != 0) {
+            return null;
+        }
+        if ((pending.flags & CREATE) != 0) {
+            return restore(pending);
+        }
+        return overlay(remote.findById(id), pending);
+    }
+
+    @Override
+    public List<CatTransaction> listAll() {
+        return merge(remote.listAll(), transaction -> true);
+    }
+
+    @Override
+    public List<CatTransaction> listAllByDelay(final Date date) {
+        return merge(remote.listAllByDelay(date), transaction -> transaction.getLastTime().compareTo(date) < 0);
+    }
+
+    @Override
+    public List<CatTransaction> listAllByQuery(final CatRecoveryQuery query) {
+        return merge(remote.listAllByQuery(query), query::matches);
+    }
+
+    @Override
+    public int park(final String id) {
+        final Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            drain(id);
+            return remote.park(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<CatTransaction> listParked() {
+        return remote.listParked();
+    }
+
+    @Override
+    public int replay(final String id) {
+        return remote.replay(id);
+    }
+
+    @Override
+    public int purge(final String id) {
+        return remote.purge(id);
+    }
+
+    @Override
+    public int heartbeat(final String nodeId, final long leaseMillis) {
+        return remote.heartbeat(nodeId, leaseMillis);
+    }
+
+    @Override
+    public List<String> listLiveNodes() {
+        return remote.listLiveNodes();
+    }
+
+    @Override
+    public int leave(final String nodeId) {
+        return remote.leave(nodeId);
+    }
+
+    @Override
+    public void init(final String modelName, final String appName, final CatConfig catConfig) {
+        remote.init(modelName, appName, catConfig);
+        //the journal records refer to the method dictionary of the remote
+        CatMethodDictionary.getInstance().bind(remote::loadMethods, remote::saveMethod);
+        journalConfig = catConfig.getCatJournalConfig();
+        locks = Striped.lock(catConfig.getConcurrencyScale());
+        final CatFileConfig fileConfig = Optional.ofNullable(catConfig.getCatFileConfig()).orElseGet(CatFileConfig::new);
+        journal = CatSegmentLog.open(RepositoryPathUtils.buildFilePath(modelName + "_journal"), fileConfig);
+        replay();
+        drainExecutor = Executors.newSingleThreadScheduledExecutor(CatThreadFactory.create("cat-journal-drain", true));
+        drainExecutor.scheduleWithFixedDelay(this::drainAll,
+                journalConfig.getDrainInterval(), journalConfig.getDrainInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * the remote repository behind the journal.
+     *
+     * @return repository
+     */
+    public CatCoordinatorRepository getRemote() {
+        return remote;
+    }
+
+    @Override
+    public String getScheme() {
+        return remote.getScheme();
+    }
+
+    @Override
+    public Map<Integer, String> loadMethods() {
+        return remote.loadMethods();
+    }
+
+    @Override
+    public int saveMethod(final Integer id, final String signature) {
+        return remote.saveMethod(id, signature);
+    }
+
+    @Override
+    public void setSerializer(final ObjectSerializer serializer) {
+        this.serializer = serializer;
+        remote.setSerializer(serializer);
+    }
+
+    @Override
+    public List<CatNoticeSafe> countLogsByDelay(final Date acquireData, final String timeUnit) {
+        return remote.countLogsByDelay(acquireData, timeUnit);
+    }
+
+    @Override
+    public int removeLogsByDelay(final Date acquireSecondsData) {
+        return remote.removeLogsByDelay(acquireSecondsData);
+    }
+
+    private int write(final String id, final Function<Pending, Pending> merger) {
+        final Lock lock = locks.get(id);
+        lock.lock();
+        try {
+            final Pending pending = merger.apply(pendings.get(id));
+            if (pending == null) {
+                pendings.remove(id);
+                journal.remove(id);
+                return ROWS;
+            }
+            writeJournal(id, pending);
+            if (pendings.put(id, pending) == null) {
+                drainQueue.offer(id);
+            }
+            return ROWS;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * runs on the drain thread only, the retry set and the backoff are not shared.
+     */
+    private void drainAll() {
+        try {
+            final long now = System.currentTimeMillis();
+            if (!retries.isEmpty() && now >= retryTime) {
+                drainQueue.addAll(retries);
+                retries.clear();
+            }
+            final List<String> batch = new ArrayList<>(journalConfig.getBatchSize());
+            Exception failure = null;
+            while (drainQueue.drainTo(batch, journalConfig.getBatchSize()) > 0) {
+                for (String id : batch) {
+                    if (failure != null) {
+                        retries.add(id);
+                        continue;
+                    }
+                    final Lock lock = locks.get(id);
+                    lock.lock();
+                    try {
+                        drain(id);
+                    } catch (Exception e) {
+                        failure = e;
+                        retries.add(id);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                batch.clear();
+            }
+            if (failure != null) {
+                failures = Math.min(failures + 1, MAX_BACKOFF_SHIFT);
+                final long backoff = Math.min(journalConfig.getDrainInterval() << failures, MAX_BACKOFF);
+                retryTime = now + backoff;
+                final String message = failure.getMessage();
+                LogUtil.error(LOGGER, "drain journal to remote exception:{}",
+                        () -> message + " pending:" + retries.size() + " retry after(ms):" + backoff);
+            } else if (retries.isEmpty()) {
+                failures = 0;
+            }
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "drain journal exception:{}", e::getMessage);
+        }
+    }
+
+    /**
+     * apply the pending writes of the transaction to the remote repository, caller must hold the lock.
+     *
+     * @param id transId
+     */
+    private void drain(final String id) {
+        final Pending pending = pendings.get(id);
+        if (pending == null) {
+            return;
+        }
+        if ((pending.flags & REMOVE) != 0) {
+            remote.remove(id);
+        } else if ((pending.flags & CREATE) != 0) {
+            final CatTransaction transaction = restore(pending);
+            if ((pending.flags & REPLAYED) != 0 && Objects.nonNull(remote.findById(id))) {
+                remote.updateStatus(id, transaction.getStatus());
+                remote.updateParticipant(transaction);
+            } else {
+                remote.create(transaction);
+            }
+        } else {
+            if ((pending.flags & STATUS) != 0) {
+                remote.updateStatus(id, pending.status);
+            }
+            if ((pending.flags & PARTICIPANT) != 0) {
+                remote.updateParticipant(restore(pending));
+            }
+        }
+        pendings.remove(id);
+        journal.remove(id);
+    }
+
+    private void replay() {
+        journal.forEach((id, content) -> {
+            final Pending pending = decode(content);
+            try {
+                if (pending.snapshot != null) {
+                    RepositoryConvertUtils.transformBean(pending.snapshot, serializer);
+                }
+            } catch (CatException e) {
+                LogUtil.error(LOGGER, "replay journal exception:{}", () -> id + " " + e.getMessage());
+                return;
+            }
+            pendings.put(id, pending);
+            drainQueue.offer(id);
+        });
+        LogUtil.info(LOGGER, "replay journal pending size:{}", pendings::size);
+    }
+
+    private List<CatTransaction> merge(final List<CatTransaction> remotes, final Predicate<CatTransaction> filter) {
+        final List<CatTransaction> result = remotes.stream()
+                .map(transaction -> {
+                    final Pending pending = pendings.get(transaction.getTransId());
+                    if (pending == null) {
+                        return transaction;
+                    }
+                    return (pending.flags & REMOVE) != 0 ? null : overlay(transaction, pending);
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        final Set<String> ids = result.stream().map(CatTransaction::getTransId).collect(Collectors.toSet());
+        pendings.forEach((id, pending) -> {
+            if ((pending.flags & CREATE) != 0 && !ids.contains(id)) {
+                final CatTransaction transaction = restore(pending);
+                if (filter.test(transaction)) {
+                    result.add(transaction);
+                }
+            }
+        });
+        return result;
+    }
+
+    private CatTransaction overlay(final CatTransaction transaction, final Pending pending) {
+        if (transaction == null) {
+            return null;
+        }
+        if ((pending.flags & PARTICIPANT) != 0) {
+            transaction.setCatParticipants(restore(pending).getCatParticipants());
+        }
+        if ((pending.flags & STATUS) != 0) {
+            transaction.setStatus(pending.status);
+        }
+        return transaction;
+    }
+
+    private void writeJournal(final String id, final Pending pending) {
+        try (BufferLease lease = BufferLease.acquire()) {
+            lease.write(pending.flags);
+            lease.write(ByteBuffer.wrap(Ints.toByteArray(pending.status == null ? Integer.MIN_VALUE : pending.status)));
+            if (pending.snapshot != null) {
+                lease.write(ByteBuffer.wrap(pending.snapshot));
+            }
+            journal.put(id, lease.buffer());
+        }
+    }
+
+    private byte[] snapshot(final CatTransaction catTransaction) {
+        try {
+            return RepositoryConvertUtils.convert(catTransaction, serializer);
+        } catch (CatException e) {
+            throw new CatRuntimeException("write journal exception!", e);
+        }
+    }
+
+    /**
+     * a new transaction from the snapshot with the pending status, the snapshot stays untouched.
+     */
+    private CatTransaction restore(final Pending pending) {
+        try {
+            final CatTransaction transaction = RepositoryConvertUtils.transformBean(pending.snapshot, serializer);
+            if ((pending.flags & STATUS) != 0) {
+                transaction.setStatus(pending.status);
+            }
+            return transaction;
+        } catch (CatException e) {
+            throw new CatRuntimeException("read journal exception!", e);
+        }
+    }
+
+    private Pending decode(final byte[] content) {
+        final ByteBuffer buffer = ByteBuffer.wrap(content);
+        final byte flags = buffer.get();
+        final int status = buffer.getInt();
+        byte[] snapshot = null;
+        if (buffer.hasRemaining()) {
+            snapshot = new byte[buffer.remaining()];
+            buffer.get(snapshot);
+        }
+        return new Pending((byte) (flags | REPLAYED), status == Integer.MIN_VALUE ? null : status, snapshot);
+    }
+
+    /**
+     * the coalesced writes of one transaction which have not reached the remote repository.
+     */
+    private static final class Pending {
+
+        private final byte flags;
+
+        private final Integer status;
+
+        private final byte[] snapshot;
+
+        private Pending(final byte flags, final Integer status, final byte[] snapshot) {
+            this.flags = flags;
+            this.status = status;
+            this.snapshot = snapshot;
+        }
+    }
+}
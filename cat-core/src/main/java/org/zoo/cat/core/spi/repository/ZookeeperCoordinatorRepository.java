@@ -18,10 +18,11 @@
 package org.zoo.cat.core.spi.repository;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.zoo.cat.annotation.CatSPI;
-import org.zoo.cat.common.bean.adapter.CoordinatorRepositoryAdapter;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
@@ -29,6 +30,7 @@ import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zoo.cat.common.bean.entity.CatNoticeSafe;
+import org.zoo.cat.common.bean.entity.CatRecoveryQuery;
 import org.zoo.cat.common.bean.entity.CatTransaction;
 import org.zoo.cat.common.config.CatConfig;
 import org.zoo.cat.common.config.CatZookeeperConfig;
@@ -43,8 +45,12 @@ import org.zoo.cat.common.utils.RepositoryPathUtils;
 import org.zoo.cat.common.utils.StringUtils;
 import org.zoo.cat.core.spi.CatCoordinatorRepository;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Objects;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 
@@ -69,6 +75,12 @@ public class ZookeeperCoordinatorRepository implements CatCoordinatorRepository
 
     private String rootPathPrefix = "/cat";
 
+    private String methodPath;
+
+    private String nodePath;
+
+    private String deadPath;
+
     @Override
     public int create(final CatTransaction catTransaction) {
         try {
@@ -110,9 +122,8 @@ public class ZookeeperCoordinatorRepository implements CatCoordinatorRepository
         try {
             byte[] content = zooKeeper.getData(path, false, new Stat());
             if (content != null) {
-                final CoordinatorRepositoryAdapter adapter = objectSerializer.deSerialize(content, CoordinatorRepositoryAdapter.class);
-                adapter.setContents(objectSerializer.serialize(catTransaction.getCatParticipants()));
-                zooKeeper.setData(path, objectSerializer.serialize(adapter), -1);
+                zooKeeper.setData(path, RepositoryConvertUtils.updateParticipants(content, objectSerializer,
+                        catTransaction.getCatParticipants()), -1);
             }
             return ROWS;
         } catch (Exception e) {
@@ -127,9 +138,8 @@ public class ZookeeperCoordinatorRepository implements CatCoordinatorRepository
         try {
             byte[] content = zooKeeper.getData(path, false, new Stat());
             if (content != null) {
-                final CoordinatorRepositoryAdapter adapter = objectSerializer.deSerialize(content, CoordinatorRepositoryAdapter.class);
-                adapter.setStatus(status);
-                zooKeeper.setData(path, objectSerializer.serialize(adapter), -1);
+                zooKeeper.setData(path, RepositoryConvertUtils.updateHeader(content, objectSerializer,
+                        transaction -> transaction.setStatus(status)), -1);
             }
             return ROWS;
         } catch (Exception e) {
@@ -185,6 +195,9 @@ public class ZookeeperCoordinatorRepository implements CatCoordinatorRepository
     @Override
     public void init(final String modelName,final String appName, final CatConfig catConfig) {
         rootPathPrefix = RepositoryPathUtils.buildZookeeperPathPrefix(modelName);
+        methodPath = rootPathPrefix + "_method";
+        nodePath = rootPathPrefix + "_node";
+        deadPath = rootPathPrefix + "_dead";
         try {
             connect(catConfig.getCatZookeeperConfig());
         } catch (Exception e) {
@@ -205,6 +218,15 @@ public class ZookeeperCoordinatorRepository implements CatCoordinatorRepository
             if (stat == null) {
                 zooKeeper.create(rootPathPrefix, rootPathPrefix.getBytes(), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
             }
+            if (zooKeeper.exists(methodPath, false) == null) {
+                zooKeeper.create(methodPath, methodPath.getBytes(), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            }
+            if (zooKeeper.exists(nodePath, false) == null) {
+                zooKeeper.create(nodePath, nodePath.getBytes(), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            }
+            if (zooKeeper.exists(deadPath, false) == null) {
+                zooKeeper.create(deadPath, deadPath.getBytes(), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            }
         } catch (Exception e) {
             throw new CatRuntimeException(e);
         }
@@ -215,6 +237,176 @@ public class ZookeeperCoordinatorRepository implements CatCoordinatorRepository
         return RepositorySupportEnum.ZOOKEEPER.getSupport();
     }
 
+    @Override
+    public Map<Integer, String> loadMethods() {
+        final Map<Integer, String> methods = Maps.newHashMap();
+        try {
+            for (String child : zooKeeper.getChildren(methodPath, false)) {
+                byte[] content = zooKeeper.getData(RepositoryPathUtils.buildZookeeperRootPath(methodPath, child), false, new Stat());
+                methods.put(Integer.valueOf(child), new String(content, StandardCharsets.UTF_8));
+            }
+        } catch (KeeperException | InterruptedException e) {
+            throw new CatRuntimeException(e);
+        }
+        return methods;
+    }
+
+    @Override
+    public int saveMethod(final Integer id, final String signature) {
+        try {
+            zooKeeper.create(RepositoryPathUtils.buildZookeeperRootPath(methodPath, String.valueOf(id)),
+                    signature.getBytes(StandardCharsets.UTF_8), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            return ROWS;
+        } catch (KeeperException.NodeExistsException e) {
+            return FAIL_ROWS;
+        } catch (KeeperException | InterruptedException e) {
+            throw new CatRuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<CatTransaction> listAllByQuery(final CatRecoveryQuery query) {
+        List<String> zNodePaths;
+        try {
+            zNodePaths = zooKeeper.getChildren(rootPathPrefix, false);
+        } catch (Exception e) {
+            throw new CatRuntimeException(e);
+        }
+        if (CollectionUtils.isEmpty(zNodePaths)) {
+            return Lists.newArrayList();
+        }
+        return zNodePaths.stream()
+                .filter(StringUtils::isNoneBlank)
+                .filter(zNodePath -> {
+                    final int slot = CatRecoveryQuery.slotOf(zNodePath);
+                    return slot >= query.getShardFrom() && slot < query.getShardTo();
+                })
+                .map(zNodePath -> {
+                    try {
+                        byte[] content = zooKeeper.getData(buildRootPath(zNodePath), false, new Stat());
+                        if (query.matches(RepositoryConvertUtils.transformHeader(content, objectSerializer))) {
+                            return RepositoryConvertUtils.transformBean(content, objectSerializer);
+                        }
+                    } catch (KeeperException | InterruptedException | CatException e) {
+                        e.printStackTrace();
+                    }
+                    return null;
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * the lease is an ephemeral node, it lives as long as the session of the node.
+     */
+    @Override
+    public int heartbeat(final String nodeId, final long leaseMillis) {
+        final String path = RepositoryPathUtils.buildZookeeperRootPath(nodePath, nodeId);
+        try {
+            if (zooKeeper.exists(path, false) == null) {
+                zooKeeper.create(path, nodeId.getBytes(StandardCharsets.UTF_8), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+            }
+            return ROWS;
+        } catch (KeeperException.NodeExistsException e) {
+            return ROWS;
+        } catch (KeeperException | InterruptedException e) {
+            throw new CatRuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<String> listLiveNodes() {
+        try {
+            return zooKeeper.getChildren(nodePath, false);
+        } catch (KeeperException | InterruptedException e) {
+            throw new CatRuntimeException(e);
+        }
+    }
+
+    @Override
+    public int leave(final String nodeId) {
+        try {
+            zooKeeper.delete(RepositoryPathUtils.buildZookeeperRootPath(nodePath, nodeId), -1);
+            return ROWS;
+        } catch (KeeperException.NoNodeException e) {
+            return FAIL_ROWS;
+        } catch (KeeperException | InterruptedException e) {
+            throw new CatRuntimeException(e);
+        }
+    }
+
+    /**
+     * the move is one multi operation, the node is never in both paths or lost.
+     */
+    @Override
+    public int park(final String id) {
+        final String path = buildRootPath(id);
+        try {
+            final Stat stat = new Stat();
+            byte[] content = zooKeeper.getData(path, false, stat);
+            zooKeeper.multi(Arrays.asList(
+                    Op.create(RepositoryPathUtils.buildZookeeperRootPath(deadPath, id), content,
+                            ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT),
+                    Op.delete(path, stat.getVersion())));
+            return ROWS;
+        } catch (KeeperException e) {
+            LogUtil.warn(LOGGER, "park zookeeper transaction failed:{}", () -> id + " " + e.getMessage());
+            return FAIL_ROWS;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FAIL_ROWS;
+        }
+    }
+
+    @Override
+    public List<CatTransaction> listParked() {
+        try {
+            List<CatTransaction> transactions = Lists.newArrayList();
+            for (String child : zooKeeper.getChildren(deadPath, false)) {
+                byte[] content = zooKeeper.getData(RepositoryPathUtils.buildZookeeperRootPath(deadPath, child), false, new Stat());
+                transactions.add(RepositoryConvertUtils.transformBean(content, objectSerializer));
+            }
+            return transactions;
+        } catch (KeeperException | InterruptedException | CatException e) {
+            throw new CatRuntimeException(e);
+        }
+    }
+
+    @Override
+    public int replay(final String id) {
+        final String path = RepositoryPathUtils.buildZookeeperRootPath(deadPath, id);
+        try {
+            final Stat stat = new Stat();
+            byte[] content = zooKeeper.getData(path, false, stat);
+            final byte[] replayed = RepositoryConvertUtils.updateHeader(content, objectSerializer, transaction -> {
+                transaction.setRetriedCount(0);
+                transaction.setNextRetryTime(null);
+            });
+            zooKeeper.multi(Arrays.asList(
+                    Op.create(buildRootPath(id), replayed, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT),
+                    Op.delete(path, stat.getVersion())));
+            return ROWS;
+        } catch (KeeperException | CatException e) {
+            LogUtil.warn(LOGGER, "replay zookeeper transaction failed:{}", () -> id + " " + e.getMessage());
+            return FAIL_ROWS;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FAIL_ROWS;
+        }
+    }
+
+    @Override
+    public int purge(final String id) {
+        try {
+            zooKeeper.delete(RepositoryPathUtils.buildZookeeperRootPath(deadPath, id), -1);
+            return ROWS;
+        } catch (KeeperException.NoNodeException e) {
+            return FAIL_ROWS;
+        } catch (KeeperException | InterruptedException e) {
+            throw new CatRuntimeException(e);
+        }
+    }
+
     @Override
     public void setSerializer(final ObjectSerializer objectSerializer) {
         this.objectSerializer = objectSerializer;
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.zoo.cat.core.concurrent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class CatAdaptiveLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void testAcquireBoundedByLimit() {
+        CatAdaptiveLimit limit = new CatAdaptiveLimit(2, 1, 10, 0.5, 2);
+        Assert.assertTrue(limit.tryAcquire());
+        Assert.assertTrue(limit.tryAcquire());
+        Assert.assertFalse(limit.tryAcquire());
+        Assert.assertEquals(2, limit.getInFlight());
+        limit.release(FAST);
+        Assert.assertEquals(1, limit.getInFlight());
+        Assert.assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    public void testSlowCallsBackOffOncePerRound() throws InterruptedException {
+        CatAdaptiveLimit limit = new CatAdaptiveLimit(10, 4, 20, 0.5, 2);
+        call(limit, FAST);
+        Assert.assertEquals(10, limit.getLimit());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(limit.tryAcquire());
+        }
+        for (int i = 0; i < 5; i++) {
+            limit.release(SLOW);
+        }
+        Assert.assertEquals(5, limit.getLimit());
+        Thread.sleep(20);
+        call(limit, SLOW);
+        Assert.assertEquals(4, limit.getLimit());
+        Thread.sleep(20);
+        call(limit, SLOW);
+        Assert.assertEquals(4, limit.getLimit());
+        Assert.assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    public void testFastCallsGrowOnlyWhileBusy() {
+        CatAdaptiveLimit limit = new CatAdaptiveLimit(4, 1, 10, 0.5, 2);
+        for (int i = 0; i < 10; i++) {
+            call(limit, FAST);
+        }
+        Assert.assertEquals(4, limit.getLimit());
+
+        limit = new CatAdaptiveLimit(2, 1, 3, 0.5, 2);
+        round(limit);
+        Assert.assertEquals(2, limit.getLimit());
+        for (int i = 0; i < 10; i++) {
+            round(limit);
+        }
+        Assert.assertEquals(3, limit.getLimit());
+        Assert.assertEquals(0, limit.getInFlight());
+    }
+
+    private static void call(final CatAdaptiveLimit limit, final long latencyNanos) {
+        Assert.assertTrue(limit.tryAcquire());
+        limit.release(latencyNanos);
+    }
+
+    private static void round(final CatAdaptiveLimit limit) {
+        final int slots = limit.getLimit();
+        for (int i = 0; i < slots; i++) {
+            Assert.assertTrue(limit.tryAcquire());
+        }
+        for (int i = 0; i < slots; i++) {
+            limit.release(FAST);
+        }
+    }
+}
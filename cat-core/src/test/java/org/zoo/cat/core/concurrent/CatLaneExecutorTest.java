@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.zoo.cat.core.concurrent;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.zoo.cat.common.config.CatConfig;
+import org.zoo.cat.common.config.CatLaneConfig;
+import org.zoo.cat.core.concurrent.CatLaneExecutor.Lane;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CatLaneExecutorTest {
+
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    private CatRuntime catRuntime;
+
+    private CatLaneExecutor executor;
+
+    @After
+    public void tearDown() {
+        unblock.countDown();
+        if (executor != null) {
+            executor.destroy();
+        }
+        if (catRuntime != null) {
+            catRuntime.destroy();
+        }
+    }
+
+    @Test
+    public void testWeightedRoundRobin() throws InterruptedException {
+        CatLaneConfig laneConfig = new CatLaneConfig();
+        laneConfig.setConfirmWeight(3);
+        laneConfig.setCancelWeight(1);
+        start(laneConfig);
+        List<Lane> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(16);
+        for (int i = 0; i < 8; i++) {
+            Assert.assertTrue(executor.offer(Lane.CONFIRM, 0, record(ran, Lane.CONFIRM, done)));
+            Assert.assertTrue(executor.offer(Lane.CANCEL, 0, record(ran, Lane.CANCEL, done)));
+        }
+        unblock.countDown();
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(Lane.CONFIRM, Lane.CONFIRM, Lane.CANCEL, Lane.CONFIRM,
+                Lane.CONFIRM, Lane.CONFIRM, Lane.CANCEL, Lane.CONFIRM), ran.subList(0, 8));
+    }
+
+    @Test
+    public void testPriorityInLane() throws InterruptedException {
+        start(new CatLaneConfig());
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(4);
+        for (String name : new String[]{"1", "5a", "3", "5b"}) {
+            executor.offer(Lane.NOTICE, Character.getNumericValue(name.charAt(0)), () -> {
+                ran.add(name);
+                done.countDown();
+            });
+        }
+        unblock.countDown();
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("5a", "5b", "3", "1"), ran);
+    }
+
+    @Test
+    public void testCapacityAndCallerRuns() throws InterruptedException {
+        CatLaneConfig laneConfig = new CatLaneConfig();
+        laneConfig.setConfirmCapacity(2);
+        start(laneConfig);
+        CountDownLatch done = new CountDownLatch(3);
+        Assert.assertTrue(executor.offer(Lane.CONFIRM, 0, done::countDown));
+        Assert.assertTrue(executor.offer(Lane.CONFIRM, 0, done::countDown));
+        Assert.assertFalse(executor.offer(Lane.CONFIRM, 0, done::countDown));
+        Assert.assertEquals(2, executor.getQueued(Lane.CONFIRM));
+        Assert.assertTrue(executor.offer(Lane.CANCEL, 0, done::countDown));
+        Assert.assertEquals(1, executor.getQueued(Lane.CANCEL));
+
+        AtomicReference<Thread> runner = new AtomicReference<>();
+        executor.execute(Lane.CONFIRM, 0, () -> runner.set(Thread.currentThread()));
+        Assert.assertSame(Thread.currentThread(), runner.get());
+        Assert.assertEquals(1, executor.getCallerRuns());
+        Assert.assertEquals(2, executor.getQueued(Lane.CONFIRM));
+
+        unblock.countDown();
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, executor.getQueued(Lane.CONFIRM));
+        Assert.assertEquals(0, executor.getQueued(Lane.CANCEL));
+    }
+
+    private void start(final CatLaneConfig laneConfig) throws InterruptedException {
+        CatConfig catConfig = new CatConfig();
+        catConfig.setAsyncThreads(1);
+        catConfig.setCatLaneConfig(laneConfig);
+        catRuntime = new CatRuntime(catConfig);
+        executor = new CatLaneExecutor(catConfig, catRuntime);
+        executor.offer(Lane.RECOVERY, 0, () -> {
+            blocked.countDown();
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, executor.getQueued(Lane.RECOVERY));
+    }
+
+    private static Runnable record(final List<Lane> ran, final Lane lane, final CountDownLatch done) {
+        return () -> {
+            ran.add(lane);
+            done.countDown();
+        };
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.zoo.cat.core.concurrent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CatTimingWheelTest {
+
+    @Test
+    public void testRunAfterDelayInOrder() throws InterruptedException {
+        CatTimingWheel wheel = new CatTimingWheel("cat-timing-wheel-test", 10, 8, Runnable::run);
+        try {
+            List<Long> fired = Collections.synchronizedList(new ArrayList<>());
+            List<Long> early = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch latch = new CountDownLatch(3);
+            long start = System.nanoTime();
+            for (long delay : new long[]{150, 50, 100}) {
+                Assert.assertTrue(wheel.schedule(() -> {
+                    if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delay)) {
+                        early.add(delay);
+                    }
+                    fired.add(delay);
+                    latch.countDown();
+                }, delay, TimeUnit.MILLISECONDS));
+            }
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(Arrays.asList(50L, 100L, 150L), fired);
+            Assert.assertTrue(early.isEmpty());
+            Assert.assertEquals(0, wheel.getPending());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testStopDropsPending() {
+        CatTimingWheel wheel = new CatTimingWheel("cat-timing-wheel-test", 10, 8, Runnable::run);
+        Assert.assertTrue(wheel.schedule(() -> { }, 10, TimeUnit.SECONDS));
+        Assert.assertTrue(wheel.schedule(() -> { }, 20, TimeUnit.SECONDS));
+        Assert.assertEquals(2, wheel.getPending());
+        Assert.assertEquals(2, wheel.stop());
+        Assert.assertEquals(0, wheel.getPending());
+        Assert.assertFalse(wheel.schedule(() -> { }, 10, TimeUnit.MILLISECONDS));
+    }
+}
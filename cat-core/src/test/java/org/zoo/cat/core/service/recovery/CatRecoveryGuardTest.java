@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.zoo.cat.core.service.recovery;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.zoo.cat.common.bean.entity.CatParticipant;
+import org.zoo.cat.common.bean.entity.CatTransaction;
+import org.zoo.cat.common.config.CatRecoveryBreakerConfig;
+import org.zoo.cat.common.enums.CatActionEnum;
+import org.zoo.cat.core.spi.CatCoordinatorRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class CatRecoveryGuardTest {
+
+    private static final String TARGET = "org.zoo.cat.demo.AccountService";
+
+    private static final String OTHER = "org.zoo.cat.demo.InventoryService";
+
+    private static CatRecoveryBreakerConfig config() {
+        CatRecoveryBreakerConfig config = new CatRecoveryBreakerConfig();
+        config.setFailureThreshold(2);
+        config.setOpenMills(100);
+        config.setHalfOpenPermits(1);
+        config.setSuccessThreshold(2);
+        config.setPermitsPerSecond(1000);
+        config.setBurst(100);
+        return config;
+    }
+
+    @Test
+    public void testOpenAfterConsecutiveFailures() {
+        CatRecoveryGuard guard = new CatRecoveryGuard(config());
+        Set<String> targets = Collections.singleton(TARGET);
+        Assert.assertTrue(guard.tryAcquire(targets));
+        guard.onFailure(TARGET);
+        guard.onSuccess(TARGET);
+        guard.onFailure(TARGET);
+        Assert.assertEquals(0, guard.getOpen());
+        guard.onFailure(TARGET);
+        Assert.assertEquals(1, guard.getOpen());
+        Assert.assertFalse(guard.tryAcquire(targets));
+        Assert.assertEquals(1, guard.getRejected());
+    }
+
+    @Test
+    public void testHalfOpenCloses() throws InterruptedException {
+        CatRecoveryGuard guard = open();
+        Set<String> targets = Collections.singleton(TARGET);
+        Thread.sleep(150);
+        Assert.assertTrue(guard.tryAcquire(targets));
+        Assert.assertFalse(guard.tryAcquire(targets));
+        guard.onSuccess(TARGET);
+        Assert.assertEquals(1, guard.getOpen());
+        Assert.assertTrue(guard.tryAcquire(targets));
+        guard.onSuccess(TARGET);
+        Assert.assertEquals(0, guard.getOpen());
+        Assert.assertTrue(guard.tryAcquire(targets));
+        Assert.assertTrue(guard.tryAcquire(targets));
+    }
+
+    @Test
+    public void testHalfOpenFailureReopens() throws InterruptedException {
+        CatRecoveryGuard guard = open();
+        Set<String> targets = Collections.singleton(TARGET);
+        Thread.sleep(150);
+        Assert.assertTrue(guard.tryAcquire(targets));
+        guard.onFailure(TARGET);
+        Assert.assertEquals(1, guard.getOpen());
+        Assert.assertFalse(guard.tryAcquire(targets));
+    }
+
+    @Test
+    public void testReleaseGivesBackTrial() throws InterruptedException {
+        CatRecoveryGuard guard = open();
+        Set<String> targets = Collections.singleton(TARGET);
+        Thread.sleep(150);
+        Assert.assertTrue(guard.tryAcquire(targets));
+        guard.release(targets);
+        Assert.assertTrue(guard.tryAcquire(targets));
+    }
+
+    @Test
+    public void testAllOrNone() {
+        CatRecoveryBreakerConfig config = config();
+        config.setPermitsPerSecond(0.001);
+        config.setBurst(1);
+        CatRecoveryGuard guard = new CatRecoveryGuard(config);
+        Assert.assertTrue(guard.tryAcquire(Collections.singleton(OTHER)));
+        Set<String> targets = new LinkedHashSet<>(Arrays.asList(TARGET, OTHER));
+        Assert.assertFalse(guard.tryAcquire(targets));
+        Assert.assertTrue(guard.tryAcquire(Collections.singleton(TARGET)));
+        Assert.assertEquals(1, guard.getRejected());
+    }
+
+    @Test
+    public void testBudget() {
+        CatRecoveryBreakerConfig config = config();
+        config.setPermitsPerSecond(0.001);
+        config.setBurst(2);
+        CatRecoveryGuard guard = new CatRecoveryGuard(config);
+        Set<String> targets = Collections.singleton(TARGET);
+        Assert.assertTrue(guard.tryAcquire(targets));
+        Assert.assertTrue(guard.tryAcquire(targets));
+        Assert.assertFalse(guard.tryAcquire(targets));
+        guard.release(targets);
+        Assert.assertTrue(guard.tryAcquire(targets));
+    }
+
+    @Test
+    public void testDisabled() {
+        CatRecoveryBreakerConfig config = config();
+        config.setEnabled(false);
+        config.setBurst(1);
+        CatRecoveryGuard guard = new CatRecoveryGuard(config);
+        Set<String> targets = Collections.singleton(TARGET);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(guard.tryAcquire(targets));
+            guard.onFailure(TARGET);
+        }
+        Assert.assertEquals(0, guard.getOpen());
+        Assert.assertEquals(0, guard.getRejected());
+    }
+
+    @Test
+    public void testRecoveryReportsOncePerTarget() throws InterruptedException {
+        CatRecoveryGuard guard = new CatRecoveryGuard(config());
+        CatTransaction catTransaction = new CatTransaction("1");
+        catTransaction.setStatus(CatActionEnum.CONFIRMING.getCode());
+        catTransaction.setCatParticipants(Arrays.asList(new CatParticipant(), new CatParticipant()));
+        Set<String> targets = CatRecoveryGuard.targets(catTransaction);
+        Assert.assertEquals(1, targets.size());
+        String target = targets.iterator().next();
+        Assert.assertTrue(guard.tryAcquire(targets));
+        guard.onFailure(target);
+        guard.onFailure(target);
+        Assert.assertEquals(1, guard.getOpen());
+        Thread.sleep(150);
+        Assert.assertTrue(guard.tryAcquire(targets));
+        CatCoordinatorRepository repository = (CatCoordinatorRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{CatCoordinatorRepository.class}, (proxy, method, args) -> 0);
+        Assert.assertTrue(new CatTransactionRecoveryService(repository, guard).confirm(catTransaction));
+        Assert.assertEquals(1, guard.getOpen());
+        Assert.assertTrue(guard.tryAcquire(targets));
+    }
+
+    private static CatRecoveryGuard open() {
+        CatRecoveryGuard guard = new CatRecoveryGuard(config());
+        Assert.assertTrue(guard.tryAcquire(Collections.singleton(TARGET)));
+        guard.onFailure(TARGET);
+        guard.onFailure(TARGET);
+        Assert.assertEquals(1, guard.getOpen());
+        return guard;
+    }
+}
@@ -60,15 +60,30 @@ public class CatAutoConfiguration {
         catTransactionBootstrap.setScheduledDelay(catConfigProperties.getScheduledDelay());
         catTransactionBootstrap.setScheduledInitDelay(catConfigProperties.getScheduledInitDelay());
         catTransactionBootstrap.setScheduledThreadMax(catConfigProperties.getScheduledThreadMax());
+        catTransactionBootstrap.setRecoveryQueueSize(catConfigProperties.getRecoveryQueueSize());
+        catTransactionBootstrap.setRecoverySharding(catConfigProperties.isRecoverySharding());
+        catTransactionBootstrap.setStartupRecoveryThreads(catConfigProperties.getStartupRecoveryThreads());
+        catTransactionBootstrap.setRetryBackoffMultiplier(catConfigProperties.getRetryBackoffMultiplier());
+        catTransactionBootstrap.setRetryMaxDelayTime(catConfigProperties.getRetryMaxDelayTime());
+        catTransactionBootstrap.setRetryJitter(catConfigProperties.getRetryJitter());
         catTransactionBootstrap.setSerializer(catConfigProperties.getSerializer());
         catTransactionBootstrap.setCatFileConfig(catConfigProperties.getCatFileConfig());
         catTransactionBootstrap.setCatDbConfig(catConfigProperties.getCatDbConfig());
         catTransactionBootstrap.setCatRedisConfig(catConfigProperties.getCatRedisConfig());
         catTransactionBootstrap.setCatZookeeperConfig(catConfigProperties.getCatZookeeperConfig());
         catTransactionBootstrap.setCatMongoConfig(catConfigProperties.getCatMongoConfig());
+        catTransactionBootstrap.setCatJournalConfig(catConfigProperties.getCatJournalConfig());
+        catTransactionBootstrap.setCatCompressConfig(catConfigProperties.getCatCompressConfig());
+        catTransactionBootstrap.setCatFastRetryConfig(catConfigProperties.getCatFastRetryConfig());
+        catTransactionBootstrap.setCatRecoveryBreakerConfig(catConfigProperties.getCatRecoveryBreakerConfig());
+        catTransactionBootstrap.setCatLaneConfig(catConfigProperties.getCatLaneConfig());
+        catTransactionBootstrap.setCatNoticeSafeConfig(catConfigProperties.getCatNoticeSafeConfig());
+        catTransactionBootstrap.setCatAdmissionConfig(catConfigProperties.getCatAdmissionConfig());
         catTransactionBootstrap.setConsumerThreads(catConfigProperties.getConsumerThreads());
         catTransactionBootstrap.setLoadFactor(catConfigProperties.getLoadFactor());
         catTransactionBootstrap.setAsyncThreads(catConfigProperties.getAsyncThreads());
+        catTransactionBootstrap.setSchedulerThreads(catConfigProperties.getSchedulerThreads());
+        catTransactionBootstrap.setVirtualThreads(catConfigProperties.isVirtualThreads());
         catTransactionBootstrap.setConcurrencyScale(catConfigProperties.getConcurrencyScale());
         return catTransactionBootstrap;
     }
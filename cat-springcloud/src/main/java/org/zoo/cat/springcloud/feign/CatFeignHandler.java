@@ -17,15 +17,13 @@
 
 package org.zoo.cat.springcloud.feign;
 
-import org.zoo.cat.annotation.Cat;
 import org.zoo.cat.common.bean.context.CatTransactionContext;
-import org.zoo.cat.common.bean.entity.CatInvocation;
 import org.zoo.cat.common.bean.entity.CatParticipant;
 import org.zoo.cat.common.enums.CatActionEnum;
 import org.zoo.cat.common.enums.CatRoleEnum;
-import org.zoo.cat.common.utils.StringUtils;
 import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
 import org.zoo.cat.core.helper.SpringBeanUtils;
+import org.zoo.cat.core.reflect.CatMethodMetadata;
 import org.zoo.cat.core.service.executor.CatTransactionExecutor;
 
 import java.lang.reflect.InvocationHandler;
@@ -41,13 +39,15 @@ public class CatFeignHandler implements InvocationHandler {
 
     private InvocationHandler delegate;
 
+    private volatile CatTransactionExecutor catTransactionExecutor;
+
     @Override
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
         if (Object.class.equals(method.getDeclaringClass())) {
             return method.invoke(this, args);
         } else {
-            final Cat cat = method.getAnnotation(Cat.class);
-            if (Objects.isNull(cat)) {
+            final CatMethodMetadata metadata = CatMethodMetadata.of(method);
+            if (Objects.isNull(metadata)) {
                 return this.delegate.invoke(proxy, method, args);
             }
             try {
@@ -57,10 +57,9 @@ public class CatFeignHandler implements InvocationHandler {
                         catTransactionContext.setRole(CatRoleEnum.INLINE.getCode());
                     }
                 }
-                final CatTransactionExecutor catTransactionExecutor =
-                        SpringBeanUtils.getInstance().getBean(CatTransactionExecutor.class);
+                final CatTransactionExecutor catTransactionExecutor = getCatTransactionExecutor();
                 final Object invoke = delegate.invoke(proxy, method, args);
-                final CatParticipant catParticipant = buildParticipant(cat, method, args, catTransactionContext);
+                final CatParticipant catParticipant = buildParticipant(metadata, args, catTransactionContext);
                 if (catTransactionContext.getRole() == CatRoleEnum.INLINE.getCode()) {
                     catTransactionExecutor.registerByNested(catTransactionContext.getTransId(),
                             catParticipant);
@@ -75,24 +74,20 @@ public class CatFeignHandler implements InvocationHandler {
         }
     }
 
-    private CatParticipant buildParticipant(final Cat cat, final Method method, final Object[] args,
+    private CatParticipant buildParticipant(final CatMethodMetadata metadata, final Object[] args,
                                               final CatTransactionContext catTransactionContext) {
         if (Objects.isNull(catTransactionContext)
                 || (CatActionEnum.TRYING.getCode() != catTransactionContext.getAction())) {
             return null;
         }
-        String confirmMethodName = cat.confirmMethod();
-        if (StringUtils.isBlank(confirmMethodName)) {
-            confirmMethodName = method.getName();
-        }
-        String cancelMethodName = cat.cancelMethod();
-        if (StringUtils.isBlank(cancelMethodName)) {
-            cancelMethodName = method.getName();
+        return metadata.participant(catTransactionContext.getTransId(), args);
+    }
+
+    private CatTransactionExecutor getCatTransactionExecutor() {
+        if (Objects.isNull(catTransactionExecutor)) {
+            catTransactionExecutor = SpringBeanUtils.getInstance().getBean(CatTransactionExecutor.class);
         }
-        final Class<?> declaringClass = method.getDeclaringClass();
-        CatInvocation confirmInvocation = new CatInvocation(declaringClass, confirmMethodName, method.getParameterTypes(), args);
-        CatInvocation cancelInvocation = new CatInvocation(declaringClass, cancelMethodName, method.getParameterTypes(), args);
-        return new CatParticipant(catTransactionContext.getTransId(), confirmInvocation, cancelInvocation);
+        return catTransactionExecutor;
     }
 
     void setDelegate(InvocationHandler delegate) {
@@ -31,8 +31,7 @@ import com.netflix.hystrix.strategy.properties.HystrixProperty;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.zoo.cat.common.bean.context.CatTransactionContext;
-import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
+import org.zoo.cat.core.concurrent.threadlocal.CatContextExecutors;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -80,12 +79,8 @@ public class CatHystrixConcurrencyStrategy extends HystrixConcurrencyStrategy {
 
     @Override
     public <T> Callable<T> wrapCallable(Callable<T> callable) {
-        final CatTransactionContext catTransactionContext =
-                CatTransactionContextLocal.getInstance().get();
-        return () -> {
-            CatTransactionContextLocal.getInstance().set(catTransactionContext);
-            return delegate.wrapCallable(callable).call();
-        };
+        //bound only while the command runs, the pooled thread gets back what it had before
+        return CatContextExecutors.wrap(delegate.wrapCallable(callable));
     }
 
     @Override
@@ -17,26 +17,26 @@
 
 package org.zoo.cat.springcloud.loadbalancer;
 
-import com.google.common.collect.Maps;
 import com.netflix.loadbalancer.Server;
 import com.netflix.loadbalancer.ZoneAvoidanceRule;
 
 import org.zoo.cat.common.bean.context.CatTransactionContext;
 import org.zoo.cat.common.enums.CatActionEnum;
+import org.zoo.cat.core.cache.CatRouteAffinity;
 import org.zoo.cat.core.concurrent.threadlocal.CatTransactionContextLocal;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 /**
  * The type Cat zone aware LoadBalancer.
+ * the confirm and cancel of a transaction go to the server of its try, known by its id.
  *
  * @author dzc
  */
 public class CatZoneAwareLoadBalancer extends ZoneAvoidanceRule {
 
-    private static final Map<String, Server> SERVER_MAP = Maps.newConcurrentMap();
+    private static final CatRouteAffinity<Server> AFFINITY = new CatRouteAffinity<>(Server::getId);
 
     public CatZoneAwareLoadBalancer() {
     }
@@ -57,23 +57,19 @@ public class CatZoneAwareLoadBalancer extends ZoneAvoidanceRule {
 
         final String transId = catTransactionContext.getTransId();
         //if try
-        if (catTransactionContext.getAction() == CatActionEnum.TRYING.getCode() || catTransactionContext.getAction() == CatActionEnum.NOTICEING.getCode()) {
-            SERVER_MAP.put(transId, server);
+        if (catTransactionContext.getAction() == CatActionEnum.TRYING.getCode()) {
+            AFFINITY.bind(transId, server);
             return server;
         }
 
-        final Server oldServer = SERVER_MAP.get(transId);
+        //notice has no second phase
+        if (catTransactionContext.getAction() == CatActionEnum.NOTICEING.getCode()) {
+            return server;
+        }
 
-        SERVER_MAP.remove(transId);
+        final Server oldServer = AFFINITY.take(transId, serverList);
 
-        if (Objects.nonNull(oldServer)) {
-            for (Server s : serverList) {
-                if (Objects.equals(s, oldServer)) {
-                    return oldServer;
-                }
-            }
-        }
-        return server;
+        return Objects.nonNull(oldServer) ? oldServer : server;
     }
 
 }